@@ -43,6 +43,7 @@ import de.parmol.parsers.GraphParser;
 import de.parmol.search.DFSSearchable;
 import de.parmol.search.SearchManager;
 import de.parmol.search.ThreadedDFSSearch;
+import de.parmol.search.WorkStealingDFSSearch;
 import de.parmol.util.DefaultObjectPool;
 import de.parmol.util.FragmentSet;
 import de.parmol.util.FrequentFragment;
@@ -72,10 +73,20 @@ public abstract class AbstractMiner {
 		o = ClassifiedDirectedMatrixGraph.Factory.instance;		
 		o = UndirectedMatrixRingGraph.Factory.instance;
 		o = DirectedMatrixRingGraph.Factory.instance;
+		
+		o = UndirectedCompactGraph.Factory.instance;
 		o = o.getClass();
 	}
 	
+	/**
+	 * Returns the search manager selected by the distribution scheme in the settings.
+	 * @param searchable the DFSSearchable through which the search is done
+	 * @return a new SearchManager
+	 */
 	protected SearchManager getSearchManager(DFSSearchable searchable) {
+		if (WorkStealingDFSSearch.DISTRIBUTION_SCHEME.equals(m_settings.distributionScheme)) {
+			return new WorkStealingDFSSearch(m_settings, searchable);
+		}
 		return new ThreadedDFSSearch(m_settings, searchable);
 	}
 	
@@ -129,7 +140,8 @@ public abstract class AbstractMiner {
 			t = System.currentTimeMillis();
 		}
 		
-		m_graphs = Arrays.asList(parser.parse(in, getGraphFactory(parser)));
+		GraphFactory factory = getGraphFactory(parser);
+		m_graphs = Arrays.asList(factory.compact(parser.parse(in, factory)));
 		m_settings.directedSearch=parser.directed();
 		int classCount = 1;
 		if (m_settings.classFrequencyFile != null) {
@@ -389,7 +401,21 @@ public abstract class AbstractMiner {
 	protected GraphFactory getGraphFactory(GraphParser parser) {
 		int mask = parser.getDesiredGraphFactoryProperties();
 		
-		return GraphFactory.getFactory(mask);
+		return GraphFactory.getFactory(addCompactGraphType(mask));
+	}
+	
+	/**
+	 * Replaces the list graph type by the compact graph type in the given type mask, if compact graphs are requested
+	 * in the settings and the mask allows them.
+	 * @param mask a type mask for a GraphFactory
+	 * @return the maybe changed type mask
+	 */
+	protected int addCompactGraphType(int mask) {
+		if (m_settings.compactGraphs
+				&& ((mask & (GraphFactory.DIRECTED_GRAPH | GraphFactory.RING_GRAPH | GraphFactory.MATRIX_GRAPH)) == 0)) {
+			return (mask & ~GraphFactory.LIST_GRAPH) | GraphFactory.COMPACT_GRAPH;
+		}
+		return mask;
 	}
 	
 	/**
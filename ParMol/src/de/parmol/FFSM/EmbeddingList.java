@@ -21,7 +21,7 @@
  */
 package de.parmol.FFSM;
 
-import java.util.Arrays;
+import de.parmol.graph.Graph;
 
 
 /**
@@ -29,64 +29,135 @@ import java.util.Arrays;
  * matrix that owns this embedding list. The list offers methods for the calculation of embedding lists of extended
  * matrices.
  * 
+ * All embeddings of a list extend embeddings of the same parent list, whose embeddings have one node less. Each
+ * embedding is stored as two ints in a single array: the index of its prefix in the parent list and the node that has
+ * been added last. So the prefix is shared with the parent list instead of being copied into each embedding. Lists of
+ * embeddings with a single node have no parent list, they store the index of the supergraph in the graph array shared by
+ * all lists instead of the prefix. The natural order of embeddings is the lexicographic order of the supergraph index
+ * followed by the nodes in the order in which they have been added. As all lists are kept sorted by this order, two
+ * embeddings with the same parent list can be compared by their prefix index and last node alone.
+ * 
  * @author Thorsten Meinl <Thorsten.Meinl@informatik.uni-erlangen.de>
  *  
  */
 public class EmbeddingList {
-	private Embedding[] m_embeddings;
-	private int m_size = 0;
+	private final static int STRIDE = 2;
+	private final static int PREFIX = 0, NODE = 1;
+
+	private final Graph[] m_graphs;
+	private final EmbeddingList m_parent;
+	private final int m_nodeCount;
+	private int[] m_data = EMPTY;
+	private int m_size = 0, m_initialSize;
 
 	private final static int DEFAULT_SIZE = 16;
+	private final static int[] EMPTY = new int[0];
 
 
 	/**
-	 * Creates a new embedding list with the default size of 16 free entries.
+	 * Creates a new embedding list for embeddings with one node and the default size of 16 free entries.
+	 * 
+	 * @param graphs the supergraphs of all embeddings, the embeddings refer to them by their index
 	 */
-	public EmbeddingList() {
-		m_embeddings = new Embedding[DEFAULT_SIZE];
+	public EmbeddingList(Graph[] graphs) {
+		this(graphs, null, 1, DEFAULT_SIZE);
 	}
 
 
 	/**
-	 * Creates a new embedding list with the given free size.
+	 * Creates a new empty embedding list with the given free size. The memory is allocated when the first embedding is
+	 * added, because many joins do not result in any embedding.
 	 * 
+	 * @param graphs the supergraphs of all embeddings, the embeddings refer to them by their index
+	 * @param parent the list that contains the prefixes of all embeddings or <code>null</code> for embeddings with one
+	 *          node
+	 * @param nodeCount the number of nodes in each embedding
 	 * @param size the initial size of the list
 	 */
-	public EmbeddingList(int size) {
-		m_embeddings = new Embedding[size];
+	private EmbeddingList(Graph[] graphs, EmbeddingList parent, int nodeCount, int size) {
+		m_graphs = graphs;
+		m_parent = parent;
+		m_nodeCount = nodeCount;
+		m_initialSize = Math.max(size, 1);
 	}
 
 
 	/**
-	 * Adds an embedding to the list.
+	 * Creates a new empty embedding list for embeddings that have one node more than the embeddings in the given list.
 	 * 
-	 * @param e an embedding
+	 * @param parents the list with the parent embeddings
+	 * @param size the initial size of the list
 	 */
-	public void addEmbedding(Embedding e) {
-		if (m_size >= m_embeddings.length) resize();
-		m_embeddings[m_size++] = e;
+	public EmbeddingList(EmbeddingList parents, int size) {
+		this(parents.m_graphs, parents, parents.m_nodeCount + 1, size);
 	}
 
 
 	/**
-	 * Adds the given embedding at the right position according to the natural order of embeddings.
+	 * Adds an embedding with a single node to the list.
 	 * 
-	 * @param e an embedding
+	 * @param graphIndex the index of the supergraph
+	 * @param node the only node in the embedding
 	 */
-	public void addEmbeddingSorted(Embedding e) {
-		if (m_size >= m_embeddings.length) resize();
+	public void addEmbedding(int graphIndex, int node) {
+		assert (m_parent == null);
+		add(graphIndex, node);
+	}
 
-		m_size++;
-		for (int i = m_size - 2; i >= 0; i--) {
-			if (m_embeddings[i].compareTo(e) <= 0) {
-				m_embeddings[i + 1] = e;
-				return;
-			} else {
-				m_embeddings[i + 1] = m_embeddings[i];
+
+	/**
+	 * Adds the given embedding of the parent list that is extended by the given node at the right position according to
+	 * the natural order of embeddings.
+	 * 
+	 * @param parents the parent list of this list
+	 * @param parentIndex the index of the parent embedding
+	 * @param node the new node
+	 */
+	public void addEmbeddingSorted(EmbeddingList parents, int parentIndex, int node) {
+		assert (parents == m_parent);
+		add(parentIndex, node);
+
+		// move the new embedding forward to its place, all embeddings have the same parent list
+		for (int pos = (m_size - 1) * STRIDE; pos > 0; pos -= STRIDE) {
+			final int diff = (m_data[pos - STRIDE + PREFIX] != parentIndex) ? m_data[pos - STRIDE + PREFIX] - parentIndex
+					: m_data[pos - STRIDE + NODE] - node;
+			if (diff <= 0) break;
+
+			for (int i = 0; i < STRIDE; i++) {
+				final int temp = m_data[pos + i];
+				m_data[pos + i] = m_data[pos - STRIDE + i];
+				m_data[pos - STRIDE + i] = temp;
 			}
 		}
+	}
 
-		m_embeddings[0] = e;
+
+	/**
+	 * Appends an embedding to the list.
+	 * 
+	 * @param prefix the index of the prefix in the parent list or the index of the supergraph if there is no parent list
+	 * @param node the last node
+	 */
+	private void add(int prefix, int node) {
+		if ((m_size + 1) * STRIDE > m_data.length) resize();
+		final int pos = m_size * STRIDE;
+		m_data[pos + PREFIX] = prefix;
+		m_data[pos + NODE] = node;
+		m_size++;
+	}
+
+
+	/**
+	 * Appends the embedding with the given index in the given list, which has the same parent list as this list.
+	 * 
+	 * @param list an embedding list
+	 * @param index the index of the embedding in the list
+	 */
+	private void append(EmbeddingList list, int index) {
+		assert (list.m_parent == m_parent);
+		if ((m_size + 1) * STRIDE > m_data.length) resize();
+		System.arraycopy(list.m_data, index * STRIDE, m_data, m_size * STRIDE, STRIDE);
+		m_size++;
 	}
 
 
@@ -94,10 +165,29 @@ public class EmbeddingList {
 	 * Resizes the list.
 	 */
 	private void resize() {
-		final int newSize = m_embeddings.length + (m_embeddings.length / 3) + 1;
-		final Embedding[] newEmbeddings = new Embedding[newSize];
-		System.arraycopy(m_embeddings, 0, newEmbeddings, 0, m_embeddings.length);
-		m_embeddings = newEmbeddings;
+		if (m_data.length == 0) {
+			m_data = new int[m_initialSize * STRIDE];
+			return;
+		}
+		final int length = m_data.length / STRIDE;
+		final int[] newData = new int[(length + (length / 3) + 1) * STRIDE];
+		System.arraycopy(m_data, 0, newData, 0, m_size * STRIDE);
+		m_data = newData;
+	}
+
+
+	/**
+	 * Shrinks the list to its size. This should be called after all embeddings have been added, because lists are
+	 * usually created with room for the worst case.
+	 */
+	public void trim() {
+		if (m_size == 0) {
+			m_data = EMPTY;
+		} else if (m_data.length > m_size * STRIDE) {
+			final int[] newData = new int[m_size * STRIDE];
+			System.arraycopy(m_data, 0, newData, 0, m_size * STRIDE);
+			m_data = newData;
+		}
 	}
 
 
@@ -112,14 +202,68 @@ public class EmbeddingList {
 
 
 	/**
-	 * Returns the embedding with the given index.
+	 * Returns the number of nodes in each embedding.
+	 * 
+	 * @return the number of nodes
+	 */
+	public int getNodeCount() {
+		return m_nodeCount;
+	}
+
+
+	/**
+	 * Returns the index of the supergraph of the embedding with the given index.
+	 * 
+	 * @param index an index between <code>0</code> and <code>size() - 1</code>
+	 * @return the index of the supergraph
+	 */
+	public int getGraphIndex(int index) {
+		assert (index < m_size);
+		EmbeddingList list = this;
+		while (list.m_parent != null) {
+			index = list.m_data[index * STRIDE + PREFIX];
+			list = list.m_parent;
+		}
+		return list.m_data[index * STRIDE + PREFIX];
+	}
+
+
+	/**
+	 * Returns the supergraph of the embedding with the given index.
+	 * 
+	 * @param index an index between <code>0</code> and <code>size() - 1</code>
+	 * @return the supergraph
+	 */
+	public Graph getSuperGraph(int index) {
+		return m_graphs[getGraphIndex(index)];
+	}
+
+
+	/**
+	 * Returns the node that was added last to the embedding with the given index.
 	 * 
 	 * @param index an index between <code>0</code> and <code>size() - 1</code>
-	 * @return an embedding
+	 * @return the last node in the embedding
 	 */
-	public Embedding get(int index) {
+	public int getNode(int index) {
 		assert (index < m_size);
-		return m_embeddings[index];
+		return m_data[index * STRIDE + NODE];
+	}
+
+
+	/**
+	 * Checks if the given node occurs in the embedding with the given index.
+	 * 
+	 * @param index an index between <code>0</code> and <code>size() - 1</code>
+	 * @param node a node
+	 * @return <code>true</code> if the node occurs in the embedding, <code>false</code> otherwise
+	 */
+	public boolean containsNode(int index, int node) {
+		for (EmbeddingList list = this; list != null; list = list.m_parent) {
+			if (list.m_data[index * STRIDE + NODE] == node) return true;
+			index = list.m_data[index * STRIDE + PREFIX];
+		}
+		return false;
 	}
 
 
@@ -127,7 +271,85 @@ public class EmbeddingList {
 	 * Sorts the embeddings in the list by their natural order.
 	 */
 	public void sort() {
-		Arrays.sort(m_embeddings, 0, m_size);
+		// a simple merge sort over whole embeddings
+		int[] src = m_data, dest = new int[m_data.length];
+		for (int width = 1; width < m_size; width <<= 1) {
+			for (int left = 0; left < m_size; left += 2 * width) {
+				final int mid = Math.min(left + width, m_size), end = Math.min(left + 2 * width, m_size);
+				int i = left, k = mid, pos = left * STRIDE;
+				while ((i < mid) || (k < end)) {
+					final int from;
+					if ((k >= end) || ((i < mid) && (compareRows(src, i * STRIDE, src, k * STRIDE) <= 0))) {
+						from = i++;
+					} else {
+						from = k++;
+					}
+					System.arraycopy(src, from * STRIDE, dest, pos, STRIDE);
+					pos += STRIDE;
+				}
+			}
+			final int[] temp = src;
+			src = dest;
+			dest = temp;
+		}
+		m_data = src;
+	}
+
+
+	/**
+	 * Compares two embeddings that have the same parent list.
+	 * 
+	 * @param a an array of packed embeddings
+	 * @param posA the position of the first embedding in <code>a</code>
+	 * @param b an array of packed embeddings
+	 * @param posB the position of the second embedding in <code>b</code>
+	 * @return a negative integer, zero, or a positive integer as the first embedding is less than, equal to, or greater
+	 *         than the second one
+	 */
+	private static int compareRows(int[] a, int posA, int[] b, int posB) {
+		for (int i = 0; i < STRIDE; i++) {
+			final int diff = a[posA + i] - b[posB + i];
+			if (diff != 0) return diff;
+		}
+		return 0;
+	}
+
+
+	/**
+	 * Compares the prefixes, i.e. all but the last node, of two embeddings with the same number of nodes.
+	 * 
+	 * @param a an embedding list
+	 * @param i the index of the first embedding in <code>a</code>
+	 * @param b another embedding list
+	 * @param k the index of the second embedding in <code>b</code>
+	 * @return a negative integer, zero, or a positive integer as the first prefix is less than, equal to, or greater than
+	 *         the second one
+	 */
+	private static int comparePrefixes(EmbeddingList a, int i, EmbeddingList b, int k) {
+		assert (a.m_nodeCount == b.m_nodeCount);
+		// this also compares the supergraphs of embeddings with a single node
+		if (a.m_parent == b.m_parent) return a.m_data[i * STRIDE + PREFIX] - b.m_data[k * STRIDE + PREFIX];
+		return compare(a.m_parent, a.m_data[i * STRIDE + PREFIX], b.m_parent, b.m_data[k * STRIDE + PREFIX]);
+	}
+
+
+	/**
+	 * Compares two embeddings with the same number of nodes.
+	 * 
+	 * @param a an embedding list
+	 * @param i the index of the first embedding in <code>a</code>
+	 * @param b another embedding list
+	 * @param k the index of the second embedding in <code>b</code>
+	 * @return a negative integer, zero, or a positive integer as the first embedding is less than, equal to, or greater
+	 *         than the second one
+	 */
+	private static int compare(EmbeddingList a, int i, EmbeddingList b, int k) {
+		// the embeddings of a list are sorted and unique
+		if (a == b) return i - k;
+
+		final int diff = comparePrefixes(a, i, b, k);
+		if (diff != 0) return diff;
+		return a.m_data[i * STRIDE + NODE] - b.m_data[k * STRIDE + NODE];
 	}
 
 
@@ -140,23 +362,26 @@ public class EmbeddingList {
 	 * @return a new embedding list which is the intersection of the two other lists
 	 */
 	public static EmbeddingList intersect(EmbeddingList l1, EmbeddingList l2) {
-		final EmbeddingList intersection = new EmbeddingList(Math.min(l1.size(), l2.size()));
+		assert (l1.m_nodeCount == l2.m_nodeCount);
+		final EmbeddingList intersection = new EmbeddingList(l1.m_graphs, l1.m_parent, l1.m_nodeCount, Math.min(l1
+				.size(), l2.size()));
 		int i = 0, k = 0;
 
-		while ((i < l1.size()) && (k < l2.size())) {
-			final int diff = l1.m_embeddings[i].compareTo(l2.m_embeddings[k]);
+		while ((i < l1.m_size) && (k < l2.m_size)) {
+			final int diff = compare(l1, i, l2, k);
 			if (diff < 0) {
 				i++;
 			} else if (diff > 0) {
 				k++;
 			} else {
-				intersection.addEmbedding(l1.m_embeddings[i]);
+				intersection.append(l1, i);
 				i++;
 				k++;
 			}
 		}
 
 		assert (intersection.isSorted());
+		intersection.trim();
 		return intersection;
 	}
 
@@ -170,27 +395,26 @@ public class EmbeddingList {
 	 * @return a new embedding list
 	 */
 	public static EmbeddingList joinCase2Intersection(EmbeddingList l1, EmbeddingList l2) {
-		final EmbeddingList intersection = new EmbeddingList(Math.min(l1.size(), l2.size()));
-		int i = 0, k = 0, lastI = 0;
+		assert (l1.m_nodeCount + 1 == l2.m_nodeCount);
+		final EmbeddingList intersection = new EmbeddingList(l2.m_graphs, l2.m_parent, l2.m_nodeCount, Math.min(l1
+				.size(), l2.size()));
+		int i = 0, k = 0;
 
-		while ((i < l1.size()) && (k < l2.size())) {
-			final int diff = l1.m_embeddings[i].compareTo(l2.m_embeddings[k].getParent());
+		// the embeddings in l1 are unique, so each embedding in l2 is compared with its parent
+		while ((i < l1.m_size) && (k < l2.m_size)) {
+			final int diff = compare(l1, i, l2.m_parent, l2.m_data[k * STRIDE + PREFIX]);
 			if (diff < 0) {
-				lastI = ++i;
+				i++;
 			} else if (diff > 0) {
 				k++;
-				i = lastI;
 			} else {
-				intersection.addEmbedding(l2.m_embeddings[k]);
-				i++;
-				if (i >= l1.size()) {
-					k++;
-					i = lastI;
-				}
+				intersection.append(l2, k);
+				k++;
 			}
 		}
 
 		assert (intersection.isSorted());
+		intersection.trim();
 		return intersection;
 	}
 
@@ -203,34 +427,35 @@ public class EmbeddingList {
 	 * @return a new embedding list
 	 */
 	public static EmbeddingList joinCase3BIntersection(EmbeddingList l1, EmbeddingList l2) {
-		final EmbeddingList intersection = new EmbeddingList(Math.max(l1.size(), l2.size()));
+		assert (l1.m_nodeCount == l2.m_nodeCount);
+		final EmbeddingList intersection = new EmbeddingList(l1, Math.max(l1.size(), l2.size()));
+		final int[] d1 = l1.m_data, d2 = l2.m_data;
 		int i = 0, k = 0, lastK = 0;
-		while ((i < l1.size()) && (k < l2.size())) {
-			if (l1.m_embeddings[i].getParent() == l2.m_embeddings[k].getParent()) {
-				if ((l1.m_embeddings[i] != l2.m_embeddings[k])
-						&& (l1.m_embeddings[i].getNode() != l2.m_embeddings[k].getNode())) {
-					intersection.addEmbedding(new Embedding(l1.m_embeddings[i], l2.m_embeddings[k].getNode()));
+
+		while ((i < l1.m_size) && (k < l2.m_size)) {
+			// compare the parents, i.e. all but the last node
+			final int diff = comparePrefixes(l1, i, l2, k);
+			if (diff == 0) {
+				final int node = d2[k * STRIDE + NODE];
+				if (d1[i * STRIDE + NODE] != node) {
+					intersection.add(i, node);
 				}
 
 				k++;
-				if (k >= l2.size()) {
+				if (k >= l2.m_size) {
 					k = lastK;
 					i++;
 				}
+			} else if (diff < 0) {
+				i++;
+				k = lastK;
 			} else {
-				final int diff = l1.m_embeddings[i].getParent().compareTo(l2.m_embeddings[k].getParent());
-				if (diff < 0) {
-					i++;
-					k = lastK;
-				} else if (diff > 0) {
-					lastK = ++k;
-				} else {
-					throw new RuntimeException("Oops, this place should never have been reached");
-				}
+				lastK = ++k;
 			}
 		}
 
 		assert (intersection.isSorted());
+		intersection.trim();
 		return intersection;
 	}
 
@@ -241,7 +466,7 @@ public class EmbeddingList {
 	 */
 	public boolean isSorted() {
 		for (int i = 1; i < m_size; i++) {
-			if (m_embeddings[i - 1].compareTo(m_embeddings[i]) > 0) return false;
+			if (compareRows(m_data, (i - 1) * STRIDE, m_data, i * STRIDE) > 0) return false;
 		}
 		return true;
 	}
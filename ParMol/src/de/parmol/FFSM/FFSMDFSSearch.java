@@ -23,15 +23,14 @@ package de.parmol.FFSM;
 
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 
 import de.parmol.Settings;
-import de.parmol.graph.Graph;
 import de.parmol.graph.SimpleSubgraphComparator;
 import de.parmol.search.DFSSearchable;
 import de.parmol.search.SearchTreeNode;
+import de.parmol.util.ConcurrentFragmentSet;
 import de.parmol.util.FragmentSet;
 import de.parmol.util.FrequentFragment;
 
@@ -42,9 +41,24 @@ import de.parmol.util.FrequentFragment;
  * @author Thorsten Meinl <Thorsten.Meinl@informatik.uni-erlangen.de>
  */
 public class FFSMDFSSearch implements DFSSearchable {
-	protected FragmentSet m_frequentSubgraphs;
+	/**
+	 * Nodes with at least this many matrices are split into ranges of matrices if the search uses several threads.
+	 */
+	private final static int MIN_SPLIT_SIZE = 24;
+	/**
+	 * The number of ranges per thread a node is split into.
+	 */
+	private final static int RANGES_PER_THREAD = 2;
+	/**
+	 * The number of fragments a worker collects before it adds them to the shared fragment set.
+	 */
+	private final static int BATCH_SIZE = 64;
+	
+	protected ConcurrentFragmentSet m_frequentSubgraphs;
 	protected JoinerAndExtender m_joinerAndExtender;
 	protected final Settings m_settings;
+	/** the buffer of this worker that owns its shard of the shared fragment set */
+	private final ConcurrentFragmentSet.Buffer m_foundFragments;
 
 
 	/**
@@ -55,8 +69,9 @@ public class FFSMDFSSearch implements DFSSearchable {
 	 */
 	public FFSMDFSSearch(Settings settings, GraphEdge[] frequentEdges) {
 		m_settings = settings;
-		m_frequentSubgraphs = new FragmentSet();
+		m_frequentSubgraphs = new ConcurrentFragmentSet();
 		m_joinerAndExtender = new JoinerAndExtender();
+		m_foundFragments = m_frequentSubgraphs.newBuffer(BATCH_SIZE);
 	}
 
 
@@ -67,8 +82,9 @@ public class FFSMDFSSearch implements DFSSearchable {
 	 */
 	private FFSMDFSSearch(FFSMDFSSearch previousWorker) {
 		m_settings = previousWorker.m_settings;
-		m_joinerAndExtender = previousWorker.m_joinerAndExtender;
+		m_joinerAndExtender = new JoinerAndExtender(previousWorker.m_joinerAndExtender);
 		m_frequentSubgraphs = previousWorker.m_frequentSubgraphs;
+		m_foundFragments = m_frequentSubgraphs.newBuffer(BATCH_SIZE);
 	}
 
 
@@ -98,10 +114,18 @@ public class FFSMDFSSearch implements DFSSearchable {
 	 * @see de.parmol.search.DFSSearchable#generateChildren(de.parmol.search.SearchTreeNode)
 	 */
 	public void generateChildren(SearchTreeNode currentNode) {
-		final Collection matrices = ((FFSMSearchTreeNode) currentNode).getMatrices();
+		final FFSMSearchTreeNode node = (FFSMSearchTreeNode) currentNode;
+		final int parents = node.getEndParent() - node.getFirstParent();
+
+		if ((m_settings.maxThreads > 1) && !node.isRange() && (parents >= MIN_SPLIT_SIZE)) {
+			// let the search manager distribute the joins of this node over several threads
+			node.splitParents(Math.min(parents, m_settings.maxThreads * RANGES_PER_THREAD));
+			return;
+		}
 
-		for (Iterator it = matrices.iterator(); it.hasNext();) {
-			final Matrix parentMatrix = (Matrix) it.next();
+		final Matrix[] matrices = node.getSiblings();
+		for (int k = node.getFirstParent(); k < node.getEndParent(); k++) {
+			final Matrix parentMatrix = matrices[k];
 
 			if (parentMatrix.isCAM()) {
 				if ((m_settings.debug > 0) && (parentMatrix.getNodeCount() == 2)) {
@@ -114,10 +138,8 @@ public class FFSMDFSSearch implements DFSSearchable {
 
 				// do the joining
 				Collection newMatrices = new LinkedList();
-				for (Iterator iterator = matrices.iterator(); iterator.hasNext();) {
-					final Matrix matrix2 = (Matrix) iterator.next();
-
-					m_joinerAndExtender.join(parentMatrix, matrix2, newMatrices);
+				for (int i = 0; i < matrices.length; i++) {
+					m_joinerAndExtender.join(parentMatrix, matrices[i], newMatrices);
 				}
 
 				// extend the matrix
@@ -151,10 +173,8 @@ public class FFSMDFSSearch implements DFSSearchable {
 				// check if the found frequent fragment should be reported
 				if ((!m_settings.closedFragmentsOnly || parentMaybeClosed)
 						&& m_settings.checkReportingConstraints(parentMatrix, parentMatrix.getClassFrequencies())) {
-					synchronized (m_frequentSubgraphs) {
-						m_frequentSubgraphs.add(new FrequentFragment(parentMatrix, parentMatrix.getSupportedGraphs(), parentMatrix
-								.getClassFrequencies()));
-					}
+					m_foundFragments.add(new FrequentFragment(parentMatrix, parentMatrix.getSupportedGraphs(), parentMatrix
+							.getClassFrequencies()));
 				} else {
 					m_settings.stats.earlyFilteredNonClosedFragments++;
 				}
@@ -176,33 +196,53 @@ public class FFSMDFSSearch implements DFSSearchable {
 	}
 
 
+	/**
+	 * Returns an estimation of the problem size of the given search tree node. All matrices in a node are joined with
+	 * each other, so the estimation grows with the square of the number of matrices; a node with 8 matrices has an
+	 * estimation of 0.5. A node that covers only a range of the matrices joins only the matrices in its range with all
+	 * others.
+	 * 
+	 * @param node a search tree node
+	 * @return a value between 0 and 1
+	 */
+	public double estimateProblemSize(SearchTreeNode node) {
+		final FFSMSearchTreeNode n = (FFSMSearchTreeNode) node;
+		final double joins = (double) (n.getEndParent() - n.getFirstParent()) * n.getMatrices().size();
+
+		return joins / (joins + 64.0);
+	}
+
+
 	/**
 	 * Calculates the class frequencies of the given matrix by searching for distinct graphs in the embedding list. The
-	 * distinct graphs are directly stored in the matrix.
+	 * distinct graphs are directly stored in the matrix. As the embedding list is sorted, all embeddings of a graph are
+	 * next to each other.
 	 * 
 	 * @param matrix a matrix
 	 */
 	private void calculateFrequencies(Matrix matrix) {
-		final IdentityHashMap graphs = new IdentityHashMap();
 		final EmbeddingList embeddings = matrix.getEmbeddings();
 
+		int lastGraph = -1;
 		for (int j = 0; j < embeddings.size(); j++) {
-			final Embedding emb = embeddings.get(j);
-			final Graph supergraph = emb.getSuperGraph();
+			final int graph = embeddings.getGraphIndex(j);
 
-			if (graphs.put(supergraph, supergraph) == null) {
-				matrix.addSupportedGraph(supergraph);
+			if (graph != lastGraph) {
+				matrix.addSupportedGraph(embeddings.getSuperGraph(j));
+				lastGraph = graph;
 			}
 		}
 	}
 
 
 	/**
-	 * Returns the set of found frequent subgraphs.
+	 * Returns the set of found frequent subgraphs. This must only be called after the search has finished, as the
+	 * fragments that are still collected by the workers are added to the set here.
 	 * 
 	 * @return a set of frequent fragments
 	 */
 	public FragmentSet getFrequentSubgraphs() {
+		m_frequentSubgraphs.flushBuffers();
 		return m_frequentSubgraphs;
 	}
 }
\ No newline at end of file
@@ -23,17 +23,24 @@ package de.parmol.FFSM;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import de.parmol.search.SearchTreeNode;
 
 
 /**
- * This class represents a node in the search tree of FFSM.
+ * This class represents a node in the search tree of FFSM. A node with many matrices can be split into several nodes
+ * that each extend and join only a range of the matrices (see {@link #splitParents(int)}), so that the parallel
+ * search can distribute the work inside a single node, too.
  * 
  * @author Thorsten Meinl <Thorsten.Meinl@informatik.uni-erlangen.de>
  */
 public class FFSMSearchTreeNode extends SearchTreeNode {
 	private final Collection m_matrices;
+	private Matrix[] m_siblings;
+	private final int m_firstParent, m_endParent;
+	/** the number of nodes that still need the matrices, <code>null</code> if this node has not been split */
+	private AtomicInteger m_openRanges;
 
 
 	/**
@@ -46,6 +53,25 @@ public class FFSMSearchTreeNode extends SearchTreeNode {
 	public FFSMSearchTreeNode(SearchTreeNode parent, Collection matrices, int level) {
 		super(parent, level);
 		m_matrices = matrices;
+		m_firstParent = 0;
+		m_endParent = matrices.size();
+	}
+
+
+	/**
+	 * Creates a new node that extends and joins only the given range of the matrices of the given split node.
+	 * 
+	 * @param parent the node that has been split
+	 * @param firstParent the index of the first matrix that should be extended
+	 * @param endParent the index after the last matrix that should be extended
+	 */
+	private FFSMSearchTreeNode(FFSMSearchTreeNode parent, int firstParent, int endParent) {
+		super(parent, parent.getLevel());
+		m_matrices = parent.m_matrices;
+		m_siblings = parent.m_siblings;
+		m_openRanges = parent.m_openRanges;
+		m_firstParent = firstParent;
+		m_endParent = endParent;
 	}
 
 
@@ -59,6 +85,62 @@ public class FFSMSearchTreeNode extends SearchTreeNode {
 	}
 
 
+	/**
+	 * Returns the matrices that correspond to this search tree node as an array, in the same order as in the collection
+	 * returned by {@link #getMatrices()}.
+	 * 
+	 * @return an array of matrices
+	 */
+	public Matrix[] getSiblings() {
+		if (m_siblings == null) m_siblings = (Matrix[]) m_matrices.toArray(new Matrix[m_matrices.size()]);
+		return m_siblings;
+	}
+
+
+	/**
+	 * Returns the index of the first matrix that should be extended and joined in this node.
+	 * 
+	 * @return an index into {@link #getSiblings()}
+	 */
+	public int getFirstParent() { return m_firstParent; }
+
+
+	/**
+	 * Returns the index after the last matrix that should be extended and joined in this node.
+	 * 
+	 * @return an index into {@link #getSiblings()}
+	 */
+	public int getEndParent() { return m_endParent; }
+
+
+	/**
+	 * Returns if this node covers only a range of its matrices.
+	 * 
+	 * @return <code>true</code> if this node has been created by {@link #splitParents(int)}, <code>false</code>
+	 *         otherwise
+	 */
+	public boolean isRange() { return (m_openRanges != null); }
+
+
+	/**
+	 * Splits the matrices of this node into the given number of ranges and adds a child node for each range, which
+	 * extends and joins the matrices in its range. The matrices are cleared after this node and all range nodes have
+	 * been left.
+	 * 
+	 * @param ranges the number of ranges
+	 */
+	public void splitParents(int ranges) {
+		getSiblings();
+		m_openRanges = new AtomicInteger(ranges + 1);
+
+		final int count = m_endParent - m_firstParent;
+		for (int i = 0; i < ranges; i++) {
+			addChild(new FFSMSearchTreeNode(this, m_firstParent + count * i / ranges, m_firstParent + count * (i + 1)
+					/ ranges));
+		}
+	}
+
+
 	/*
 	 *  (non-Javadoc)
 	 * @see de.parmol.search.SearchTreeNode#clear()
@@ -66,11 +148,13 @@ public class FFSMSearchTreeNode extends SearchTreeNode {
 	public void clear() {
 		super.clear();
 
+		if ((m_openRanges != null) && (m_openRanges.decrementAndGet() > 0)) return;
 		for (Iterator it = m_matrices.iterator(); it.hasNext();) {
 			final Matrix matrix = (Matrix) it.next();
 			matrix.removeEmbeddings();
 		}
 
 		m_matrices.clear();
+		m_siblings = null;
 	}
 }
\ No newline at end of file
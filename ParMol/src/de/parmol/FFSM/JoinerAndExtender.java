@@ -24,6 +24,7 @@ package de.parmol.FFSM;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 import de.parmol.graph.Graph;
@@ -61,6 +62,17 @@ public class JoinerAndExtender {
 	}
 
 
+	/**
+	 * Creates a new joiner and extender with the same frequent edges as the given one. As the joiner and extender uses
+	 * an internal temporary edge, each thread needs its own instance.
+	 * 
+	 * @param template the joiner and extender that should be copied
+	 */
+	public JoinerAndExtender(JoinerAndExtender template) {
+		m_frequentEdges = template.m_frequentEdges;
+	}
+
+
 	/**
 	 * Joins the two given matrices and puts all resulting matrices in the given collection. The number of created
 	 * matrices is returned. Please keep in mind, that the order of the matrices is important for join case 3b.
@@ -105,6 +117,7 @@ public class JoinerAndExtender {
 						.getEmbeddings()), 0);
 				newMatrix.addEdge(newMatrix.getNode(matrixB.getNodeIndex(matrixB.getNodeA(lastEdgeB))), newMatrix
 						.getNode(matrixB.getNodeIndex(matrixB.getNodeB(lastEdgeB))), matrixB.getEdgeLabel(lastEdgeB));
+				newMatrix.setProperSubmatrix(matrixA);
 				newMatrices.add(newMatrix);
 
 				return 1;
@@ -130,6 +143,7 @@ public class JoinerAndExtender {
 					.getEmbeddings()), 0);
 			newMatrix.addEdge(newMatrix.getNode(matrixA.getNodeIndex(matrixA.getNodeA(lastEdgeA))), newMatrix.getNode(matrixA
 					.getNodeIndex(matrixA.getNodeB(lastEdgeA))), matrixA.getEdgeLabel(lastEdgeA));
+			newMatrix.setProperSubmatrix(matrixA);
 			newMatrices.add(newMatrix);
 
 			return 1;
@@ -157,6 +171,7 @@ public class JoinerAndExtender {
 				final int newNode = newMatrix.addNode(matrixB.getNodeLabel(matrixB.getNodeCount() - 1));
 	
 				newMatrix.addEdge(newNode, (nA > nB) ? nB : nA, matrixB.getEdgeLabel(lastEdgeB));
+				newMatrix.setProperSubmatrix(matrixA);
 				newMatrices.add(newMatrix);
 			}
 
@@ -177,6 +192,7 @@ public class JoinerAndExtender {
 				
 				Matrix newMatrix = new Matrix(matrixA, EmbeddingList.intersect(matrixA.getEmbeddings(), matrixB.getEmbeddings()), 0);
 				newMatrix.addEdge(nA, nB, matrixB.getEdgeLabel(lastEdgeB));
+				newMatrix.setProperSubmatrix(matrixA);
 				newMatrices.add(newMatrix);
 
 				return 2;
@@ -203,42 +219,47 @@ public class JoinerAndExtender {
 			final EmbeddingList embeddings = matrix.getEmbeddings();
 
 			for (int j = 0; j < embeddings.size(); j++) {
-				final Embedding emb = embeddings.get(j);
-				final int lastEmbeddingNode = emb.getNode();
+				final Graph supergraph = embeddings.getSuperGraph(j);
+				final int lastEmbeddingNode = embeddings.getNode(j);
 
-				for (int i = emb.getSuperGraph().getDegree(lastEmbeddingNode) - 1; i >= 0; i--) {
-					final int edge = emb.getSuperGraph().getNodeEdge(lastEmbeddingNode, i);
-					final int otherNode = emb.getSuperGraph().getOtherNode(edge, lastEmbeddingNode);
+				for (int i = supergraph.getDegree(lastEmbeddingNode) - 1; i >= 0; i--) {
+					final int edge = supergraph.getNodeEdge(lastEmbeddingNode, i);
+					final int otherNode = supergraph.getOtherNode(edge, lastEmbeddingNode);
 
-					final int otherNodeLabel = emb.getSuperGraph().getNodeLabel(otherNode);
+					final int otherNodeLabel = supergraph.getNodeLabel(otherNode);
 					
 					// do a quick check for unfrequent node labels if an array with the frequent node labels has been given
 					// in the constructor
-					m_edge.nodeALabel = emb.getSuperGraph().getNodeLabel(lastEmbeddingNode);
+					m_edge.nodeALabel = supergraph.getNodeLabel(lastEmbeddingNode);
 					m_edge.nodeBLabel = otherNodeLabel;
-					m_edge.edgeLabel = emb.getSuperGraph().getEdgeLabel(edge);
+					m_edge.edgeLabel = supergraph.getEdgeLabel(edge);
 
 					if ((m_frequentEdges != null) && (Arrays.binarySearch(m_frequentEdges, m_edge) < 0)) {
 						continue;
 					}
 
 
-					if (!emb.containsNode(otherNode)) { // make sure that no node is used twice in the embedding						
+					if (!embeddings.containsNode(j, otherNode)) { // make sure that no node is used twice in the embedding						
 						Matrix newMatrix = (Matrix) extensions.get(m_edge);
 
 						if (newMatrix == null) {
-							newMatrix = new Matrix(matrix, new EmbeddingList(embeddings.size()), 1);
-							newMatrix.addNodeAndEdge(matrix.getNode(matrix.getNodeCount() - 1), emb.getSuperGraph().getNodeLabel(
-									otherNode), emb.getSuperGraph().getEdgeLabel(edge));
+							newMatrix = new Matrix(matrix, new EmbeddingList(embeddings, embeddings.size()), 1);
+							newMatrix.addNodeAndEdge(matrix.getNode(matrix.getNodeCount() - 1), otherNodeLabel, supergraph
+									.getEdgeLabel(edge));
+							newMatrix.setProperSubmatrix(matrix);
 							newMatrices.add(newMatrix);
 							extensions.put(new GraphEdge(m_edge), newMatrix);
 							count++;
 						}
 
-						newMatrix.getEmbeddings().addEmbeddingSorted(new Embedding(emb, otherNode));
+						newMatrix.getEmbeddings().addEmbeddingSorted(embeddings, j, otherNode);
 					}
 				}
 			}
+
+			for (Iterator it = extensions.values().iterator(); it.hasNext();) {
+				((Matrix) it.next()).getEmbeddings().trim();
+			}
 		}
 
 		return count;
@@ -45,6 +45,8 @@ public final class Matrix implements UndirectedGraph, MutableGraph, Comparable,
 	private boolean m_isCAM, m_isSuboptimalCAM, m_CAMComputed, m_SubOptCAMComputed;
 	private float[] m_classFrequencies;
 	private EmbeddingList m_embeddings;
+	/** the canonical matrix this matrix has been created from by adding its last edge, if known */
+	private Matrix m_properSubmatrix;
 
 	private final int m_id = ++s_id;
 	private static int s_id;
@@ -344,7 +346,9 @@ public final class Matrix implements UndirectedGraph, MutableGraph, Comparable,
 
 
 	/**
-	 * Checks if the biggest matrix is really the biggest representation of the graph
+	 * Checks if the biggest matrix is really the biggest representation of the graph. The rows above the given row
+	 * have already been compared and are not changed by exchanging this row with one of the following rows, so only
+	 * the given row is compared in each step.
 	 * 
 	 * @param biggestMatrix the assumed biggest matrix
 	 * @param currentMatrix a copy of the biggest matrix that ist permutated during the check
@@ -361,7 +365,7 @@ public final class Matrix implements UndirectedGraph, MutableGraph, Comparable,
 
 		for (int i = row; i < biggestMatrix.getSize(); i++) {
 			if (row == i) {
-				final int res = biggestMatrix.compareTo(currentMatrix, 0, row);
+				final int res = biggestMatrix.compareTo(currentMatrix, row, row);
 				if (res < 0) {
 					return false; // the "biggest" matrix is not biggest one
 				} else if (res == 0) {
@@ -370,7 +374,7 @@ public final class Matrix implements UndirectedGraph, MutableGraph, Comparable,
 			} else {
 				currentMatrix.exchangeRows(row, i);
 
-				final int res = biggestMatrix.compareTo(currentMatrix, 0, row);
+				final int res = biggestMatrix.compareTo(currentMatrix, row, row);
 				if (res < 0) {
 					return false; // the "biggest" matrix is not biggest one
 				} else if (res == 0) {
@@ -394,39 +398,69 @@ public final class Matrix implements UndirectedGraph, MutableGraph, Comparable,
 
 
 	/**
-	 * Checks if the matrix is suboptimal.
+	 * Checks if the matrix is suboptimal. If the matrix has been created from a canonical matrix by adding its last edge,
+	 * it is suboptimal by definition and nothing has to be computed.
 	 * 
 	 * @return <code>true</code> if the matrix is suboptimal, <code>false</code> otherwise
 	 */
 	public boolean isSuboptimalCAM() {
 		if (!m_CAMComputed) isCAM();
 		if (!m_SubOptCAMComputed) {
+			if (m_properSubmatrix != null) {
+				assert (computeCAM(getProperSubmatrix(m_matrix), getProperSubmatrix(m_matrix), 0));
+				m_isSuboptimalCAM = true;
+			} else {
+				final HalfIntMatrix properSubmatrix = getProperSubmatrix(m_matrix);
+				m_isSuboptimalCAM = computeCAM(properSubmatrix, new HalfIntMatrix(properSubmatrix), 0);
+			}
+			m_SubOptCAMComputed = true;
+		}
 
-			final HalfIntMatrix properSubmatrix = new HalfIntMatrix(m_matrix);
+		return m_isSuboptimalCAM;
+	}
 
-			// delete the last edge, this results in the proper submatrix
-			int edgeCount = 0;
-			for (int col = properSubmatrix.getSize() - 2; col >= 0; col--) {
-				if (properSubmatrix.getValue(properSubmatrix.getSize() - 1, col) != Graph.NO_EDGE) {
-					if (edgeCount == 0) {
-						properSubmatrix.setValue(properSubmatrix.getSize() - 1, col, Graph.NO_EDGE);
-						edgeCount++;
-					} else {
-						edgeCount++;
-						break;
-					}
-				}
-			}
 
-			if (edgeCount == 1) {
-				properSubmatrix.resize(properSubmatrix.getSize() - 1);
+	/**
+	 * Returns the maximal proper submatrix of the given matrix, i.e. a copy without the last edge.
+	 * 
+	 * @param matrix a matrix
+	 * @return a copy of the matrix without its last edge
+	 */
+	private static HalfIntMatrix getProperSubmatrix(HalfIntMatrix matrix) {
+		final HalfIntMatrix properSubmatrix = new HalfIntMatrix(matrix);
+
+		// delete the last edge, this results in the proper submatrix
+		int edgeCount = 0;
+		for (int col = properSubmatrix.getSize() - 2; col >= 0; col--) {
+			if (properSubmatrix.getValue(properSubmatrix.getSize() - 1, col) != Graph.NO_EDGE) {
+				if (edgeCount == 0) {
+					properSubmatrix.setValue(properSubmatrix.getSize() - 1, col, Graph.NO_EDGE);
+					edgeCount++;
+				} else {
+					edgeCount++;
+					break;
+				}
 			}
+		}
 
-			m_isSuboptimalCAM = computeCAM(properSubmatrix, new HalfIntMatrix(properSubmatrix), 0);
-			m_SubOptCAMComputed = true;
+		if (edgeCount == 1) { // there was only one edge in the last row
+			properSubmatrix.resize(properSubmatrix.getSize() - 1);
 		}
 
-		return m_isSuboptimalCAM;
+		return properSubmatrix;
+	}
+
+
+	/**
+	 * Remembers the canonical matrix this matrix has been created from by adding its last edge. All matrices in a node
+	 * of the search tree have been created from the same canonical matrix, so their maximal proper submatrices can then
+	 * be compared without copying them.
+	 * 
+	 * @param properSubmatrix the maximal proper submatrix of this matrix, which must be canonical
+	 */
+	void setProperSubmatrix(Matrix properSubmatrix) {
+		assert (properSubmatrix.isCAM());
+		m_properSubmatrix = properSubmatrix;
 	}
 
 
@@ -438,6 +472,7 @@ public final class Matrix implements UndirectedGraph, MutableGraph, Comparable,
 		m_matrix.resize(m_matrix.getSize() + 1);
 		m_matrix.setValue(m_matrix.getSize() - 1, m_matrix.getSize() - 1, nodeLabel);
 		m_CAMComputed = m_SubOptCAMComputed = false;
+		m_properSubmatrix = null;
 		return m_matrix.getSize() - 1;
 	}
 
@@ -450,6 +485,7 @@ public final class Matrix implements UndirectedGraph, MutableGraph, Comparable,
 		if ((nodeA != nodeB) && (m_matrix.getValue(nodeA, nodeB) == Graph.NO_EDGE)) {
 			m_matrix.setValue(nodeA, nodeB, edgeLabel);
 			m_CAMComputed = m_SubOptCAMComputed = false;
+			m_properSubmatrix = null;
 			m_edgeCount++;
 			return (nodeA > nodeB) ? ((nodeA << 16) | (nodeB & 0xffff)) : ((nodeB << 16) | (nodeA & 0xffff));
 		} else {
@@ -593,7 +629,7 @@ public final class Matrix implements UndirectedGraph, MutableGraph, Comparable,
 		final IdentityHashMap graphs = new IdentityHashMap();
 
 		for (int j = 0; j < m_embeddings.size(); j++) {
-			final Graph supergraph = m_embeddings.get(j).getSuperGraph();
+			final Graph supergraph = m_embeddings.getSuperGraph(j);
 
 			graphs.put(supergraph, supergraph);
 		}
@@ -603,55 +639,20 @@ public final class Matrix implements UndirectedGraph, MutableGraph, Comparable,
 
 
 	/**
-	 * Compares this graph's maximal proper submatrix with the maximal proper submatrix of the given graph.
+	 * Compares this graph's maximal proper submatrix with the maximal proper submatrix of the given graph. If both
+	 * matrices have been created from the same canonical matrix, they are not compared at all.
 	 * 
 	 * @param matrix a matrix
 	 * @return <code>true</code> if the maximal proper submatrices of both graphs are identical, <code>false</code>
 	 *         otherwise
 	 */
 	public int compareMaximalProperSubmatrix(Matrix matrix) {
-		final HalfIntMatrix properSubmatrixA = new HalfIntMatrix(m_matrix);
-
-		// delete the last edge, this results in the proper submatrix
-		int edgeCount = 0;
-		for (int col = properSubmatrixA.getSize() - 2; col >= 0; col--) {
-			if (properSubmatrixA.getValue(properSubmatrixA.getSize() - 1, col) != Graph.NO_EDGE) {
-				if (edgeCount == 0) {
-					properSubmatrixA.setValue(properSubmatrixA.getSize() - 1, col, Graph.NO_EDGE);
-					edgeCount++;
-				} else {
-					edgeCount++;
-					break;
-				}
-			}
-		}
-
-		if (edgeCount == 1) { // there was only one edge in the last row
-			properSubmatrixA.resize(properSubmatrixA.getSize() - 1);
-		}
-
-
-		final HalfIntMatrix properSubmatrixB = new HalfIntMatrix(matrix.m_matrix);
-
-		// delete the last edge, this results in the proper submatrix
-		edgeCount = 0;
-		for (int col = properSubmatrixB.getSize() - 2; col >= 0; col--) {
-			if (properSubmatrixB.getValue(properSubmatrixB.getSize() - 1, col) != Graph.NO_EDGE) {
-				if (edgeCount == 0) {
-					properSubmatrixB.setValue(properSubmatrixB.getSize() - 1, col, Graph.NO_EDGE);
-					edgeCount++;
-				} else {
-					edgeCount++;
-					break;
-				}
-			}
-		}
-
-		if (edgeCount == 1) { // there was only one edge in the last row
-			properSubmatrixB.resize(properSubmatrixB.getSize() - 1);
+		if ((m_properSubmatrix != null) && (m_properSubmatrix == matrix.m_properSubmatrix)) {
+			assert (getProperSubmatrix(m_matrix).compareTo(getProperSubmatrix(matrix.m_matrix)) == 0);
+			return 0;
 		}
 
-		return properSubmatrixA.compareTo(properSubmatrixB);
+		return getProperSubmatrix(m_matrix).compareTo(getProperSubmatrix(matrix.m_matrix));
 	}
 
 
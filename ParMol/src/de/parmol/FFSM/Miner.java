@@ -71,6 +71,7 @@ public class Miner extends AbstractMiner {
 		FFSMSearchTreeNode startNode = new FFSMSearchTreeNode(null, m_oneNodeMatrices, 1);
 		searchManager.addStartNode(startNode);
 		searchManager.startSearch();
+		searchManager.shutdown();
 		m_frequentSubgraphs = searcher.getFrequentSubgraphs();
 	}
 
@@ -168,9 +169,10 @@ public class Miner extends AbstractMiner {
 
 		
 		final HashMap oneNodeMatrices = new HashMap();		
+		final Graph[] graphs = (Graph[]) m_graphs.toArray(new Graph[m_graphs.size()]);
 		
-		for (Iterator it = m_graphs.iterator(); it.hasNext();) {
-			final Graph g = (Graph) it.next();
+		for (int k = 0; k < graphs.length; k++) {
+			final Graph g = graphs[k];
 
 			nodesPerGraph.clear();
 			for (int i = g.getNodeCount() - 1; i >= 0; i--) {
@@ -182,13 +184,13 @@ public class Miner extends AbstractMiner {
 					nodesPerGraph.add(nodeLabel);
 
 					if (matrix == null) {
-						matrix = new Matrix(nodeLabel.intValue(), new EmbeddingList());
+						matrix = new Matrix(nodeLabel.intValue(), new EmbeddingList(graphs));
 						oneNodeMatrices.put(new MutableInteger(nodeLabel.intValue()), matrix);
 					}
 					matrix.addSupportedGraph(g);
 				}
 
-				matrix.getEmbeddings().addEmbedding(new Embedding(g, g.getNode(i)));
+				matrix.getEmbeddings().addEmbedding(k, g.getNode(i));
 			}
 		}
 
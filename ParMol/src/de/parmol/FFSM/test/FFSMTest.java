@@ -30,12 +30,14 @@ import junit.framework.TestCase;
 import de.parmol.AbstractMiner;
 import de.parmol.Settings;
 import de.parmol.FFSM.Miner;
+import de.parmol.GSpan.test.GSpanTest;
 import de.parmol.graph.Graph;
 import de.parmol.graph.SimpleEdgeComparator;
 import de.parmol.graph.SimpleGraphComparator;
 import de.parmol.graph.SimpleNodeComparator;
 import de.parmol.graph.SimpleSubgraphComparator;
 import de.parmol.parsers.SLNParser;
+import de.parmol.search.WorkStealingDFSSearch;
 import de.parmol.util.FragmentSet;
 import de.parmol.util.FrequentFragment;
 
@@ -137,4 +139,29 @@ public class FFSMTest extends TestCase {
 		}
 	
 	}
+
+	private FragmentSet mine(int maxThreads, String distributionScheme) throws FileNotFoundException, IOException,
+			ParseException, InstantiationException, IllegalAccessException, ClassNotFoundException {
+		Settings settings = new Settings(new String[] { "-graphFile=data/IC93.test",
+				"-parserClass=de.parmol.parsers.SLNParser" });
+		settings.minimumClassFrequencies[0] = 100;
+		settings.closedFragmentsOnly = false;
+		settings.debug = 0;
+		settings.maxThreads = maxThreads;
+		settings.distributionScheme = distributionScheme;
+
+		Miner miner = new Miner(settings);
+		miner.setUp();
+		miner.startMining();
+		return miner.getFrequentSubgraphs();
+	}
+
+
+	public void testParallelJoin() throws FileNotFoundException, IOException, ParseException, InstantiationException, IllegalAccessException, ClassNotFoundException {
+		FragmentSet sequential = mine(1, "threads");
+		assertTrue(sequential.size() > 0);
+		
+		GSpanTest.assertSameFragments(sequential, mine(4, "threads"));
+		GSpanTest.assertSameFragments(sequential, mine(4, WorkStealingDFSSearch.DISTRIBUTION_SCHEME));
+	}
 }
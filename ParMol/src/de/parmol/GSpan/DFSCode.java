@@ -34,12 +34,20 @@ import de.parmol.util.*;
 public class DFSCode implements Comparable{
     private GSpanEdge first,last;
     private int lastNode;
+    private final int seedRank;
     private DataBase dataBase;
     private MutableGraph graph;
     private GSpanEdge[] parents;
-    private Map childEdges=null;
-    private DFSCode me=this;
+    private GSpanExtensionMap childEdges=null;
     private GraphSet myset;
+    private GSpanEmbeddingList embeddings=null;
+    private boolean storeChildEmbeddings;
+    private long childEmbeddingMemory;
+    private DFSCode parentCode=null;
+    private int[][][] prefixEmbeddings=null;
+    private long prefixEmbeddingMemory;
+    /** the maximal number of embeddings stored for the minimum check of the children */
+    private static final int MAX_PREFIX_EMBEDDINGS=4096;
     
     /**
      * creats a new DFSCode representating the one-edge graph containing the given Edge
@@ -47,7 +55,19 @@ public class DFSCode implements Comparable{
      * @param dataBase the whole DataBase of this mining run
      */
     public DFSCode(GSpanEdge edge, DataBase dataBase){
+        this(edge,dataBase,0);
+    }
+    
+    /**
+     * creats a new DFSCode representating the one-edge graph containing the given Edge,
+     * all database edges of seeds with a smaller rank are ignored by this DFSCode and its children
+     * @param edge
+     * @param dataBase the whole DataBase of this mining run
+     * @param seedRank the rank of the given edge (see DataBase.rankFrequentEdges())
+     */
+    public DFSCode(GSpanEdge edge, DataBase dataBase, int seedRank){
         this.first=this.last=edge;
+        this.seedRank=seedRank;
         this.lastNode=edge.nodeB;
         this.dataBase=dataBase;
         parents=new GSpanEdge[dataBase.maxNodeCount];
@@ -65,137 +85,223 @@ public class DFSCode implements Comparable{
     }
     
     /**
-     * Recusive search for an minimum DFSCode
-     * @param currentBuiltEdge the smallest edge for extending current Embedding
-     * @param embeddingNodeCount the node count of the current embedding
-     * @param ackNodes maps embedding node to real node
-     * @param usedNodes maps real node to embedding node (Graph.NO_NODE if unused)
-     * @param usedEdges tells if real edge is unused (Graph.NO_EDGE) or used (else) 
-     * @param edgeSet set of extenstions must add to current embedding 
-     * @param localEdge the corresponding edge in the main DFSCode checked for minimum
-     * @return false, if a smaller DFSCode is found
+     * creates a new DFSCode that extends the given parent DFSCode by the given edge,
+     * the parent DFSCode is not changed
+     * @param parent
+     * @param edge the new last edge
+     * @param dbSubSet the database subset, containing the new DFSCode
      */
-    private boolean findSmallerDFSCode(GSpanEdge currentBuiltEdge, int embeddingNodeCount,
-            int[] ackNodes, int[] usedNodes, int[] usedEdges ,
-            ExtensionSet edgeSet, GSpanEdge localEdge){
-//        boolean doNext=false;
-        if (localEdge==null || currentBuiltEdge.compareTo(localEdge)>0) {
-            return true;
+    private DFSCode(DFSCode parent, GSpanEdge edge, GraphSet dbSubSet){
+        if (parent.last.compareTo(edge)>=0) // should not happend, if correctly use of childIterator()
+            throw new UnsupportedOperationException("no valid extension");
+        this.dataBase=parent.dataBase;
+        this.parentCode=parent;
+        this.seedRank=parent.seedRank;
+        this.lastNode=parent.lastNode;
+        this.myset=dbSubSet;
+        this.parents=new GSpanEdge[parent.parents.length];
+        
+        //copy the edge list, because the edges are linked and must not be shared with the parent
+        GSpanEdge prev=null;
+        for (GSpanEdge ack=parent.first;ack!=null;ack=ack.next){
+            GSpanEdge copy=new GSpanEdge(ack.nodeA,ack.nodeB,ack.labelA,ack.edgeLabel,ack.labelB);
+            copy.prev=prev;
+            if (prev==null) first=copy; else prev.next=copy;
+            if (copy.nodeA<copy.nodeB) parents[copy.nodeB]=copy;
+            prev=copy;
         }
-        if (currentBuiltEdge.compareTo(localEdge)<0) {
-            return false;
+        edge.prev=prev;
+        edge.next=null;
+        last=prev.next=edge;
+        
+//      Build the represented undirected Graph
+        this.graph=(MutableGraph) parent.graph.clone();
+        if (edge.nodeA<edge.nodeB) {
+            graph.addNodeAndEdge(edge.nodeA,dataBase.getRealNodeLabel(edge.labelB),dataBase.getRealEdgeLabel(edge.edgeLabel));
+            lastNode=edge.nodeB;
+            parents[edge.nodeB]=edge;
+        } else {
+            graph.addEdge(edge.nodeA,edge.nodeB,dataBase.getRealEdgeLabel(edge.edgeLabel));
         }
-        ArrayList head=(ArrayList) edgeSet.headList().clone();
-        for (int j=0;j<head.size();j++){
-//            doNext=false;
-            Extension e=(Extension) head.get(j);
-            edgeSet.remove(e);
-            int edge=e.getEdge();
-            int node=ackNodes[e.getFromNode()];
-            
-            if (usedEdges[edge]==Graph.NO_EDGE){
-                if (e.isNodeExtension()){
-                    int nr=embeddingNodeCount+1;
-                    int nodeB=graph.getOtherNode(edge,node);
-                    usedEdges[edge]=1;
-                    usedNodes[nodeB]=nr;
-                    ackNodes[nr]=nodeB;
-                    
-                    //get all extensions for the new Node
-                    ArrayList subEdges=new ArrayList();
-                    for (int k=0;k<graph.getDegree(nodeB);k++){
-                        int edgeB=graph.getNodeEdge(nodeB,k);
-                        if (usedEdges[edgeB]==Graph.NO_EDGE){
-                            int nodeC=graph.getOtherNode(edgeB,nodeB);
-                            if (usedNodes[nodeC]==Graph.NO_NODE) {
-                                subEdges.add(Extension.newNodeExtension(dataBase,graph,nodeB,edgeB,nr));
-                            } else {
-                                subEdges.add(Extension.newEdgeExtension(dataBase,graph,nodeB,edgeB,nr,usedNodes[nodeC]));
-                            }
-                        }
-                    }
-                    edgeSet.addAll(subEdges);
-
-                    if (!findSmallerDFSCode(e.getGSpanEdge(nr),nr,ackNodes,usedNodes,usedEdges,edgeSet,localEdge.next)) return false;
+//      --
+    }
+    
+    /**
+     * checks if this DFSCode is minimum DFSCode for the represented Graph.
+     * The minimum DFSCode is built edge by edge from all embeddings of the current
+     * prefix of this DFSCode in the own graph. The check stops at the first edge
+     * that is smaller than the corresponding edge of this DFSCode.
+     * The embeddings of the prefixes of the (minimal) parent DFSCode are reused,
+     * so only embeddings that use the new last edge have to be searched.
+     * @return false, if a smaller DFSCode exists
+     */
+    public boolean isMin(){
+        int[][][] known=(parentCode==null?null:parentCode.prefixEmbeddings);
+        parentCode=null;
+        int knownEdges=(known==null?0:known.length-1);
+        
+        int nodeCount=graph.getNodeCount();
+        int edgeCount=graph.getEdgeCount();
+        int[] nodeLabels=new int[nodeCount];
+        for (int i=0;i<nodeCount;i++) nodeLabels[i]=dataBase.getNodeLabel(graph.getNodeLabel(i));
+        int[] edgeLabels=new int[edgeCount];
+        for (int i=0;i<edgeCount;i++) edgeLabels[i]=dataBase.getEdgeLabel(graph.getEdgeLabel(i));
+        //the only edge, that is not contained in the graph of the parent DFSCode
+        int newEdge=(known==null?Graph.NO_EDGE:graph.getEdge(last.nodeA,last.nodeB));
+        
+        GSpanEdge[] code=new GSpanEdge[edgeCount];
+        int i=0;
+        for (GSpanEdge ack=first;ack!=null;ack=ack.next) code[i++]=ack;
+        
+        int[] inverse=new int[nodeCount];
+        for (i=0;i<nodeCount;i++) inverse[i]=Graph.NO_NODE;
+        int[] rightMostPath=new int[nodeCount];
+        int[] dfsParents=new int[nodeCount];
+        boolean[][] usedCodeEdges=new boolean[nodeCount][nodeCount];
+        int[][][] embeddings=new int[edgeCount+1][][];
+        int stored=0;
+        
+        ArrayList current=new ArrayList();
+        int prefixNodes=0;
+        int pathLength=0;
+        for (i=0;i<edgeCount;i++){
+            ArrayList next=new ArrayList();
+            int[][] knownPrefix=(i<=knownEdges?(known==null?new int[][]{ new int[0] }:known[i]):new int[0][]);
+            for (int j=0;j<knownPrefix.length;j++){
+                //the embeddings of the parent can only be extended by the new edge, as the parent DFSCode is minimal
+                if (!extendPrefix(knownPrefix[j],prefixNodes,i<knownEdges?newEdge:Graph.NO_EDGE,code[i],
+                        nodeLabels,edgeLabels,inverse,rightMostPath,pathLength,usedCodeEdges,next)) return false;
+            }
+            for (Iterator it=current.iterator();it.hasNext();){
+                if (!extendPrefix((int[]) it.next(),prefixNodes,Graph.NO_EDGE,code[i],
+                        nodeLabels,edgeLabels,inverse,rightMostPath,pathLength,usedCodeEdges,next)) return false;
+            }
+            embeddings[i]=join(knownPrefix,current);
+            stored+=embeddings[i].length;
+            current=next;
             
-                    edgeSet.removeAll(subEdges);
-                    usedEdges[edge]=Graph.NO_EDGE;
-                    usedNodes[nodeB]=Graph.NO_NODE;
-                } else {//EdgeExtension
-                    usedEdges[edge]=1;
-                    if (!findSmallerDFSCode(e.getGSpanEdge(Graph.NO_NODE),embeddingNodeCount,ackNodes,usedNodes,usedEdges,edgeSet,localEdge.next)) return false;
-                    usedEdges[edge]=Graph.NO_EDGE;
-                }
-            }else{
-                if (!findSmallerDFSCode(currentBuiltEdge,embeddingNodeCount,ackNodes,usedNodes,usedEdges,edgeSet,localEdge)) return false;
+            //the next prefix
+            GSpanEdge edge=code[i];
+            usedCodeEdges[edge.nodeA][edge.nodeB]=usedCodeEdges[edge.nodeB][edge.nodeA]=true;
+            if (edge.nodeA<edge.nodeB){
+                dfsParents[edge.nodeB]=edge.nodeA;
+                prefixNodes=edge.nodeB+1;
+                pathLength=1;
+                for (int n=edge.nodeB;n!=0;n=dfsParents[n]) pathLength++;
+                for (int n=edge.nodeB,k=pathLength-1;k>=0;n=dfsParents[n]) rightMostPath[k--]=n;
+            }
+        }
+        embeddings[edgeCount]=join(new int[0][],current);
+        stored+=current.size();
+        if (stored<=MAX_PREFIX_EMBEDDINGS && dataBase.useEmbeddingLists()){
+            //the prefix embeddings are kept until the children are checked, so they count against the embedding list memory
+            long memory=getMemory(embeddings);
+            if (dataBase.reserveEmbeddingListMemory(memory)){
+                prefixEmbeddings=embeddings;
+                prefixEmbeddingMemory=memory;
             }
-            edgeSet.add(e);
         }
         return true;
     }
-
+    
     /**
-     * checks if this DFSCode is minimum DFSCode for the represented Graph
-     * @return false, if a smaller DFSCode exists
+     * @param embeddings the prefix embeddings of all prefixes
+     * @return the approximate memory in bytes used by the given prefix embeddings, arrays shared between
+     *         the prefixes are counted more than once
      */
-    public boolean isMin(){
-        // create and initilize embedding Arrays
-        int[] ackNodes=new int[graph.getNodeCount()];
-        int[] usedNodes=new int[graph.getNodeCount()];
-        int[] usedEdges=new int[graph.getEdgeCount()];
-        for (int i=0;i<graph.getNodeCount();i++){
-            ackNodes[i]=Graph.NO_NODE;
-            usedNodes[i]=Graph.NO_NODE;
-        }
-        for (int i=0;i<graph.getEdgeCount();i++){
-            usedEdges[i]=Graph.NO_EDGE;
+    private static long getMemory(int[][][] embeddings){
+        long memory=16L+4L*embeddings.length;
+        for (int i=0;i<embeddings.length;i++){
+            memory+=16L+4L*embeddings[i].length;
+            for (int j=0;j<embeddings[i].length;j++) memory+=16L+4L*embeddings[i][j].length;
         }
-        for (int i=0;i<graph.getNodeCount();i++){
-            //check DFSCodes beginning with node i
-            int node=graph.getNode(i);
-            int label=dataBase.getNodeLabel(graph.getNodeLabel(node));
-            if (label<first.labelA) return false; // a smaller DFSCode is found
-            if (label==first.labelA){ //only if this DFSCode wil searched with starts same as this DFSCode
-                ExtensionSet edgeSet=new ExtensionSet();
-                usedNodes[node]=0;
-                ackNodes[0]=node;
-                for (int j=0;j<graph.getDegree(node);j++){ //add all extensions for the first Node  
-                    edgeSet.add(Extension.newNodeExtension(dataBase,graph,node,graph.getNodeEdge(node,j),0));
+        return memory;
+    }
+    
+    private static int[][] join(int[][] a, ArrayList b){
+        if (b.isEmpty()) return a;
+        int[][] ret=new int[a.length+b.size()][];
+        System.arraycopy(a,0,ret,0,a.length);
+        for (int i=0;i<b.size();i++) ret[a.length+i]=(int[]) b.get(i);
+        return ret;
+    }
+    
+    /**
+     * compares all extensions of the given embedding of a prefix of this DFSCode with the next edge of this DFSCode 
+     * @param embedding maps the prefix nodes to nodes of the own graph
+     * @param prefixNodes the number of nodes of the prefix
+     * @param onlyEdge if not Graph.NO_EDGE, only extensions by this edge are compared
+     * @param codeEdge the next edge of this DFSCode
+     * @param nodeLabels the (relabeled) node labels of the own graph
+     * @param edgeLabels the (relabeled) edge labels of the own graph
+     * @param inverse maps nodes of the own graph to prefix nodes (Graph.NO_NODE if unused)
+     * @param rightMostPath the nodes of the right most path of the prefix, beginning at the root
+     * @param pathLength the length of the right most path
+     * @param usedCodeEdges tells, if there is an edge between two prefix nodes
+     * @param equal the list for the embeddings extended by an edge equal to codeEdge
+     * @return false, if an extension is smaller than codeEdge
+     */
+    private boolean extendPrefix(int[] embedding, int prefixNodes, int onlyEdge, GSpanEdge codeEdge,
+            int[] nodeLabels, int[] edgeLabels, int[] inverse, int[] rightMostPath, int pathLength,
+            boolean[][] usedCodeEdges, List equal){
+        if (prefixNodes==0){ //the first edge, all edges in both directions
+            for (int e=0;e<edgeLabels.length;e++){
+                if (onlyEdge!=Graph.NO_EDGE && e!=onlyEdge) continue;
+                for (int d=0;d<2;d++){
+                    int nodeA=(d==0?graph.getNodeA(e):graph.getNodeB(e));
+                    int nodeB=graph.getOtherNode(e,nodeA);
+                    int cmp=codeEdge.compareTo(0,1,nodeLabels[nodeA],edgeLabels[e],nodeLabels[nodeB]);
+                    if (cmp>0) return false;
+                    if (cmp==0) equal.add(new int[]{ nodeA, nodeB });
                 }
-                ArrayList head=(ArrayList) edgeSet.headList().clone();
-                for (int j=0;j<head.size();j++){ //try all smallest starting edges
-                    Extension e=(Extension) head.get(j);
-                    edgeSet.remove(e);
-                    int edge=e.getEdge();
-                    int nodeB=graph.getOtherNode(edge,node);
-                    usedEdges[edge]=1;
-                    usedNodes[nodeB]=1;
-                    ackNodes[1]=nodeB;
-                    
-                    //add all extensions for the second Node
-                    ArrayList subEdges=new ArrayList();
-                    for (int k=0;k<graph.getDegree(nodeB);k++){
-                        int edgeB=graph.getNodeEdge(nodeB,k);
-                        if (usedEdges[edgeB]==Graph.NO_EDGE){
-                            subEdges.add(Extension.newNodeExtension(dataBase,graph,nodeB,edgeB,1));
+            }
+            return true;
+        }
+        if (onlyEdge!=Graph.NO_EDGE){
+            //a prefix can only be extended by an edge at one of its nodes
+            boolean touched=false;
+            int nodeA=graph.getNodeA(onlyEdge), nodeB=graph.getNodeB(onlyEdge);
+            for (int k=0;k<prefixNodes && !touched;k++) touched=(embedding[k]==nodeA || embedding[k]==nodeB);
+            if (!touched) return true;
+        }
+        for (int k=0;k<prefixNodes;k++) inverse[embedding[k]]=k;
+        try {
+            //backward edges from the right most node to the right most path
+            int r=prefixNodes-1;
+            int node=embedding[r];
+            for (int p=0;p<pathLength-1;p++){
+                int to=rightMostPath[p];
+                if (usedCodeEdges[r][to]) continue;
+                int e=graph.getEdge(node,embedding[to]);
+                if (e==Graph.NO_EDGE || (onlyEdge!=Graph.NO_EDGE && e!=onlyEdge)) continue;
+                int cmp=codeEdge.compareTo(r,to,nodeLabels[node],edgeLabels[e],nodeLabels[embedding[to]]);
+                if (cmp>0) return false;
+                if (cmp==0) equal.add(embedding);
+            }
+            //forward edges from the right most path
+            for (int p=pathLength-1;p>=0;p--){
+                int from=rightMostPath[p];
+                node=embedding[from];
+                for (int k=0;k<graph.getDegree(node);k++){
+                    int e=graph.getNodeEdge(node,k);
+                    if (onlyEdge!=Graph.NO_EDGE && e!=onlyEdge) continue;
+                    int oNode=graph.getOtherNode(e,node);
+                    if (inverse[oNode]==Graph.NO_NODE){
+                        int cmp=codeEdge.compareTo(from,prefixNodes,nodeLabels[node],edgeLabels[e],nodeLabels[oNode]);
+                        if (cmp>0) return false;
+                        if (cmp==0){
+                            int[] ext=new int[prefixNodes+1];
+                            System.arraycopy(embedding,0,ext,0,prefixNodes);
+                            ext[prefixNodes]=oNode;
+                            equal.add(ext);
                         }
                     }
-                    edgeSet.addAll(subEdges);
-                    
-                    //recusive find 
-                    if (!findSmallerDFSCode(e.getGSpanEdge(1),1,ackNodes,usedNodes,usedEdges,edgeSet,first)) return false;
-                    
-                    //clean edgeSet and embedding Arrays for next run
-                    edgeSet.removeAll(subEdges);
-                    usedEdges[edge]=Graph.NO_EDGE;
-                    usedNodes[nodeB]=Graph.NO_NODE;
-                    edgeSet.add(e);
                 }
-                usedNodes[node]=Graph.NO_NODE;
             }
+            return true;
+        } finally {
+            for (int k=0;k<prefixNodes;k++) inverse[embedding[k]]=Graph.NO_NODE;
         }
-        //no smaller is found
-        return true;
     }
     
     /**
@@ -216,23 +322,20 @@ public class DFSCode implements Comparable{
         for (int i=0;i<ggraph.getDegree(node);i++){
             int edge=ggraph.getNodeEdge(node,i);
             int oNode=ggraph.getOtherNode(edge,node);
-            if (usedEdges[edge]==Graph.NO_EDGE){
-                GSpanEdge gEdge=new GSpanEdge(lastNode,usedNodes[oNode],parents[lastNode].labelB,
-                        ggraph.getEdgeLabel(edge),ggraph.getNodeLabel(oNode));
-                if ((last.compareTo(gEdge)<0) 
-                        && (!(findTreesOnly || findPathsOnly) || gEdge.nodeA<gEdge.nodeB)	// trees and paths have no backward Edges
+            if (usedEdges[edge]==Graph.NO_EDGE && !dataBaseGraph.isMasked(edge,seedRank)){
+                int nodeB=usedNodes[oNode];
+                int labelA=parents[lastNode].labelB;
+                int edgeLabel=ggraph.getEdgeLabel(edge);
+                int labelB=ggraph.getNodeLabel(oNode);
+                if ((last.compareTo(lastNode,nodeB,labelA,edgeLabel,labelB)<0) 
+                        && (!(findTreesOnly || findPathsOnly) || lastNode<nodeB)	// trees and paths have no backward Edges
                         && (!findPathsOnly || graph.getDegree(lastNode)==1)) 		// paths have max degree 2
                 {
-                    GraphSet s=(GraphSet)childEdges.get(gEdge);
-                    if (s==null){
-                        s=new GraphSet();
-                        childEdges.put(gEdge,s);
-                    }
-                    s.add(dataBaseGraph);
+                    addChild(GSpanEdge.key(lastNode,nodeB,labelA,edgeLabel,labelB),lastNode<nodeB,dataBaseGraph,ackNodes,oNode);
                 }
             }
         }
-        //extensions at the rigth most path
+        //extensions at the right most path
         for (GSpanEdge ack=parents[lastNode];ack!=null;ack=parents[ack.nodeA]){
             node=ackNodes[ack.nodeA];
             for (int i=0;i<ggraph.getDegree(node);i++){
@@ -240,21 +343,63 @@ public class DFSCode implements Comparable{
                 int oNode=ggraph.getOtherNode(edge,node);
                 if (usedEdges[edge]==Graph.NO_EDGE 
                         && lastNode<usedNodes[oNode] // only forward eges are allowed
+                        && !dataBaseGraph.isMasked(edge,seedRank)
                         && (!findPathsOnly || graph.getDegree(ack.nodeA)==1))		// paths have max degree 2
                 {
-                    GSpanEdge gEdge=new GSpanEdge(ack.nodeA,usedNodes[oNode],ack.labelA,ggraph.getEdgeLabel(edge),ggraph.getNodeLabel(oNode));
-                    GraphSet s=(GraphSet)childEdges.get(gEdge);
-                    if (s==null){
-                        s=new GraphSet();
-                        childEdges.put(gEdge,s);
-                    }
-                    s.add(dataBaseGraph);
+                    long key=GSpanEdge.key(ack.nodeA,usedNodes[oNode],ack.labelA,ggraph.getEdgeLabel(edge),ggraph.getNodeLabel(oNode));
+                    addChild(key,true,dataBaseGraph,ackNodes,oNode);
                 }
             }
             
         }
     }
     
+    /**
+     * registers the given graph for the child DFSCode extended by the given edge
+     * and stores the embedding of the child, if embedding lists are used
+     * @param key the packed extending edge
+     * @param forward true, if the extending edge is a forward edge
+     * @param dataBaseGraph
+     * @param ackNodes maps embedding node to real node
+     * @param oNode the real node the edge leads to
+     */
+    private void addChild(long key, boolean forward, GSpanGraph dataBaseGraph, int[] ackNodes, int oNode){
+        int entry=childEdges.getEntry(key);
+        childEdges.addGraph(entry,dataBaseGraph);
+        
+        if (storeChildEmbeddings){
+            GSpanEmbeddingList l=childEdges.getEmbeddings(entry);
+            if (l==null){
+                l=new GSpanEmbeddingList(forward?lastNode+2:lastNode+1);
+                childEdges.setEmbeddings(entry,l);
+            }
+            l.add(dataBaseGraph,ackNodes,lastNode+1,oNode);
+            childEmbeddingMemory+=4*(lastNode+2);
+            if (!dataBase.hasEmbeddingListMemory(childEmbeddingMemory)){
+                //memory budget exceeded, so the children have to search their embeddings again
+                dataBase.getDebug().println(3,"embedding list memory exceeded");
+                storeChildEmbeddings=false;
+                childEdges.clearEmbeddings();
+            }
+        }
+    }
+    
+    /**
+     * marks or unmarks the nodes and edges of the given embedding as used
+     * @param ggraph the database graph
+     * @param ackNodes maps embedding node to real node
+     * @param usedNodes maps real node to embedding node (lastNode+1 if unused)
+     * @param usedEdges tells if real edge is unused (Graph.NO_EDGE) or used (else)
+     * @param used true, if the embedding has to be marked as used
+     */
+    private void markEmbedding(MutableGraph ggraph, int[] ackNodes, int[] usedNodes, int[] usedEdges, boolean used){
+        for (int i=0;i<=lastNode;i++) usedNodes[ackNodes[i]]=(used?i:lastNode+1);
+        for (GSpanEdge ack=first;ack!=null;ack=ack.next){
+            int edge=ggraph.getEdge(ackNodes[ack.nodeA],ackNodes[ack.nodeB]);
+            usedEdges[edge]=(used?edge:Graph.NO_EDGE);
+        }
+    }
+    
     /**
      * recursive search for embeddings in the database graph
      * @param currentEdge the edge to extend the current embedding 
@@ -275,7 +420,8 @@ public class DFSCode implements Comparable{
             int node=ackNodes[currentEdge.nodeA];
             for (int i=0;i<ggraph.getDegree(node);i++){ // try all edges of the corresponding node
                 int edge=ggraph.getNodeEdge(node,i);
-                if (usedEdges[edge]==-1 && ggraph.getEdgeLabel(edge)==currentEdge.edgeLabel){
+                if (usedEdges[edge]==-1 && ggraph.getEdgeLabel(edge)==currentEdge.edgeLabel
+                        && !dataBaseGraph.isMasked(edge,seedRank)){
                     //only unused, right labeled edges
                     int oNode=ggraph.getOtherNode(edge,node);
                     if (ggraph.getNodeLabel(oNode)==currentEdge.labelB && usedNodes[oNode]==lastNode+1){
@@ -293,7 +439,7 @@ public class DFSCode implements Comparable{
         } else { //backward Edge
             int edge=ggraph.getEdge(ackNodes[currentEdge.nodeA],ackNodes[currentEdge.nodeB]);
             //check if corresponding edge exists and is rigth labeled 
-            if (edge!=-1 && ggraph.getEdgeLabel(edge)==currentEdge.edgeLabel){
+            if (edge!=-1 && ggraph.getEdgeLabel(edge)==currentEdge.edgeLabel && !dataBaseGraph.isMasked(edge,seedRank)){
                 usedEdges[edge]=edge;
                 searchEmbedding(currentEdge.next,dataBaseGraph,ackNodes,usedNodes,usedEdges,findTreesOnly,findPathsOnly);
                 usedEdges[edge]=Graph.NO_EDGE;
@@ -302,18 +448,42 @@ public class DFSCode implements Comparable{
     }
     
     /**
+     * searches all children of this DFSCode, either by extending the stored embeddings or,
+     * if there are none, by searching the embeddings in all database graphs again.
+     * If embedding lists are used and the memory budget of the DataBase is not exceeded,
+     * the embeddings of each child are stored in the child.
      * @param findTreesOnly
      * @param findPathsOnly 
-     * @return an itererator over all possible child
+     * @return an itererator over all possible children, each child is a new DFSCode
      */
     public Iterator childIterator(boolean findTreesOnly, boolean findPathsOnly){ //=enumerate
         if (childEdges==null){
-            childEdges=new TreeMap();
+            childEdges=new GSpanExtensionMap(dataBase.getGraphTable());
+            storeChildEmbeddings=dataBase.useEmbeddingLists();
+            childEmbeddingMemory=0;
             int[] ackNodes=new int[graph.getNodeCount()];
-            for (Iterator ggit=myset.iterator();ggit.hasNext();){ //search all database graphs for children
+            if (embeddings!=null){ //extend the stored embeddings
+                for (int g=0;g<embeddings.getGraphCount();g++){
+                    GSpanGraph dataBaseGraph=embeddings.getGraph(g);
+                    MutableGraph ackGraph=dataBaseGraph.me;
+                    dataBase.getDebug().println(3,"extend embeddings in "+ackGraph.getID());
+                    //initialise embedding arrays
+                    int[] usedNodes=new int[ackGraph.getNodeCount()];
+                    for (int i=0;i<ackGraph.getNodeCount();i++) usedNodes[i]=lastNode+1;
+                    int[] usedEdges=new int[ackGraph.getEdgeCount()];
+                    for (int i=0;i<ackGraph.getEdgeCount();i++) usedEdges[i]=Graph.NO_EDGE;
+                    
+                    for (int e=embeddings.getFirstEmbedding(g);e<embeddings.getEndEmbedding(g);e++){
+                        embeddings.getNodes(e,ackNodes);
+                        markEmbedding(ackGraph,ackNodes,usedNodes,usedEdges,true);
+                        searchChildren(dataBaseGraph,ackNodes,usedNodes,usedEdges,findTreesOnly,findPathsOnly);
+                        markEmbedding(ackGraph,ackNodes,usedNodes,usedEdges,false);
+                    }
+                }
+            } else for (Iterator ggit=myset.iterator();ggit.hasNext();){ //search all database graphs for children
                 GSpanGraph dataBaseGraph=(GSpanGraph) ggit.next();
                 MutableGraph ackGraph=dataBaseGraph.me;
-		Debug.println(3,"search for childs in "+ackGraph.getID());
+		dataBase.getDebug().println(3,"search for childs in "+ackGraph.getID());
                 //initialise embedding arrays
                 int[] usedNodes=new int[ackGraph.getNodeCount()];
                 for (int i=0;i<ackGraph.getNodeCount();i++) usedNodes[i]=lastNode+1;
@@ -331,88 +501,51 @@ public class DFSCode implements Comparable{
                 }
             }
         }
-        return new Iterator() { //a tricky iterator, creates no new DFSCodes, but change und restore this DFSCode 
-            private Map cE=me.childEdges;
-            private Iterator it=cE.keySet().iterator();
-            private GSpanEdge lastEdge=null;
-            private GraphSet lastSet=null;
+        return new Iterator() { //creates a new DFSCode for each child, this DFSCode is left unchanged
+            private GSpanExtensionMap cE=childEdges;
+            private int[] order=cE.sortedEntries();
+            private int pos=0;
             public boolean hasNext(){
-//            	return false;/*
-                if (lastEdge!=null){
-                    me.remove(lastEdge,lastSet);
-                    lastEdge=null;lastSet=null;
-                }
-                return it.hasNext();//*/
+                return pos<order.length;
             }
             public Object next(){
-                if (hasNext()){
-                    lastEdge=(GSpanEdge) it.next();
-                    lastSet=me.add(lastEdge,(GraphSet) cE.get(lastEdge));
-                    return me;
-                } else throw new NoSuchElementException("No more elements");
+                if (!hasNext()) throw new NoSuchElementException("No more elements");
+                int entry=order[pos++];
+                DFSCode child=new DFSCode(DFSCode.this,GSpanEdge.fromKey(cE.getKey(entry)),cE.getGraphSet(entry));
+                GSpanEmbeddingList list=cE.getEmbeddings(entry);
+                if (list!=null){
+                    cE.setEmbeddings(entry,null);
+                    list.trim();
+                    if (dataBase.reserveEmbeddingListMemory(list.getMemory())) child.embeddings=list;
+                }
+                return child;
             }
             public void remove(){ throw new UnsupportedOperationException(); }
         };
     }
     
     /**
-     * expands the currents DFSCode with the given edge
-     * @param edge
-     * @param dbSubSet the database subset, containing the new DFSCode
-     * @return the database subset, containing the old DFSCode
+     * releases the children found by the last call of childIterator()
+     * and the embeddings of this DFSCode, which are not needed anymore
      */
-    private GraphSet add(GSpanEdge edge,GraphSet dbSubSet){
-        if (last.compareTo(edge)<0){
-            GraphSet old=myset;
-            myset=dbSubSet;
-            edge.prev=last;
-            last=last.next=edge;
-            childEdges=null;
-            if (dataBase!=null){
-//          Build the represented undirected Graph
-            if (edge.nodeA<edge.nodeB) {
-                graph.addNodeAndEdge(edge.nodeA,dataBase.getRealNodeLabel(edge.labelB),dataBase.getRealEdgeLabel(edge.edgeLabel));
-		//	Debug.println(2,"Graph "+de.parmol.parsers.SimpleUndirectedGraphParser.instance.serialize(graph));
-                lastNode=edge.nodeB;
-                parents[edge.nodeB]=edge;
-            } else {
-		graph.addEdge(edge.nodeA,edge.nodeB,dataBase.getRealEdgeLabel(edge.edgeLabel));
-//          --
-            }
-            }
-            return old;
-        } else { // should not happend, if correctly use of childIterator()
-            throw new UnsupportedOperationException("no valid extension");
+    public void clearChildren(){
+        childEdges=null;
+        if (prefixEmbeddings!=null){
+            dataBase.releaseEmbeddingListMemory(prefixEmbeddingMemory);
+            prefixEmbeddings=null;
         }
+        releaseEmbeddings();
     }
     
     /**
-     * rebuild an old DFSCode by removing the given edge
-     * @param edge
-     * @param set the database subset, containing the rebuild DFSCode
-     * @return the database subset, containing the current DFSCode
+     * releases the stored embeddings of this DFSCode, afterwards the embeddings
+     * are searched again, if childIterator() is called
      */
-    private GraphSet remove(GSpanEdge edge, GraphSet set){
-        if (last.compareTo(edge)!=0) // should not happend, if correctly use of childIterator() 
-            throw new UnsupportedOperationException("only last edge is removeable");
-        GraphSet old=myset;
-        myset=set;
-        last=last.prev;
-        last.next.prev=last.next.next=null;
-        last.next=null;
-        childEdges=null;
-        if (dataBase!=null){
-//      Build the represented undirected Graph
-        if (edge.nodeA<edge.nodeB) {
-            graph.removeNode(edge.nodeB);
-            lastNode--;
-            parents[edge.nodeB]=null;
-        } else {
-            graph.removeEdge(graph.getEdge(edge.nodeA,edge.nodeB));
-        }
-//      --
+    public void releaseEmbeddings(){
+        if (embeddings!=null){
+            dataBase.releaseEmbeddingListMemory(embeddings.getMemory());
+            embeddings=null;
         }
-        return old;
     }
     
     /**
@@ -421,7 +554,7 @@ public class DFSCode implements Comparable{
      */
     public final boolean isFrequent(float[] minFreq){
         float[] freq=myset.getFreq();
-        for (int i=0;i<GraphSet.length;i++) 
+        for (int i=0;i<freq.length;i++) 
             if (freq[i]<minFreq[i]) return false;
         return true;
     }
@@ -432,7 +565,7 @@ public class DFSCode implements Comparable{
      */
     public final boolean isFrequent(float[] minFreq,float[] maxFreq){
         float[] freq=myset.getFreq();
-        for (int i=0;i<GraphSet.length;i++) 
+        for (int i=0;i<freq.length;i++) 
             if ((freq[i]<minFreq[i]) || (freq[i]>maxFreq[i])) return false;
         return true;
     }
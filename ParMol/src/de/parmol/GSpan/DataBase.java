@@ -22,6 +22,7 @@
 package de.parmol.GSpan;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 import de.parmol.graph.*;
 import de.parmol.util.*;
@@ -35,6 +36,8 @@ public class DataBase implements EdgeNodeRelabler{
 
     private SortedSet sortedFrequentGSpanEdges;
     private Map edgeMap;
+    private GraphTable realGraphs;
+    private GraphTable gSpanGraphs;
     private int[] nodeLabels;
     private int[] edgeLabels;
     Relabler nodeRelabler;
@@ -44,6 +47,9 @@ public class DataBase implements EdgeNodeRelabler{
     public GraphFactory factory;
     /** the size of the biggest DataBase Graph */
     public int maxNodeCount=0;
+    private long embeddingListMemory=0;
+    private final AtomicLong usedEmbeddingListMemory=new AtomicLong();
+    private Debug debug=new Debug(0,System.out);
     
     /**
      * creates a new sorted, cleandup and renamed Dataset as expected in graphSet_Projection
@@ -58,13 +64,27 @@ public class DataBase implements EdgeNodeRelabler{
         this.factory=factory;
         size=graphs.size();
         
-        readGraphs(graphs,graphEdges,graphNodes);
+        //number the graphs and build the frequency columns
+        ClassifiedGraph[] real=(ClassifiedGraph[]) graphs.toArray(new ClassifiedGraph[size]);
+        float[][] frequencies=new float[minFreq.length][size];
+        for (int i=0;i<size;i++){
+            float[] f=real[i].getClassFrequencies();
+            for (int c=0;c<minFreq.length;c++) frequencies[c][i]=f[c];
+        }
+        realGraphs=new GraphTable(real,frequencies);
+        GSpanGraph[] gGraphs=new GSpanGraph[size];
+        gSpanGraphs=new GraphTable(gGraphs,frequencies);
+        
+        readGraphs(real,graphEdges,graphNodes);
         nodeRelabler=doNodes(graphNodes, minFreq, fragments);
         edgeRelabler=doEdges(graphEdges, minFreq);
         
-        edgeMap=getAllEdges(graphs,nodeRelabler,edgeRelabler);
+        edgeMap=getAllEdges(real,gGraphs,nodeRelabler,edgeRelabler);
         sortedFrequentGSpanEdges=filterInfrequent(minFreq);
         
+        if (maxNodeCount>GSpanEdge.MAX_NODES || nodeLabels.length>GSpanEdge.MAX_NODE_LABELS 
+                || edgeLabels.length>GSpanEdge.MAX_EDGE_LABELS)
+            throw new IllegalArgumentException("the graphs have too many nodes or frequent labels for gSpan");
     }
     
     /**
@@ -73,20 +93,20 @@ public class DataBase implements EdgeNodeRelabler{
      * @param edges the map for the edgelabel counts
      * @param nodes the map for the nodelabel counts
      */
-    private void readGraphs(Collection graphs, Map edges, Map nodes){
-        for (Iterator git=graphs.iterator();git.hasNext();){
-            ClassifiedGraph graph=(ClassifiedGraph) git.next();
+    private void readGraphs(ClassifiedGraph[] graphs, Map edges, Map nodes){
+        for (int g=0;g<graphs.length;g++){
+            ClassifiedGraph graph=graphs[g];
             for (int i=0;i<graph.getNodeCount();i++){
                 Integer lab=new Integer(graph.getNodeLabel(graph.getNode(i)));
                 GraphSet s=(GraphSet) nodes.get(lab);
-                if (s==null){ s=new GraphSet(); nodes.put(lab,s); }
-                s.add(graph);
+                if (s==null){ s=new GraphSet(realGraphs); nodes.put(lab,s); }
+                s.add(g);
             }
             for (int i=0;i<graph.getEdgeCount();i++){
                 Integer lab=new Integer(graph.getEdgeLabel(graph.getEdge(i)));
                 GraphSet s=(GraphSet) edges.get(lab);
-                if (s==null){ s=new GraphSet(); edges.put(lab,s); }
-                s.add(graph);
+                if (s==null){ s=new GraphSet(realGraphs); edges.put(lab,s); }
+                s.add(g);
             }
         }       
     }
@@ -181,22 +201,23 @@ public class DataBase implements EdgeNodeRelabler{
      * build for each graph in the Collection a corresponding GSpanGraph 
      * and builds an map between edges an containing GSpanGraph
      * @param graphs the set of graphs
+     * @param gGraphs the array for the corresponding GSpanGraphs
      * @param nodeR for renaming nodes
      * @param edgeR  for renaming edges
      * @return the map 
      */
-    private Map getAllEdges(Collection graphs, Relabler nodeR, Relabler edgeR){
+    private Map getAllEdges(ClassifiedGraph[] graphs, GSpanGraph[] gGraphs, Relabler nodeR, Relabler edgeR){
         Map map=new TreeMap();
-        for (Iterator git=graphs.iterator();git.hasNext();){
-            ClassifiedGraph g=(ClassifiedGraph) git.next();
-            GSpanGraph gg=new GSpanGraph(g, nodeR, edgeR, factory);
+        for (int i=0;i<graphs.length;i++){
+            GSpanGraph gg=new GSpanGraph(graphs[i], i, nodeR, edgeR, factory);
+            gGraphs[i]=gg;
             int nodeCount=gg.getRealGraph().getNodeCount();
             if (maxNodeCount<nodeCount) maxNodeCount=nodeCount;
             if (gg.getEdgeCount()==0) size--;
             for (Iterator eit=gg.edgeIterator();eit.hasNext();){
                 GSpanEdge e=(GSpanEdge) eit.next();
                 GraphSet s=(GraphSet) map.get(e);
-                if (s==null) { s=new GraphSet(); map.put(e,s); }
+                if (s==null) { s=new GraphSet(gSpanGraphs); map.put(e,s); }
                 s.add(gg);
             }
         }
@@ -256,6 +277,29 @@ public class DataBase implements EdgeNodeRelabler{
         };
     }
     
+    /**
+     * ranks the frequent edges in the order they are used as seeds and stores the rank of each
+     * edge in the GSpanGraphs. In contrast to frequentEdges() no edge is removed afterwards, instead
+     * the search of a seed has to mask all edges of the seeds before (see GSpanGraph.isMasked(..)),
+     * so all seeds can be searched concurrently.
+     * @return all frequent edges, the index of each edge is its rank
+     */
+    public GSpanEdge[] rankFrequentEdges(){
+        GSpanEdge[] seeds=(GSpanEdge[]) sortedFrequentGSpanEdges.toArray(new GSpanEdge[sortedFrequentGSpanEdges.size()]);
+        Map ranks=new TreeMap();
+        for (int i=0;i<seeds.length;i++) ranks.put(seeds[i],Integer.valueOf(i));
+        for (int g=0;g<gSpanGraphs.size();g++){
+            GSpanGraph gg=(GSpanGraph) gSpanGraphs.getGraph(g);
+            int[] edgeRanks=new int[gg.getEdgeCount()];
+            int i=0;
+            for (Iterator eit=gg.edgeIterator();eit.hasNext();i++){
+                edgeRanks[gg.me.getEdge(i)]=((Integer) ranks.get(eit.next())).intValue();
+            }
+            gg.setEdgeRanks(edgeRanks);
+        }
+        return seeds;
+    }
+    
     /**
      * @param edge
      * @return a set of GSpanGraphs containing the given edge
@@ -264,6 +308,9 @@ public class DataBase implements EdgeNodeRelabler{
         return (GraphSet) edgeMap.get(edge);
     }
     
+    /** @return the table of all GSpanGraphs of this DataBase */
+    public GraphTable getGraphTable(){ return gSpanGraphs; }
+    
     /**
      * @return the number ob remaining Graphs in this Set
      */
@@ -271,6 +318,57 @@ public class DataBase implements EdgeNodeRelabler{
         return size;
     }
     
+    /**
+     * sets the memory all DFSCodes may use together for storing their embeddings
+     * @param bytes the memory budget, 0 if no embeddings should be stored 
+     */
+    public void setEmbeddingListMemory(long bytes){
+        embeddingListMemory=bytes;
+    }
+    
+    /**
+     * sets the debug output of the current run
+     * @param debug
+     */
+    public void setDebug(Debug debug){
+        this.debug=debug;
+    }
+    
+    /** @return the debug output of the current run */
+    public final Debug getDebug(){ return debug; }
+    
+    /** @return true, if DFSCodes should store their embeddings */
+    public boolean useEmbeddingLists(){ return embeddingListMemory>0; }
+    
+    /**
+     * @param bytes
+     * @return true, if the given amount of memory is still available for embedding lists
+     */
+    public boolean hasEmbeddingListMemory(long bytes){
+        return bytes<=embeddingListMemory-usedEmbeddingListMemory.get();
+    }
+    
+    /**
+     * reserves memory for an embedding list
+     * @param bytes
+     * @return false, if the memory budget would be exceeded
+     */
+    public boolean reserveEmbeddingListMemory(long bytes){
+        while (true){
+            long used=usedEmbeddingListMemory.get();
+            if (bytes>embeddingListMemory-used) return false;
+            if (usedEmbeddingListMemory.compareAndSet(used,used+bytes)) return true;
+        }
+    }
+    
+    /**
+     * releases memory reserved by reserveEmbeddingListMemory(..)
+     * @param bytes
+     */
+    public void releaseEmbeddingListMemory(long bytes){
+        usedEmbeddingListMemory.addAndGet(-bytes);
+    }
+    
     // for relabeling real node/edge labels to/from DataBase node/edge labels  
     public int getRealEdgeLabel(int edge){ return edgeLabels[edge]; } 
     public int getRealNodeLabel(int node){ return nodeLabels[node]; }
@@ -0,0 +1,183 @@
+/*
+ * 
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ */
+package de.parmol.GSpan;
+
+import java.util.Iterator;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import de.parmol.Settings;
+import de.parmol.search.DFSSearchable;
+import de.parmol.search.SearchTreeNode;
+import de.parmol.util.Debug;
+import de.parmol.util.FragmentSet;
+import de.parmol.util.FrequentFragment;
+
+/**
+ * This class does the depth first search through the gSpan search tree, so that it can be distributed
+ * over several threads by a SearchManager. Each search tree node owns its DFSCode, so no DFSCode is
+ * changed during the search.
+ *
+ * @author agent <agent@local>
+ */
+public class GSpanDFSSearch implements DFSSearchable {
+    private final Settings settings;
+    private final FragmentSet frequentSubgraphs;
+    /** the fragments of nodes with a position, sorted by their position */
+    private final SortedMap positionedFragments;
+    private final float[] empty;
+    private final Debug debug;
+    
+    /**
+     * creates a new GSpanDFSSearch
+     * @param settings the settings for the search
+     * @param frequentSubgraphs the set the found fragments are added to
+     */
+    public GSpanDFSSearch(Settings settings, FragmentSet frequentSubgraphs){
+        this.settings=settings;
+        this.frequentSubgraphs=frequentSubgraphs;
+        this.positionedFragments=new TreeMap(GSpanSearchTreeNode.SEQUENTIAL_ORDER);
+        this.empty=new float[settings.minimumClassFrequencies.length];
+        this.debug=settings.getDebug();
+    }
+    
+    /**
+     * copy constructor
+     * @param previousWorker the worker that should be copied
+     */
+    private GSpanDFSSearch(GSpanDFSSearch previousWorker){
+        this.settings=previousWorker.settings;
+        this.frequentSubgraphs=previousWorker.frequentSubgraphs;
+        this.positionedFragments=previousWorker.positionedFragments;
+        this.empty=previousWorker.empty;
+        this.debug=previousWorker.debug;
+    }
+    
+    /*
+     *  (non-Javadoc)
+     * @see de.parmol.search.DFSSearchable#newInstance(de.parmol.search.DFSSearchable)
+     */
+    public DFSSearchable newInstance(DFSSearchable previousWorker){
+        return new GSpanDFSSearch((GSpanDFSSearch) previousWorker);
+    }
+    
+    private float[] getMax(float[] a, float[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] > b[i]) return a;
+            if (b[i] > a[i]) return b;
+        }
+        return a;
+    }
+    
+    private boolean unequal(float[] a, float[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) return true;
+        }
+        return false;
+    }
+    
+    /**
+     * searches the frequent children of the DFSCode of the given node, adds the minimal ones
+     * as new search tree nodes and reports the DFSCode itself
+     * 
+     * @see de.parmol.search.DFSSearchable#generateChildren(de.parmol.search.SearchTreeNode)
+     */
+    public void generateChildren(SearchTreeNode currentNode){
+        DFSCode code=((GSpanSearchTreeNode) currentNode).getCode();
+        float[] max=empty;
+        float[] my=code.getFrequencies();
+        debug.println(2, "  found graph " + code.toString(settings.serializer));
+        
+        for (Iterator it=code.childIterator(settings.findTreesOnly, settings.findPathsOnly);it.hasNext();){
+            DFSCode next=(DFSCode) it.next();
+            if (!next.isFrequent(settings.minimumClassFrequencies)) {
+                next.releaseEmbeddings();
+            } else {
+                if (!next.isMin()) {
+                    debug.println(2, next.toString(settings.serializer)+" not min");
+                    synchronized (settings.stats) {
+                        settings.stats.duplicateFragments++;
+                    }
+                    next.releaseEmbeddings();
+                } else {
+                    max=getMax(max, next.getFrequencies());
+                    currentNode.addChild(new GSpanSearchTreeNode(currentNode, next, currentNode.getLevel() + 1));
+                }
+            }
+        }
+        code.clearChildren();
+        
+        if ((!settings.closedFragmentsOnly || max == empty || unequal(my, max))
+                && settings.checkReportingConstraints(code.getSubgraph(), code.getFrequencies())) {
+            final int[] position=((GSpanSearchTreeNode) currentNode).getPosition();
+            if (position!=null) {
+                final FrequentFragment fragment=code.toFragment();
+                synchronized (positionedFragments) {
+                    positionedFragments.put(position, fragment);
+                }
+            } else {
+                synchronized (frequentSubgraphs) {
+                    frequentSubgraphs.add(code.toFragment());
+                }
+            }
+        } else {
+            synchronized (settings.stats) {
+                settings.stats.earlyFilteredNonClosedFragments++;
+            }
+        }
+    }
+    
+    /**
+     * adds the fragments of all nodes with a position to the fragment set in the order a single
+     * worker would have found them, this must be called after the search has finished
+     */
+    public void addPositionedFragments(){
+        for (Iterator it=positionedFragments.values().iterator();it.hasNext();){
+            frequentSubgraphs.add((FrequentFragment) it.next());
+        }
+        positionedFragments.clear();
+    }
+    
+    /*
+     *  (non-Javadoc)
+     * @see de.parmol.search.DFSSearchable#enterNode(de.parmol.search.SearchTreeNode)
+     */
+    public void enterNode(SearchTreeNode currentNode){ /* nothing to do here */ }
+    
+    /*
+     *  (non-Javadoc)
+     * @see de.parmol.search.DFSSearchable#leaveNode(de.parmol.search.SearchTreeNode)
+     */
+    public void leaveNode(SearchTreeNode currentNode){
+        currentNode.clear();
+    }
+    
+    /**
+     * estimates the problem size by the number of supporting graphs in relation
+     * to the minimum frequency, a DFSCode that is twice as frequent as needed has an estimation of 0.5
+     * 
+     * @see de.parmol.search.DFSSearchable#estimateProblemSize(de.parmol.search.SearchTreeNode)
+     */
+    public double estimateProblemSize(SearchTreeNode node){
+        float support=((GSpanSearchTreeNode) node).getCode().getFrequencies()[0];
+        float minSupport=settings.minimumClassFrequencies[0];
+        if (support<=minSupport) return 0;
+        return (support-minSupport)/support;
+    }
+}
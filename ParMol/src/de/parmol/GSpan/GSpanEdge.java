@@ -72,42 +72,103 @@ public class GSpanEdge implements Comparable{
      */
     public int compareTo(Object o){
         GSpanEdge other=(GSpanEdge) o;
-        if (this.nodeA==other.nodeA){
-            if (this.nodeB!=other.nodeB) return this.nodeB-other.nodeB;
-            if (this.labelA!=other.labelA) return this.labelA-other.labelA;
-            if (this.edgeLabel!=other.edgeLabel) return this.edgeLabel-other.edgeLabel;
-            return this.labelB-other.labelB;
+        return compare(this.nodeA,this.nodeB,this.labelA,this.edgeLabel,this.labelB,
+                other.nodeA,other.nodeB,other.labelA,other.edgeLabel,other.labelB);
+    }
+    
+    /**
+     * compares the given edges corresponding to the DFS lexicographic order
+     * @return a negative value, zero or a positive value, if the first edge
+     *         is smaller, equal or bigger than the second one
+     */
+    static int compare(int nodeA,int nodeB,int labelA,int edgeLabel,int labelB,
+            int otherNodeA,int otherNodeB,int otherLabelA,int otherEdgeLabel,int otherLabelB){
+        if (nodeA==otherNodeA){
+            if (nodeB!=otherNodeB) return nodeB-otherNodeB;
+            if (labelA!=otherLabelA) return labelA-otherLabelA;
+            if (edgeLabel!=otherEdgeLabel) return edgeLabel-otherEdgeLabel;
+            return labelB-otherLabelB;
         } else {
-            if (this.nodeA<this.nodeB){ //this is forward edge
-                if (this.nodeB==other.nodeA){
+            if (nodeA<nodeB){ //this is forward edge
+                if (nodeB==otherNodeA){
                     return -1; // see paper
                 } else {
-                    if (other.nodeA>this.nodeA){
-                        if (other.nodeA>this.nodeB) return -1;
+                    if (otherNodeA>nodeA){
+                        if (otherNodeA>nodeB) return -1;
                         else return 1;
                     } else {
-                        if (this.nodeA>=other.nodeB) return 1;
+                        if (nodeA>=otherNodeB) return 1;
                         else return -1;
                     }
                 }
-            } else if (other.nodeA<other.nodeB) { //other is forward edge
-                if (other.nodeB==this.nodeA){
+            } else if (otherNodeA<otherNodeB) { //other is forward edge
+                if (otherNodeB==nodeA){
                     return 1; // see paper
                 } else {
-                    if (other.nodeA>this.nodeA){
-                        if (other.nodeA>=this.nodeB) return -1;
+                    if (otherNodeA>nodeA){
+                        if (otherNodeA>=nodeB) return -1;
                         else return 1;
                     } else {
-                        if (this.nodeA>other.nodeB) return 1;
+                        if (nodeA>otherNodeB) return 1;
                         else return -1;
                     }
                 } 
             } else { //compare two backwards edges with different nodeA
-                return this.nodeA-other.nodeA;
+                return nodeA-otherNodeA;
             }
         }
     }
     
+    /**
+     * compares the edge with the given values corresponding to the DFS lexicographic order
+     * @return a negative value, zero or a positive value, if this edge
+     *         is smaller, equal or bigger than the given one
+     */
+    int compareTo(int otherNodeA,int otherNodeB,int otherLabelA,int otherEdgeLabel,int otherLabelB){
+        return compare(nodeA,nodeB,labelA,edgeLabel,labelB,otherNodeA,otherNodeB,otherLabelA,otherEdgeLabel,otherLabelB);
+    }
+    
+    /** the maximal number of nodes a DFSCode can have, so that its edges can be packed into a key */
+    static final int MAX_NODES=1<<13;
+    /** the maximal number of node labels, so that edges can be packed into a key */
+    static final int MAX_NODE_LABELS=1<<13;
+    /** the maximal number of edge labels, so that edges can be packed into a key */
+    static final int MAX_EDGE_LABELS=1<<12;
+    
+    /**
+     * packs the given edge into one long value, the nodes and node labels use 13 bits, the edge label 12 bits
+     * @return the key of the edge
+     */
+    static long key(int nodeA,int nodeB,int labelA,int edgeLabel,int labelB){
+        return ((long) nodeA<<51) | ((long) nodeB<<38) | ((long) labelA<<25) | ((long) edgeLabel<<13) | labelB;
+    }
+    
+    static int nodeA(long key){ return (int) (key>>>51); }
+    static int nodeB(long key){ return (int) (key>>>38) & (MAX_NODES-1); }
+    static int labelA(long key){ return (int) (key>>>25) & (MAX_NODE_LABELS-1); }
+    static int edgeLabel(long key){ return (int) (key>>>13) & (MAX_EDGE_LABELS-1); }
+    static int labelB(long key){ return (int) key & (MAX_NODE_LABELS-1); }
+    
+    /**
+     * compares the edges of the given keys corresponding to the DFS lexicographic order
+     * @param key
+     * @param otherKey
+     * @return a negative value, zero or a positive value, if the first edge
+     *         is smaller, equal or bigger than the second one
+     */
+    static int compareKeys(long key,long otherKey){
+        return compare(nodeA(key),nodeB(key),labelA(key),edgeLabel(key),labelB(key),
+                nodeA(otherKey),nodeB(otherKey),labelA(otherKey),edgeLabel(otherKey),labelB(otherKey));
+    }
+    
+    /**
+     * @param key
+     * @return a new GSpanEdge for the given key
+     */
+    static GSpanEdge fromKey(long key){
+        return new GSpanEdge(nodeA(key),nodeB(key),labelA(key),edgeLabel(key),labelB(key));
+    }
+    
     public String toString(){
         return nodeA+" "+nodeB+": "+labelA+" "+edgeLabel+" "+labelB;
     }
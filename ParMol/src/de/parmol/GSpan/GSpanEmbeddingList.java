@@ -0,0 +1,130 @@
+/*
+ *
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package de.parmol.GSpan;
+
+/**
+ * This class stores all embeddings of a DFSCode in the database graphs (the projected database).
+ * Each embedding is stored as the database nodes the DFSCode nodes are mapped to, all embeddings
+ * are packed into one int array. The embeddings of one database graph are stored one after another,
+ * so the graph reference is only stored once per graph. The embedded edges are not stored, because
+ * they are given by the nodes and the DFSCode.
+ *
+ * @author agent <agent@local>
+ */
+public class GSpanEmbeddingList {
+    private final int nodeCount;
+    private int[] nodes;
+    private int size=0;
+    private GSpanGraph[] graphs;
+    private int[] graphEnds;
+    private int graphCount=0;
+
+    /**
+     * creates a new empty GSpanEmbeddingList
+     * @param nodeCount the number of nodes of the embedded DFSCode
+     */
+    public GSpanEmbeddingList(int nodeCount){
+        this.nodeCount=nodeCount;
+        this.nodes=new int[nodeCount*4];
+        this.graphs=new GSpanGraph[2];
+        this.graphEnds=new int[2];
+    }
+
+    /**
+     * adds a new embedding, all embeddings of one graph have to be added one after another
+     * @param graph the database graph of the embedding
+     * @param ackNodes maps the nodes of the parent DFSCode to database nodes
+     * @param parentNodeCount the number of nodes of the parent DFSCode
+     * @param newNode the database node of the new DFSCode node, if the embedding
+     *                 has one node more than the parent embedding
+     */
+    public void add(GSpanGraph graph, int[] ackNodes, int parentNodeCount, int newNode){
+        if (graphCount==0 || graphs[graphCount-1]!=graph){
+            if (graphCount==graphs.length){
+                GSpanGraph[] ng=new GSpanGraph[graphCount*2];
+                System.arraycopy(graphs,0,ng,0,graphCount);
+                graphs=ng;
+                int[] ne=new int[graphCount*2];
+                System.arraycopy(graphEnds,0,ne,0,graphCount);
+                graphEnds=ne;
+            }
+            graphs[graphCount++]=graph;
+        }
+        int pos=size*nodeCount;
+        if (pos+nodeCount>nodes.length){
+            int[] nn=new int[nodes.length*2];
+            System.arraycopy(nodes,0,nn,0,pos);
+            nodes=nn;
+        }
+        System.arraycopy(ackNodes,0,nodes,pos,parentNodeCount);
+        if (parentNodeCount<nodeCount) nodes[pos+parentNodeCount]=newNode;
+        graphEnds[graphCount-1]=++size;
+    }
+
+    /** shrinks the internal arrays to the stored embeddings */
+    public void trim(){
+        if (nodes.length>size*nodeCount){
+            int[] nn=new int[size*nodeCount];
+            System.arraycopy(nodes,0,nn,0,nn.length);
+            nodes=nn;
+        }
+        if (graphs.length>graphCount){
+            GSpanGraph[] ng=new GSpanGraph[graphCount];
+            System.arraycopy(graphs,0,ng,0,graphCount);
+            graphs=ng;
+            int[] ne=new int[graphCount];
+            System.arraycopy(graphEnds,0,ne,0,graphCount);
+            graphEnds=ne;
+        }
+    }
+
+    /**
+     * copies the nodes of the given embedding
+     * @param embedding the number of the embedding
+     * @param ackNodes the array the database nodes are copied to
+     */
+    public void getNodes(int embedding, int[] ackNodes){
+        System.arraycopy(nodes,embedding*nodeCount,ackNodes,0,nodeCount);
+    }
+
+    /** @return the number of stored embeddings */
+    public int size(){ return size; }
+    /** @return the number of different database graphs */
+    public int getGraphCount(){ return graphCount; }
+    /**
+     * @param i
+     * @return the i-th database graph
+     */
+    public GSpanGraph getGraph(int i){ return graphs[i]; }
+    /**
+     * @param i
+     * @return the number of the first embedding in the i-th database graph
+     */
+    public int getFirstEmbedding(int i){ return (i==0?0:graphEnds[i-1]); }
+    /**
+     * @param i
+     * @return the number of the first embedding behind the i-th database graph
+     */
+    public int getEndEmbedding(int i){ return graphEnds[i]; }
+
+    /** @return the approximate memory in bytes used by this list */
+    public long getMemory(){
+        return 4L*nodes.length+12L*graphs.length+32;
+    }
+}
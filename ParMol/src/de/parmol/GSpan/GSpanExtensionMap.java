@@ -0,0 +1,182 @@
+/*
+ *
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package de.parmol.GSpan;
+
+/**
+ * This class collects the children of a DFSCode while its embeddings are searched. Each child is
+ * identified by the packed key of its last edge (see GSpanEdge.key(..)) and found by open addressing,
+ * so no objects are created for the many times a child is found again. For each child the
+ * numbers of the supporting graphs and, if wanted, the embeddings are collected.
+ *
+ * @author agent <agent@local>
+ */
+public class GSpanExtensionMap {
+    private long[] table;
+    private int[] tableEntries; // entry number+1, 0 if the slot is free
+    private int mask;
+
+    private int size=0;
+    private long[] keys;
+    private int[][] graphs;
+    private int[] graphCounts;
+    private final GraphTable graphTable;
+    private GSpanEmbeddingList[] embeddings;
+
+    /**
+     * creates a new empty GSpanExtensionMap
+     * @param graphTable the table of the database graphs
+     */
+    public GSpanExtensionMap(GraphTable graphTable){
+        this.graphTable=graphTable;
+        table=new long[32];
+        tableEntries=new int[32];
+        mask=31;
+        keys=new long[8];
+        graphs=new int[8][];
+        graphCounts=new int[8];
+        embeddings=new GSpanEmbeddingList[8];
+    }
+
+    private static int hash(long key){
+        long h=key*0x9E3779B97F4A7C15L;
+        return (int) (h^(h>>>32));
+    }
+
+    /**
+     * @param key the key of the last edge of a child
+     * @return the number of the entry for the given key, a new entry is created if necessary
+     */
+    public int getEntry(long key){
+        int pos=hash(key)&mask;
+        while (tableEntries[pos]!=0){
+            if (table[pos]==key) return tableEntries[pos]-1;
+            pos=(pos+1)&mask;
+        }
+
+        if (size==keys.length) growEntries();
+        keys[size]=key;
+        graphs[size]=new int[4];
+        graphCounts[size]=0;
+        embeddings[size]=null;
+        table[pos]=key;
+        tableEntries[pos]=++size;
+        if (2*size>table.length) growTable();
+        return size-1;
+    }
+
+    private void growEntries(){
+        int n=keys.length*2;
+        long[] nk=new long[n];
+        System.arraycopy(keys,0,nk,0,size);
+        keys=nk;
+        int[][] ng=new int[n][];
+        System.arraycopy(graphs,0,ng,0,size);
+        graphs=ng;
+        int[] nc=new int[n];
+        System.arraycopy(graphCounts,0,nc,0,size);
+        graphCounts=nc;
+        GSpanEmbeddingList[] ne=new GSpanEmbeddingList[n];
+        System.arraycopy(embeddings,0,ne,0,size);
+        embeddings=ne;
+    }
+
+    private void growTable(){
+        table=new long[table.length*2];
+        tableEntries=new int[table.length];
+        mask=table.length-1;
+        for (int i=0;i<size;i++){
+            int pos=hash(keys[i])&mask;
+            while (tableEntries[pos]!=0) pos=(pos+1)&mask;
+            table[pos]=keys[i];
+            tableEntries[pos]=i+1;
+        }
+    }
+
+    /**
+     * adds the given graph to the supporting graphs of the given entry, all embeddings of one graph
+     * have to be searched one after another, so that each graph is only added once
+     * @param entry
+     * @param graph
+     */
+    public void addGraph(int entry, GSpanGraph graph){
+        int count=graphCounts[entry];
+        int[] g=graphs[entry];
+        if (count>0 && g[count-1]==graph.id) return;
+        if (count==g.length){
+            int[] ng=new int[count*2];
+            System.arraycopy(g,0,ng,0,count);
+            graphs[entry]=g=ng;
+        }
+        g[count]=graph.id;
+        graphCounts[entry]=count+1;
+    }
+
+    /**
+     * @param entry
+     * @return a new GraphSet with all supporting graphs of the given entry
+     */
+    public GraphSet getGraphSet(int entry){
+        GraphSet set=new GraphSet(graphTable);
+        int[] g=graphs[entry];
+        for (int i=0;i<graphCounts[entry];i++) set.add(g[i]);
+        return set;
+    }
+
+    /**
+     * @param entry
+     * @return the stored embeddings of the given entry, or null
+     */
+    public GSpanEmbeddingList getEmbeddings(int entry){ return embeddings[entry]; }
+
+    /**
+     * @param entry
+     * @param list the embeddings of the given entry
+     */
+    public void setEmbeddings(int entry, GSpanEmbeddingList list){ embeddings[entry]=list; }
+
+    /** removes all stored embeddings */
+    public void clearEmbeddings(){
+        for (int i=0;i<size;i++) embeddings[i]=null;
+    }
+
+    /**
+     * @param entry
+     * @return the key of the given entry
+     */
+    public long getKey(int entry){ return keys[entry]; }
+
+    /** @return the number of entries */
+    public int size(){ return size; }
+
+    /**
+     * @return the entry numbers sorted by the DFS lexicographic order of their edges
+     */
+    public int[] sortedEntries(){
+        int[] order=new int[size];
+        for (int i=0;i<size;i++){ // insertion sort, because a DFSCode has only few children
+            int j=i;
+            while (j>0 && GSpanEdge.compareKeys(keys[order[j-1]],keys[i])>0){
+                order[j]=order[j-1];
+                j--;
+            }
+            order[j]=i;
+        }
+        return order;
+    }
+}
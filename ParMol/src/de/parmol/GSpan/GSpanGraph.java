@@ -32,16 +32,21 @@ import java.util.*;
 public class GSpanGraph {
     private ClassifiedGraph realGraph;
     MutableGraph me;
+    /** the number of this graph in the GraphTable of the DataBase */
+    final int id;
+    private int[] edgeRanks=null;
     
     /**
      * creates a new GSpanGraph, which representates the given realGraph
      * @param realGraph
+     * @param id the number of the graph in the DataBase
      * @param node
      * @param edge
      * @param factory
      */
-    public GSpanGraph(ClassifiedGraph realGraph, Relabler node, Relabler edge, GraphFactory factory){
+    public GSpanGraph(ClassifiedGraph realGraph, int id, Relabler node, Relabler edge, GraphFactory factory){
         this.realGraph=realGraph;
+        this.id=id;
         me=factory.createGraph();
         
         int[] nodes=new int[realGraph.getNodeCount()];
@@ -113,6 +118,21 @@ public class GSpanGraph {
         }
     }
     
+    /**
+     * sets the rank of the seed edge each edge of this GSpanGraph belongs to
+     * @param edgeRanks the rank of each edge, indexed by the edge
+     */
+    void setEdgeRanks(int[] edgeRanks){ this.edgeRanks=edgeRanks; }
+    
+    /**
+     * @param edge
+     * @param seedRank the rank of the seed edge that is currently searched
+     * @return true, if the given edge belongs to a seed edge that is searched before the given one
+     */
+    final boolean isMasked(int edge, int seedRank){
+        return edgeRanks!=null && edgeRanks[edge]<seedRank;
+    }
+    
     /** @return the corresponding real graph */ 
     public ClassifiedGraph getRealGraph(){ return realGraph; }
     /** @return the number of Edges, remaining in this GSpanGraph */
@@ -0,0 +1,96 @@
+/*
+ * 
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ * 
+ */
+package de.parmol.GSpan;
+
+import java.util.Comparator;
+
+import de.parmol.search.SearchTreeNode;
+
+/**
+ * This class represents a node in the search tree of gSpan, each node owns its DFSCode
+ *
+ * @author agent <agent@local>
+ */
+public class GSpanSearchTreeNode extends SearchTreeNode {
+    /**
+     * orders the positions of nodes (see getPosition()) like a single worker visits the nodes: the seeds by their
+     * rank, each node before its descendants and the children of a node in the reverse order of their creation,
+     * as the last pushed child is popped first from the stack
+     */
+    public final static Comparator SEQUENTIAL_ORDER=new Comparator(){
+        public int compare(Object o1, Object o2){
+            final int[] a=(int[]) o1;
+            final int[] b=(int[]) o2;
+            if (a[0]!=b[0]) return a[0]-b[0];
+            for (int i=1;i<a.length && i<b.length;i++){
+                if (a[i]!=b[i]) return b[i]-a[i];
+            }
+            return a.length-b.length;
+        }
+    };
+    
+    private DFSCode code;
+    private int[] position;
+    
+    /**
+     * creates a new node in the gSpan search tree, if the parent has a position the new node
+     * gets the next position among the parent's children
+     * @param parent the parent node
+     * @param code the (minimal) DFSCode represented by this node
+     * @param level the level in the search tree
+     */
+    public GSpanSearchTreeNode(SearchTreeNode parent, DFSCode code, int level){
+        super(parent,level);
+        this.code=code;
+        if (parent!=null && ((GSpanSearchTreeNode) parent).position!=null){
+            final int[] parentPosition=((GSpanSearchTreeNode) parent).position;
+            position=new int[parentPosition.length+1];
+            System.arraycopy(parentPosition,0,position,0,parentPosition.length);
+            position[parentPosition.length]=parent.getChildren().size();
+        }
+    }
+    
+    /**
+     * creates a new seed node, the seed and all its descendants know their position in the search tree
+     * @param code the (minimal) DFSCode of the seed
+     * @param seedRank the rank of the seed (see DataBase.rankFrequentEdges())
+     */
+    public GSpanSearchTreeNode(DFSCode code, int seedRank){
+        this(null,code,1);
+        position=new int[] { seedRank };
+    }
+    
+    /** @return the DFSCode represented by this node */
+    public DFSCode getCode(){ return code; }
+    
+    /**
+     * @return the position of this node in the search tree, i.e. the rank of its seed followed by the index
+     *         of each node among its siblings, or <code>null</code> if the seed has no rank
+     */
+    public int[] getPosition(){ return position; }
+    
+    /*
+     *  (non-Javadoc)
+     * @see de.parmol.search.SearchTreeNode#clear()
+     */
+    public void clear(){
+        super.clear();
+        code=null;
+    }
+}
@@ -21,33 +21,58 @@
  */
 package de.parmol.GSpan;
 
-import java.util.HashSet;
-import de.parmol.graph.*;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
- * This is a specialized HashSet for storing Classified/GSpan-Graphs, 
- * which also accumulates their frequencies for further use  
+ * This is a specialized Set for storing Classified/GSpan-Graphs of one GraphTable.
+ * The graphs are stored as bits of their number in the table, only the range between the
+ * smallest and the biggest contained graph is allocated. The frequencies are summed up
+ * from the frequency columns of the table when they are needed.
  *
  * @author Marc Woerlein <marc.woerlein@gmx.de>
  */
-public class GraphSet extends HashSet {
-	static final long serialVersionUID=12345; //was will Java denn da stehen haben?
-    /** the length of the frequencies Array */
-	public static int length;
-    private float[] freq;
+public class GraphSet extends AbstractSet {
+    private final GraphTable table;
+    private long[] words=null;
+    private int wordOffset=0;
+    private int size=0;
+    private volatile float[] freq=null;
 
-    /** creates a new GraphSet */
-    public GraphSet(){ freq=new float[GraphSet.length]; }
+    /** 
+     * creates a new empty GraphSet
+     * @param table the table, which contains all graphs this set can contain
+     */
+    public GraphSet(GraphTable table){ this.table=table; }
     
     /** 
-     * add the given ClassifiedGraph
-     * @param g
+     * adds the graph with the given number
+     * @param id the number of the graph in the GraphTable
+     * @return true, if the graph was not contained before
      */
-    public void add(ClassifiedGraph g){
-        if (super.add(g)){
-            float[] nf=g.getClassFrequencies();
-            for (int i=0;i<GraphSet.length;i++) freq[i]+=nf[i];
+    public boolean add(int id){
+        int w=id>>>6;
+        if (words==null){
+            words=new long[1];
+            wordOffset=w;
+        } else if (w<wordOffset){
+            long[] nw=new long[words.length+Math.max(wordOffset-w,words.length)];
+            int shift=nw.length-words.length;
+            System.arraycopy(words,0,nw,shift,words.length);
+            words=nw;
+            wordOffset-=shift;
+        } else if (w>=wordOffset+words.length){
+            long[] nw=new long[Math.max(w-wordOffset+1,words.length*2)];
+            System.arraycopy(words,0,nw,0,words.length);
+            words=nw;
         }
+        long bit=1L<<id;
+        if ((words[w-wordOffset]&bit)!=0) return false;
+        words[w-wordOffset]|=bit;
+        size++;
+        freq=null;
+        return true;
     }
     
     /** 
@@ -55,21 +80,106 @@ public class GraphSet extends HashSet {
      * @param g
      */
     public void add(GSpanGraph g){
-        if (super.add(g)){
-            float[] nf=g.getRealGraph().getClassFrequencies();
-            for (int i=0;i<GraphSet.length;i++) freq[i]+=nf[i];
+        add(g.id);
+    }
+    
+    /**
+     * @param id
+     * @return true, if the graph with the given number is contained in this set 
+     */
+    public boolean containsId(int id){
+        int w=(id>>>6)-wordOffset;
+        return words!=null && w>=0 && w<words.length && (words[w]&(1L<<id))!=0;
+    }
+    
+    /**
+     * @param id
+     * @return the number of the first contained graph not smaller than id, or -1
+     */
+    public int nextId(int id){
+        if (words==null) return -1;
+        int w=(id>>>6)-wordOffset;
+        long word;
+        if (w<0){
+            w=0;
+            word=words[0];
+        } else if (w>=words.length){
+            return -1;
+        } else {
+            word=words[w]&(-1L<<id);
+        }
+        while (word==0){
+            if (++w==words.length) return -1;
+            word=words[w];
         }
+        return ((w+wordOffset)<<6)+Long.numberOfTrailingZeros(word);
+    }
+    
+    /*
+     *  (non-Javadoc)
+     * @see java.util.Collection#size()
+     */
+    public int size(){ return size; }
+    
+    /*
+     *  (non-Javadoc)
+     * @see java.util.Collection#contains(java.lang.Object)
+     */
+    public boolean contains(Object o){
+        if (o instanceof GSpanGraph) return containsId(((GSpanGraph) o).id) && table.getGraph(((GSpanGraph) o).id)==o;
+        return super.contains(o);
+    }
+    
+    /**
+     * @return an iterator over the contained graphs in the order of their numbers
+     */
+    public Iterator iterator(){
+        return new Iterator(){
+            int next=nextId(0);
+            public boolean hasNext(){ return next>=0; }
+            public Object next(){
+                if (next<0) throw new NoSuchElementException("No more elements");
+                Object g=table.getGraph(next);
+                next=nextId(next+1);
+                return g;
+            }
+            public void remove(){ throw new UnsupportedOperationException(); }
+        };
     }
     
     /** @return the frequencies of the current set */
-    public final float[] getFreq(){ return freq; };
+    public final float[] getFreq(){
+        float[] f=freq;
+        if (f==null){
+            f=new float[table.getClassCount()];
+            if (words!=null){
+                for (int c=0;c<f.length;c++){
+                    float[] column=table.getFrequencyColumn(c);
+                    float sum=0;
+                    for (int w=0;w<words.length;w++){
+                        long word=words[w];
+                        int base=(w+wordOffset)<<6;
+                        while (word!=0){
+                            sum+=column[base+Long.numberOfTrailingZeros(word)];
+                            word&=word-1;
+                        }
+                    }
+                    f[c]=sum;
+                }
+            }
+            freq=f;
+        }
+        return f;
+    }
+    
     /**
      * @param minFreq
      * @return true, if current support not smaller then minFreq
      */
     public boolean isFrequent(float[] minFreq){
-        for (int i=0;i<length;i++) 
-            if (freq[i]<minFreq[i]) return false;
+        float[] f=getFreq();
+        for (int i=0;i<f.length;i++) 
+            if (f[i]<minFreq[i]) return false;
         return true;
     }
 
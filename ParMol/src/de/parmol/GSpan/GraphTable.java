@@ -0,0 +1,58 @@
+/*
+ *
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package de.parmol.GSpan;
+
+/**
+ * This class numbers the graphs of a database, so that GraphSets can store them as bits.
+ * The class frequencies are stored in one column per class, indexed by the graph numbers.
+ *
+ * @author agent <agent@local>
+ */
+public class GraphTable {
+    private final Object[] graphs;
+    private final float[][] frequencies;
+
+    /**
+     * creates a new GraphTable
+     * @param graphs the graphs, the index of a graph is its number
+     * @param frequencies the class frequencies, frequencies[c][i] is the frequency of graph i in class c
+     */
+    public GraphTable(Object[] graphs, float[][] frequencies){
+        this.graphs=graphs;
+        this.frequencies=frequencies;
+    }
+
+    /**
+     * @param id
+     * @return the graph with the given number
+     */
+    public Object getGraph(int id){ return graphs[id]; }
+
+    /**
+     * @param c
+     * @return the frequencies of all graphs in the given class
+     */
+    public float[] getFrequencyColumn(int c){ return frequencies[c]; }
+
+    /** @return the number of classes */
+    public int getClassCount(){ return frequencies.length; }
+
+    /** @return the number of graphs */
+    public int size(){ return graphs.length; }
+}
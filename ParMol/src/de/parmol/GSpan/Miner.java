@@ -32,6 +32,7 @@ import de.parmol.AbstractMiner;
 import de.parmol.Settings;
 import de.parmol.graph.GraphFactory;
 import de.parmol.parsers.*;
+import de.parmol.search.SearchManager;
 import de.parmol.util.*;
 
 
@@ -55,10 +56,6 @@ public class Miner extends AbstractMiner {
 	public Miner(Settings settings) {
 		super(settings);
 		this.m_frequentSubgraphs = new FragmentSet();
-		GraphSet.length = settings.minimumClassFrequencies.length;
-		empty = new float[settings.minimumClassFrequencies.length];
-		Debug.out = System.out;
-		Debug.dlevel = m_settings.debug;
 	}
 
 
@@ -70,7 +67,7 @@ public class Miner extends AbstractMiner {
 	protected GraphFactory getGraphFactory(GraphParser parser) {
 		int mask = parser.getDesiredGraphFactoryProperties() | GraphFactory.CLASSIFIED_GRAPH;
 		if (m_settings.ringSizes[0] > 2) mask |= GraphFactory.RING_GRAPH;
-		return GraphFactory.getFactory(mask);
+		return GraphFactory.getFactory(addCompactGraphType(mask));
 	}
 
 
@@ -81,93 +78,105 @@ public class Miner extends AbstractMiner {
 	 */
 	protected void startRealMining() {
 		long start = System.currentTimeMillis();
-		Debug.print(1, "renaming DataBase ... ");
+		Debug debug = m_settings.getDebug();
+		debug.print(1, "renaming DataBase ... ");
 		DataBase gs = new DataBase(m_graphs, m_settings.minimumClassFrequencies, m_frequentSubgraphs, factory);
-		Debug.println(1, "done (" + (System.currentTimeMillis() - start) + " ms)");
+		if (m_settings.useEmbeddingLists) {
+			gs.setEmbeddingListMemory((m_settings.maximumEmbeddingListMemory > 0) ? m_settings.maximumEmbeddingListMemory * 1024L
+					: Long.MAX_VALUE);
+		}
+		gs.setDebug(debug);
+		debug.println(1, "done (" + (System.currentTimeMillis() - start) + " ms)");
 
-		Debug.println(1, "minSupport: " + m_settings.minimumClassFrequencies[0]);
-		Debug.println(1, "graphs    : " + m_graphs.size());
+		debug.println(1, "minSupport: " + m_settings.minimumClassFrequencies[0]);
+		debug.println(1, "graphs    : " + m_graphs.size());
 
-		graphSet_Projection(gs);
+		if (m_settings.parallelSeeds) {
+			parallelSeedSearch(gs);
+		} else {
+			graphSet_Projection(gs);
+		}
 	}
 
 
 	/**
-	 * searches Subgraphs for each freqent edge in the DataBase
+	 * searches Subgraphs for each freqent edge in the DataBase, the subtree of each
+	 * edge is searched in parallel by the SearchManager
 	 * @param gs
 	 */
 	private void graphSet_Projection(DataBase gs) {
+		GSpanDFSSearch searcher = new GSpanDFSSearch(m_settings, m_frequentSubgraphs);
+		SearchManager searchManager = getSearchManager(searcher);
+		try {
+			searchSeeds(gs, searchManager);
+		} finally {
+			searchManager.shutdown();
+		}
+	}
+
+
+	/**
+	 * searches the subtree of each freqent edge in the DataBase one after the other
+	 * @param gs
+	 * @param searchManager
+	 */
+	private void searchSeeds(DataBase gs, SearchManager searchManager) {
+		Debug debug = m_settings.getDebug();
 		for (Iterator eit = gs.frequentEdges(); eit.hasNext();) {
 			GSpanEdge edge = (GSpanEdge) eit.next();
 			DFSCode code = new DFSCode(edge, gs); //create DFSCode for the
 			// current edge
 			long time = System.currentTimeMillis();
-			Debug.print(1, "doing seed " + m_settings.serializer.serialize(code.toFragment().getFragment()) + " ...");
-			Debug.println(2,"");
-			subgraph_Mining(code); //recursive search
+			debug.print(1, "doing seed " + m_settings.serializer.serialize(code.toFragment().getFragment()) + " ...");
+			debug.println(2,"");
+			if (code.isMin()) {
+				searchManager.addStartNode(new GSpanSearchTreeNode(null, code, 1));
+				searchManager.startSearch(); //parallel search
+			} else {
+				debug.println(2, code.toString(m_settings.serializer)+" not min");
+				m_settings.stats.duplicateFragments++;
+			}
 			eit.remove(); //shrink database
-			Debug.println(1, "\tdone (" + (System.currentTimeMillis() - time) + " ms)");
+			debug.println(1, "\tdone (" + (System.currentTimeMillis() - time) + " ms)");
 			if (gs.size() < m_settings.minimumClassFrequencies[0] && gs.size() != 0) { //not needed
-				Debug.println("remaining Graphs: " + gs.size());
-				Debug.println("May not happen!!!");
+				debug.println("remaining Graphs: " + gs.size());
+				debug.println("May not happen!!!");
 				return;
 			}
 		}
-		Debug.println(2, "remaining Graphs: " + gs.size());
-	}
-
-	private static float[] empty;
-
-
-	private float[] getMax(float[] a, float[] b) {
-		for (int i = 0; i < a.length; i++) {
-			if (a[i] > b[i]) return a;
-			if (b[i] > a[i]) return b;
-		}
-		return a;
-	}
-
-
-	private boolean unequal(float[] a, float[] b) {
-		for (int i = 0; i < a.length; i++) {
-			if (a[i] != b[i]) return true;
-		}
-		return false;
+		debug.println(2, "remaining Graphs: " + gs.size());
 	}
 
 
 	/**
-	 * recursive search for frequent Subgraphs
-	 * 
-	 * @param code the DFSCode with is found and checked for childs
-	 * @return the highest occuring frequency, of this branch  
+	 * searches Subgraphs for all freqent edges in the DataBase at once. The DataBase is not shrunk
+	 * after each seed, instead each seed masks the edges of all seeds before (see DataBase.rankFrequentEdges()),
+	 * so all seeds can be given to the SearchManager as start nodes and are distributed and split
+	 * like any other search tree node. The fragments are still reported in the order of the sequential search
+	 * @param gs
 	 */
-	private float[] subgraph_Mining(DFSCode code) {
-		if (!code.isMin()) {
-			Debug.println(2, code.toString(m_settings.serializer)+" not min");
-			m_settings.stats.duplicateFragments++;
-			return empty;
-		}
-		float[] max = empty;
-
-		float[] my = code.getFrequencies();
-		Debug.println(2, "  found graph " + code.toString(m_settings.serializer));
-
-		Iterator it = code.childIterator(m_settings.findTreesOnly, m_settings.findPathsOnly);
-		for (; it.hasNext();) {
-			DFSCode next = (DFSCode) it.next();
-			if (next.isFrequent(m_settings.minimumClassFrequencies)) {
-				float[] a = subgraph_Mining(next);
-				max = getMax(max, a);
+	private void parallelSeedSearch(DataBase gs) {
+		GSpanDFSSearch searcher = new GSpanDFSSearch(m_settings, m_frequentSubgraphs);
+		Debug debug = m_settings.getDebug();
+		SearchManager searchManager = getSearchManager(searcher);
+		GSpanEdge[] seeds = gs.rankFrequentEdges();
+		for (int rank = 0; rank < seeds.length; rank++) {
+			DFSCode code = new DFSCode(seeds[rank], gs, rank);
+			if (code.isMin()) {
+				searchManager.addStartNode(new GSpanSearchTreeNode(code, rank));
+			} else {
+				debug.println(2, code.toString(m_settings.serializer)+" not min");
+				m_settings.stats.duplicateFragments++;
 			}
 		}
-		if ((!m_settings.closedFragmentsOnly || max == empty || unequal(my, max))
-				&& m_settings.checkReportingConstraints(code.getSubgraph(), code.getFrequencies())) {
-			m_frequentSubgraphs.add(code.toFragment());
-		} else {
-			m_settings.stats.earlyFilteredNonClosedFragments++;
+		long time = System.currentTimeMillis();
+		try {
+			searchManager.startSearch(); //parallel search of all seeds
+		} finally {
+			searchManager.shutdown();
 		}
-		return my;
+		searcher.addPositionedFragments(); // report the fragments in the sequential order, whichever worker found them
+		debug.println(1, seeds.length + " seeds done (" + (System.currentTimeMillis() - time) + " ms)");
 	}
 
 
@@ -200,7 +209,7 @@ public class Miner extends AbstractMiner {
 		Miner m = new Miner(s);
 		m.setUp();
 		m.startMining();
-		if (Debug.dlevel < 0) Debug.println("" + m.m_frequentSubgraphs.size());
+		if (s.debug < 0) s.getDebug().println("" + m.m_frequentSubgraphs.size());
 		if (s.outputFile != null) {
 			PrintStream output;
 
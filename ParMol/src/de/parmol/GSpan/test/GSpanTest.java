@@ -0,0 +1,158 @@
+/*
+ * 
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *  
+ */
+package de.parmol.GSpan.test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import junit.framework.TestCase;
+import de.parmol.Settings;
+import de.parmol.GSpan.Miner;
+import de.parmol.graph.Graph;
+import de.parmol.graph.SimpleGraphComparator;
+import de.parmol.parsers.SLNParser;
+import de.parmol.util.FragmentSet;
+import de.parmol.util.FrequentFragment;
+
+/**
+ * This tests the parallel search of gSpan against the sequential one
+ *
+ * @author agent <agent@local>
+ */
+public class GSpanTest extends TestCase {
+    /** */
+	public GSpanTest(){ super(); }
+    /**
+     * @param text
+     */
+	public GSpanTest(String text){ super(text); }
+
+	private FragmentSet mine(String distributionScheme, int maxThreads) throws FileNotFoundException, IOException,
+			ParseException, InstantiationException, IllegalAccessException, ClassNotFoundException {
+		return mine(distributionScheme, maxThreads, true, 64 * 1024);
+	}
+
+	private FragmentSet mine(String distributionScheme, int maxThreads, boolean useEmbeddingLists,
+			int maximumEmbeddingListMemory) throws FileNotFoundException, IOException, ParseException,
+			InstantiationException, IllegalAccessException, ClassNotFoundException {
+		return mine(distributionScheme, maxThreads, useEmbeddingLists, maximumEmbeddingListMemory, false);
+	}
+
+	private FragmentSet mine(String distributionScheme, int maxThreads, boolean useEmbeddingLists,
+			int maximumEmbeddingListMemory, boolean parallelSeeds) throws FileNotFoundException, IOException,
+			ParseException, InstantiationException, IllegalAccessException, ClassNotFoundException {
+		Settings settings = new Settings(new String[] { "-graphFile=data/IC93.test",
+				"-parserClass=de.parmol.parsers.SLNParser" });
+		settings.minimumClassFrequencies[0] = 100;
+		settings.closedFragmentsOnly = false;
+		settings.debug = 0;
+		settings.maxThreads = maxThreads;
+		settings.distributionScheme = distributionScheme;
+		settings.useEmbeddingLists = useEmbeddingLists;
+		settings.maximumEmbeddingListMemory = maximumEmbeddingListMemory;
+		settings.parallelSeeds = parallelSeeds;
+
+		Miner miner = new Miner(settings);
+		miner.setUp();
+		miner.startMining();
+		return miner.getFrequentSubgraphs();
+	}
+
+	/**
+	 * @param expected
+	 * @param found
+	 */
+	public static void assertSameFragments(FragmentSet expected, FragmentSet found) {
+		assertEquals(expected.size(), found.size());
+
+		for (Iterator it = found.iterator(); it.hasNext();) {
+			final FrequentFragment fragA = (FrequentFragment) it.next();
+
+			boolean ok = false;
+			for (Iterator it2 = expected.iterator(); it2.hasNext();) {
+				final FrequentFragment fragB = (FrequentFragment) it2.next();
+
+				if (SimpleGraphComparator.instance.compare(fragA.getFragment(), fragB.getFragment()) == 0) {
+					ok = Arrays.equals(fragA.getClassFrequencies(), fragB.getClassFrequencies());
+					break;
+				}
+			}
+
+			assertTrue("Wrong fragment " + SLNParser.instance.serialize(fragA.getFragment()), ok);
+		}
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testParallelSearch() throws Exception {
+		FragmentSet sequential = mine("threads", 1);
+
+		assertSameFragments(sequential, mine("threads", 4));
+		assertSameFragments(sequential, mine("workstealing", 4));
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testEmbeddingLists() throws Exception {
+		FragmentSet searched = mine("threads", 1, false, 0);
+
+		assertSameFragments(searched, mine("threads", 1, true, 64 * 1024));
+		// a budget of 0 means no limit
+		assertSameFragments(searched, mine("threads", 1, true, 0));
+		// a tiny budget forces some DFSCodes to search their embeddings again
+		assertSameFragments(searched, mine("threads", 1, true, 4));
+		assertSameFragments(searched, mine("workstealing", 4, true, 4));
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testParallelSeeds() throws Exception {
+		FragmentSet sequential = mine("threads", 1);
+
+		assertSameOrder(sequential, mine("threads", 4, true, 64 * 1024, true));
+		assertSameOrder(sequential, mine("workstealing", 4, true, 64 * 1024, true));
+		assertSameOrder(sequential, mine("threads", 1, false, 0, true));
+	}
+
+
+	/**
+	 * Checks that both sets contain the same fragments and that the fragments are even reported in the same order.
+	 * 
+	 * @param setA a fragment set
+	 * @param setB another fragment set
+	 */
+	private static void assertSameOrder(FragmentSet setA, FragmentSet setB) {
+		assertSameFragments(setA, setB);
+
+		Iterator it2 = setB.iterator();
+		for (Iterator it = setA.iterator(); it.hasNext();) {
+			final FrequentFragment fragA = (FrequentFragment) it.next();
+			final FrequentFragment fragB = (FrequentFragment) it2.next();
+
+			assertEquals(0, SimpleGraphComparator.instance.compare(fragA.getFragment(), fragB.getFragment()));
+			assertTrue(Arrays.equals(fragA.getClassFrequencies(), fragB.getClassFrequencies()));
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ *
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package de.parmol.GSpan.test;
+
+import java.util.Iterator;
+
+import junit.framework.TestCase;
+import de.parmol.GSpan.GraphSet;
+import de.parmol.GSpan.GraphTable;
+
+/**
+ * This tests the bitset based GraphSet
+ *
+ * @author agent <agent@local>
+ */
+public class GraphSetTest extends TestCase {
+	private GraphTable table;
+
+	protected void setUp() {
+		final int count = 1000;
+		String[] graphs = new String[count];
+		float[][] frequencies = new float[2][count];
+		for (int i = 0; i < count; i++) {
+			graphs[i] = "graph " + i;
+			frequencies[0][i] = 1;
+			frequencies[1][i] = (i % 2 == 0) ? 0.5f : 0;
+		}
+		table = new GraphTable(graphs, frequencies);
+	}
+
+	/** */
+	public void testAddAndIterate() {
+		GraphSet set = new GraphSet(table);
+		assertEquals(-1, set.nextId(0));
+		assertFalse(set.iterator().hasNext());
+
+		// the set has to grow to both sides
+		int[] ids = { 500, 700, 3, 64, 999, 0, 128, 127 };
+		for (int i = 0; i < ids.length; i++) {
+			assertTrue(set.add(ids[i]));
+		}
+		assertFalse(set.add(64));
+		assertEquals(ids.length, set.size());
+
+		int[] sorted = { 0, 3, 64, 127, 128, 500, 700, 999 };
+		Iterator it = set.iterator();
+		for (int i = 0; i < sorted.length; i++) {
+			assertTrue(set.containsId(sorted[i]));
+			assertEquals(sorted[i], set.nextId(i == 0 ? 0 : sorted[i - 1] + 1));
+			assertEquals("graph " + sorted[i], it.next());
+		}
+		assertFalse(it.hasNext());
+		assertEquals(-1, set.nextId(1000));
+		assertFalse(set.containsId(1));
+		assertFalse(set.containsId(998));
+	}
+
+	/** */
+	public void testFrequencies() {
+		GraphSet set = new GraphSet(table);
+		for (int i = 10; i < 300; i += 3) set.add(i);
+
+		float[] freq = set.getFreq();
+		assertEquals(97.0f, freq[0], 0);
+		assertEquals(24.5f, freq[1], 0);
+
+		set.add(0);
+		assertEquals(98.0f, set.getFreq()[0], 0);
+		assertTrue(set.isFrequent(new float[] { 98, 25 }));
+		assertFalse(set.isFrequent(new float[] { 99, 0 }));
+	}
+}
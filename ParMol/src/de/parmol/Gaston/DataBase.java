@@ -31,17 +31,23 @@ import de.parmol.graph.*;
  * @author Marc Woerlein <marc.woerlein@gmx.de>
  */
 public class DataBase implements EdgeNodeRelabler{
+    /** the maximal number of array entries a LegSet may have, for more a SparseLegSet is used */
+    public final static int MAX_DENSE_LEGSET=1<<16;
+    
     
     private FreqLabel edges[];	//maps ordered edgeLabel to real edgeLabel
     private FreqLabel nodes[];	//maps ordered nodeLabel to real nodeLabel
     private int reNodes[];		//maps real nodeLabel to ordered nodeLabel
     private int reEdges[];		//maps real edgeLabel to ordered edgeLabel
     private Leg[] freqLegs;
+    private Graph[] graphs;			//the renamed graphs, indexed by the embeddings
+    private ClassifiedGraph[] origs;	//the corresponding original graphs
 //    private Collection relabeledGraphs;
     private int maxNodeLabel;	//the highest label occured in the database 
     private int maxEdgeLabel;
     private int maxNodes;
     private int maxNewNodeLabel,maxNewEdgeLabel;
+    private final int classCount;
     
     /**
      * This class is for counting the frequencies for each node/edge label
@@ -151,9 +157,12 @@ public class DataBase implements EdgeNodeRelabler{
 //        Map map=new HashMap();
         freqLegs=new Leg[maxNewNodeLabel];
         for (int i=0;i<maxNewNodeLabel;i++){
-            freqLegs[i]=new Leg(i);
+            freqLegs[i]=new Leg(i,this);
         }
-        for (Iterator git=graphs.iterator();git.hasNext();){
+        this.graphs=new Graph[graphs.size()];
+        this.origs=new ClassifiedGraph[graphs.size()];
+        int graphId=0;
+        for (Iterator git=graphs.iterator();git.hasNext();graphId++){
             ClassifiedGraph ack=(ClassifiedGraph) git.next();
             MutableGraph mut=factory.createGraph(ack.getName()); //TODO: copy class frequencies
             int ackn=ack.getNodeCount();
@@ -180,11 +189,12 @@ public class DataBase implements EdgeNodeRelabler{
                 }
             }
             /*create Initial Embeddings for the new Graph*/
-            Embedding parent=new Embedding(mut,ack);
+            this.graphs[graphId]=mut;
+            this.origs[graphId]=ack;
             for (int i=0;i<mut.getNodeCount();i++){
                 int node=mut.getNode(i);
                 int label=mut.getNodeLabel(node);
-                freqLegs[label].add(new Embedding(parent,node,mut,ack));
+                freqLegs[label].addInitial(graphId,node);
             }
             //relabeled Graph done
         }
@@ -200,10 +210,14 @@ public class DataBase implements EdgeNodeRelabler{
         maxNodeLabel=-1;
         maxEdgeLabel=-1;
         maxNodes=-1;
+        classCount=minFreq.length;
         getOrderdFrequentLabels(graphs,minFreq);
         buildRenamedGraphs(graphs,factory);
     }
 
+    /** @return the number of classes of the graphs (the length of the frequency arrays) */
+    public final int getClassCount(){ return classCount; }
+
     /**
      * @return an array of initial and frequent legs
      */
@@ -212,7 +226,22 @@ public class DataBase implements EdgeNodeRelabler{
     /**
      * @return a new LegSet of with the correct size for these DataBase
      */
-    public final LegSet getLegSet(){ return new LegSet(maxNewEdgeLabel,maxNewNodeLabel,maxNodes); }
+    public final LegSet getLegSet(){
+        if ((long) maxNewEdgeLabel*(maxNewNodeLabel+maxNodes)>MAX_DENSE_LEGSET) return new SparseLegSet(this);
+        return new LegSet(maxNewEdgeLabel,maxNewNodeLabel,maxNodes,this);
+    }
+    
+    /**
+     * @param graphId
+     * @return the renamed graph with the given number
+     */
+    public final Graph getGraph(int graphId){ return graphs[graphId]; }
+    
+    /**
+     * @param graphId
+     * @return the original graph with the given number
+     */
+    public final ClassifiedGraph getOrig(int graphId){ return origs[graphId]; }
     
     /*
      *  (non-Javadoc)
@@ -74,7 +74,9 @@ public class GastonCycle {
                 //do further possible extensions
                 findCycles(cyclic,newLegs);
             } else {
-		 m_settings.stats.duplicateFragments++;
+		 synchronized (m_settings.stats) {
+		     m_settings.stats.duplicateFragments++;
+		 }
 	    }
             cyclic.removeEdge(edge);
         }
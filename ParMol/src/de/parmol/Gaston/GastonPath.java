@@ -46,6 +46,8 @@ public class GastonPath {
     private float[] minFreq;
     private GastonTree tree;
     private Settings m_settings;
+    private Debug debug;
+    private float[] empty;		//the initial maximal frequency, null if not searching closed fragments
     
     /**
      * initialise the local variables
@@ -68,6 +70,8 @@ public class GastonPath {
         this.pathsOnly=pathsOnly;
         this.doCycles=doCycles;
 	this.m_settings=settings;
+        this.debug=settings.getDebug();
+        this.empty=settings.closedFragmentsOnly?new float[minFreq.length]:null;
         if (!pathsOnly) this.tree=new GastonTree (relabel,ls,fragments,minFreq,doCycles,settings); 
     }
 
@@ -83,18 +87,19 @@ public class GastonPath {
     private float[] extend(Leg last,Collection ret,float[] max,Graph me){
 //        int nodeA=last.getNodeA();
         int fromNode=last.cor;
-        for (Embedding e=last.first;e!=null;e=e.next){
-            Graph g=e.graph;
-            for (int i=0;i<g.getDegree(e.getNode());i++){
-                int edge=g.getNodeEdge(e.getNode(),i);
-                int oNode=g.getOtherNode(edge,e.getNode());
-                int cNode=e.getCorrespondingNode(oNode);
+        for (int e=0;e<last.size();e++){
+            Graph g=last.getGraph(e);
+            int eNode=last.getNode(e);
+            for (int i=0;i<g.getDegree(eNode);i++){
+                int edge=g.getNodeEdge(eNode,i);
+                int oNode=g.getOtherNode(edge,eNode);
+                int cNode=last.getCorrespondingNode(e,oNode);
                 if (cNode==Graph.NO_NODE){
                     Leg n=(Leg)ls.getNode(fromNode,g.getEdgeLabel(edge),g.getNodeLabel(oNode));
-                    n.add(new Embedding(e,oNode,g,e.orig));
+                    n.add(last,e,oNode);
                 }else if ( doCycles && me.getEdge(fromNode,cNode)==Graph.NO_EDGE){
                     Leg n=(Leg)ls.getCycle(fromNode,g.getEdgeLabel(edge),cNode);
-                    n.add(new Embedding(e,Graph.NO_NODE,g,e.orig));
+                    n.add(last,e,Graph.NO_NODE);
                 }
             }
         }
@@ -173,7 +178,7 @@ public class GastonPath {
      * @return a set of all possible Extensions of the new path  
      */
     private Collection getNewLegsAndAddFragment(Leg last,Graph path,Collection legs){
-        float[] max=Leg.empty; //the maximal frequency of the children
+        float[] max=empty; //the maximal frequency of the children
 
         Collection newLegs=new TreeSet();
 
@@ -215,8 +220,8 @@ public class GastonPath {
             int frontNode, int backNode, 
             int fnLabel,int feLabel, int bnLabel, int beLabel,
             int ts, int fs, int bs){
-    	if (Debug.dlevel==2) Debug.println("doing "+m_settings.serializer.serialize(me));
-    	if (Debug.dlevel>2) Debug.println("doing "+m_settings.serializer.serialize(me)+" (ts "+ts+", fs "+fs+", bs "+bs+")");
+    	if (debug.getLevel()==2) debug.println("doing "+m_settings.serializer.serialize(me));
+    	if (debug.getLevel()>2) debug.println("doing "+m_settings.serializer.serialize(me)+" (ts "+ts+", fs "+fs+", bs "+bs+")");
     	
     	//try extending with all given legs 
         for (Iterator lit=myLegs.iterator();lit.hasNext();){
@@ -239,20 +244,7 @@ public class GastonPath {
                 int tnl=ack.getRef().getToLabel();
                 int tel=ack.getRef().getEdgeLabel();
                 if (frontNode==backNode){ //adding first edge
-                    if (tnl>=bnLabel){
-                        int node=ack.cor=me.addNodeAndEdge(frontNode
-                                ,enr.getRealNodeLabel(tnl),enr.getRealEdgeLabel(tel));
-                        if (tnl>bnLabel) 
-                            findPaths(getNewLegsAndAddFragment(ack,me,myLegs),me,
-                                    node,backNode,
-                                    tnl,tel,bnLabel,tel,
-                                    -1,0,0);
-                        else findPaths(getNewLegsAndAddFragment(ack,me,myLegs),me,
-                                node,backNode,
-                                tnl,tel,bnLabel,tel,
-                                0,0,0);
-                        me.removeNode(node);
-                    }
+                    findPaths(ack,myLegs,me,frontNode,bnLabel);
                 } else {
                     if ((tnl>bnLabel) || ((tnl==bnLabel)&&(tel>beLabel))
                             || ((tnl==bnLabel) && (tel==beLabel) && ((fs=getFrontSymmetry(me,fs,frontNode,backNode))<=0))){
@@ -301,38 +293,110 @@ public class GastonPath {
     }
     
     /**
-     * starts the search for all paths, trees and cyclic graphs, 
-     * which depends on the given leg
+     * searches all paths, trees and cyclic graphs, which start with the first edge
+     * given by the Leg ack
+     * @param ack the Leg of the first edge
+     * @param myLegs all Legs extending the single node
+     * @param me
+     * @param node the single node
+     * @param label the label of the single node
+     */
+    private void findPaths(Leg ack, Collection myLegs, MutableGraph me, int node, int label){
+        int tnl=ack.getRef().getToLabel();
+        int tel=ack.getRef().getEdgeLabel();
+        if (tnl>=label){
+            int newNode=ack.cor=me.addNodeAndEdge(node
+                    ,enr.getRealNodeLabel(tnl),enr.getRealEdgeLabel(tel));
+            if (tnl>label) 
+                findPaths(getNewLegsAndAddFragment(ack,me,myLegs),me,
+                        newNode,node,
+                        tnl,tel,label,tel,
+                        -1,0,0);
+            else findPaths(getNewLegsAndAddFragment(ack,me,myLegs),me,
+                    newNode,node,
+                    tnl,tel,label,tel,
+                    0,0,0);
+            me.removeNode(newNode);
+        }
+    }
+    
+    /**
+     * adds the single node fragment of the given leg and calculates its extensions
+     * the node stays in <code> me </code> and is stored as <code> initialLeg.cor </code>
      * @param initialLeg
+     * @return all frequent Legs extending the single node
      */
-    public void findPaths(Leg initialLeg){
-        long start=System.currentTimeMillis();
+    private Collection startPaths(Leg initialLeg){
         int label=initialLeg.getRef().getToLabel();
         int node=initialLeg.cor=me.addNode(enr.getRealNodeLabel(label));
         
-        Debug.print(1,"doing "+m_settings.serializer.serialize(me)+" ...");
+        debug.print(1,"doing "+m_settings.serializer.serialize(me)+" ...");
         fragments.add(initialLeg.getFragment((Graph)me.clone()));
         
         //initial optimized extend
         
-        for (Embedding e=initialLeg.first;e!=null;e=e.next){
-             Graph g=e.getGraph();
-             for (int i=0;i<g.getDegree(e.getNode());i++){
-                 int edge=g.getNodeEdge(e.getNode(),i);
-                 int oNode=g.getOtherNode(edge,e.getNode());
+        for (int e=0;e<initialLeg.size();e++){
+             Graph g=initialLeg.getGraph(e);
+             int eNode=initialLeg.getNode(e);
+             for (int i=0;i<g.getDegree(eNode);i++){
+                 int edge=g.getNodeEdge(eNode,i);
+                 int oNode=g.getOtherNode(edge,eNode);
                      Leg n=(Leg)ls.getNode(node,g.getEdgeLabel(edge),g.getNodeLabel(oNode));
-                     n.add(new Embedding(e,oNode,g,e.orig));
+                     n.add(initialLeg,e,oNode);
              }
         }
         Collection legs=new ArrayList();
 //        float[] max=
-        	ls.clearAndGetFrequentLegs(minFreq,legs,Leg.empty);
+        	ls.clearAndGetFrequentLegs(minFreq,legs,empty);
+        return legs;
+    }
+    
+    /**
+     * starts the search for all paths, trees and cyclic graphs, 
+     * which depends on the given leg
+     * @param initialLeg
+     */
+    public void findPaths(Leg initialLeg){
+        long start=System.currentTimeMillis();
+        Collection legs=startPaths(initialLeg);
+        int label=initialLeg.getRef().getToLabel();
+        int node=initialLeg.cor;
 
         findPaths(legs,me,node,node,
                 label,Graph.NO_EDGE,label,Graph.NO_EDGE,
                 0,0,0);
         me.removeNode(node);
-        Debug.println(1," done ("+(System.currentTimeMillis()-start)+" ms)");
+        debug.println(1," done ("+(System.currentTimeMillis()-start)+" ms)");
+    }
+    
+    /**
+     * adds the single node fragment of the given leg and returns its extensions,
+     * so that the search for each of them can be started separately
+     * (see findPaths(Leg,Leg,Collection))
+     * @param initialLeg
+     * @return all frequent Legs extending the single node
+     */
+    public Collection getFirstLegs(Leg initialLeg){
+        Collection legs=startPaths(initialLeg);
+        me.removeNode(initialLeg.cor);
+        debug.println(1," done");
+        return legs;
+    }
+    
+    /**
+     * starts the search for all paths, trees and cyclic graphs, 
+     * which start with the given initial leg extended by the given first leg.
+     * The graph <code> me </code> has to be empty, so that the node of the 
+     * initial leg gets the same number as in getFirstLegs(Leg)
+     * @param initialLeg
+     * @param firstLeg one of the Legs returned by getFirstLegs(initialLeg)
+     * @param firstLegs all Legs returned by getFirstLegs(initialLeg)
+     */
+    public void findPaths(Leg initialLeg, Leg firstLeg, Collection firstLegs){
+        int label=initialLeg.getRef().getToLabel();
+        int node=me.addNode(enr.getRealNodeLabel(label));
+        findPaths(firstLeg,firstLegs,me,node,label);
+        me.removeNode(node);
     }
 
 }
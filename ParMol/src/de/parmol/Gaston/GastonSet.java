@@ -39,6 +39,7 @@ public class GastonSet extends FragmentSet {
 	protected final SimpleGraphComparator m_comparator;
 	private final int m_averageBinSize;
 	private int m_duplicateCounter = 0;
+	private final GastonSet m_shared;
 	
     
 	/** creates a new GastonSet */
@@ -46,6 +47,18 @@ public class GastonSet extends FragmentSet {
         this(de.parmol.util.Math.PRIMES[16]
                ,new SimpleGraphComparator(SimpleNodeComparator.instance, SimpleEdgeComparator.instance),25);
     }
+	
+	/**
+	 * creates a new GastonSet for a single search worker. The unique paths and trees are 
+	 * stored in the new set, the cyclic graphs are checked against and stored in the given shared set. 
+	 * @param shared the set all workers share
+	 */
+	public GastonSet(GastonSet shared){
+		m_map = new ArrayList[] { new ArrayList() };
+		m_comparator = shared.m_comparator;
+		m_averageBinSize = shared.m_averageBinSize;
+		m_shared = shared;
+	}
 	private GastonSet(int initialSize, SimpleGraphComparator graphComparator, int averageBinSize) {
 		int bins = initialSize / averageBinSize;
 		int index = Arrays.binarySearch(de.parmol.util.Math.PRIMES, bins);
@@ -59,35 +72,55 @@ public class GastonSet extends FragmentSet {
 		
 		m_comparator = graphComparator;
 		m_averageBinSize = averageBinSize;
+		m_shared = null;
 	}
     
+	/**
+	 * Returns the bin for the given invariant hash code of a fragment, bin 0 is for the unchecked fragments.
+	 * @param hash the hash code (see FrequentFragment.getInvariantHash())
+	 * @param bins the number of bins
+	 * @return the bin
+	 */
+	private static int getBin(long hash, int bins) {
+		return 1 + (int) ((hash >>> 1) % (bins - 1));
+	}
+	
 	/**
 	 * Adds a new FrequentFragment to this set, without checking.
 	 * @param fragment the new fragment to be added
 	 * @return <code>true</code>, if correct added
 	 */
-	public boolean add(FrequentFragment fragment) {
+	public synchronized boolean add(FrequentFragment fragment) {
 		m_entries++;
 	    return m_map[0].add(fragment);
 	}
 
 	/**
 	 * Adds a new FrequentFragment to this set and checks before, if it is still inside.
+	 * Several workers may add fragments concurrently.
 	 * @param fragment the new fragment to be added
 	 * @return <code>true</code> if first time added
 	 */
 	public boolean filteredadd(FrequentFragment fragment) {
+		if (m_shared != null) return m_shared.filteredadd(fragment);
+		fragment.getInvariantHash(); // computed outside of the lock
+		synchronized (this) {
+			return filteredaddLocal(fragment);
+		}
+	}
+	
+	private boolean filteredaddLocal(FrequentFragment fragment) {
 		if (m_entries > m_averageBinSize * m_map.length) {
 			resize((int) java.lang.Math.ceil(m_map.length * 1.23578));
 		}
 		
-		final int hashCode = fragment.getFragment().hashCode();
-		final int bin = 1+java.lang.Math.abs((hashCode ^ (hashCode >> 24) ^ (hashCode >> 15) ^ (hashCode >> 9)) % (m_map.length-1));
+		final long hash = fragment.getInvariantHash();
+		final int bin = getBin(hash, m_map.length);
 				
 		for (Iterator it = m_map[bin].iterator(); it.hasNext();) {
 			FrequentFragment temp = (FrequentFragment) it.next();
 			
-			if (temp.getFragment().hashCode() == hashCode) {				
+			if (temp.getInvariantHash() == hash) {
 				if (m_comparator.compare(fragment.getFragment(), fragment.getNodePartitions(), temp.getFragment(), temp.getNodePartitions()) == 0) {									
 					m_duplicateCounter++;
 					return false;
@@ -104,8 +137,7 @@ public class GastonSet extends FragmentSet {
 	 */
 	protected void remove(FrequentFragment fragment, int bin) {
 	    try{
-		final int hashCode = fragment.getFragment().hashCode();
-		bin = 1+java.lang.Math.abs((hashCode ^ (hashCode >> 24) ^ (hashCode >> 15) ^ (hashCode >> 9)) % (m_map.length-1));
+		bin = getBin(fragment.getInvariantHash(), m_map.length);
 		super.remove(fragment, bin);	
 		
 		if (m_entries < 0.1 * m_averageBinSize * m_map.length) {
@@ -127,8 +159,7 @@ public class GastonSet extends FragmentSet {
 		for (int i = 0; i < m_map.length; i++) {
 			for (Iterator it = m_map[i].iterator(); it.hasNext();) {
 				FrequentFragment f = (FrequentFragment) it.next();
-				final int hashCode = f.getFragment().hashCode();
-				final int bin = 1+java.lang.Math.abs((hashCode ^ (hashCode >> 24) ^ (hashCode >> 15) ^ (hashCode >> 9)) % (temp.length-1));
+				final int bin = getBin(f.getInvariantHash(), temp.length);
 				
 				temp[bin].add(f);
 			}
@@ -61,6 +61,8 @@ public class GastonTree {
     protected float[] minFreq;
     protected GastonCycle cycle;
     private Settings m_settings;
+    private Debug debug;
+    private float[] empty;
     
     /**
      * creates a new object, responsible for the serach of trees
@@ -79,6 +81,8 @@ public class GastonTree {
         this.minFreq=minFreq;
         this.doCycles=doCycles;
 	this.m_settings=settings;
+        this.debug=settings.getDebug();
+        this.empty=settings.closedFragmentsOnly?new float[minFreq.length]:null;
         if (doCycles) cycle=new GastonCycle(relabel,fragments,minFreq,settings);
     }
     
@@ -109,22 +113,23 @@ public class GastonTree {
 		//checks if a test against the next prefix node ist neccessary
         boolean pnpntest=test && (pnpn==null || depth>maxRigthDepth);
 		//checks if a test against the pseudo next prefix node ist neccessary
-        for (Embedding e=last.first;e!=null;e=e.next){//*/
-            Graph g=e.graph;
-            for (int i=0;i<g.getDegree(e.getNode());i++){
-                int edge=g.getNodeEdge(e.getNode(),i);
-                int oNode=g.getOtherNode(edge,e.getNode());
-                int cNode=e.getCorrespondingNode(oNode);
+        for (int e=0;e<last.size();e++){//*/
+            Graph g=last.getGraph(e);
+            int eNode=last.getNode(e);
+            for (int i=0;i<g.getDegree(eNode);i++){
+                int edge=g.getNodeEdge(eNode,i);
+                int oNode=g.getOtherNode(edge,eNode);
+                int cNode=last.getCorrespondingNode(e,oNode);
                 if (cNode==Graph.NO_NODE){
                     int el=g.getEdgeLabel(edge),nl=g.getNodeLabel(oNode);
                     if (test && (npntest || npn.compareTo(depth, el, nl)>=0)
                             && (pnpntest || pnpn.compareTo(depth, el, nl, leftArrayLegth)>=0)){
                         Leg n=(Leg)ls.getDepth(depth,el,nl);
-                        n.add(new Embedding(e,oNode,g,e.orig));
+                        n.add(last,e,oNode);
                     }
                 }else if ( doCycles && me.getEdge(fromNode,cNode)==Graph.NO_EDGE){
                     Leg n=(Leg)ls.getCycle(fromNode,g.getEdgeLabel(edge),cNode);
-                    n.add(new Embedding(e,Graph.NO_NODE,g,e.orig));
+                    n.add(last,e,Graph.NO_NODE);
                 }
             }
         }
@@ -147,7 +152,7 @@ public class GastonTree {
      */
     private Collection getNewLegsAndAddFragment(DepthRefinement[] bb, int maxRigthDepth, int leftArrayLength, DepthRefinement npn
             , DepthRefinement pnpn, int maxDepth, Leg last, Graph tree, Collection legs){
-        float[] max=Leg.empty;
+        float[] max=empty;
         
         Collection newLegs=new TreeSet();
         int depth=last.getRef().getDepth();
@@ -202,8 +207,8 @@ public class GastonTree {
             , DepthRefinement lend, DepthRefinement rend, DepthRefinement splittNode //the first node of the rigth most path with differs for backbone labelling (used to decide the maximal depth of the rigth most path)
             , DepthRefinement npn, DepthRefinement pnpn){
     	
-        if (Debug.dlevel>=2) {
-        	Debug.println("doing "+m_settings.serializer.serialize(me));
+        if (debug.getLevel()>=2) {
+        	debug.println("doing "+m_settings.serializer.serialize(me));
         }
 
         //try extending with all given legs 
@@ -415,7 +420,7 @@ public class GastonTree {
         
         rmp[ackDepth]=rmp[ackDepth-1].right=(DepthRefinement) ack.ref;
         
-        if (pnpn!=null) Debug.println(2,"ackr.next= "+pnpn.next);
+        if (pnpn!=null) debug.println(2,"ackr.next= "+pnpn.next);
         //start recursiv search
         findTrees(path,bb,lastRigthDepth,leftArrayLength
                 ,getNewLegsAndAddFragment(bb,lastRigthDepth,leftArrayLength,npn,pnpn,maxDepth,ack,path,newLegs)
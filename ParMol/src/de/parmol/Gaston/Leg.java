@@ -27,90 +27,137 @@ import java.util.*;
 
 /**
  * This class representates a Leg 
- * This is the combination of an Refinement and all its possible embeddings
+ * This is the combination of an Refinement and all its possible embeddings.
+ * The embeddings are stored column by column: for each embedding the number of its
+ * database graph, its last inserted node and the index of its parent embedding in 
+ * the parent leg. All embeddings of a leg have their parents in the same leg.
  *
  * @author Marc Woerlein <marc.woerlein@gmx.de>
  */
 public class Leg implements Comparable {
-    /** the length of the frequencies Array */
-	public static int length;
-	/** a global empty frequencies array */
-    public static float[] empty;
+    private final static int INITIAL_CAPACITY=8;
 
     protected Refinement ref,tmpref;
-//    private Embedding[] arr=null; //the sorted array of inserted Embeddings
     protected int cor;
     
     private float[] freq;
     private Collection graphs;
+    private final DataBase db;
     
-    protected Embedding first;
-    private Embedding last=null;
+    protected Leg parent; //the leg of the parent embeddings, null for initial legs
+    protected int size=0;
+    protected int[] graphIds, nodes, parents;
 
     /**
      * creates an initial Leg for the given label
      * @param toLabel
+     * @param db the database the embeddings belong to
      */
-    public Leg(int toLabel){
-        this.tmpref=this.ref=new Refinement(toLabel);
-        this.freq=new float[length];
-        cor=Graph.NO_NODE;
-        graphs=new ArrayList();
+    public Leg(int toLabel, DataBase db){
+        this(new Refinement(toLabel),db);
     }
 
     /**
      * creates a leg for the given refinement
      * @param ref
+     * @param db the database the embeddings belong to
      */
-    public Leg(Refinement ref){
-        this.tmpref=this.ref=ref;
-        this.freq=new float[length];
-        cor=Graph.NO_NODE;
-        graphs=new ArrayList();
+    public Leg(Refinement ref, DataBase db){
+        this(ref,db,new int[INITIAL_CAPACITY],new int[INITIAL_CAPACITY],new int[INITIAL_CAPACITY]);
     }
     
-    private Leg(Refinement ref,Embedding first,Embedding last, Collection graphs,float[] freq,int cor){
+    /**
+     * creates a leg for the given refinement, which stores its embeddings in the given (reused) arrays
+     * @param ref
+     * @param db the database the embeddings belong to
+     * @param graphIds
+     * @param nodes
+     * @param parents
+     */
+    Leg(Refinement ref, DataBase db, int[] graphIds, int[] nodes, int[] parents){
         this.tmpref=this.ref=ref;
-        this.freq=freq;
-        this.first=first;
-        this.last=last;
-        this.graphs=graphs;
-        this.cor=cor;
+        this.db=db;
+        this.freq=new float[db.getClassCount()];
+        cor=Graph.NO_NODE;
+        graphs=new ArrayList();
+        this.graphIds=graphIds;
+        this.nodes=nodes;
+        this.parents=parents;
     }
     
     /** @return the corresponding Refinement of this leg */
     public final Refinement getRef(){ return ref; }
 
+    public int compareTo(Object o){ return ref.compareTo(((Leg)o).ref); }
+    
+    /** @return the number of embeddings */
+    public final int size(){ return size; }
+    
     /**
-     * @param ref
-     * @return a leg corresponding to the given DepthRefienment
+     * @param embedding
+     * @return the renamed database graph of the given embedding
      */
-    public Leg getDepthLeg(DepthRefinement ref){
-        return new Leg(ref,first,last,graphs,freq,cor);
-    }
-    
-    public int compareTo(Object o){ return ref.compareTo(((Leg)o).ref); }
+    public final Graph getGraph(int embedding){ return db.getGraph(graphIds[embedding]); }
     
     /**
-     * adds the given embedding to this leg
-     * @param e
+     * @param embedding
+     * @return the last inserted node of the given embedding
      */
-    public void add(Embedding e){
-        ClassifiedGraph g=e.orig;
-        if (last==null){
-            first=last=e;
+    public final int getNode(int embedding){ return nodes[embedding]; }
+    
+    private void grow(){
+        int n=graphIds.length*2;
+        int[] tmp=new int[n]; System.arraycopy(graphIds,0,tmp,0,size); graphIds=tmp;
+        tmp=new int[n]; System.arraycopy(nodes,0,tmp,0,size); nodes=tmp;
+        tmp=new int[n]; System.arraycopy(parents,0,tmp,0,size); parents=tmp;
+    }
+    
+    private void add(int graphId, int node, int parentIndex){
+        if (size==0 || graphIds[size-1]!=graphId){
+            ClassifiedGraph g=db.getOrig(graphId);
             graphs.add(g);
             float[] f=g.getClassFrequencies();
-            for (int i=0;i<length;i++) freq[i]+=f[i];
-        } else {
-            if (last.orig!=g){
-                graphs.add(g);
-                float[] f=g.getClassFrequencies();
-                for (int i=0;i<length;i++) freq[i]+=f[i];
-            }
-            last=last.next=e;
+            for (int i=0;i<freq.length;i++) freq[i]+=f[i];
         }
-        e.correspondingLeg=this;
+        if (size==graphIds.length) grow();
+        graphIds[size]=graphId;
+        nodes[size]=node;
+        parents[size]=parentIndex;
+        size++;
+    }
+
+    /**
+     * adds an initial embedding to this leg
+     * @param graphId the number of the database graph
+     * @param node the node of the embedding
+     */
+    public void addInitial(int graphId, int node){
+        add(graphId,node,-1);
+    }
+    
+    /**
+     * adds a new embedding, which extends the given parent embedding by the given node
+     * @param parentLeg the leg of the parent embedding, it has to be the same for all embeddings of this leg
+     * @param parentIndex the index of the parent embedding
+     * @param node the new node (or Graph.NO_NODE for a cycle closing edge)
+     */
+    public void add(Leg parentLeg, int parentIndex, int node){
+        parent=parentLeg;
+        add(parentLeg.graphIds[parentIndex],node,parentIndex);
+    }
+
+    /**
+     * iterativ search for the node which corresponds to the given database node
+     * @param embedding the index of the embedding to start with
+     * @param node the node of the Database Graph 
+     * @return the corresponding node (or Graph.NO_NODE)
+     */
+    public final int getCorrespondingNode(int embedding, int node){
+        for (Leg l=this;l!=null;l=l.parent){
+            if (l.nodes[embedding]==node) return l.cor;
+            embedding=l.parents[embedding];
+        }
+        return Graph.NO_NODE;
     }
 
     /**
@@ -119,7 +166,7 @@ public class Leg implements Comparable {
      * @return <code> true </code> if frequent
      */
     public boolean isFrequent(float[] minFreq){
-        for (int i=0;i<length;i++) 
+        for (int i=0;i<freq.length;i++) 
             if (freq[i]<minFreq[i]) return false;
         return true;
     }
@@ -130,21 +177,11 @@ public class Leg implements Comparable {
      * @return <code> true </code> if frequent
      */
     public boolean isFrequent(float[] minFreq,float[] maxFreq){
-        for (int i=0;i<length;i++) 
+        for (int i=0;i<freq.length;i++) 
             if ((freq[i]<minFreq[i]) || (freq[i]>maxFreq[i])) return false;
         return true;
     }
     
-    /** @return an iterator over all added embeddings */
-    public Iterator iterator(){ 
-        return new Iterator(){
-            Embedding ack=first;
-            public boolean hasNext(){return (ack!=null);}
-            public Object next(){ Embedding tmp=ack; ack=ack.next; return tmp; }
-            public void remove(){}
-        };
-    }
-    
     /**
      * joins this leg with the given
      * @param leg1
@@ -152,42 +189,25 @@ public class Leg implements Comparable {
      */
     public Leg join(Leg leg1){
 	/* the optimized joining algorithm of th e original implementation (invariant test are seperated) */
-        Leg nl=new Leg(ref);
-        Embedding a1=leg1.first;
-        Embedding a2=this.first;
-        if (ref.isCycleRefinement()&&(this!=leg1)){
-            while (a1!=null && a2!=null){
-                int id2=a2.getParent().id;
-                while (a1!=null && a1.getParent().id<id2) a1=a1.next;
-                if (a1!=null) {
-                    int id1=a1.getParent().id;
-                    while (a2!=null && a2.getParent().id<id1) a2=a2.next;
-                    Embedding m2=a2;
-                    for (;a2!=null && a2.getParent().id==id1;a2=a2.next){
-                        nl.add(new Embedding(a1,a2.getNode(),a1.graph,a1.orig));
-                    }
-                    if (a2!=m2) for (a1=a1.next;a1!=null && a1.getParent().id==id1;a1=a1.next)
-                        for (Embedding e=m2;e!=a2;e=e.next)
-                            nl.add(new Embedding(a1,e.getNode(),a1.graph,a1.orig));
-                }
-            }
-        }else{
-            while (a1!=null && a2!=null){
-                int id2=a2.getParent().id;
-                while (a1!=null && a1.getParent().id<id2) a1=a1.next;
-                if (a1!=null) {
-                    int id1=a1.getParent().id;
-                    while (a2!=null && a2.getParent().id<id1) a2=a2.next;
-                    Embedding m2=a2;
-                    for (;a2!=null && a2.getParent().id==id1;a2=a2.next){
-                        if (a1.getNode()!=a2.getNode()) nl.add(new Embedding(a1,a2.getNode(),a1.graph,a1.orig));
-                    }
-                    if (a2!=m2) for (a1=a1.next;a1!=null && a1.getParent().id==id1;a1=a1.next)
-                        for (Embedding e=m2;e!=a2;e=e.next)
-                            if (a1.getNode()!=e.getNode()) nl.add(new Embedding(a1,e.getNode(),a1.graph,a1.orig));
+        Leg nl=new Leg(ref,db);
+        final int[] p1=leg1.parents, p2=this.parents, n1=leg1.nodes, n2=this.nodes;
+        final int s1=leg1.size, s2=this.size;
+        final boolean cycle=ref.isCycleRefinement()&&(this!=leg1);
+        int a1=0, a2=0;
+        while (a1<s1 && a2<s2){
+            int id2=p2[a2];
+            while (a1<s1 && p1[a1]<id2) a1++;
+            if (a1<s1) {
+                int id1=p1[a1];
+                while (a2<s2 && p2[a2]<id1) a2++;
+                int m2=a2;
+                for (;a2<s2 && p2[a2]==id1;a2++){
+                    if (cycle || n1[a1]!=n2[a2]) nl.add(leg1,a1,n2[a2]);
                 }
+                if (a2!=m2) for (a1++;a1<s1 && p1[a1]==id1;a1++)
+                    for (int e=m2;e!=a2;e++)
+                        if (cycle || n1[a1]!=n2[e]) nl.add(leg1,a1,n2[e]);
             }
-
         }
         return nl;
     }
@@ -209,7 +229,7 @@ public class Leg implements Comparable {
      */
     public final float[] getMax(float[] other){
         if (other==null) return null;
-        for (int i=0;i<length;i++) {
+        for (int i=0;i<freq.length;i++) {
             if (freq[i]>other[i]) return freq;
             if (other[i]>freq[i]) return other;
         }
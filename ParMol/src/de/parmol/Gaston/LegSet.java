@@ -25,6 +25,7 @@ import java.util.*;
 /**
  * This class is for efficient finding of "corresponding" legs
  * It uses arrays for constant access to the possible legs 
+ * (for large label sets see SparseLegSet)
  *
  * @author Marc Woerlein <marc.woerlein@gmx.de>
  */
@@ -32,18 +33,101 @@ public class LegSet {
     private Leg node_depth[][];
     private Leg cycle[][];
     private Collection node_depth_set,cycle_set;
+    private final DataBase db;
+    
+    //the embedding arrays of infrequent legs for reuse
+    private int[][] pool=new int[3*16][];
+    private int poolSize=0;
     
     /**
      * creates a LegSet dimensioned for the given sizes
      * @param maxEdgeLabels
      * @param maxNodeLabels
      * @param maxNodes
+     * @param db the database the embeddings of the legs belong to
      */
-    public LegSet(int maxEdgeLabels, int maxNodeLabels, int maxNodes){
+    public LegSet(int maxEdgeLabels, int maxNodeLabels, int maxNodes, DataBase db){
+        this(db);
         node_depth=new Leg[maxEdgeLabels][maxNodeLabels];
         cycle=new Leg[maxEdgeLabels][maxNodes];
+    }
+    
+    /**
+     * creates a LegSet without arrays, the subclass has to store the legs itself
+     * @param db the database the embeddings of the legs belong to
+     */
+    protected LegSet(DataBase db){
         node_depth_set=new ArrayList();
         cycle_set=new ArrayList();
+        this.db=db;
+    }
+    
+    /**
+     * @param edgeLabel
+     * @param label the node label or the depth
+     * @return the stored node or depth leg for the given labels, or null
+     */
+    protected Leg findNodeDepth(int edgeLabel, int label){ return node_depth[edgeLabel][label]; }
+    
+    /**
+     * stores the given node or depth leg for the given labels
+     * @param edgeLabel
+     * @param label the node label or the depth
+     * @param l
+     */
+    protected void storeNodeDepth(int edgeLabel, int label, Leg l){ node_depth[edgeLabel][label]=l; }
+    
+    /**
+     * @param edgeLabel
+     * @param toNode
+     * @return the stored cycle leg for the given edge label and node, or null
+     */
+    protected Leg findCycle(int edgeLabel, int toNode){ return cycle[edgeLabel][toNode]; }
+    
+    /**
+     * stores the given cycle leg for the given edge label and node
+     * @param edgeLabel
+     * @param toNode
+     * @param l
+     */
+    protected void storeCycle(int edgeLabel, int toNode, Leg l){ cycle[edgeLabel][toNode]=l; }
+    
+    /**
+     * removes all stored legs from the lookup structure, it is called by clearAndGetFrequentLegs(..)
+     */
+    protected void clear(){
+        for (Iterator it=node_depth_set.iterator();it.hasNext();){
+            Leg ack=(Leg) it.next();
+            node_depth[ack.getRef().getEdgeLabel()][ack.getRef().getToLabel()]=null;
+        }
+        for (Iterator it=cycle_set.iterator();it.hasNext();){
+            Leg ack=(Leg) it.next();
+            cycle[ack.getRef().getEdgeLabel()][ack.getRef().getNodeB()]=null;
+        }
+    }
+    
+    /**
+     * creates a new leg, which reuses the embedding arrays of an infrequent leg if possible
+     * @param ref
+     * @return the new leg
+     */
+    private Leg newLeg(Refinement ref){
+        if (poolSize==0) return new Leg(ref,db);
+        poolSize-=3;
+        Leg l=new Leg(ref,db,pool[poolSize],pool[poolSize+1],pool[poolSize+2]);
+        pool[poolSize]=pool[poolSize+1]=pool[poolSize+2]=null;
+        return l;
+    }
+    
+    /**
+     * stores the embedding arrays of the given infrequent leg for reuse
+     * @param l
+     */
+    private void recycle(Leg l){
+        if (poolSize==pool.length) return;
+        pool[poolSize++]=l.graphIds;
+        pool[poolSize++]=l.nodes;
+        pool[poolSize++]=l.parents;
     }
     
     /**
@@ -54,10 +138,10 @@ public class LegSet {
      * @return the Leg for the corresponding refinement
      */
     public final Leg getNode(int fromNode,int edgeLabel, int nodeLabel){
-        Leg l=node_depth[edgeLabel][nodeLabel];
+        Leg l=findNodeDepth(edgeLabel,nodeLabel);
         if (l==null){
-            l=new Leg(new Refinement(fromNode,edgeLabel,nodeLabel));
-            node_depth[edgeLabel][nodeLabel]=l;
+            l=newLeg(new Refinement(fromNode,edgeLabel,nodeLabel));
+            storeNodeDepth(edgeLabel,nodeLabel,l);
             node_depth_set.add(l);
         }
         return l;
@@ -71,10 +155,10 @@ public class LegSet {
      * @return the Leg for the corresponding refinement
      */
     public final Leg getDepth(int depth,int edgeLabel, int nodeLabel){
-        Leg l=node_depth[edgeLabel][nodeLabel];
+        Leg l=findNodeDepth(edgeLabel,nodeLabel);
         if (l==null){
-            l=new Leg(new DepthRefinement(depth,edgeLabel,nodeLabel));
-            node_depth[edgeLabel][nodeLabel]=l;
+            l=newLeg(new DepthRefinement(depth,edgeLabel,nodeLabel));
+            storeNodeDepth(edgeLabel,nodeLabel,l);
             node_depth_set.add(l);
         }
         return l;
@@ -88,10 +172,10 @@ public class LegSet {
      * @return the Leg for the corresponding refinement
      */
     public final Leg getCycle(int fromNode,int edgeLabel, int toNode){
-        Leg l=cycle[edgeLabel][toNode];
+        Leg l=findCycle(edgeLabel,toNode);
         if (l==null){
-            l=new Leg(new CycleRefinement(fromNode,edgeLabel,toNode));
-            cycle[edgeLabel][toNode]=l;
+            l=newLeg(new CycleRefinement(fromNode,edgeLabel,toNode));
+            storeCycle(edgeLabel,toNode,l);
             cycle_set.add(l);
         }
         return l;
@@ -106,13 +190,13 @@ public class LegSet {
      * @return the maximal support with occors in the set
      */
     public final float[] clearAndGetFrequentLegs(float[] minFreq,Collection ret, float[] max){
+        clear();
         for (Iterator it=node_depth_set.iterator();it.hasNext();){
             Leg ack=(Leg) it.next();
             if (ack.isFrequent(minFreq)) {
                 ret.add(ack);
                 max=ack.getMax(max);
-            }
-            node_depth[ack.getRef().getEdgeLabel()][ack.getRef().getToLabel()]=null;
+            } else recycle(ack);
         }
         node_depth_set.clear();
         for (Iterator it=cycle_set.iterator();it.hasNext();){
@@ -120,8 +204,7 @@ public class LegSet {
             if (ack.isFrequent(minFreq)) {
                 ret.add(ack);
                 max=ack.getMax(max);
-            }
-            cycle[ack.getRef().getEdgeLabel()][ack.getRef().getNodeB()]=null;
+            } else recycle(ack);
         }
         cycle_set.clear();
         return max;
@@ -50,13 +50,6 @@ public class Miner extends AbstractMiner {
     public Miner(Settings settings){
         super(settings);
         this.m_frequentSubgraphs=new GastonSet();
-        Leg.length=m_settings.minimumClassFrequencies.length;
-        if (m_settings.closedFragmentsOnly){
-            Leg.empty=new float[Leg.length];
-            for (int i=0;i<Leg.length;i++) Leg.empty[i]=0;
-        } else Leg.empty=null;
-
-        Debug.dlevel=m_settings.debug;
     }
     
     /* (non-Javadoc)
@@ -65,7 +58,7 @@ public class Miner extends AbstractMiner {
 	protected GraphFactory getGraphFactory(GraphParser parser) {
 		int mask = parser.getDesiredGraphFactoryProperties() | GraphFactory.CLASSIFIED_GRAPH;
 		if (m_settings.ringSizes[0] > 2) mask |= GraphFactory.RING_GRAPH;
-		return GraphFactory.getFactory(mask);
+		return GraphFactory.getFactory(addCompactGraphType(mask));
 	}
 	
     
@@ -76,13 +69,19 @@ public class Miner extends AbstractMiner {
     public void startRealMining(){
         
         long start=System.currentTimeMillis();
-        Debug.print(1,"renaming DataBase ... ");
+        Debug debug=m_settings.getDebug();
+        debug.print(1,"renaming DataBase ... ");
         DataBase db=new DataBase(m_graphs,m_settings.minimumClassFrequencies,getGraphFactory(m_settings.parser));
+        if (m_settings.parallelLegs){
+            debug.println(1,"done ("+(System.currentTimeMillis()-start)+" ms)");
+            new ParallelLegSearch(m_settings,db,(GastonSet)m_frequentSubgraphs).search();
+            return;
+        }
         GastonPath path=new GastonPath(UndirectedListGraph.Factory.instance.createGraph(),
                 db,db.getLegSet(),(GastonSet)m_frequentSubgraphs,m_settings.minimumClassFrequencies,
                 m_settings.findPathsOnly,!m_settings.findPathsOnly && !m_settings.findTreesOnly, m_settings);
         Leg[] fl=db.getFreqLegs();
-        Debug.println(1,"done ("+(System.currentTimeMillis()-start)+" ms)");
+        debug.println(1,"done ("+(System.currentTimeMillis()-start)+" ms)");
 
         for (int i=0;i<fl.length;i++){
             path.findPaths(fl[i]);
@@ -0,0 +1,158 @@
+/*
+ *
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package de.parmol.Gaston;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.parmol.Settings;
+import de.parmol.graph.UndirectedListGraph;
+
+/**
+ * This class searches the frequent legs of a DataBase concurrently. The search of each initial leg
+ * is a task, which adds the single node fragment and creates a new task for each of its first edges.
+ * These tasks are put in front of the queue, so idle workers help with the current leg first.
+ * Each worker has its own LegSet and each task its own graph and GastonPath, the paths and trees
+ * are collected for each task and reported in the order of the sequential search at the end. The
+ * cyclic graphs are checked against the shared GastonSet, as they may be found by several tasks.
+ *
+ * @author agent <agent@local>
+ */
+public class ParallelLegSearch {
+    private final Settings settings;
+    private final DataBase dataBase;
+    private final GastonSet shared;
+    private final Leg[] legs;
+    private final GastonSet[][] results;
+    private final LinkedBlockingDeque tasks=new LinkedBlockingDeque();
+    private final AtomicInteger openTasks=new AtomicInteger(0);
+    private volatile Throwable failure=null;
+
+    /** a search task, the first edge -1 stands for the whole initial leg */
+    private static class Task {
+        final int leg, first;
+        final Leg firstLeg;
+        final Collection firstLegs;
+        Task(int leg, int first, Leg firstLeg, Collection firstLegs){
+            this.leg=leg; this.first=first; this.firstLeg=firstLeg; this.firstLegs=firstLegs;
+        }
+    }
+
+    /**
+     * creates a new ParallelLegSearch for all frequent legs of the given DataBase
+     * @param settings the settings for the search
+     * @param dataBase
+     * @param shared the set for the found fragments
+     */
+    public ParallelLegSearch(Settings settings, DataBase dataBase, GastonSet shared){
+        this.settings=settings;
+        this.dataBase=dataBase;
+        this.shared=shared;
+        this.legs=dataBase.getFreqLegs();
+        this.results=new GastonSet[legs.length][];
+    }
+
+    /**
+     * searches all legs with settings.maxThreads workers and returns after all legs are finished
+     */
+    public void search(){
+        openTasks.set(legs.length);
+        for (int i=0;i<legs.length;i++) tasks.addLast(new Task(i,-1,null,null));
+
+        Thread[] threads=new Thread[Math.max(1,settings.maxThreads)];
+        for (int i=0;i<threads.length;i++){
+            threads[i]=new Thread(new Runnable(){
+                public void run(){ work(); }
+            },"Leg worker "+i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        try {
+            for (int i=0;i<threads.length;i++) threads[i].join();
+        } catch (InterruptedException ex){
+            throw new RuntimeException("interrupted while waiting for the leg workers",ex);
+        }
+        if (failure!=null) throw new RuntimeException("One of the leg workers died, search aborted",failure);
+
+        for (int i=0;i<results.length;i++){
+            for (int j=0;j<results[i].length;j++){
+                if (results[i][j]!=null) shared.add(results[i][j]);
+            }
+        }
+    }
+
+    private void work(){
+        LegSet ls=dataBase.getLegSet();
+        try {
+            while (openTasks.get()>0 && failure==null){
+                Task task=(Task) tasks.pollFirst(10,TimeUnit.MILLISECONDS);
+                if (task==null) continue;
+                if (task.first<0) startLeg(task.leg,ls);
+                else searchFirstLeg(task,ls);
+                openTasks.decrementAndGet();
+            }
+        } catch (Throwable ex){
+            failure=ex;
+        }
+    }
+
+    private GastonPath createPath(LegSet ls, GastonSet fragments){
+        return new GastonPath(UndirectedListGraph.Factory.instance.createGraph(),
+                dataBase,ls,fragments,settings.minimumClassFrequencies,
+                settings.findPathsOnly,!settings.findPathsOnly && !settings.findTreesOnly,settings);
+    }
+
+    /**
+     * reports the single node fragment of the given leg and creates the tasks for its first edges
+     * @param leg
+     * @param ls
+     */
+    private void startLeg(int leg, LegSet ls){
+        GastonSet fragments=new GastonSet(shared);
+        Collection firstLegs=createPath(ls,fragments).getFirstLegs(legs[leg]);
+
+        GastonSet[] legResults=new GastonSet[firstLegs.size()+1];
+        legResults[0]=fragments;
+        results[leg]=legResults;
+
+        openTasks.addAndGet(firstLegs.size());
+        Task[] newTasks=new Task[firstLegs.size()];
+        int i=0;
+        for (Iterator it=firstLegs.iterator();it.hasNext();i++){
+            newTasks[i]=new Task(leg,i,(Leg) it.next(),firstLegs);
+        }
+        for (i=newTasks.length-1;i>=0;i--) tasks.addFirst(newTasks[i]);
+    }
+
+    /**
+     * searches all fragments starting with the first edge of the given task
+     * @param task
+     * @param ls
+     */
+    private void searchFirstLeg(Task task, LegSet ls){
+        long time=System.currentTimeMillis();
+        GastonSet fragments=new GastonSet(shared);
+        createPath(ls,fragments).findPaths(legs[task.leg],task.firstLeg,task.firstLegs);
+        results[task.leg][task.first+1]=fragments;
+        settings.getDebug().println(2,"leg "+task.leg+"/"+task.first+" done ("+(System.currentTimeMillis()-time)+" ms)");
+    }
+}
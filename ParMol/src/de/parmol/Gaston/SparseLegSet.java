@@ -0,0 +1,131 @@
+/*
+ *
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package de.parmol.Gaston;
+
+/**
+ * This LegSet finds the "corresponding" legs by open addressing instead of arrays,
+ * so its size depends on the number of legs per step and not on the number of labels.
+ * The key packs the edge label with the node label (or depth, or node for cycles).
+ * Resetting only clears the used slots.
+ *
+ * @author agent <agent@local>
+ */
+public class SparseLegSet extends LegSet {
+    private final static long CYCLE=1L<<63;
+
+    private long[] keys;
+    private Leg[] legs;
+    private int mask;
+    private int[] used; //the used slots
+    private int usedCount=0;
+
+    /**
+     * creates a new empty SparseLegSet
+     * @param db the database the embeddings of the legs belong to
+     */
+    public SparseLegSet(DataBase db){
+        super(db);
+        keys=new long[64];
+        legs=new Leg[64];
+        mask=63;
+        used=new int[32];
+    }
+
+    private static long key(int edgeLabel, int label){
+        return (((long) edgeLabel)<<32)|(label&0xFFFFFFFFL);
+    }
+
+    private static int hash(long key){
+        long h=key*0x9E3779B97F4A7C15L;
+        return (int) (h^(h>>>32));
+    }
+
+    private Leg find(long key){
+        for (int pos=hash(key)&mask;legs[pos]!=null;pos=(pos+1)&mask){
+            if (keys[pos]==key) return legs[pos];
+        }
+        return null;
+    }
+
+    private void store(long key, Leg l){
+        if (2*(usedCount+1)>keys.length) grow();
+        int pos=hash(key)&mask;
+        while (legs[pos]!=null) pos=(pos+1)&mask;
+        keys[pos]=key;
+        legs[pos]=l;
+        if (usedCount==used.length){
+            int[] tmp=new int[2*used.length];
+            System.arraycopy(used,0,tmp,0,usedCount);
+            used=tmp;
+        }
+        used[usedCount++]=pos;
+    }
+
+    private void grow(){
+        long[] oldKeys=keys;
+        Leg[] oldLegs=legs;
+        int[] oldUsed=used;
+        int oldCount=usedCount;
+        keys=new long[2*oldKeys.length];
+        legs=new Leg[keys.length];
+        mask=keys.length-1;
+        used=new int[keys.length/2];
+        usedCount=0;
+        for (int i=0;i<oldCount;i++){
+            int pos=hash(oldKeys[oldUsed[i]])&mask;
+            while (legs[pos]!=null) pos=(pos+1)&mask;
+            keys[pos]=oldKeys[oldUsed[i]];
+            legs[pos]=oldLegs[oldUsed[i]];
+            used[usedCount++]=pos;
+        }
+    }
+
+    /*
+     *  (non-Javadoc)
+     * @see de.parmol.Gaston.LegSet#findNodeDepth(int, int)
+     */
+    protected Leg findNodeDepth(int edgeLabel, int label){ return find(key(edgeLabel,label)); }
+
+    /*
+     *  (non-Javadoc)
+     * @see de.parmol.Gaston.LegSet#storeNodeDepth(int, int, de.parmol.Gaston.Leg)
+     */
+    protected void storeNodeDepth(int edgeLabel, int label, Leg l){ store(key(edgeLabel,label),l); }
+
+    /*
+     *  (non-Javadoc)
+     * @see de.parmol.Gaston.LegSet#findCycle(int, int)
+     */
+    protected Leg findCycle(int edgeLabel, int toNode){ return find(CYCLE|key(edgeLabel,toNode)); }
+
+    /*
+     *  (non-Javadoc)
+     * @see de.parmol.Gaston.LegSet#storeCycle(int, int, de.parmol.Gaston.Leg)
+     */
+    protected void storeCycle(int edgeLabel, int toNode, Leg l){ store(CYCLE|key(edgeLabel,toNode),l); }
+
+    /*
+     *  (non-Javadoc)
+     * @see de.parmol.Gaston.LegSet#clear()
+     */
+    protected void clear(){
+        for (int i=0;i<usedCount;i++) legs[used[i]]=null;
+        usedCount=0;
+    }
+}
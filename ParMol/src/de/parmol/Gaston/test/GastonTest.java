@@ -0,0 +1,78 @@
+/*
+ *
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package de.parmol.Gaston.test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.text.ParseException;
+
+import junit.framework.TestCase;
+import de.parmol.Settings;
+import de.parmol.GSpan.test.GSpanTest;
+import de.parmol.Gaston.Miner;
+import de.parmol.util.FragmentSet;
+
+/**
+ * This tests the parallel search of Gaston against the sequential one
+ *
+ * @author agent <agent@local>
+ */
+public class GastonTest extends TestCase {
+    /** */
+	public GastonTest(){ super(); }
+    /**
+     * @param text
+     */
+	public GastonTest(String text){ super(text); }
+
+	private FragmentSet mine(boolean parallelLegs, int maxThreads, boolean closedFragmentsOnly)
+			throws FileNotFoundException, IOException, ParseException, InstantiationException, IllegalAccessException,
+			ClassNotFoundException {
+		Settings settings = new Settings(new String[] { "-graphFile=data/IC93.test",
+				"-parserClass=de.parmol.parsers.SLNParser" });
+		settings.minimumClassFrequencies[0] = 100;
+		settings.closedFragmentsOnly = closedFragmentsOnly;
+		settings.debug = 0;
+		settings.maxThreads = maxThreads;
+		settings.parallelLegs = parallelLegs;
+
+		Miner miner = new Miner(settings);
+		miner.setUp();
+		miner.startMining();
+		return miner.getFrequentSubgraphs();
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testParallelLegs() throws Exception {
+		FragmentSet sequential = mine(false, 1, false);
+		assertTrue(sequential.size() > 0);
+
+		GSpanTest.assertSameFragments(sequential, mine(true, 4, false));
+		GSpanTest.assertSameFragments(sequential, mine(true, 1, false));
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testParallelLegsClosed() throws Exception {
+		GSpanTest.assertSameFragments(mine(false, 1, true), mine(true, 4, true));
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ *
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package de.parmol.Gaston.test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import de.parmol.Gaston.DataBase;
+import de.parmol.Gaston.Leg;
+import de.parmol.Gaston.LegSet;
+import de.parmol.Gaston.SparseLegSet;
+import de.parmol.graph.UndirectedListGraph;
+
+/**
+ * This tests the SparseLegSet against the array based LegSet
+ *
+ * @author agent <agent@local>
+ */
+public class LegSetTest extends TestCase {
+	private final static int EDGE_LABELS = 5, NODE_LABELS = 300, NODES = 40;
+
+	private DataBase m_db;
+
+	protected void setUp() {
+		// an empty database with one class, the legs only need the number of classes
+		m_db = new DataBase(new ArrayList(), new float[] { 0 }, UndirectedListGraph.Factory.instance);
+	}
+
+	private static String step(LegSet ls, Random rand, int count) {
+		for (int i = 0; i < count; i++) {
+			int edgeLabel = rand.nextInt(EDGE_LABELS);
+			Leg a, b;
+			switch (rand.nextInt(3)) {
+				case 0:
+					int nodeLabel = rand.nextInt(NODE_LABELS);
+					a = ls.getNode(0, edgeLabel, nodeLabel);
+					b = ls.getNode(0, edgeLabel, nodeLabel);
+					break;
+				case 1:
+					nodeLabel = rand.nextInt(NODE_LABELS);
+					a = ls.getDepth(2, edgeLabel, nodeLabel);
+					b = ls.getDepth(2, edgeLabel, nodeLabel);
+					break;
+				default:
+					int toNode = rand.nextInt(NODES);
+					a = ls.getCycle(0, edgeLabel, toNode);
+					b = ls.getCycle(0, edgeLabel, toNode);
+			}
+			assertSame(a, b);
+		}
+		ArrayList legs = new ArrayList();
+		ls.clearAndGetFrequentLegs(new float[] { 0 }, legs, null);
+		return legs.toString();
+	}
+
+	/** */
+	public void testSameLegs() {
+		LegSet dense = new LegSet(EDGE_LABELS, NODE_LABELS, NODES, m_db);
+		LegSet sparse = new SparseLegSet(m_db);
+		Random rand1 = new Random(4711), rand2 = new Random(4711);
+
+		// several steps, so the sparse set has to grow and to be cleared
+		for (int i = 1; i < 2000; i *= 3) {
+			assertEquals(step(dense, rand1, i), step(sparse, rand2, i));
+		}
+		assertEquals("[]", step(sparse, rand2, 0));
+	}
+}
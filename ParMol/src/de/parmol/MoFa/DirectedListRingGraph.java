@@ -146,7 +146,7 @@ public class DirectedListRingGraph extends ClassifiedDirectedListGraph implement
 		 * @see de.parmol.graph.GraphFactory#createGraph(java.lang.String)
 		 */
 		public MutableGraph createGraph(String id) {
-			if (id != null) return new UndirectedListRingGraph(id, DEFAULT_CLASS);
+			if (id != null) return new DirectedListRingGraph(id, DEFAULT_CLASS);
 			return new DirectedListRingGraph(DEFAULT_CLASS);
 		}
 	}
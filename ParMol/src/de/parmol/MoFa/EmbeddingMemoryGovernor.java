@@ -0,0 +1,183 @@
+/*
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package de.parmol.MoFa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.parmol.graph.Graph;
+
+
+/**
+ * This class keeps track of the memory used by the embeddings of MoFa's search tree nodes. If the memory exceeds the
+ * budget, the embeddings of the pending nodes nearest to the root of the search tree are dropped, because they are the
+ * cheapest to recompute. All workers of a search share one governor.
+ *
+ * @author agent <agent@local>
+ */
+public class EmbeddingMemoryGovernor {
+	/** the estimated size of a CompleteMoFaEmbedding object with its two arrays but without their entries */
+	private final static int EMBEDDING_OVERHEAD = 72;
+
+	private final long m_budget;
+	private final AtomicLong m_usedMemory = new AtomicLong(0);
+	/** the pending nodes that still hold their embeddings, one set for each level of the search tree */
+	private final ArrayList m_pendingNodes = new ArrayList();
+
+
+	/**
+	 * Creates a new EmbeddingMemoryGovernor.
+	 *
+	 * @param budget the memory in bytes that the embeddings may use
+	 */
+	public EmbeddingMemoryGovernor(long budget) {
+		m_budget = budget;
+	}
+
+
+	/**
+	 * Estimates the memory used by the given number of embeddings of the given subgraph. The node and edge maps of the
+	 * embeddings have lengths that are multiples of four.
+	 *
+	 * @param subgraph the subgraph
+	 * @param embeddingCount the number of embeddings
+	 * @return the memory in bytes
+	 */
+	public static long estimateMemory(Graph subgraph, int embeddingCount) {
+		final int nodes = (subgraph.getNodeCount() + 3) & ~3;
+		final int edges = (subgraph.getEdgeCount() + 3) & ~3;
+
+		return embeddingCount * (EMBEDDING_OVERHEAD + 4L * (nodes + edges));
+	}
+
+
+	/**
+	 * Accounts the memory of the embeddings of the given node, which are currently held by the calling worker.
+	 *
+	 * @param node a search tree node with embeddings
+	 */
+	public void addEmbeddings(MoFaSearchTreeNode node) {
+		node.m_embeddingMemory = addEmbeddings(node.getSubgraph(), node.getEmbeddings());
+	}
+
+
+	/**
+	 * Accounts the memory of the given embeddings, which a worker keeps after their node has been extended. They cannot
+	 * be dropped.
+	 *
+	 * @param subgraph the subgraph of the embeddings
+	 * @param embeddings the embeddings
+	 * @return the accounted memory, which must be released with releaseMemory(long) when the embeddings are freed
+	 */
+	public long addEmbeddings(Graph subgraph, Collection embeddings) {
+		final long memory = estimateMemory(subgraph, embeddings.size());
+		m_usedMemory.addAndGet(memory);
+		return memory;
+	}
+
+
+	/**
+	 * Accounts the memory of the embeddings of the given node, which has not been extended yet. Its embeddings may be
+	 * dropped until the node is taken by a worker. A node without embeddings is not accounted, its embeddings are
+	 * created when it is extended.
+	 *
+	 * @param node a new search tree node
+	 */
+	public synchronized void addPendingNode(MoFaSearchTreeNode node) {
+		if (node.getEmbeddings() == null) return;
+		addEmbeddings(node);
+
+		while (m_pendingNodes.size() <= node.getLevel()) {
+			m_pendingNodes.add(new LinkedHashSet());
+		}
+		((Collection) m_pendingNodes.get(node.getLevel())).add(node);
+	}
+
+
+	/**
+	 * Takes the given node out of the pending nodes, because it is going to be extended now.
+	 *
+	 * @param node a search tree node
+	 * @return the embeddings of the node or <code>null</code> if they have been dropped (or were never created)
+	 */
+	public synchronized Collection takeEmbeddings(MoFaSearchTreeNode node) {
+		if (m_pendingNodes.size() > node.getLevel()) {
+			((Collection) m_pendingNodes.get(node.getLevel())).remove(node);
+		}
+		return node.getEmbeddings();
+	}
+
+
+	/**
+	 * Releases the accounted memory of the embeddings of the given node. This must be called before the embeddings of
+	 * a node taken with takeEmbeddings(MoFaSearchTreeNode) are cleared.
+	 *
+	 * @param node a search tree node
+	 */
+	public void releaseEmbeddings(MoFaSearchTreeNode node) {
+		releaseMemory(node.m_embeddingMemory);
+		node.m_embeddingMemory = 0;
+	}
+
+
+	/**
+	 * Releases memory accounted with addEmbeddings(Graph, Collection).
+	 *
+	 * @param memory the memory in bytes
+	 */
+	public void releaseMemory(long memory) {
+		m_usedMemory.addAndGet(-memory);
+	}
+
+
+	/**
+	 * Drops the embeddings of pending nodes, starting at the lowest level of the search tree, until the used memory is
+	 * within the budget again.
+	 *
+	 * @return the number of nodes whose embeddings have been dropped
+	 */
+	public synchronized int enforceBudget() {
+		int dropped = 0;
+
+		for (int level = 0; (level < m_pendingNodes.size()) && (m_usedMemory.get() > m_budget); level++) {
+			for (Iterator it = ((Collection) m_pendingNodes.get(level)).iterator(); it.hasNext()
+					&& (m_usedMemory.get() > m_budget);) {
+				final MoFaSearchTreeNode node = (MoFaSearchTreeNode) it.next();
+				it.remove();
+
+				releaseEmbeddings(node);
+				node.dropEmbeddings();
+				dropped++;
+			}
+		}
+
+		return dropped;
+	}
+
+
+	/**
+	 * Returns the memory currently used by all accounted embeddings.
+	 *
+	 * @return the memory in bytes
+	 */
+	public long getUsedMemory() {
+		return m_usedMemory.get();
+	}
+}
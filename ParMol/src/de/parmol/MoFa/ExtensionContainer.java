@@ -19,23 +19,47 @@
 package de.parmol.MoFa;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.List;
 
-import de.parmol.Util;
 import de.parmol.graph.DirectedGraph;
+import de.parmol.graph.Graph;
+import de.parmol.util.ObjectPool;
 
 
 /**
  * This class implements an efficient container for extension of subgraphs. Groups of equal extension are built
- * automatically by using some kind of specialized hash structure. The use of objects of this class speeds up the
- * extension process considerably.
+ * automatically by using a hash table for each extended node. The extensions are not stored as objects but as columns
+ * of ints (the index of the embedding, the new edge and the new or second node), so that adding an extension does not
+ * create any objects. Extension objects are only created for the groups that are really needed. A container can be
+ * reused for several search tree nodes with reset(int, int).
  * 
  * @author Thorsten Meinl <Thorsten.Meinl@informatik.uni-erlangen.de>
  */
 public class ExtensionContainer {
-	private final int m_extendedNodeOffset;
+	private int m_extendedNodeOffset;
+	private SubContainer[] m_extendedNodeBins = new SubContainer[0];
+	private int m_binCount;
 
-	private SubContainer[] m_extendedNodeBins;
+	/** the extended embeddings, the entries refer to them by their index */
+	private CompleteMoFaEmbedding[] m_embeddings = new CompleteMoFaEmbedding[64];
+	private int m_embeddingCount;
+
+	/** the columns of the entries in the order in which they have been added */
+	private int[] m_entryEmbedding = new int[256], m_entryEdge = new int[256], m_entryNode = new int[256],
+			m_entryGroup = new int[256];
+	private int m_entryCount;
+
+	/** the columns of the groups in the order in which they have been created */
+	private long[] m_groupKey = new long[64];
+	private int[] m_groupExtendedNodeIndex = new int[64], m_groupSize = new int[64], m_groupStart = new int[64];
+	private boolean[] m_groupIsEdgeExtension = new boolean[64];
+	private int m_groupCount;
+
+	/** the groups sorted by their extended node and their key and the entries sorted by their group */
+	private int[] m_order = new int[64];
+	private int[] m_packedEmbedding = new int[256], m_packedEdge = new int[256], m_packedNode = new int[256];
+	private boolean m_packed;
 
 
 	/**
@@ -45,133 +69,423 @@ public class ExtensionContainer {
 	 * @param maxExtendedNodes the maximum number of extedable nodes (i.e. the size of the extended subgraph)
 	 */
 	public ExtensionContainer(int extendedNodeOffset, int maxExtendedNodes) {
+		reset(extendedNodeOffset, maxExtendedNodes);
+	}
+
+
+	/**
+	 * Removes all extensions from this container and prepares it for the extensions of another subgraph.
+	 * 
+	 * @param extendedNodeOffset the lowest index of all extedable nodes (the <i>last extended node index </i>)
+	 * @param maxExtendedNodes the maximum number of extedable nodes (i.e. the size of the extended subgraph)
+	 */
+	public void reset(int extendedNodeOffset, int maxExtendedNodes) {
+		clear();
+
 		m_extendedNodeOffset = extendedNodeOffset;
-		m_extendedNodeBins = new SubContainer[maxExtendedNodes - extendedNodeOffset];
-		for (int i = 0; i < m_extendedNodeBins.length; i++) {
-			m_extendedNodeBins[i] = new SubContainer();
+		m_binCount = maxExtendedNodes - extendedNodeOffset;
+		if (m_extendedNodeBins.length < m_binCount) {
+			SubContainer[] temp = new SubContainer[m_binCount];
+			System.arraycopy(m_extendedNodeBins, 0, temp, 0, m_extendedNodeBins.length);
+			for (int i = m_extendedNodeBins.length; i < temp.length; i++) {
+				temp[i] = new SubContainer();
+			}
+			m_extendedNodeBins = temp;
+		}
+	}
+
+
+	/**
+	 * Removes all extensions from this container and releases the references to the embeddings.
+	 */
+	public void clear() {
+		for (int i = 0; i < m_binCount; i++) {
+			m_extendedNodeBins[i].clear();
 		}
+		Arrays.fill(m_embeddings, 0, m_embeddingCount, null);
+		m_embeddingCount = 0;
+		m_entryCount = 0;
+		m_groupCount = 0;
+		m_packed = false;
 	}
 
 
 	/**
 	 * Adds a new edge-node extension to the container.
 	 * 
-	 * @param ext the extension
+	 * @param emb the embedding that is extended
 	 * @param extendedNodeIndex the index of the extended node
-	 * @param edgeLabel the label of the new edge
-	 * @param nodeLabel the label of the new node
+	 * @param newEdge the edge in the supergraph that should be added to the embedding
+	 * @param newNode the node in the supergraph that should be added to the embedding
 	 */
-	public void add(EdgeNodeExtension ext, int extendedNodeIndex, int edgeLabel, int nodeLabel) {
-		final SubContainer combinedLists = m_extendedNodeBins[extendedNodeIndex - m_extendedNodeOffset];
-		combinedLists.add(ext, edgeLabel, nodeLabel);
+	public void addEdgeNodeExtension(CompleteMoFaEmbedding emb, int extendedNodeIndex, int newEdge, int newNode) {
+		final Graph superGraph = emb.getSuperGraph();
+
+		// if the new edge is an incoming edge for the extened node it must be made different
+		// from an the same extension but with an outgoing edge
+		final boolean incoming = emb.isDirectedGraphEmbedding()
+				&& (((DirectedGraph) superGraph).getEdgeDirection(newEdge, newNode) == DirectedGraph.OUTGOING_EDGE);
+
+		add(emb, extendedNodeIndex, combineLabels(superGraph.getEdgeLabel(newEdge), superGraph.getNodeLabel(newNode),
+				incoming), false, newEdge, newNode);
 	}
 
 
 	/**
 	 * Adds a new edge extension to the container.
 	 * 
-	 * @param ext the extension
+	 * @param emb the embedding that is extended
 	 * @param extendedNodeIndex the index of first extended node
-	 * @param edgeLabel the label of the new edge
-	 * @param secondNodeIndex the index of the second node to which the new edge leads
+	 * @param extendedSupergraphNode the node in the supergraph to which the new edge is added
+	 * @param newEdge the edge in the supergraph that should be added to the embedding
+	 * @param secondSubgraphNode the node in the subgraph to which the new edge leads
+	 */
+	public void addEdgeExtension(CompleteMoFaEmbedding emb, int extendedNodeIndex, int extendedSupergraphNode,
+			int newEdge, int secondSubgraphNode) {
+		final boolean incoming = emb.isDirectedGraphEmbedding()
+				&& (((DirectedGraph) emb.getSuperGraph()).getEdgeDirection(newEdge, extendedSupergraphNode) == DirectedGraph.OUTGOING_EDGE);
+
+		add(emb, extendedNodeIndex, combineLabels(emb.getSuperGraph().getEdgeLabel(newEdge), -emb
+				.getNodeIndex(secondSubgraphNode) - 1, incoming), true, newEdge, secondSubgraphNode);
+	}
+
+
+	/**
+	 * Adds a new extension to the group with the given key at the given extended node.
+	 * 
+	 * @param emb the embedding that is extended
+	 * @param extendedNodeIndex the index of the extended node
+	 * @param key the combined label of the extension
+	 * @param edgeExtension <code>true</code> if it is an edge extension, <code>false</code> if it is an edge-node
+	 *          extension
+	 * @param newEdge the new edge in the supergraph
+	 * @param node the new node in the supergraph or the second node in the subgraph
+	 */
+	private void add(CompleteMoFaEmbedding emb, int extendedNodeIndex, long key, boolean edgeExtension, int newEdge,
+			int node) {
+		m_packed = false;
+
+		// the extensions of one embedding are added one after the other
+		if ((m_embeddingCount == 0) || (m_embeddings[m_embeddingCount - 1] != emb)) {
+			if (m_embeddingCount == m_embeddings.length) {
+				CompleteMoFaEmbedding[] temp = new CompleteMoFaEmbedding[2 * m_embeddings.length];
+				System.arraycopy(m_embeddings, 0, temp, 0, m_embeddingCount);
+				m_embeddings = temp;
+			}
+			m_embeddings[m_embeddingCount++] = emb;
+		}
+
+		final SubContainer bin = m_extendedNodeBins[extendedNodeIndex - m_extendedNodeOffset];
+		int group = bin.get(key);
+		if (group == -1) {
+			if (m_groupCount == m_groupKey.length) growGroups();
+			group = m_groupCount++;
+			m_groupKey[group] = key;
+			m_groupExtendedNodeIndex[group] = extendedNodeIndex;
+			m_groupIsEdgeExtension[group] = edgeExtension;
+			m_groupSize[group] = 0;
+			bin.put(key, group);
+		}
+		m_groupSize[group]++;
+
+		if (m_entryCount == m_entryEmbedding.length) growEntries();
+		m_entryEmbedding[m_entryCount] = m_embeddingCount - 1;
+		m_entryEdge[m_entryCount] = newEdge;
+		m_entryNode[m_entryCount] = node;
+		m_entryGroup[m_entryCount] = group;
+		m_entryCount++;
+	}
+
+
+	private void growGroups() {
+		final int size = 2 * m_groupKey.length;
+
+		long[] temp = new long[size];
+		System.arraycopy(m_groupKey, 0, temp, 0, m_groupCount);
+		m_groupKey = temp;
+
+		boolean[] temp2 = new boolean[size];
+		System.arraycopy(m_groupIsEdgeExtension, 0, temp2, 0, m_groupCount);
+		m_groupIsEdgeExtension = temp2;
+
+		m_groupExtendedNodeIndex = grow(m_groupExtendedNodeIndex, size, m_groupCount);
+		m_groupSize = grow(m_groupSize, size, m_groupCount);
+		m_groupStart = new int[size];
+		m_order = new int[size];
+	}
+
+
+	private void growEntries() {
+		final int size = 2 * m_entryEmbedding.length;
+
+		m_entryEmbedding = grow(m_entryEmbedding, size, m_entryCount);
+		m_entryEdge = grow(m_entryEdge, size, m_entryCount);
+		m_entryNode = grow(m_entryNode, size, m_entryCount);
+		m_entryGroup = grow(m_entryGroup, size, m_entryCount);
+		m_packedEmbedding = new int[size];
+		m_packedEdge = new int[size];
+		m_packedNode = new int[size];
+	}
+
+
+	private static int[] grow(int[] array, int size, int count) {
+		int[] temp = new int[size];
+		System.arraycopy(array, 0, temp, 0, count);
+		return temp;
+	}
+
+
+	/**
+	 * Sorts the groups by their extended node and their key and the entries by their group. Entries of the same group
+	 * keep the order in which they have been added.
+	 */
+	private void pack() {
+		if (m_packed) return;
+
+		int k = 0;
+		for (int i = 0; i < m_binCount; i++) {
+			k = m_extendedNodeBins[i].getSortedGroups(m_groupKey, m_order, k);
+		}
+
+		int start = 0;
+		for (int i = 0; i < m_groupCount; i++) {
+			m_groupStart[m_order[i]] = start;
+			start += m_groupSize[m_order[i]];
+		}
+
+		for (int i = 0; i < m_entryCount; i++) {
+			final int pos = m_groupStart[m_entryGroup[i]]++;
+			m_packedEmbedding[pos] = m_entryEmbedding[i];
+			m_packedEdge[pos] = m_entryEdge[i];
+			m_packedNode[pos] = m_entryNode[i];
+		}
+
+		// the starts have been moved to the ends of the groups
+		for (int i = 0; i < m_groupCount; i++) {
+			m_groupStart[i] -= m_groupSize[i];
+		}
+
+		m_packed = true;
+	}
+
+
+	/**
+	 * Returns the number of groups of equal extensions in this container.
+	 * 
+	 * @return the number of groups
+	 */
+	public int getGroupCount() {
+		return m_groupCount;
+	}
+
+
+	/**
+	 * Returns the number of extensions in the given group. The groups are ordered by their extended node and their
+	 * key.
+	 * 
+	 * @param group the number of the group, between 0 and getGroupCount() - 1
+	 * @return the number of extensions
+	 */
+	public int getGroupSize(int group) {
+		pack();
+		return m_groupSize[m_order[group]];
+	}
+
+
+	/**
+	 * Returns the index of the node that is extended by all extensions in the given group.
+	 * 
+	 * @param group the number of the group, between 0 and getGroupCount() - 1
+	 * @return the index of the extended node
+	 */
+	public int getExtendedNodeIndex(int group) {
+		pack();
+		return m_groupExtendedNodeIndex[m_order[group]];
+	}
+
+
+	/**
+	 * Returns the key of the given group, which is the same as getGroupKey(Extension) for each extension in the group.
+	 * 
+	 * @param group the number of the group, between 0 and getGroupCount() - 1
+	 * @return the group key
+	 */
+	public long getGroupKey(int group) {
+		pack();
+		return m_groupKey[m_order[group]];
+	}
+
+
+	/**
+	 * Returns the supergraph of the embedding that is extended by the given extension.
+	 * 
+	 * @param group the number of the group, between 0 and getGroupCount() - 1
+	 * @param extension the number of the extension in the group, between 0 and getGroupSize(group) - 1
+	 * @return the supergraph
 	 */
-	public void add(EdgeExtension ext, int extendedNodeIndex, int edgeLabel, int secondNodeIndex) {
-		final SubContainer combinedLists = m_extendedNodeBins[extendedNodeIndex - m_extendedNodeOffset];
-		combinedLists.add(ext, edgeLabel, -secondNodeIndex - 1);
+	public Graph getSupergraph(int group, int extension) {
+		pack();
+		return m_embeddings[m_packedEmbedding[m_groupStart[m_order[group]] + extension]].getSuperGraph();
+	}
+
+
+	/**
+	 * Creates the extension objects of the given group.
+	 * 
+	 * @param group the number of the group, between 0 and getGroupCount() - 1
+	 * @param edgeNodePool an ObjectPool for EdgeNodeExtensions or <code>null</code>
+	 * @param edgePool an ObjectPool for EdgeExtensions or <code>null</code>
+	 * @return a list of equal extensions
+	 */
+	public List getExtensions(int group, ObjectPool edgeNodePool, ObjectPool edgePool) {
+		pack();
+
+		final int g = m_order[group];
+		final int extendedNodeIndex = m_groupExtendedNodeIndex[g];
+		final ArrayList extensions = new ArrayList(m_groupSize[g]);
+
+		for (int i = m_groupStart[g]; i < m_groupStart[g] + m_groupSize[g]; i++) {
+			final CompleteMoFaEmbedding emb = m_embeddings[m_packedEmbedding[i]];
+			final int extendedSubgraphNode = emb.getSubGraph().getNode(extendedNodeIndex);
+
+			final Extension ext;
+			if (m_groupIsEdgeExtension[g]) {
+				ext = EdgeExtension.getInstance(emb, extendedSubgraphNode, m_packedNode[i], emb
+						.getSupergraphNode(extendedSubgraphNode), m_packedEdge[i], edgePool);
+			} else {
+				ext = EdgeNodeExtension.getInstance(emb, extendedSubgraphNode, m_packedEdge[i], m_packedNode[i],
+						edgeNodePool);
+			}
+			assert ((extensions.size() == 0) || ext.equals((Extension) extensions.get(0)));
+			extensions.add(ext);
+		}
+
+		return extensions;
 	}
 
 
 	/**
-	 * Returns all extensions in this container as a collection of collections. Each collection holds a group of equal
-	 * extensions.
+	 * Returns the key under which the given extension is grouped together with all equal extensions at the same extended
+	 * node.
 	 * 
-	 * @return a collection of collection with extensions
+	 * @param ext an EdgeNodeExtension or an EdgeExtension
+	 * @return the group key
 	 */
-	public Collection getGroups() {
-		ArrayList groups = new ArrayList(m_extendedNodeBins.length * 32);
+	public static long getGroupKey(Extension ext) {
+		final boolean directed = ext.getParentEmbedding().isDirectedGraphEmbedding();
 
-		for (int i = 0; i < m_extendedNodeBins.length; i++) {
-			m_extendedNodeBins[i].addExtensionLists(groups);
+		if (ext instanceof EdgeNodeExtension) {
+			final EdgeNodeExtension e = (EdgeNodeExtension) ext;
+			return combineLabels(e.getNewEdgeLabel(), e.getNewNodeLabel(), directed
+					&& (((DirectedGraph) e.getParentEmbedding().getSuperGraph()).getEdgeDirection(e.getNewSupergraphEdge(), e
+							.getNewSupergraphNode()) == DirectedGraph.OUTGOING_EDGE));
 		}
 
-		return groups;
+		final EdgeExtension e = (EdgeExtension) ext;
+		return combineLabels(e.getNewEdgeLabel(), -e.getSecondNodeIndex() - 1, directed
+				&& (e.getNewEdgeDirection() == DirectedGraph.OUTGOING_EDGE));
 	}
 
+
+	/**
+	 * Combines the labels of the new edge and the new node of an extension into one value. In directed graphs
+	 * extensions with outgoing edges get a different value than the same extensions with incoming edges.
+	 * 
+	 * @param edgeLabel the label of the new edge
+	 * @param nodeLabel the label of the new node or the negative index of the second node for edge extensions
+	 * @param incoming <code>true</code> if the new edge is an incoming edge of the extended node in a directed graph
+	 * @return the combined label
+	 */
+	private static long combineLabels(int edgeLabel, int nodeLabel, boolean incoming) {
+		final long combinedLabel = ((long) edgeLabel << 32) + nodeLabel;
+		return incoming ? combinedLabel ^ 0xfedcba987654321fL : combinedLabel;
+	}
+
+
+	/**
+	 * An open addressing hash table from the keys of the groups at one extended node to the groups.
+	 */
 	private static class SubContainer {
-		private long[] m_combinedLabelMap = new long[32];
-		private int m_combinedLabelCount;
-
-		private final ArrayList m_extensions = new ArrayList();
-
-
-		void add(Extension ext, int edgeLabel, int nodeLabel) {
-			long combinedLabel = ((long) edgeLabel << 32) + nodeLabel;
-			
-			if (ext.getParentEmbedding().isDirectedGraphEmbedding()) {
-				if (ext instanceof EdgeNodeExtension) {
-					final int newNode = ((EdgeNodeExtension) ext).getNewSupergraphNode();
-					final int newEdge = ((EdgeNodeExtension) ext).getNewSupergraphEdge();
-					
-					// if the new edge is an incoming edge for the extened node it must be made different
-					// from an the same extension but with an outgoing edge
-					if (((DirectedGraph) ext.getParentEmbedding().getSuperGraph()).getEdgeDirection(newEdge, newNode) ==
-						DirectedGraph.OUTGOING_EDGE)
-					{
-						combinedLabel ^= 0xfedcba987654321fL;
-					}
-				} else if (ext instanceof EdgeExtension) {
-					// if the new edge is an incoming edge for the extened node it must be made different
-					// from an the same extension but with an outgoing edge
-					if (((EdgeExtension) ext).getNewEdgeDirection() == DirectedGraph.OUTGOING_EDGE) {
-						combinedLabel ^= 0xfedcba987654321fL;
-					}
-				}
+		private long[] m_keys = new long[16];
+		/** the group numbers plus one, 0 marks a free slot */
+		private int[] m_slots = new int[16];
+		/** the groups in the order in which they have been created */
+		private int[] m_groups = new int[8];
+		private int m_groupCount;
+
+
+		private int slot(long key, int length) {
+			final long h = key * 0x9e3779b97f4a7c15L;
+			return (int) (h ^ (h >>> 32)) & (length - 1);
+		}
+
+
+		int get(long key) {
+			for (int i = slot(key, m_slots.length);; i = (i + 1) & (m_slots.length - 1)) {
+				if (m_slots[i] == 0) return -1;
+				if (m_keys[i] == key) return m_slots[i] - 1;
 			}
-					
-
-			int index;
-			if (m_combinedLabelCount < 32) {
-				for (index = 0; index < m_combinedLabelCount; index++) {
-					if (m_combinedLabelMap[index] == combinedLabel) {
-						assert(ext.equals(((ArrayList) m_extensions.get(index)).get(0)));
-						((ArrayList) m_extensions.get(index)).add(ext);
-						return;
-					} else if (m_combinedLabelMap[index] > combinedLabel) {
-						break;
-					}
-				}
-			} else {
-				index = Util.binarySearch(m_combinedLabelMap, combinedLabel, m_combinedLabelCount);
-				if (index >= 0) {
-					assert(ext.equals(((ArrayList) m_extensions.get(index)).get(0)));
-					((ArrayList) m_extensions.get(index)).add(ext);
-					return;
+		}
+
+
+		void put(long key, int group) {
+			if (2 * (m_groupCount + 1) > m_slots.length) {
+				final long[] oldKeys = m_keys;
+				final int[] oldSlots = m_slots;
+				m_keys = new long[2 * oldKeys.length];
+				m_slots = new int[2 * oldSlots.length];
+				for (int i = 0; i < oldSlots.length; i++) {
+					if (oldSlots[i] != 0) insert(oldKeys[i], oldSlots[i]);
 				}
+			}
+			insert(key, group + 1);
 
-				index = -index - 1;
+			if (m_groupCount == m_groups.length) {
+				int[] temp = new int[2 * m_groups.length];
+				System.arraycopy(m_groups, 0, temp, 0, m_groupCount);
+				m_groups = temp;
 			}
+			m_groups[m_groupCount++] = group;
+		}
 
-			ArrayList list = new ArrayList();
-			m_extensions.add(index, list);
-			list.add(ext);
 
-			if (++m_combinedLabelCount >= m_combinedLabelMap.length) {
-				long[] temp = new long[m_combinedLabelMap.length + 32];
-				System.arraycopy(m_combinedLabelMap, 0, temp, 0, index);
-				temp[index] = combinedLabel;
-				System.arraycopy(m_combinedLabelMap, index, temp, index + 1, m_combinedLabelMap.length - index);
-				m_combinedLabelMap = temp;
-			} else {
-				for (int k = m_combinedLabelCount - 1; k > index; k--) {
-					m_combinedLabelMap[k] = m_combinedLabelMap[k - 1];
+		private void insert(long key, int value) {
+			int i = slot(key, m_slots.length);
+			while (m_slots[i] != 0) {
+				i = (i + 1) & (m_slots.length - 1);
+			}
+			m_keys[i] = key;
+			m_slots[i] = value;
+		}
+
+
+		/**
+		 * Copies the groups of this extended node sorted by their keys into the given array.
+		 * 
+		 * @param keys the keys of all groups
+		 * @param order the array into which the groups are copied
+		 * @param offset the first position in the array
+		 * @return the position after the last copied group
+		 */
+		int getSortedGroups(long[] keys, int[] order, int offset) {
+			for (int i = 0; i < m_groupCount; i++) {
+				final int group = m_groups[i];
+				int k = offset + i;
+				while ((k > offset) && (keys[order[k - 1]] > keys[group])) {
+					order[k] = order[k - 1];
+					k--;
 				}
-				m_combinedLabelMap[index] = combinedLabel;
+				order[k] = group;
 			}
+			return offset + m_groupCount;
 		}
 
 
-		void addExtensionLists(Collection allExtensionLists) {
-			allExtensionLists.addAll(m_extensions);
+		void clear() {
+			if (m_groupCount > 0) {
+				Arrays.fill(m_slots, 0);
+				m_groupCount = 0;
+			}
 		}
 	}
 }
\ No newline at end of file
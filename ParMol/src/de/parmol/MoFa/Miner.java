@@ -20,6 +20,7 @@ package de.parmol.MoFa;
 
 import jackal.runtime.RuntimeSystem;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -41,7 +42,6 @@ import de.parmol.graph.GraphEmbedding;
 import de.parmol.graph.GraphFactory;
 import de.parmol.graph.MutableGraph;
 import de.parmol.graph.UndirectedMatrixGraph;
-import de.parmol.graph.Util;
 import de.parmol.parsers.GraphParser;
 import de.parmol.search.SearchManager;
 
@@ -58,6 +58,9 @@ public class Miner extends AbstractMiner {
 
 	private GraphParser m_graphParser;
 
+	/** the result of marking the rings, <code>null</code> if no rings have been marked */
+	protected RingMarker.Result m_ringMarkingResult;
+
 	/**
 	 * Creates a new MoFa Miner.
 	 * 
@@ -104,7 +107,25 @@ public class Miner extends AbstractMiner {
 	protected GraphFactory getGraphFactory(GraphParser parser) {
 		int mask = parser.getDesiredGraphFactoryProperties() | GraphFactory.CLASSIFIED_GRAPH;
 
-		return GraphFactory.getFactory(mask);
+		if (m_settings.ringSizes[0] > 2) return getRingGraphFactory(mask);
+		return GraphFactory.getFactory(addCompactGraphType(mask));
+	}
+
+
+	/**
+	 * Returns a factory for ring graphs that have the given properties. The ring graph factories are not registered
+	 * with the RING_GRAPH type, so they cannot be found by GraphFactory.getFactory(int).
+	 * 
+	 * @param mask a mask of properties the graphs must have
+	 * @return a factory for ring graphs
+	 */
+	private static GraphFactory getRingGraphFactory(int mask) {
+		if ((mask & GraphFactory.DIRECTED_GRAPH) != 0) {
+			if ((mask & GraphFactory.MATRIX_GRAPH) != 0) return DirectedMatrixRingGraph.Factory.instance;
+			return DirectedListRingGraph.Factory.instance;
+		}
+		if ((mask & GraphFactory.MATRIX_GRAPH) != 0) return UndirectedMatrixRingGraph.Factory.instance;
+		return UndirectedListRingGraph.Factory.instance;
 	}
 
 
@@ -114,28 +135,33 @@ public class Miner extends AbstractMiner {
 	 * @see de.parmol.AbstractMiner#setUp()
 	 */
 	public void setUp() throws FileNotFoundException, IOException, ParseException {
+		if (m_settings.compactGraphs && (m_settings.ringSizes[0] > 2)) {
+			System.err.println("Warning: -compactGraphs is ignored, because graphs with ring information cannot be stored compactly");
+		}
 		super.setUp();
 
 		m_nodeFrequencies = computeNodeFrequencies(m_graphs);
 
 		if (m_settings.ringSizes[0] > 2) {
-			long t = 0;
-			if (m_settings.debug > 0) {
-				System.out.print("Marking rings...");
-				t = System.currentTimeMillis();
-			}
+			if (m_settings.debug > 0) System.out.print("Marking rings...");
 
-			for (Iterator it = m_graphs.iterator(); it.hasNext();) {
-				RingGraph g = (RingGraph) it.next();
-				try {
-					g.markCycles(m_settings.ringSizes[0], m_settings.ringSizes[1]);
-				} catch (Util.TooManyCyclesException ex) {
-					ex.printStackTrace();
-				}
-			}
+			m_ringMarkingResult = new RingMarker(m_settings.ringSizes[0], m_settings.ringSizes[1], m_settings.maxThreads)
+					.markRings(m_graphs, (m_settings.ringFile != null) ? new File(m_settings.ringFile) : null);
 
 			if (m_settings.debug > 0) {
-				System.out.println("done (" + (System.currentTimeMillis() - t) + "ms)");
+				System.out.println("done (" + m_ringMarkingResult.getRingCount() + " rings in "
+						+ m_ringMarkingResult.getMarkedGraphs() + " graphs"
+						+ (m_ringMarkingResult.isReadFromFile() ? " read from " + m_settings.ringFile : "") + ", "
+						+ m_ringMarkingResult.getTime() + "ms)");
+			}
+			if (m_ringMarkingResult.getFailures().size() > 0) {
+				System.err.println("Warning: the rings of " + m_ringMarkingResult.getFailures().size()
+						+ " graphs could not be marked");
+				if (m_settings.debug > 0) {
+					for (Iterator it = m_ringMarkingResult.getFailures().iterator(); it.hasNext();) {
+						System.err.println("\t" + it.next());
+					}
+				}
 			}
 		}
 
@@ -143,6 +169,16 @@ public class Miner extends AbstractMiner {
 	}
 
 
+	/**
+	 * Returns the result of marking the rings in the database graphs.
+	 * 
+	 * @return the result or <code>null</code> if no rings have been marked
+	 */
+	public RingMarker.Result getRingMarkingResult() {
+		return m_ringMarkingResult;
+	}
+
+
 	/**
 	 * Calculates the frequencies of each different node label in the graphs.
 	 * 
@@ -228,6 +264,7 @@ public class Miner extends AbstractMiner {
 				final float[] classFrequencies = computeClassFrequencies(completeEmbeddings);
 				MoFaSearchTreeNode startNode = new MoFaSearchTreeNode(seed, classFrequencies, completeEmbeddings,
 						completeEmbeddings.size(), Graph.NO_NODE, false, blackNodes, 1);
+				searcher.addStartNode(startNode);
 				searchManager.addStartNode(startNode);
 
 			} catch (ParseException e) {
@@ -251,6 +288,7 @@ public class Miner extends AbstractMiner {
 				oneNodeGraph.addNode(m_nodeFrequencies[i].nodeLabel);
 				MoFaSearchTreeNode startNode = new MoFaSearchTreeNode(oneNodeGraph, m_nodeFrequencies[i].classFrequencies,
 						null, m_nodeFrequencies[i].occurences, Graph.NO_NODE, false, blackNodes, 1);
+				searcher.addStartNode(startNode);
 				searchManager.addStartNode(startNode);
 				blackNodes = new BlackNodeSet(blackNodes);
 				blackNodes.addNodeLabel(m_nodeFrequencies[i].nodeLabel);
@@ -260,6 +298,7 @@ public class Miner extends AbstractMiner {
 		if (m_settings.debug > 3) RuntimeSystem.java_reset_stats("");
 		searchManager.startSearch();
 		if (m_settings.debug > 3) RuntimeSystem.java_print_stats();
+		searchManager.shutdown();
 
 		m_frequentSubgraphs = searcher.getFrequentSubgraphs();
 	}
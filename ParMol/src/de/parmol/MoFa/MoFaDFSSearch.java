@@ -19,6 +19,7 @@
 package de.parmol.MoFa;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashSet;
@@ -41,11 +42,12 @@ import de.parmol.graph.SimpleNodeComparator;
 import de.parmol.graph.SimpleSubgraphComparator;
 import de.parmol.search.DFSSearchable;
 import de.parmol.search.SearchTreeNode;
-import de.parmol.util.DefaultObjectPool;
+import de.parmol.util.AdaptiveObjectPool;
+import de.parmol.util.ConcurrentFilteredFragmentSet;
 import de.parmol.util.FilteredFragmentSet;
 import de.parmol.util.FragmentSet;
+import de.parmol.util.FragmentSink;
 import de.parmol.util.FrequentFragment;
-import de.parmol.util.MutableInteger;
 import de.parmol.util.ObjectPool;
 
 
@@ -55,18 +57,39 @@ import de.parmol.util.ObjectPool;
  * @author Thorsten Meinl <Thorsten.Meinl@informatik.uni-erlangen.de>
  */
 public class MoFaDFSSearch implements DFSSearchable {
+	/**
+	 * The number of shards of the fragment set per thread, if several threads search for fragments.
+	 */
+	private final static int SHARDS_PER_THREAD = 4;
+	/**
+	 * The capacity each thread's pool for extensions and embeddings starts with, the pools grow if this is too small.
+	 */
+	private final static int INITIAL_POOL_CAPACITY = 256;
+	/**
+	 * The maximum capacity of each thread's pool for extensions.
+	 */
+	private final static int MAXIMUM_EXTENSION_POOL_CAPACITY = 1 << 18;
+	/**
+	 * The maximum capacity of each thread's pool for embeddings of a certain size.
+	 */
+	private final static int MAXIMUM_EMBEDDING_POOL_CAPACITY = 1 << 16;
+
 	protected final MoFaExtender m_extender;
-	protected final FilteredFragmentSet m_frequentLocalSubgraphs = new FilteredFragmentSet();
+	/** the found fragments, shared by all workers */
+	protected final FragmentSink m_frequentSubgraphs;
 	protected int m_largestProblemSize = 1;
 	protected ObjectPool m_embeddingPool;
+	/** the governor for the memory of the embeddings, shared by all workers; <code>null</code> if there is no limit */
+	protected final EmbeddingMemoryGovernor m_governor;
 	private double m_sigmoidC;
 	private final Settings m_settings;
-	private MoFaDFSSearch m_nextWorker;
-
-	protected FilteredFragmentSet m_frequentGlobalSubgraphs;
-	protected MutableInteger m_globalSubgraphsLock;
-	protected final static int FRAGMENT_FLUSH_THRESHOLD = 5000;
-	private int m_retryWaits = 1;
+	/** the container for the extensions of the current node, it is reused for all nodes of this worker */
+	private final ExtensionContainer m_extensions = new ExtensionContainer(0, 0);
+	/**
+	 * the nodes whose embeddings this worker keeps for recomputing dropped embeddings, each node is the origin of the
+	 * next one; only used if there is a memory governor
+	 */
+	private final ArrayList m_keptPath = new ArrayList();
 
 
 	/**
@@ -76,21 +99,33 @@ public class MoFaDFSSearch implements DFSSearchable {
 	 */
 	public MoFaDFSSearch(Settings settings) {
 		m_settings = settings;
+		// the pools are shared by all workers, each thread uses its own part of them
 		if (settings.useExtensionPooling) {
-			final int size = (int) (m_settings.graphs.size() / 5000.0 * (1 << 18));
-
-			m_extender = new MoFaExtender(m_settings, new DefaultObjectPool(size / m_settings.maxThreads, 1),
-					new DefaultObjectPool((size >> 2) / m_settings.maxThreads, 1));
+			m_extender = new MoFaExtender(m_settings, new AdaptiveObjectPool(INITIAL_POOL_CAPACITY,
+					MAXIMUM_EXTENSION_POOL_CAPACITY, 1), new AdaptiveObjectPool(INITIAL_POOL_CAPACITY,
+					MAXIMUM_EXTENSION_POOL_CAPACITY, 1));
 		} else {
 			m_extender = new MoFaExtender(settings);
 		}
 
 		if (settings.useEmbeddingPooling) {
-			m_embeddingPool = new DefaultObjectPool((1 << 16) / m_settings.maxThreads, 20);
+			m_embeddingPool = new AdaptiveObjectPool(INITIAL_POOL_CAPACITY, MAXIMUM_EMBEDDING_POOL_CAPACITY, 20);
 			m_embeddingPool.setName("EmbeddingPool");
 		}
 
 		m_sigmoidC = 1.5 * (m_settings.minimumClassFrequencies[0] / m_settings.graphCount) - 1.5;
+
+		if (m_settings.maxThreads > 1) {
+			m_frequentSubgraphs = new ConcurrentFilteredFragmentSet(30000, 50, m_settings.maxThreads * SHARDS_PER_THREAD);
+		} else {
+			m_frequentSubgraphs = new FilteredFragmentSet();
+		}
+
+		if (m_settings.maximumEmbeddingMemory > 0) {
+			m_governor = new EmbeddingMemoryGovernor(m_settings.maximumEmbeddingMemory * 1024L);
+		} else {
+			m_governor = null;
+		}
 	}
 
 
@@ -101,28 +136,17 @@ public class MoFaDFSSearch implements DFSSearchable {
 	 */
 	private MoFaDFSSearch(MoFaDFSSearch firstWorker) {
 		m_settings = firstWorker.m_settings;
-		if (m_settings.useExtensionPooling) {
-			final int size = (int) (m_settings.graphs.size() / 5000.0 * (1 << 18));
-
-			m_extender = new MoFaExtender(m_settings, new DefaultObjectPool(size / m_settings.maxThreads, 1),
-					new DefaultObjectPool((size >> 2) / m_settings.maxThreads, 1));
-		} else {
-			m_extender = new MoFaExtender(m_settings);
-		}
-
-		if (m_settings.useEmbeddingPooling) {
-			m_embeddingPool = new DefaultObjectPool((1 << 16) / m_settings.maxThreads, 20);
-			m_embeddingPool.setName("EmbeddingPool");
-		}
+		m_extender = new MoFaExtender(m_settings, firstWorker.m_extender.m_edgeNodePool,
+				firstWorker.m_extender.m_edgePool);
+		m_embeddingPool = firstWorker.m_embeddingPool;
 
 		m_sigmoidC = 1.5 * (m_settings.minimumClassFrequencies[0] / m_settings.graphCount) - 1.5;
-		if (firstWorker.m_globalSubgraphsLock == null) {
-			firstWorker.m_globalSubgraphsLock = m_globalSubgraphsLock = new MutableInteger(0);
-			firstWorker.m_frequentGlobalSubgraphs = m_frequentGlobalSubgraphs = new FilteredFragmentSet(30000, 50);
-		} else {
-			m_globalSubgraphsLock = firstWorker.m_globalSubgraphsLock;
-			m_frequentGlobalSubgraphs = firstWorker.m_frequentGlobalSubgraphs;
+
+		if (!(firstWorker.m_frequentSubgraphs instanceof ConcurrentFilteredFragmentSet)) {
+			throw new IllegalStateException("Additional workers need a search with more than one thread");
 		}
+		m_frequentSubgraphs = firstWorker.m_frequentSubgraphs;
+		m_governor = firstWorker.m_governor;
 	}
 
 
@@ -142,42 +166,36 @@ public class MoFaDFSSearch implements DFSSearchable {
 	 * @see de.parmol.search.BFSSearch#generateChildren(de.parmol.search.SearchTreeNode, de.parmol.search.SearchTreeNode)
 	 */
 	public void generateChildren(SearchTreeNode currentNode) {
-		Collection embeddings = ((MoFaSearchTreeNode) currentNode).getEmbeddings();
+		Collection embeddings = (m_governor != null) ? m_governor.takeEmbeddings((MoFaSearchTreeNode) currentNode)
+				: ((MoFaSearchTreeNode) currentNode).getEmbeddings();
 		if (embeddings == null) {
-			embeddings = createEmbeddings(m_settings.graphs, ((MoFaSearchTreeNode) currentNode).getSubgraph());
+			if (((MoFaSearchTreeNode) currentNode).getOrigin() != null) {
+				synchronized (m_settings.stats) {
+					m_settings.stats.recomputedEmbeddingLists++;
+				}
+			}
+
+			embeddings = recomputeEmbeddings((MoFaSearchTreeNode) currentNode);
 			((MoFaSearchTreeNode) currentNode).setEmbeddings(embeddings);
+			if (m_governor != null) m_governor.addEmbeddings((MoFaSearchTreeNode) currentNode);
 		}
 
 		final int lastExtendedNodeIndex = ((MoFaSearchTreeNode) currentNode).getLastExtendedNodeIndex();
-		final boolean lastExtensionWasPerfect = ((MoFaSearchTreeNode) currentNode).extensionWasPerfect();
-
-		ExtensionContainer extensions = new ExtensionContainer(lastExtendedNodeIndex >= 0 ? lastExtendedNodeIndex : 0,
-				((MoFaSearchTreeNode) currentNode).getSubgraph().getNodeCount());
-		for (Iterator it = embeddings.iterator(); it.hasNext();) {
-			CompleteMoFaEmbedding emb = (CompleteMoFaEmbedding) it.next();
-
-			m_extender.extend(emb, lastExtendedNodeIndex, lastExtensionWasPerfect, ((MoFaSearchTreeNode) currentNode)
-					.getBlackNodes(), extensions);
-		}
-
-		Collection groups = extensions.getGroups();
-
-		extensions = null;
+		final ExtensionContainer extensions = extend((MoFaSearchTreeNode) currentNode, embeddings);
 
+		final Collection groups = new ArrayList(extensions.getGroupCount());
 		final IdentityHashMap frequencies = new IdentityHashMap();		
 		
-		// do a pre-filtering of unfrequent extensions
-		for (Iterator it = groups.iterator(); it.hasNext();) {
-			Collection group = (Collection) it.next();
-			float[] classFrequencies = computeClassFrequencies(group);
-			if (! m_settings.embeddingEstimation && ! m_settings.countEmbeddings && ! m_settings.checkMinimumFrequencies(classFrequencies)) {
-				m_extender.freeExtensions(group);
-				group.clear(); // just to save memory
-				it.remove();
-			} else {
+		// do a pre-filtering of unfrequent extensions, extension objects are only created for the remaining groups
+		for (int i = 0; i < extensions.getGroupCount(); i++) {
+			float[] classFrequencies = computeClassFrequencies(extensions, i);
+			if (m_settings.embeddingEstimation || m_settings.countEmbeddings || m_settings.checkMinimumFrequencies(classFrequencies)) {
+				final List group = extensions.getExtensions(i, m_extender.m_edgeNodePool, m_extender.m_edgePool);
+				groups.add(group);
 				frequencies.put(group, classFrequencies);
 			}
 		}
+		extensions.clear();
 
 		equivalentSiblingPruning(embeddings, groups);
 		boolean perfectExtension = perfectExtensionPruning(embeddings, groups);
@@ -186,41 +204,147 @@ public class MoFaDFSSearch implements DFSSearchable {
 		createExtendedEmbeddings(groups, (MoFaSearchTreeNode) currentNode, perfectExtension, lastExtendedNodeIndex,
 				frequencies);
 
-		((MoFaSearchTreeNode) currentNode).clearEmbeddings(m_embeddingPool);
-
-		if ((m_globalSubgraphsLock != null) && (m_frequentLocalSubgraphs.size() >= FRAGMENT_FLUSH_THRESHOLD)
-				&& (--m_retryWaits <= 0)) {
-			boolean lockIsFree = false;
+		if (m_governor != null) m_governor.releaseEmbeddings((MoFaSearchTreeNode) currentNode);
+		if ((m_governor != null) && (currentNode.getChildren().size() > 0)) {
+			// the children's embeddings are recomputed from these if they get dropped
+			((MoFaSearchTreeNode) currentNode).dropEmbeddings();
+			keepEmbeddings((MoFaSearchTreeNode) currentNode, embeddings);
+		} else {
+			((MoFaSearchTreeNode) currentNode).clearEmbeddings(m_embeddingPool);
+		}
 
-			synchronized (m_globalSubgraphsLock) {
-				if (m_globalSubgraphsLock.intValue() == 0) {
-					m_globalSubgraphsLock.inc();
-					lockIsFree = true;
+		if (m_governor != null) {
+			for (Iterator it = currentNode.getChildren().iterator(); it.hasNext();) {
+				m_governor.addPendingNode((MoFaSearchTreeNode) it.next());
+			}
+			final int dropped = m_governor.enforceBudget();
+			if (dropped > 0) {
+				synchronized (m_settings.stats) {
+					m_settings.stats.droppedEmbeddingLists += dropped;
 				}
 			}
+		}
+	}
 
-			if (lockIsFree) {
-				long t = System.currentTimeMillis();
-				synchronized (m_frequentGlobalSubgraphs) {
-					m_frequentGlobalSubgraphs.add(m_frequentLocalSubgraphs);
-				}
 
-				synchronized (m_globalSubgraphsLock) {
-					m_globalSubgraphsLock.dec();
-				}
-				m_frequentLocalSubgraphs.clear();
+	/**
+	 * Extends all embeddings of the given node and groups the extensions. The returned container is reused by the next
+	 * call, so the groups must be processed before.
+	 * 
+	 * @param node the search tree node
+	 * @param embeddings the embeddings of the node
+	 * @return a container with groups of equal extensions
+	 */
+	private ExtensionContainer extend(MoFaSearchTreeNode node, Collection embeddings) {
+		final int lastExtendedNodeIndex = node.getLastExtendedNodeIndex();
 
-				if (m_settings.debug > 2) {
-					System.out.println("[" + Thread.currentThread().getName()
-							+ "] Merged local fragment set with global fragment set in " + (System.currentTimeMillis() - t)
-							+ "ms; size is now " + m_frequentGlobalSubgraphs.size());
-				}
-			} else {
-				m_retryWaits = (int) (Math.random() * 100);
-				if (m_settings.debug > 2) {
-					System.out.println("[" + Thread.currentThread().getName()
-							+ "] Merging delayed because of blocked global set, retrying after " + m_retryWaits + " iterations");
+		m_extensions.reset(lastExtendedNodeIndex >= 0 ? lastExtendedNodeIndex : 0, node.getSubgraph().getNodeCount());
+		for (Iterator it = embeddings.iterator(); it.hasNext();) {
+			CompleteMoFaEmbedding emb = (CompleteMoFaEmbedding) it.next();
+
+			m_extender.extend(emb, lastExtendedNodeIndex, node.extensionWasPerfect(), node.getBlackNodes(), m_extensions);
+		}
+
+		return m_extensions;
+	}
+
+
+	/**
+	 * Recomputes the embeddings of the given node, which have not been created yet or have been dropped by the memory
+	 * governor. The embeddings are rebuilt starting at the nearest origin whose embeddings this worker still keeps, or
+	 * at the seed if there is none. The rebuilt embeddings of the origins are kept as well, so the siblings of the node
+	 * and its own children can be recomputed with a single extension step.
+	 * 
+	 * @param node a search tree node
+	 * @return a collection of CompleteMoFaEmbeddings
+	 */
+	private Collection recomputeEmbeddings(MoFaSearchTreeNode node) {
+		final ArrayList origins = new ArrayList();
+		int index = -1;
+		for (MoFaSearchTreeNode origin = node.getOrigin(); origin != null; origin = origin.getOrigin()) {
+			index = indexOfKeptNode(origin);
+			if (index >= 0) break;
+			origins.add(origin);
+		}
+		truncateKeptPath(index + 1);
+
+		Collection embeddings = (index >= 0) ? ((KeptEmbeddings) m_keptPath.get(index)).m_embeddings : null;
+		for (int i = origins.size() - 1; i >= 0; i--) {
+			final MoFaSearchTreeNode origin = (MoFaSearchTreeNode) origins.get(i);
+			embeddings = rebuildEmbeddings(origin, embeddings);
+			keepEmbeddings(origin, embeddings);
+		}
+		return rebuildEmbeddings(node, embeddings);
+	}
+
+
+	/**
+	 * Rebuilds the embeddings of the given node from the embeddings of its origin, which yields the same embeddings in
+	 * the same order as before. The embeddings of a node without an origin are searched in the database.
+	 * 
+	 * @param node a search tree node
+	 * @param originEmbeddings the embeddings of the node's origin, they are not changed
+	 * @return a collection of CompleteMoFaEmbeddings
+	 */
+	private Collection rebuildEmbeddings(MoFaSearchTreeNode node, Collection originEmbeddings) {
+		final MoFaSearchTreeNode origin = node.getOrigin();
+		if (origin == null) return createEmbeddings(m_settings.graphs, node.getSubgraph());
+
+		final ArrayList embeddings = new ArrayList(node.getCompleteEmbeddingCount());
+		final ExtensionContainer extensions = extend(origin, originEmbeddings);
+		for (int i = 0; i < extensions.getGroupCount(); i++) {
+			if (node.isCreatedBy(extensions.getExtendedNodeIndex(i), extensions.getGroupKey(i))) {
+				final List group = extensions.getExtensions(i, m_extender.m_edgeNodePool, m_extender.m_edgePool);
+				for (Iterator it = group.iterator(); it.hasNext();) {
+					embeddings.add(((Extension) it.next()).getExtendedEmbedding(m_embeddingPool));
 				}
+				m_extender.freeExtensions(group);
+			}
+		}
+		extensions.clear();
+
+		return embeddings;
+	}
+
+
+	/**
+	 * Keeps the embeddings of the given node at the end of the kept path. All nodes on the path that are not origins of
+	 * the node are removed before.
+	 * 
+	 * @param node a search tree node
+	 * @param embeddings the embeddings of the node
+	 */
+	private void keepEmbeddings(MoFaSearchTreeNode node, Collection embeddings) {
+		truncateKeptPath((node.getOrigin() != null) ? indexOfKeptNode(node.getOrigin()) + 1 : 0);
+		m_keptPath.add(new KeptEmbeddings(node, embeddings, m_governor.addEmbeddings(node.getSubgraph(), embeddings)));
+	}
+
+
+	/**
+	 * Returns the position of the given node on the kept path.
+	 * 
+	 * @param node a search tree node
+	 * @return the index of the node or -1 if its embeddings are not kept
+	 */
+	private int indexOfKeptNode(MoFaSearchTreeNode node) {
+		for (int i = m_keptPath.size() - 1; i >= 0; i--) {
+			if (((KeptEmbeddings) m_keptPath.get(i)).m_node == node) return i;
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Removes all nodes from the given position on from the kept path and frees their embeddings.
+	 * 
+	 * @param length the number of nodes that remain on the path
+	 */
+	private void truncateKeptPath(int length) {
+		while (m_keptPath.size() > length) {
+			final KeptEmbeddings kept = (KeptEmbeddings) m_keptPath.remove(m_keptPath.size() - 1);
+			m_governor.releaseMemory(kept.m_memory);
+			for (Iterator it = kept.m_embeddings.iterator(); it.hasNext();) {
+				((MoFaEmbedding) it.next()).freeInstance(m_embeddingPool);
 			}
 		}
 	}
@@ -247,6 +371,8 @@ public class MoFaDFSSearch implements DFSSearchable {
 			int newLastExtendedNodeIndex = (perfectExtension ? lastExtendedNodeIndex : -1);
 			Graph subgraph = null;
 			Class extensionType = null;
+			int extendedNodeIndex = -1;
+			long groupKey = 0;
 
 			for (Iterator it2 = group.iterator(); it2.hasNext();) {
 				Extension ext = (Extension) it2.next();
@@ -263,6 +389,10 @@ public class MoFaDFSSearch implements DFSSearchable {
 
 				if (extensionType == null) {
 					extensionType = ext.getClass();
+					if (m_governor != null) {
+						extendedNodeIndex = ext.getExtendedNodeIndex();
+						groupKey = ExtensionContainer.getGroupKey(ext);
+					}
 				}
 
 				newEmbeddings.add(ext.getExtendedEmbedding(m_embeddingPool));
@@ -302,6 +432,7 @@ public class MoFaDFSSearch implements DFSSearchable {
 			
 			MoFaSearchTreeNode newNode = new MoFaSearchTreeNode(currentNode, subgraph, classFrequencies, newEmbeddings,
 					newEmbeddings.size(), newLastExtendedNodeIndex, perfectExtension, currentNode.getLevel() + 1);
+			if (m_governor != null) newNode.setOrigin(currentNode, extendedNodeIndex, groupKey);
 
 			if (!oneChildHasSameSupport) {
 				assert(new SimpleSubgraphComparator(SimpleNodeComparator.instance, SimpleEdgeComparator.instance).
@@ -326,54 +457,91 @@ public class MoFaDFSSearch implements DFSSearchable {
 
 		if ((!m_settings.closedFragmentsOnly || !oneChildHasSameSupport)
 				&& m_settings.checkReportingConstraints(currentNode.getSubgraph(), currentNode.getFrequencies())) {
-			if (!m_frequentLocalSubgraphs.add(new FrequentFragment(currentNode.getEmbeddings(), currentNode.getFrequencies(),
+			if (!m_frequentSubgraphs.add(new FrequentFragment(currentNode.getEmbeddings(), currentNode.getFrequencies(),
 					m_settings.storeEmbeddings))) {
-				m_settings.stats.duplicateFragments++;
+				synchronized (m_settings.stats) {
+					m_settings.stats.duplicateFragments++;
+				}
 			}
 		} else if (oneChildHasSameSupport) {
-			m_settings.stats.earlyFilteredNonClosedFragments++;
+			synchronized (m_settings.stats) {
+				m_settings.stats.earlyFilteredNonClosedFragments++;
+			}
+		}
+	}
+
+
+	/**
+	 * The embeddings of an already extended node that a worker keeps, together with their accounted memory.
+	 */
+	private final static class KeptEmbeddings {
+		final MoFaSearchTreeNode m_node;
+		final Collection m_embeddings;
+		final long m_memory;
+
+
+		KeptEmbeddings(MoFaSearchTreeNode node, Collection embeddings, long memory) {
+			m_node = node;
+			m_embeddings = embeddings;
+			m_memory = memory;
+		}
+	}
+
+
+	/**
+	 * The set of supergraph nodes covered by an embedding, used to find embeddings that overlap completely.
+	 */
+	private final static class NodeSet {
+		private final Graph m_superGraph;
+		private final int[] m_nodes;
+		private final int m_hashCode;
+
+
+		NodeSet(CompleteEmbedding emb) {
+			m_superGraph = emb.getSuperGraph();
+			m_nodes = new int[emb.getNodeCount()];
+			for (int i = m_nodes.length - 1; i >= 0; i--) {
+				m_nodes[i] = m_superGraph.getNodeIndex(emb.getSupergraphNode(emb.getNode(i)));
+			}
+			Arrays.sort(m_nodes);
+			m_hashCode = 31 * System.identityHashCode(m_superGraph) + Arrays.hashCode(m_nodes);
+		}
+
+
+		public int hashCode() {
+			return m_hashCode;
+		}
+
+
+		public boolean equals(Object o) {
+			final NodeSet other = (NodeSet) o;
+			return (m_superGraph == other.m_superGraph) && Arrays.equals(m_nodes, other.m_nodes);
 		}
 	}
 
 
 	/**
 	 * Checks for embeddings that overlap completely (symmetric embeddings) in the list and updates the class frequencies
-	 * so that only one of the overlapping embeddings is counted.
+	 * so that only one of the overlapping embeddings is counted. The embeddings are grouped by the set of supergraph
+	 * nodes they cover, so that this takes linear expected time.
 	 * 
 	 * @param newEmbeddings a collection with CompleteEmbeddings
 	 * @param classFrequencies the class frequencies
 	 */
 	private void fixClassFrequencies(Collection newEmbeddings, float[] classFrequencies) {
+		final HashSet nodeSets = new HashSet(newEmbeddings.size() * 2);
+
 		for (Iterator it = newEmbeddings.iterator(); it.hasNext();) {
 			final CompleteEmbedding emb = (CompleteEmbedding) it.next();
 
-			final boolean[] nodes = new boolean[emb.getSuperGraph().getNodeCount()];
-			for (int i = emb.getNodeCount() - 1; i >= 0; i--) {
-				nodes[emb.getSuperGraph().getNodeIndex(emb.getSupergraphNode(emb.getNode(i)))] = true;
-			}
-
-			for (Iterator it2 = newEmbeddings.iterator(); it2.hasNext();) {
-				final CompleteEmbedding emb2 = (CompleteEmbedding) it2.next();
-
-				if ((System.identityHashCode(emb) >= System.identityHashCode(emb2)) || (emb.getSuperGraph() != emb2.getSuperGraph())) continue;
-
-				int overlappedNodes = 0;
-				for (int i = emb2.getNodeCount() - 1; i >= 0; i--) {
-					if (nodes[emb2.getSuperGraph().getNodeIndex(emb2.getSupergraphNode(emb2.getNode(i)))]) {
-						// this node is already used by the outer embedding				
-						overlappedNodes++;
-					}
-				}
-				
-				if (overlappedNodes == emb2.getNodeCount()) {
-					m_settings.stats.uncountedSymmetricEmbeddings++;
-					float[] temp = (emb.getSuperGraph() instanceof ClassifiedGraph) ? ((ClassifiedGraph) emb.getSuperGraph())
-							.getClassFrequencies() : TEMP;
+			if (!nodeSets.add(new NodeSet(emb))) {
+				// another embedding already covers the same nodes
+				m_settings.stats.uncountedSymmetricEmbeddings++;
+				float[] temp = (emb.getSuperGraph() instanceof ClassifiedGraph) ? ((ClassifiedGraph) emb.getSuperGraph())
+						.getClassFrequencies() : TEMP;
 
-					for (int k = 0; k < temp.length; k++) {
-						classFrequencies[k] -= temp[k];
-					}
-					break;
+				for (int k = 0; k < temp.length; k++) {
+					classFrequencies[k] -= temp[k];
 				}
 			}
 		}
@@ -609,31 +777,34 @@ public class MoFaDFSSearch implements DFSSearchable {
 
 
 	/**
-	 * Calculates the frequency of each subgraph (denoted by a collection of equal embeddings)
+	 * Calculates the frequency of each subgraph (denoted by a group of equal extensions)
 	 * 
-	 * @param extensions a collection of equal embeddings
+	 * @param extensions a container with extensions
+	 * @param group the number of the group in the container
 	 * @return an array of floats with the frequencies in each class
 	 */
-	protected float[] computeClassFrequencies(Collection extensions) {
+	protected float[] computeClassFrequencies(ExtensionContainer extensions, int group) {
 		float[] frequencies = new float[m_settings.minimumClassFrequencies.length];
+		final int size = extensions.getGroupSize(group);
 
 		if (m_settings.countEmbeddings) {
-			for (Iterator it = extensions.iterator(); it.hasNext();) {
-				Extension ext = (Extension) it.next();
-
-				Graph g = ext.getParentEmbedding().getSuperGraph();
+			for (int k = 0; k < size; k++) {
+				Graph g = extensions.getSupergraph(group, k);
 				float[] temp = (g instanceof ClassifiedGraph) ? ((ClassifiedGraph) g).getClassFrequencies() : TEMP;
 				for (int i = 0; i < temp.length; i++) {
 					frequencies[i] += temp[i];
 				}
 			}
 		} else {
-			IdentityHashMap graphs = new IdentityHashMap((int) (extensions.size() * 0.7));
+			// the extensions of one embedding are adjacent, so the same graph is mostly seen several times in a row
+			Graph last = null;
+			IdentityHashMap graphs = new IdentityHashMap((int) (size * 0.7));
 
-			for (Iterator it = extensions.iterator(); it.hasNext();) {
-				Extension ext = (Extension) it.next();
+			for (int k = 0; k < size; k++) {
+				Graph g = extensions.getSupergraph(group, k);
+				if (g == last) continue;
+				last = g;
 
-				Graph g = ext.getParentEmbedding().getSuperGraph();
 				if (graphs.get(g) == null) {
 					graphs.put(g, g);
 					float[] temp = (g instanceof ClassifiedGraph) ? ((ClassifiedGraph) g).getClassFrequencies() : TEMP;
@@ -672,16 +843,16 @@ public class MoFaDFSSearch implements DFSSearchable {
 	 * @return a value between 0 and 1
 	 */
 	public double estimateProblemSize(SearchTreeNode node) {
-		if (((MoFaSearchTreeNode) node).getEmbeddings().size() > m_largestProblemSize) {
-			m_largestProblemSize = ((MoFaSearchTreeNode) node).getEmbeddings().size();
+		// the embeddings of seed nodes are created lazily, but the number of embeddings is always known
+		final int embeddingCount = ((MoFaSearchTreeNode) node).getCompleteEmbeddingCount();
+		if (embeddingCount > m_largestProblemSize) {
+			m_largestProblemSize = embeddingCount;
 		}
 
 		// calculates sigmoid(1, m_largestProblemSize, c) with the number of embeddings as x-value
-		double value = (1 / (1 + m_largestProblemSize
-				* Math.pow(((MoFaSearchTreeNode) node).getEmbeddings().size(), m_sigmoidC)));
+		double value = (1 / (1 + m_largestProblemSize * Math.pow(embeddingCount, m_sigmoidC)));
 		//		if (m_settings.debug > 5) {
-		//			System.out.println("estimateProblemSize(" + ((MoFaSearchTreeNode) node).getEmbeddings().size() + ", " +
-		// m_sigmoidC + ") = " + value);
+		//			System.out.println("estimateProblemSize(" + embeddingCount + ", " + m_sigmoidC + ") = " + value);
 		//		}
 
 		return value;
@@ -695,53 +866,46 @@ public class MoFaDFSSearch implements DFSSearchable {
 	 *      de.parmol.search.ThreadedDFSSearch[], java.util.ArrayList)
 	 */
 	public DFSSearchable newInstance(DFSSearchable previousWorker) {
-		return (m_nextWorker = new MoFaDFSSearch((MoFaDFSSearch) previousWorker));
+		return new MoFaDFSSearch((MoFaDFSSearch) previousWorker);
 	}
 
 
 	/**
-	 * Returns a set of all found frequent subgraphs.
+	 * Registers the given start node with the memory governor, so that its embeddings are accounted and may be dropped
+	 * like those of all other pending nodes. This must be called for each start node before the search is started.
 	 * 
-	 * @return a GraphSet
+	 * @param node a start node
 	 */
-	public FragmentSet getFrequentSubgraphs() {
-		// note that all existing workers have to be queried for their fragments
-		// and the the sets have to be merged
-
-		if (m_nextWorker != null) {
-			long t = System.currentTimeMillis();
-
-			int size = 0;
-			for (MoFaDFSSearch worker = this; worker != null; worker = worker.m_nextWorker) {
-				size += worker.m_frequentLocalSubgraphs.size();
-			}
-
-			if (m_settings.debug > 0) {
-				System.out.print("Merging fragments sets (" + size + " fragments)...");
-			}
-
-			for (MoFaDFSSearch worker = this; worker != null; worker = worker.m_nextWorker) {
-				m_frequentGlobalSubgraphs.add(worker.m_frequentLocalSubgraphs);
-			}
-
+	public void addStartNode(MoFaSearchTreeNode node) {
+		if (m_governor != null) m_governor.addPendingNode(node);
+	}
 
-			if (m_settings.debug > 0) {
-				System.out.println("filtered out " + m_frequentGlobalSubgraphs.getDuplicateCounter() + " duplicates...done ("
-						+ (System.currentTimeMillis() - t) + "ms)");
-			}
 
-			return m_frequentGlobalSubgraphs;
-		} else {
-			if (m_settings.debug > 0) {
-				System.out.println("Filtered out " + m_frequentLocalSubgraphs.getDuplicateCounter() + " duplicates");
-			}
-			return m_frequentLocalSubgraphs;
+	/**
+	 * Returns a set of all found frequent subgraphs. All workers add their fragments directly into the same set, so
+	 * nothing has to be merged here; the shards of a concurrent set are only collected into a single set.
+	 * 
+	 * @return a GraphSet
+	 */
+	public FragmentSet getFrequentSubgraphs() {
+		final boolean concurrent = (m_frequentSubgraphs instanceof ConcurrentFilteredFragmentSet);
+		if (m_settings.debug > 0) {
+			final int duplicates = concurrent ? ((ConcurrentFilteredFragmentSet) m_frequentSubgraphs).getDuplicateCounter()
+					: ((FilteredFragmentSet) m_frequentSubgraphs).getDuplicateCounter();
+			System.out.println("Filtered out " + duplicates + " duplicates");
+		}
+		if (m_settings.debug > 1) {
+			if (m_extender.m_edgeNodePool != null) m_extender.m_edgeNodePool.printStats();
+			if (m_extender.m_edgePool != null) m_extender.m_edgePool.printStats();
+			if (m_embeddingPool != null) m_embeddingPool.printStats();
 		}
+		return concurrent ? ((ConcurrentFilteredFragmentSet) m_frequentSubgraphs).toFragmentSet()
+				: (FragmentSet) m_frequentSubgraphs;
 	}
 
 
 	/**
-	 * Creates one-node embeddings in all graphs
+	 * Creates the embeddings of the given subgraph in all graphs
 	 * 
 	 * @param graphs the graphs
 	 * @param subgraph the subgraph which should be embedded into the graphs
@@ -763,7 +927,7 @@ public class MoFaDFSSearch implements DFSSearchable {
 				}
 			}
 		} else {
-			throw new UnsupportedOperationException("Currently only embeddings for graphs with one node may be created");
+			CompleteMoFaEmbedding.getCompleteEmbeddings(subgraph, graphs, embeddings);
 		}
 
 		return embeddings;
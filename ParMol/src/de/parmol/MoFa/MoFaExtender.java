@@ -219,7 +219,7 @@ public class MoFaExtender implements Extender {
 	 * @param extendedSupergraphNode the node in the <b>super </b>graph that corresponds to the extendedSubgraphNode
 	 * @param newEdge the edge in the <b>super </b>graph that should be added to the subgraph
 	 * @param extendedSubgraphNodeIndex the index of the extended Node
-	 * @param extensions a collection into which the new extension should be inserted
+	 * @param extensions a container into which the new extension should be inserted
 	 * @return the number of created extensions
 	 */
 	protected int createExtension(CompleteMoFaEmbedding emb, int extendedSubgraphNode, int extendedSupergraphNode,
@@ -229,19 +229,14 @@ public class MoFaExtender implements Extender {
 
 		// edge-node extension
 		if (emb.getSubgraphNode(newNode) == Graph.NO_NODE) {
-			extensions.add(EdgeNodeExtension.getInstance(emb, extendedSubgraphNode, newEdge, newNode, m_edgeNodePool),
-					extendedSubgraphNodeIndex, emb.getSuperGraph().getEdgeLabel(newEdge),
-					emb.getSuperGraph().getNodeLabel(emb.getSuperGraph().getOtherNode(newEdge, extendedSupergraphNode)));
+			extensions.addEdgeNodeExtension(emb, extendedSubgraphNodeIndex, newEdge, newNode);
 			return 1;
 		}
 
 		// edge extension
 		if (!m_settings.findPathsOnly && !m_settings.findTreesOnly) {
-			final int secondNode = emb.getSubgraphNode(newNode);
-			extensions.add(EdgeExtension.getInstance(emb, extendedSubgraphNode, secondNode,
-					extendedSupergraphNode, newEdge, m_edgePool),
-					extendedSubgraphNodeIndex, emb.getSuperGraph().getEdgeLabel(newEdge), emb.getNodeIndex(secondNode));
-
+			extensions.addEdgeExtension(emb, extendedSubgraphNodeIndex, extendedSupergraphNode, newEdge, emb
+					.getSubgraphNode(newNode));
 			return 1;
 		} else {
 			return 0;
@@ -39,6 +39,12 @@ public class MoFaSearchTreeNode extends SearchTreeNode {
 	protected final int m_completeEmbeddingCount;
 	protected final BlackNodeSet m_blackNodes;
 	protected final boolean m_extensionWasPerfect;
+	/** the node from which this node was created, only set if its embeddings may be dropped and recomputed */
+	private MoFaSearchTreeNode m_origin;
+	private int m_originExtendedNodeIndex;
+	private long m_originGroupKey;
+	/** the memory of the embeddings as accounted by the EmbeddingMemoryGovernor */
+	long m_embeddingMemory;
 
 
 	//	protected final int[][] m_code;
@@ -242,6 +248,53 @@ public class MoFaSearchTreeNode extends SearchTreeNode {
 	}
 
 
+	/**
+	 * Drops the embeddings of this node without putting them into an object pool, because they may belong to another
+	 * thread. They can be recomputed from the origin of this node.
+	 */
+	void dropEmbeddings() {
+		m_embeddings = null;
+	}
+
+
+	/**
+	 * Remembers the node and the group of extensions from which this node was created, so that its embeddings can be
+	 * recomputed after they have been dropped.
+	 * 
+	 * @param origin the node from which this node was created
+	 * @param extendedNodeIndex the index of the extended node in the subgraph of the origin
+	 * @param groupKey the key of the extension group (see ExtensionContainer.getGroupKey(Extension))
+	 */
+	void setOrigin(MoFaSearchTreeNode origin, int extendedNodeIndex, long groupKey) {
+		m_origin = origin;
+		m_originExtendedNodeIndex = extendedNodeIndex;
+		m_originGroupKey = groupKey;
+	}
+
+
+	/**
+	 * Returns the node from which this node was created, if it has been set.
+	 * 
+	 * @return the origin or <code>null</code>
+	 */
+	MoFaSearchTreeNode getOrigin() {
+		return m_origin;
+	}
+
+
+	/**
+	 * Checks if the given group of extensions of the origin's embeddings is the group that created this node.
+	 * 
+	 * @param extendedNodeIndex the index of the extended node of the group
+	 * @param groupKey the key of the group (see ExtensionContainer.getGroupKey(int))
+	 * @return <code>true</code> if the extended embeddings are the embeddings of this node, <code>false</code>
+	 *         otherwise
+	 */
+	boolean isCreatedBy(int extendedNodeIndex, long groupKey) {
+		return (extendedNodeIndex == m_originExtendedNodeIndex) && (groupKey == m_originGroupKey);
+	}
+
+
 	/**
 	 * Returns if the extension that produced the subgraph was a perfect one.
 	 * 
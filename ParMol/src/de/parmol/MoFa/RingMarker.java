@@ -0,0 +1,424 @@
+/*
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package de.parmol.MoFa;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.parmol.graph.Graph;
+import de.parmol.graph.Util;
+
+
+/**
+ * This class marks the rings in all graphs of a database. The graphs are distributed dynamically over several
+ * threads, because the time needed for a graph varies a lot. Graphs with too many rings are not marked and reported in
+ * the result. The ring membership of the edges can be stored in a file, so that the next run on the same database can
+ * read it instead of searching the rings again.
+ *
+ * @author agent <agent@local>
+ */
+public class RingMarker {
+	private final static int MAGIC = 0x52494e47; // "RING"
+	private final static int VERSION = 1;
+	/** the value stored instead of the ring count for graphs with too many rings */
+	private final static int FAILED = -1;
+
+	private final int m_minRingSize, m_maxRingSize, m_threads;
+
+
+	/**
+	 * A graph whose rings could not be marked.
+	 */
+	public static class Failure {
+		private final int m_index;
+		private final Graph m_graph;
+		private final String m_message;
+
+
+		Failure(int index, Graph graph, String message) {
+			m_index = index;
+			m_graph = graph;
+			m_message = message;
+		}
+
+
+		/**
+		 * Returns the position of the graph in the database.
+		 *
+		 * @return the index of the graph
+		 */
+		public int getIndex() {
+			return m_index;
+		}
+
+
+		/**
+		 * Returns the graph whose rings could not be marked.
+		 *
+		 * @return the graph
+		 */
+		public Graph getGraph() {
+			return m_graph;
+		}
+
+
+		/**
+		 * Returns the reason why the rings could not be marked.
+		 *
+		 * @return a message
+		 */
+		public String getMessage() {
+			return m_message;
+		}
+
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Object#toString()
+		 */
+		public String toString() {
+			return "Graph " + m_index + " (" + m_graph.getName() + "): " + m_message;
+		}
+	}
+
+
+	/**
+	 * The result of marking the rings in a database.
+	 */
+	public static class Result {
+		int m_markedGraphs, m_ringCount;
+		boolean m_readFromFile;
+		long m_time;
+		final ArrayList m_failures = new ArrayList();
+
+
+		/**
+		 * Returns the number of graphs whose rings have been marked.
+		 *
+		 * @return the number of graphs
+		 */
+		public int getMarkedGraphs() {
+			return m_markedGraphs;
+		}
+
+
+		/**
+		 * Returns the number of rings found in all graphs.
+		 *
+		 * @return the number of rings
+		 */
+		public int getRingCount() {
+			return m_ringCount;
+		}
+
+
+		/**
+		 * Returns if the ring membership has been read from a file.
+		 *
+		 * @return <code>true</code> if the rings have been read from a file, <code>false</code> if they have been
+		 *         searched
+		 */
+		public boolean isReadFromFile() {
+			return m_readFromFile;
+		}
+
+
+		/**
+		 * Returns the time needed for marking the rings.
+		 *
+		 * @return the time in ms
+		 */
+		public long getTime() {
+			return m_time;
+		}
+
+
+		/**
+		 * Returns the graphs whose rings could not be marked, ordered by their position in the database.
+		 *
+		 * @return a collection of Failure objects
+		 */
+		public Collection getFailures() {
+			return Collections.unmodifiableCollection(m_failures);
+		}
+	}
+
+
+	/**
+	 * Creates a new RingMarker.
+	 *
+	 * @param minRingSize the minimal size of a ring
+	 * @param maxRingSize the maximal size of a ring
+	 * @param threads the number of threads that search the rings
+	 */
+	public RingMarker(int minRingSize, int maxRingSize, int threads) {
+		m_minRingSize = minRingSize;
+		m_maxRingSize = maxRingSize;
+		m_threads = java.lang.Math.max(1, threads);
+	}
+
+
+	/**
+	 * Marks the rings in all given graphs. If a file is given and it contains the ring membership for the same graphs
+	 * and ring sizes, it is read from there. Otherwise the rings are searched and the ring membership is written into
+	 * the file afterwards.
+	 *
+	 * @param graphs a collection of RingGraphs
+	 * @param ringFile a file for the ring membership or <code>null</code>
+	 * @return the result
+	 * @throws IOException if the ring membership cannot be written into the file
+	 */
+	public Result markRings(Collection graphs, File ringFile) throws IOException {
+		final long start = System.currentTimeMillis();
+		final RingGraph[] g = (RingGraph[]) graphs.toArray(new RingGraph[graphs.size()]);
+		final int[] ringCounts = new int[g.length];
+		final String[] failures = new String[g.length];
+
+		int[][] membership = null;
+		if ((ringFile != null) && ringFile.exists()) {
+			membership = readMembership(g, ringCounts, ringFile);
+		}
+
+		final Result result = new Result();
+		if (membership != null) {
+			applyMembership(g, membership);
+			result.m_readFromFile = true;
+		} else {
+			membership = markRings(g, ringCounts, failures);
+			if (ringFile != null) writeMembership(g, membership, ringCounts, ringFile);
+		}
+
+		for (int i = 0; i < g.length; i++) {
+			if (ringCounts[i] == FAILED) {
+				// the messages are not stored in the file
+				result.m_failures.add(new Failure(i, g[i], (failures[i] != null) ? failures[i]
+						: "The graph has too many cycles"));
+			} else {
+				result.m_ringCount += ringCounts[i];
+				result.m_markedGraphs++;
+			}
+		}
+
+		result.m_time = System.currentTimeMillis() - start;
+		return result;
+	}
+
+
+	/**
+	 * Searches and marks the rings in the given graphs with several threads.
+	 *
+	 * @param graphs the graphs
+	 * @param ringCounts an array into which the number of rings of each graph is written, FAILED for graphs with too
+	 *          many rings
+	 * @param failures an array into which the reason is written for each graph with too many rings
+	 * @return the ring membership of the edges of each graph, <code>null</code> for graphs with too many rings
+	 */
+	private int[][] markRings(final RingGraph[] graphs, final int[] ringCounts, final String[] failures) {
+		final int[][] membership = new int[graphs.length][];
+		final AtomicInteger nextGraph = new AtomicInteger(0);
+		final Throwable[] error = new Throwable[1];
+
+		Thread[] threads = new Thread[m_threads];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread("Ring marker " + i) {
+				public void run() {
+					try {
+						for (int k = nextGraph.getAndIncrement(); k < graphs.length; k = nextGraph.getAndIncrement()) {
+							try {
+								ringCounts[k] = graphs[k].markCycles(m_minRingSize, m_maxRingSize);
+								membership[k] = getMembership(graphs[k]);
+							} catch (Util.TooManyCyclesException ex) {
+								ringCounts[k] = FAILED;
+								failures[k] = ex.getMessage();
+							}
+						}
+					} catch (Throwable t) {
+						synchronized (error) {
+							error[0] = t;
+						}
+					}
+				}
+			};
+			threads[i].start();
+		}
+
+		try {
+			for (int i = 0; i < threads.length; i++) {
+				threads[i].join();
+			}
+		} catch (InterruptedException ex) {
+			throw new RuntimeException("Interrupted while marking the rings", ex);
+		}
+		if (error[0] != null) throw new RuntimeException("One of the ring markers died", error[0]);
+
+		return membership;
+	}
+
+
+	/**
+	 * Returns the ring membership of all edges of the given graph.
+	 *
+	 * @param graph a graph whose rings have been marked
+	 * @return an array with the ring bit mask of each edge
+	 */
+	private static int[] getMembership(RingGraph graph) {
+		final int[] membership = new int[graph.getEdgeCount()];
+		for (int i = 0; i < membership.length; i++) {
+			membership[i] = graph.getEdgeRingMembership(i);
+		}
+		return membership;
+	}
+
+
+	/**
+	 * Marks the edges of the given graphs with the given ring membership.
+	 *
+	 * @param graphs the graphs
+	 * @param membership the ring membership of the edges of each graph, <code>null</code> for graphs with too many
+	 *          rings
+	 */
+	private static void applyMembership(RingGraph[] graphs, int[][] membership) {
+		for (int i = 0; i < graphs.length; i++) {
+			if (membership[i] == null) continue;
+
+			for (int k = 0; k < membership[i].length; k++) {
+				for (int bit = 0; bit < RingGraph.MAX_CYCLES; bit++) {
+					if ((membership[i][k] & (1 << bit)) != 0) graphs[i].setEdgeRingMembership(k, bit);
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Computes a fingerprint of the structure and the labels of the given graph, so that ring membership of a
+	 * different graph is not used by accident.
+	 *
+	 * @param g a graph
+	 * @return the fingerprint
+	 */
+	private static long fingerprint(Graph g) {
+		long hash = 31L * g.getNodeCount() + g.getEdgeCount();
+
+		for (int i = 0; i < g.getNodeCount(); i++) {
+			hash = 31 * hash + g.getNodeLabel(g.getNode(i));
+		}
+		for (int i = 0; i < g.getEdgeCount(); i++) {
+			final int edge = g.getEdge(i);
+			hash = 31 * hash + g.getEdgeLabel(edge);
+			hash = 31 * hash + g.getNodeIndex(g.getNodeA(edge));
+			hash = 31 * hash + g.getNodeIndex(g.getNodeB(edge));
+		}
+
+		return hash;
+	}
+
+
+	/**
+	 * Reads the ring membership of the given graphs from the given file.
+	 *
+	 * @param graphs the graphs
+	 * @param ringCounts an array into which the number of rings of each graph is read, FAILED for graphs with too many
+	 *          rings
+	 * @param file the file
+	 * @return the ring membership of the edges of each graph or <code>null</code> if the file cannot be read or was
+	 *         written for other graphs or ring sizes
+	 */
+	private int[][] readMembership(RingGraph[] graphs, int[] ringCounts, File file) {
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			if ((in.readInt() != MAGIC) || (in.readInt() != VERSION) || (in.readInt() != m_minRingSize)
+					|| (in.readInt() != m_maxRingSize) || (in.readInt() != graphs.length)) {
+				return null;
+			}
+
+			final int[][] membership = new int[graphs.length][];
+			for (int i = 0; i < graphs.length; i++) {
+				if (in.readLong() != fingerprint(graphs[i])) return null;
+
+				ringCounts[i] = in.readInt();
+				if (ringCounts[i] == FAILED) continue;
+
+				final int edgeCount = in.readInt();
+				if (edgeCount != graphs[i].getEdgeCount()) return null;
+				membership[i] = new int[edgeCount];
+				for (int k = 0; k < edgeCount; k++) {
+					membership[i][k] = in.readInt();
+				}
+			}
+
+			return membership;
+		} catch (IOException ex) {
+			return null;
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException ex) {
+					// nothing to do
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Writes the ring membership of the given graphs into the given file.
+	 *
+	 * @param graphs the graphs
+	 * @param membership the ring membership of the edges of each graph, <code>null</code> for graphs with too many
+	 *          rings
+	 * @param ringCounts the number of rings of each graph, FAILED for graphs with too many rings
+	 * @param file the file
+	 * @throws IOException if the file cannot be written
+	 */
+	private void writeMembership(RingGraph[] graphs, int[][] membership, int[] ringCounts, File file) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(m_minRingSize);
+			out.writeInt(m_maxRingSize);
+			out.writeInt(graphs.length);
+
+			for (int i = 0; i < graphs.length; i++) {
+				out.writeLong(fingerprint(graphs[i]));
+				out.writeInt(ringCounts[i]);
+				if (ringCounts[i] != FAILED) {
+					out.writeInt(membership[i].length);
+					for (int k = 0; k < membership[i].length; k++) {
+						out.writeInt(membership[i][k]);
+					}
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -11,12 +11,14 @@ import java.util.Iterator;
 
 import junit.framework.TestCase;
 import de.parmol.Settings;
+import de.parmol.GSpan.test.GSpanTest;
 import de.parmol.MoFa.Miner;
 import de.parmol.graph.Graph;
 import de.parmol.graph.SimpleEdgeComparator;
 import de.parmol.graph.SimpleNodeComparator;
 import de.parmol.graph.SimpleSubgraphComparator;
 import de.parmol.parsers.SLNParser;
+import de.parmol.search.WorkStealingDFSSearch;
 import de.parmol.util.FragmentSet;
 import de.parmol.util.FrequentFragment;
 
@@ -108,4 +110,75 @@ public class MoFaTest extends TestCase {
 			assertEquals((int) frag.getClassFrequencies()[0], count);
 		}
 	}
+
+
+	private Settings createSettings(int maxThreads, String distributionScheme, boolean closedFragmentsOnly)
+			throws InstantiationException, IllegalAccessException, ClassNotFoundException {
+		Settings settings = new Settings(new String[] { "-graphFile=data/IC93.test",
+				"-parserClass=de.parmol.parsers.SLNParser" });
+		settings.minimumClassFrequencies[0] = 20;
+		settings.closedFragmentsOnly = closedFragmentsOnly;
+		settings.debug = 0;
+		settings.maxThreads = maxThreads;
+		settings.distributionScheme = distributionScheme;
+		return settings;
+	}
+
+
+	private FragmentSet mine(int maxThreads, String distributionScheme, boolean closedFragmentsOnly)
+			throws FileNotFoundException, IOException, ParseException, InstantiationException, IllegalAccessException,
+			ClassNotFoundException {
+		return mine(createSettings(maxThreads, distributionScheme, closedFragmentsOnly));
+	}
+
+
+	private FragmentSet mine(Settings settings) throws FileNotFoundException, IOException, ParseException,
+			InstantiationException, IllegalAccessException, ClassNotFoundException {
+		Miner miner = new Miner(settings);
+		miner.setUp();
+		miner.startMining();
+		return miner.getFrequentSubgraphs();
+	}
+
+
+	public void testParallelSearch() throws FileNotFoundException, IOException, ParseException, InstantiationException,
+			IllegalAccessException, ClassNotFoundException {
+		FragmentSet sequential = mine(1, "threads", false);
+		assertTrue(sequential.size() > 0);
+
+		GSpanTest.assertSameFragments(sequential, mine(4, "threads", false));
+		GSpanTest.assertSameFragments(sequential, mine(4, WorkStealingDFSSearch.DISTRIBUTION_SCHEME, false));
+		GSpanTest.assertSameFragments(mine(1, "threads", true), mine(4, "threads", true));
+	}
+
+
+	public void testEmbeddingMemoryBudget() throws FileNotFoundException, IOException, ParseException,
+			InstantiationException, IllegalAccessException, ClassNotFoundException {
+		FragmentSet unlimited = mine(1, "threads", false);
+
+		// with a budget of 64kB most embeddings of pending nodes are dropped and have to be recomputed
+		Settings settings = createSettings(1, "threads", false);
+		settings.maximumEmbeddingMemory = 64;
+		GSpanTest.assertSameFragments(unlimited, mine(settings));
+		assertTrue(settings.stats.droppedEmbeddingLists > 0);
+		assertTrue(settings.stats.recomputedEmbeddingLists > 0);
+
+		settings = createSettings(4, WorkStealingDFSSearch.DISTRIBUTION_SCHEME, false);
+		settings.maximumEmbeddingMemory = 64;
+		GSpanTest.assertSameFragments(unlimited, mine(settings));
+
+		settings = createSettings(1, "threads", true);
+		settings.maximumEmbeddingMemory = 64;
+		GSpanTest.assertSameFragments(mine(1, "threads", true), mine(settings));
+
+		// the embeddings of an explicit seed are accounted as well
+		settings = createSettings(4, "threads", false);
+		settings.seed = "CC";
+		FragmentSet seeded = mine(settings);
+		assertTrue(seeded.size() > 0);
+		settings = createSettings(4, "threads", false);
+		settings.seed = "CC";
+		settings.maximumEmbeddingMemory = 64;
+		GSpanTest.assertSameFragments(seeded, mine(settings));
+	}
 }
\ No newline at end of file
@@ -0,0 +1,194 @@
+/*
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package de.parmol.MoFa.test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import junit.framework.TestCase;
+import de.parmol.Settings;
+import de.parmol.MoFa.DirectedListRingGraph;
+import de.parmol.MoFa.Miner;
+import de.parmol.MoFa.RingGraph;
+import de.parmol.MoFa.RingMarker;
+import de.parmol.MoFa.UndirectedListRingGraph;
+import de.parmol.graph.MutableGraph;
+import de.parmol.parsers.SmilesParser;
+
+/**
+ * This tests that the RingMarker marks the same rings with several threads as the graphs themselves, reports graphs
+ * with too many rings and reads the rings back from a file, and that the MoFa Miner creates ring graphs that match the
+ * parser.
+ *
+ * @author agent <agent@local>
+ */
+public class RingMarkerTest extends TestCase {
+	private final static String[] MOLECULES = { "c1ccccc1", "C1CCC2CCCCC2C1", "c1ccc2ccccc2c1", "C1CC1CCC2CCCC2",
+			"CCOC(=O)C", "c1ccc2c(c1)ccc1ccccc12", "C1CCCCCCC1", "O=C1NC(=O)C2=C1C=CC=C2" };
+
+
+	/**
+	 * Creates the test database with the given number of copies of each molecule and a graph with too many rings at
+	 * the end.
+	 *
+	 * @param copies the number of copies
+	 * @return a list of RingGraphs
+	 * @throws Exception
+	 */
+	private static ArrayList createGraphs(int copies) throws Exception {
+		ArrayList graphs = new ArrayList();
+		for (int i = 0; i < copies; i++) {
+			for (int k = 0; k < MOLECULES.length; k++) {
+				graphs.add(SmilesParser.instance.parse(MOLECULES[k], UndirectedListRingGraph.Factory.instance));
+			}
+		}
+
+		// a complete graph with 10 nodes has too many adjacent triangles
+		MutableGraph complete = UndirectedListRingGraph.Factory.instance.createGraph();
+		for (int i = 0; i < 10; i++) {
+			complete.addNode(6);
+		}
+		for (int i = 0; i < 10; i++) {
+			for (int k = i + 1; k < 10; k++) {
+				complete.addEdge(complete.getNode(i), complete.getNode(k), 1);
+			}
+		}
+		graphs.add(complete);
+
+		return graphs;
+	}
+
+
+	private static void assertSameRings(ArrayList expected, ArrayList actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			RingGraph a = (RingGraph) expected.get(i), b = (RingGraph) actual.get(i);
+			for (int k = 0; k < a.getEdgeCount(); k++) {
+				assertEquals(a.getEdgeRingMembership(k), b.getEdgeRingMembership(k));
+			}
+		}
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	public void testParallelMarking() throws Exception {
+		ArrayList expected = createGraphs(50);
+		int rings = 0;
+		for (int i = 0; i < expected.size() - 1; i++) {
+			rings += ((RingGraph) expected.get(i)).markCycles(3, 8);
+		}
+
+		ArrayList graphs = createGraphs(50);
+		RingMarker.Result result = new RingMarker(3, 8, 4).markRings(graphs, null);
+
+		assertSameRings(expected, graphs);
+		assertEquals(rings, result.getRingCount());
+		assertEquals(graphs.size() - 1, result.getMarkedGraphs());
+		assertFalse(result.isReadFromFile());
+
+		assertEquals(1, result.getFailures().size());
+		RingMarker.Failure failure = (RingMarker.Failure) result.getFailures().iterator().next();
+		assertEquals(graphs.size() - 1, failure.getIndex());
+		assertSame(graphs.get(graphs.size() - 1), failure.getGraph());
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	public void testRingFile() throws Exception {
+		File file = File.createTempFile("rings", ".bin");
+		file.delete();
+		try {
+			ArrayList expected = createGraphs(5);
+			RingMarker.Result first = new RingMarker(3, 8, 2).markRings(expected, file);
+			assertFalse(first.isReadFromFile());
+			assertTrue(file.exists());
+
+			ArrayList graphs = createGraphs(5);
+			RingMarker.Result second = new RingMarker(3, 8, 2).markRings(graphs, file);
+			assertTrue(second.isReadFromFile());
+			assertSameRings(expected, graphs);
+			assertEquals(first.getRingCount(), second.getRingCount());
+			assertEquals(first.getMarkedGraphs(), second.getMarkedGraphs());
+			assertEquals(1, second.getFailures().size());
+
+			// other ring sizes or other graphs must not use the file
+			assertFalse(new RingMarker(5, 6, 2).markRings(createGraphs(5), file).isReadFromFile());
+			assertFalse(new RingMarker(5, 6, 2).markRings(createGraphs(4), file).isReadFromFile());
+		} finally {
+			file.delete();
+		}
+	}
+
+
+	/**
+	 * Writes the given content into a new temporary file with the given suffix and sets up a Miner that marks rings in
+	 * the graphs of the file.
+	 *
+	 * @param content the graphs
+	 * @param suffix the suffix that selects the parser
+	 * @param compactGraphs <code>true</code> if compact graphs should be requested
+	 * @return the graphs of the Miner
+	 * @throws Exception
+	 */
+	private static ArrayList setUpMiner(String content, String suffix, boolean compactGraphs) throws Exception {
+		File file = File.createTempFile("graphs", suffix);
+		try {
+			FileWriter out = new FileWriter(file);
+			out.write(content);
+			out.close();
+
+			Settings settings = new Settings(new String[] { "-graphFile=" + file.getPath(), "-ringSizes=3,8",
+					"-compactGraphs=" + compactGraphs });
+			settings.debug = 0;
+			Miner miner = new Miner(settings);
+			miner.setUp();
+			return new ArrayList(miner.getGraphs());
+		} finally {
+			file.delete();
+		}
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	public void testMinerGraphFactory() throws Exception {
+		StringBuffer smiles = new StringBuffer();
+		for (int i = 0; i < MOLECULES.length; i++) {
+			smiles.append(i).append(" => ").append(MOLECULES[i]).append('\n');
+		}
+
+		// compact graphs cannot hold rings, so the request is ignored
+		ArrayList graphs = setUpMiner(smiles.toString(), ".smiles", true);
+		assertEquals(MOLECULES.length, graphs.size());
+		for (Iterator it = graphs.iterator(); it.hasNext();) {
+			assertTrue(it.next() instanceof UndirectedListRingGraph);
+		}
+		assertTrue(((RingGraph) graphs.get(0)).getEdgeRingMembership(0) != 0);
+
+		// the dot parser wants directed graphs
+		graphs = setUpMiner("digraph 1{\n\tV1 [label=\"a\"]\n\tV2 [label=\"c\"]\n\tV1 -> V2\n}\n", ".dot", false);
+		assertEquals(1, graphs.size());
+		assertTrue(graphs.get(0) instanceof DirectedListRingGraph);
+	}
+}
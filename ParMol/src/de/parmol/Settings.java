@@ -28,6 +28,7 @@ import java.util.Collection;
 
 import de.parmol.graph.Graph;
 import de.parmol.parsers.*;
+import de.parmol.util.Debug;
 
 
 /**
@@ -152,11 +153,24 @@ public class Settings {
 	 */
 	public boolean useEmbeddingPooling = false;
 
+	/**
+	 * The maximum memory in kB that may be used by the embeddings of pending search tree nodes. If it is exceeded, the
+	 * embeddings of the pending nodes nearest to the root are dropped and recomputed when the nodes are extended. The
+	 * embeddings are recomputed from the nearest origin whose embeddings the worker still keeps; the kept embeddings
+	 * count against this limit as well. A value of 0 means no limit.
+	 */
+	public int maximumEmbeddingMemory = 0;
+
 	/**
 	 * The minimum and maximum size of rings in order to get marked and used as a single extension.
 	 */
 	public int[] ringSizes = { 0, 0 };
 
+	/**
+	 * Stores the name of the file in which the ring membership of the edges is kept between runs, if rings are marked.
+	 */
+	public String ringFile;
+
 	/**
 	 * <code>true</code> if perfect extension pruning should be used, <code>false</code> otherwise. This setting is
 	 * automatically set to <code>true</code> if <code>closedFragmentOnly</code> is also <code>true</code>.
@@ -169,6 +183,41 @@ public class Settings {
 	 */
 	public boolean memoryStatistics = false;
 
+	/**
+	 * <code>true</code> if the database graphs should be stored as immutable compact graphs (see
+	 * {@link de.parmol.graph.UndirectedCompactGraph}), <code>false</code> otherwise. Only undirected graphs without
+	 * ring information can be stored compactly.
+	 */
+	public boolean compactGraphs = false;
+
+	// gSpan-specific options
+	/**
+	 * <code>true</code> if gSpan should store the embeddings of each DFS code and extend them instead of searching
+	 * them again in every step, <code>false</code> otherwise.
+	 */
+	public boolean useEmbeddingLists = true;
+
+	/**
+	 * The maximum memory in kB that may be used for stored embeddings. If it is exceeded, the embeddings are searched
+	 * again as without embedding lists. A value of 0 or less means no limit. The default is a quarter of the maximum
+	 * heap size, which is not limited either if the JVM reports no maximum.
+	 */
+	public int maximumEmbeddingListMemory = (int) java.lang.Math.min(Runtime.getRuntime().maxMemory() >> 12,
+			Integer.MAX_VALUE);
+
+	/**
+	 * <code>true</code> if gSpan should give all seed edges to the search manager at once instead of searching them
+	 * one after another, <code>false</code> otherwise.
+	 */
+	public boolean parallelSeeds = false;
+
+	// Gaston-specific options
+	/**
+	 * <code>true</code> if Gaston should search the frequent node labels concurrently instead of one after another,
+	 * <code>false</code> otherwise.
+	 */
+	public boolean parallelLegs = false;
+
 
 	/**
 	 * *** for internal usage only ***
@@ -193,7 +242,8 @@ public class Settings {
 	public int maxThreads = RuntimeSystem.total_CPU_Count();
 
 	/**
-	 * The name of the distribution scheme if parallel search should be done.
+	 * The name of the distribution scheme if parallel search should be done. <code>threads</code> uses the
+	 * ThreadedDFSSearch, <code>workstealing</code> the WorkStealingDFSSearch.
 	 */
 	public String distributionScheme = "threads";
 
@@ -208,6 +258,13 @@ public class Settings {
 	 */
 	public int debug = 0;
 
+	/**
+	 * The stream for the debug output of this run.
+	 */
+	public PrintStream debugStream = System.out;
+	
+	private Debug m_debugOutput;
+
 	/**
 	 * <code>true</code>, if the found fragments should be checked for their frequencies after the search,
 	 * <code>false</code> otherwise.
@@ -224,6 +281,20 @@ public class Settings {
 	 */
 	public final Statistics stats = new Statistics();
 	
+	/**
+	 * Returns the debug output of this run, which prints all messages up to the current debug level to the
+	 * debugStream.
+	 * 
+	 * @return the debug output
+	 */
+	public Debug getDebug() {
+		Debug d = m_debugOutput;
+		if ((d == null) || (d.getLevel() != debug) || (d.getStream() != debugStream)) {
+			m_debugOutput = d = new Debug(debug, debugStream);
+		}
+		return d;
+	}
+	
 	protected Settings(){}
 	protected Settings(Settings template){
 
@@ -249,15 +320,26 @@ public class Settings {
 		seed = template.seed;
 		useExtensionPooling = template.useExtensionPooling;
 		useEmbeddingPooling = template.useEmbeddingPooling;
+		maximumEmbeddingMemory = template.maximumEmbeddingMemory;
 		ringSizes = template.ringSizes;
+		ringFile = template.ringFile;
 		perfectExtensionPruning = template.perfectExtensionPruning;
 		memoryStatistics = template.memoryStatistics;
+		compactGraphs = template.compactGraphs;
+
+		// gSpan-specific options
+		useEmbeddingLists = template.useEmbeddingLists;
+		maximumEmbeddingListMemory = template.maximumEmbeddingListMemory;
+		parallelSeeds = template.parallelSeeds;
+		// Gaston-specific options
+		parallelLegs = template.parallelLegs;
 
 		maxThreads = template.maxThreads;
 		distributionScheme = template.distributionScheme;
 		minimumProblemSize = template.minimumProblemSize;
 
 		debug = template.debug;
+		debugStream = template.debugStream;
 		checkFragmentCounts = template.checkFragmentCounts;
 //		stats = template.stats;
 	}
@@ -386,14 +468,26 @@ public class Settings {
 			useExtensionPooling = Boolean.valueOf(temp[1]).booleanValue();
 		} else if (temp[0].equals("-useEmbeddingPooling")) {
 			useEmbeddingPooling = Boolean.valueOf(temp[1]).booleanValue();
+		} else if (temp[0].equals("-maximumEmbeddingMemory")) {
+			maximumEmbeddingMemory = Integer.parseInt(temp[1]);
 		} else if (temp[0].equals("-closedFragmentsOnly")) {
 			closedFragmentsOnly = Boolean.valueOf(temp[1]).booleanValue();
 		} else if (temp[0].equals("-perfectExtensionPruning")) {
 			perfectExtensionPruning = Boolean.valueOf(temp[1]).booleanValue();
 		} else if (temp[0].equals("-memoryStatistics")) {
 			memoryStatistics = Boolean.valueOf(temp[1]).booleanValue();
+		} else if (temp[0].equals("-compactGraphs")) {
+			compactGraphs = Boolean.valueOf(temp[1]).booleanValue();
 			//		} else if (temp[0].equals("-completeEmbeddingThreshold")) {
 			//			completeEmbeddingThreshold = Integer.parseInt(temp[1]);
+		} else if (temp[0].equals("-useEmbeddingLists")) {
+			useEmbeddingLists = Boolean.valueOf(temp[1]).booleanValue();
+		} else if (temp[0].equals("-maximumEmbeddingListMemory")) {
+			maximumEmbeddingListMemory = Integer.parseInt(temp[1]);
+		} else if (temp[0].equals("-parallelSeeds")) {
+			parallelSeeds = Boolean.valueOf(temp[1]).booleanValue();
+		} else if (temp[0].equals("-parallelLegs")) {
+			parallelLegs = Boolean.valueOf(temp[1]).booleanValue();
 		} else if (temp[0].equals("-ringSizes")) {
 			String[] sizes = temp[1].split(",");
 
@@ -403,6 +497,8 @@ public class Settings {
 			} else {
 				throw new IllegalArgumentException("The -ringSizes options must be of the format 'minRingSize,maxRingSize'");
 			}
+		} else if (temp[0].equals("-ringFile")) {
+			ringFile = temp[1];
 		} else if (temp[0].equals("-debug")) {
 			debug = Integer.parseInt(temp[1]);
 		} else if (temp[0].equals("-findPathsOnly")) {
@@ -472,6 +568,8 @@ public class Settings {
 				.println("\t\tSpecifies which serializer should be used to print out the found frequent subgraphs (fully qualified class name)");
 		out.println("\t-memoryStatistics=true|false (optional; default: false)");
 		out.println("\t\tIf set to true the garbage collector is called frequently and the maximum heap size is recorded)");
+		out.println("\t-compactGraphs=true|false (optional; default: false)");
+		out.println("\t\tIf set to true undirected database graphs are stored in compact immutable arrays");
 
 
 		out.println("MoFa-specific options:");
@@ -481,8 +579,13 @@ public class Settings {
 		out.println("\t\tSpecifies if object pools should be used for Extension objects (recommended on SMP)");
 		out.println("\t-useEmbeddingPooling=true|false (optional; default: false)");
 		out.println("\t\tSpecifies if object pools should be used for Embedding objects (recommended on SMP)");
-//		out.println("\t-ringSizes=minRingSize,maxRingSize (optional; default: 0,0)");
-//		out.println("\t\tSpecifies the sizes of the rings that should be marked and used for ring extensions");
+		out.println("\t-maximumEmbeddingMemory=kB (optional; default: 0 = no limit)");
+		out.println("\t\tThe memory that may be used for the embeddings of pending search tree nodes, if it is exceeded the embeddings are recomputed later");
+		out.println("\t\tfrom the embeddings of the nearest node on the current path, which count against the limit as well");
+		out.println("\t-ringSizes=minRingSize,maxRingSize (optional; default: 0,0)");
+		out.println("\t\tSpecifies the sizes of the rings that should be marked and used for ring extensions");
+		out.println("\t-ringFile=file (optional)");
+		out.println("\t\tA file in which the marked rings are stored, so that later runs on the same graphs can skip marking them");
 		out.println("\t-equivalentSiblingPruning=true|false (optional; default: true)");
 		out.println("\t\tSpecifies if equivalent sibling pruning shall be used");
 		out.println("\t-seed=seed (optional; SLN/Smiles string (depending on the chosen parser); default: empty seed)");
@@ -491,11 +594,26 @@ public class Settings {
 		//		out.println("\t\tThe maximum number of embeddings a subgraph can have in order to be represented as a complete
 		// embedding");
 
+		out.println("gSpan-specific options:");
+		out.println("\t-useEmbeddingLists=true|false (optional; default: true)");
+		out.println("\t\tSpecifies if the embeddings of each fragment should be stored and extended instead of searched again");
+		out.println("\t-maximumEmbeddingListMemory=kB (optional; default: a quarter of the maximum heap size)");
+		out.println("\t\tThe memory that may be used for stored embeddings, if it is exceeded the embeddings are searched again;");
+		out.println("\t\t0 means no limit");
+		out.println("\t-parallelSeeds=true|false (optional; default: false)");
+		out.println("\t\tSpecifies if all seed edges should be given to the search manager at once instead of one after another, the fragments are the same");
+
+		out.println("Gaston-specific options:");
+		out.println("\t-parallelLegs=true|false (optional; default: false)");
+		out.println("\t\tSpecifies if the frequent node labels and their first extensions should be searched concurrently by maxThreads workers");
+
 		out.println("Parallel options:");
 		out.println("\t-maxThreads=n (optional; default: number of CPUs/number of nodes)");
 		out.println("\t\tThe number of parallel threads that should be used for searching");
-//		out.println("\t-minimumProblemSize=n (optional; default: 0.5)");
-//		out.println("\t\tThe mimimum size a node in the search tree must have in order to get processed on a different node");
+		out.println("\t-distributionScheme=threads|workstealing (optional; default: threads)");
+		out.println("\t\tHow the search tree is distributed over the threads (workstealing lets idle threads steal work themselves)");
+		out.println("\t-minimumProblemSize=n (optional; default: 0.0; floating point value between 0 and 1)");
+		out.println("\t\tThe mimimum estimated size a node in the search tree must have in order to get processed by a different thread");
 
 		out.println("Debug options:");
 		out.println("\t-debug=n (optional; default: 0; integer value)");
@@ -70,6 +70,16 @@ public class Statistics {
 	 * Counts the number of completly overlapping embeddings that have been removed. 
 	 */
 	public int uncountedSymmetricEmbeddings = 0;
+
+	/**
+	 * Counts the number of search tree nodes whose embeddings have been dropped because of the memory budget.
+	 */
+	public int droppedEmbeddingLists = 0;
+
+	/**
+	 * Counts the number of search tree nodes whose dropped embeddings have been recomputed.
+	 */
+	public int recomputedEmbeddingLists = 0;
 	
 	/**
 	 * Records the maximum heap size.
@@ -127,6 +137,10 @@ public class Statistics {
 			System.out.println("Equivalent sibling pruned extensions: " + equivalentSiblingPrunedExtensions);
 			System.out.println("Uncounted completely overlapping embeddings: " + uncountedSymmetricEmbeddings);
 			System.out.println("Non-Perfect pruned extensions: " + perfectExtensionPrunedExtensions);
+			if (droppedEmbeddingLists > 0) {
+				System.out.println("Dropped embedding lists: " + droppedEmbeddingLists + ", recomputed: "
+						+ recomputedEmbeddingLists);
+			}
 		} else if (miner instanceof de.parmol.FFSM.Miner) {
 			System.out.println("Non-existing pruned matrices: " + nonExistingPrunedMatrices);
 		}
@@ -51,6 +51,10 @@ public abstract class GraphFactory {
 	 * Typemask constant for factories that create matrix graphs.
 	 */
 	public final static int MATRIX_GRAPH = 32;
+	/**
+	 * Typemask constant for factories that create immutable graphs in compressed sparse row format.
+	 */
+	public final static int COMPACT_GRAPH = 64;
 	
 	
 	private final static ArrayList FACTORIES = new ArrayList();
@@ -77,6 +81,14 @@ public abstract class GraphFactory {
 	 */
 	public abstract MutableGraph createGraph(String id);
 	
+	/**
+	 * Is called after all graphs of a database have been created by this factory. Factories for immutable graphs
+	 * create the final graphs here, all others return the given graphs.
+	 * @param graphs the graphs created by this factory
+	 * @return the graphs that should be used instead of the given ones
+	 */
+	public Graph[] compact(Graph[] graphs) { return graphs; }
+	
 	/**
 	 * Returns a factory that can create graphs that satisfy the given properties.
 	 * @param typemask a mask of properties the graph created by the factory must have
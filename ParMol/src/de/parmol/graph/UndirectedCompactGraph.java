@@ -0,0 +1,451 @@
+/*
+ *
+ * This file is part of ParMol. ParMol is free software; you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the License,
+ * or (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * ParMol; if not, write to the Free Software Foundation, Inc., 51 Franklin St,
+ * Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ */
+package de.parmol.graph;
+
+
+/**
+ * This class represents immutable undirected graphs in compressed sparse row format. All information of a graph is
+ * stored in one flat int array, usually shared by all graphs of a database:
+ * <ul>
+ * <li>the label of each node,</li>
+ * <li>the start of the adjacency entries of each node (one more than the number of nodes),</li>
+ * <li>for each node the pairs (edge, neighbour node) of its adjacent edges,</li>
+ * <li>for each edge the two nodes and the label.</li>
+ * </ul>
+ * Nodes and edges are numbered from 0 to get[Node|Edge]Count() - 1 like in ListGraphs, and the adjacent edges of each
+ * node are in the same order as in the graph the compact graph is created from.
+ *
+ * Compact graphs cannot be built node by node, instead the factory creates ClassifiedUndirectedListGraphs which are
+ * converted with {@link Factory#compact(Graph[])} after all graphs have been read. Node and edge objects are not part
+ * of the packed arrays, they are stored in separate arrays when they are set the first time.
+ *
+ * @author agent <agent@local>
+ */
+public class UndirectedCompactGraph implements UndirectedGraph, ClassifiedGraph {
+	/* the maximum number of ints in one backing array, larger databases use several arrays */
+	private final static int MAX_BACKING_SIZE = 1 << 24;
+
+	private final String m_name;
+	private final int m_id;
+	private final int[] m_data;
+	private final int m_nodeCount, m_edgeCount;
+	/* the offsets of the node labels, the adjacency starts and the edges in m_data */
+	private final int m_nodeLabels, m_adjacency, m_edges;
+	private float[] m_classFrequencies;
+	private int m_hashCode = 0;
+	private volatile long[] m_bridges;
+	private Object[] m_nodeObjects, m_edgeObjects;
+
+
+	/**
+	 * Creates a new compact graph that is a copy of the given template graph. The graph is stored in the given array
+	 * beginning at the given offset.
+	 *
+	 * @param template the graph that should be copied
+	 * @param data the backing array, it must have {@link #getSize(Graph)} free entries beginning at offset
+	 * @param offset the first entry in the backing array
+	 */
+	public UndirectedCompactGraph(UndirectedGraph template, int[] data, int offset) {
+		m_name = template.getName();
+		m_id = template.getID();
+		m_data = data;
+		m_nodeCount = template.getNodeCount();
+		m_edgeCount = template.getEdgeCount();
+		m_nodeLabels = offset;
+		m_adjacency = m_nodeLabels + m_nodeCount;
+		m_edges = m_adjacency + m_nodeCount + 1 + 4 * m_edgeCount;
+
+		final int[] nodes = new int[m_nodeCount];
+		for (int i = 0; i < m_nodeCount; i++) {
+			final int node = template.getNode(i);
+			final int index = template.getNodeIndex(node);
+			nodes[index] = node;
+			data[m_nodeLabels + index] = template.getNodeLabel(node);
+		}
+
+		int pos = m_adjacency + m_nodeCount + 1;
+		for (int index = 0; index < m_nodeCount; index++) {
+			final int node = nodes[index];
+			data[m_adjacency + index] = pos;
+			for (int k = 0; k < template.getDegree(node); k++) {
+				final int edge = template.getNodeEdge(node, k);
+				data[pos++] = template.getEdgeIndex(edge);
+				data[pos++] = template.getNodeIndex(template.getOtherNode(edge, node));
+			}
+		}
+		data[m_adjacency + m_nodeCount] = pos;
+
+		for (int i = 0; i < m_edgeCount; i++) {
+			final int edge = template.getEdge(i);
+			final int index = template.getEdgeIndex(edge);
+			data[m_edges + 3 * index] = template.getNodeIndex(template.getNodeA(edge));
+			data[m_edges + 3 * index + 1] = template.getNodeIndex(template.getNodeB(edge));
+			data[m_edges + 3 * index + 2] = template.getEdgeLabel(edge);
+		}
+
+		if (template instanceof ClassifiedGraph) {
+			m_classFrequencies = ((ClassifiedGraph) template).getClassFrequencies();
+		} else {
+			m_classFrequencies = ClassifiedUndirectedListGraph.Factory.DEFAULT_CLASS;
+		}
+
+		for (int i = 0; i < m_nodeCount; i++) {
+			final Object o = template.getNodeObject(template.getNode(i));
+			if (o != null) setNodeObject(template.getNodeIndex(template.getNode(i)), o);
+		}
+		for (int i = 0; i < m_edgeCount; i++) {
+			final Object o = template.getEdgeObject(template.getEdge(i));
+			if (o != null) setEdgeObject(template.getEdgeIndex(template.getEdge(i)), o);
+		}
+	}
+
+
+	/**
+	 * Creates a new compact graph that is a copy of the given template graph and uses its own backing array.
+	 *
+	 * @param template the graph that should be copied
+	 */
+	public UndirectedCompactGraph(UndirectedGraph template) {
+		this(template, new int[getSize(template)], 0);
+	}
+
+
+	/**
+	 * Returns the number of ints a compact copy of the given graph needs in the backing array.
+	 *
+	 * @param g a graph
+	 * @return the number of ints
+	 */
+	public static int getSize(Graph g) {
+		return 2 * g.getNodeCount() + 1 + 7 * g.getEdgeCount();
+	}
+
+
+	/**
+	 * Creates compact copies of the given graphs. The copies share as few backing arrays as possible.
+	 *
+	 * @param graphs some undirected graphs
+	 * @return the compact copies in the same order
+	 */
+	public static UndirectedCompactGraph[] pack(Graph[] graphs) {
+		UndirectedCompactGraph[] packed = new UndirectedCompactGraph[graphs.length];
+
+		int first = 0;
+		while (first < graphs.length) {
+			long size = getSize(graphs[first]);
+			int last = first + 1;
+			while ((last < graphs.length) && (size + getSize(graphs[last]) <= MAX_BACKING_SIZE)) {
+				size += getSize(graphs[last++]);
+			}
+
+			final int[] data = new int[(int) size];
+			int offset = 0;
+			for (int i = first; i < last; i++) {
+				packed[i] = new UndirectedCompactGraph((UndirectedGraph) graphs[i], data, offset);
+				offset += getSize(graphs[i]);
+			}
+			first = last;
+		}
+
+		return packed;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#getNodeCount()
+	 */
+	public int getNodeCount() { return m_nodeCount; }
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#getEdgeCount()
+	 */
+	public int getEdgeCount() { return m_edgeCount; }
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#getName()
+	 */
+	public String getName() { return m_name; }
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#getID()
+	 */
+	public int getID() { return m_id; }
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#getEdge(int, int)
+	 */
+	public int getEdge(int nodeA, int nodeB) {
+		final int end = m_data[m_adjacency + nodeA + 1];
+		for (int i = m_data[m_adjacency + nodeA]; i < end; i += 2) {
+			if (m_data[i + 1] == nodeB) return m_data[i];
+		}
+		return NO_EDGE;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#getEdge(int)
+	 */
+	public int getEdge(int index) { return index; }
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#getNode(int)
+	 */
+	public int getNode(int index) { return index; }
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#getNodeLabel(int)
+	 */
+	public int getNodeLabel(int node) { return m_data[m_nodeLabels + node]; }
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#getEdgeLabel(int)
+	 */
+	public int getEdgeLabel(int edge) { return m_data[m_edges + 3 * edge + 2]; }
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#getDegree(int)
+	 */
+	public int getDegree(int node) {
+		return (m_data[m_adjacency + node + 1] - m_data[m_adjacency + node]) >> 1;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#getNodeEdge(int, int)
+	 */
+	public int getNodeEdge(int node, int number) { return m_data[m_data[m_adjacency + node] + 2 * number]; }
+
+	/**
+	 * Returns the node at the other end of the edge with the given number at the given node. This is the same as
+	 * <code>getOtherNode(getNodeEdge(node, number), node)</code>, but needs only one lookup.
+	 *
+	 * @param node a node
+	 * @param number the number of the edge at the node
+	 * @return the neighbour node
+	 */
+	public int getNeighbour(int node, int number) { return m_data[m_data[m_adjacency + node] + 2 * number + 1]; }
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#getNodeIndex(int)
+	 */
+	public int getNodeIndex(int node) { return node; }
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#getEdgeIndex(int)
+	 */
+	public int getEdgeIndex(int edge) { return edge; }
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#getNodeA(int)
+	 */
+	public int getNodeA(int edge) { return m_data[m_edges + 3 * edge]; }
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#getNodeB(int)
+	 */
+	public int getNodeB(int edge) { return m_data[m_edges + 3 * edge + 1]; }
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#getOtherNode(int, int)
+	 */
+	public int getOtherNode(int edge, int node) {
+		final int nodeA = m_data[m_edges + 3 * edge];
+		return (nodeA == node) ? m_data[m_edges + 3 * edge + 1] : nodeA;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#isBridge(int)
+	 */
+	public boolean isBridge(int edge) {
+		long[] bridges = m_bridges;
+		if (bridges == null) {
+			final int[] b = Util.getBridges(this);
+			bridges = new long[(m_edgeCount >> 6) + 1];
+			for (int i = 0; i < b.length; i++) {
+				bridges[b[i] >> 6] |= 1L << (b[i] & 63);
+			}
+			m_bridges = bridges;
+		}
+
+		return (bridges[edge >> 6] & (1L << (edge & 63))) != 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#setNodeObject(int, java.lang.Object)
+	 */
+	public void setNodeObject(int node, Object o) {
+		if (m_nodeObjects == null) m_nodeObjects = new Object[m_nodeCount];
+		m_nodeObjects[node] = o;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#getNodeObject(int)
+	 */
+	public Object getNodeObject(int node) { return (m_nodeObjects != null) ? m_nodeObjects[node] : null; }
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#setEdgeObject(int, java.lang.Object)
+	 */
+	public void setEdgeObject(int edge, Object o) {
+		if (m_edgeObjects == null) m_edgeObjects = new Object[m_edgeCount];
+		m_edgeObjects[edge] = o;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#getEdgeObject(int)
+	 */
+	public Object getEdgeObject(int edge) { return (m_edgeObjects != null) ? m_edgeObjects[edge] : null; }
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.Graph#saveMemory()
+	 */
+	public void saveMemory() { /* compact graphs are already as small as possible */ }
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.ClassifiedGraph#getClassFrequencies()
+	 */
+	public float[] getClassFrequencies() { return m_classFrequencies; }
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.graph.ClassifiedGraph#setClassFrequencies(float[])
+	 */
+	public void setClassFrequencies(float[] frequencies) { m_classFrequencies = frequencies; }
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#hashCode()
+	 */
+	public int hashCode() {
+		if (m_hashCode == 0) m_hashCode = SimpleGraphComparator.getHashCode(this);
+		if (m_hashCode == 0) m_hashCode = 1;
+		return m_hashCode;
+	}
+
+	/**
+	 * Returns a mutable copy of this graph, which is a ClassifiedUndirectedListGraph.
+	 *
+	 * @see java.lang.Object#clone()
+	 */
+	public Object clone() {
+		return new ClassifiedUndirectedListGraph((ClassifiedGraph) this);
+	}
+
+
+	/**
+	 * This class is a factory for UndirectedCompactGraphs. As compact graphs are immutable, it creates
+	 * ClassifiedUndirectedListGraphs which are converted into compact graphs by {@link #compact(Graph[])}.
+	 *
+	 * @author agent <agent@local>
+	 */
+	public static class Factory extends ClassifiedGraphFactory {
+		/**
+		 * The single instance of this factory.
+		 */
+		public final static Factory instance = new Factory();
+
+		protected Factory() { super(UNDIRECTED_GRAPH | CLASSIFIED_GRAPH | COMPACT_GRAPH); }
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see de.parmol.graph.ClassifiedGraphFactory#createGraph(float[])
+		 */
+		public ClassifiedGraph createGraph(float[] classFrequencies) {
+			return ClassifiedUndirectedListGraph.Factory.instance.createGraph(classFrequencies);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see de.parmol.graph.ClassifiedGraphFactory#createGraph(java.lang.String, float[])
+		 */
+		public ClassifiedGraph createGraph(String id, float[] classFrequencies) {
+			return ClassifiedUndirectedListGraph.Factory.instance.createGraph(id, classFrequencies);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see de.parmol.graph.GraphFactory#createGraph()
+		 */
+		public MutableGraph createGraph() { return ClassifiedUndirectedListGraph.Factory.instance.createGraph(); }
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see de.parmol.graph.GraphFactory#createGraph(java.lang.String)
+		 */
+		public MutableGraph createGraph(String id) {
+			return ClassifiedUndirectedListGraph.Factory.instance.createGraph(id);
+		}
+
+		/**
+		 * Converts the given graphs into compact graphs that share their backing arrays.
+		 *
+		 * @see de.parmol.graph.GraphFactory#compact(de.parmol.graph.Graph[])
+		 */
+		public Graph[] compact(Graph[] graphs) { return pack(graphs); }
+	}
+}
@@ -274,6 +274,47 @@ public class Util {
 		return partitionNumbers;
 	}
 
+	/**
+	 * Computes a hash code that is the same for all isomorphic graphs. Each node is described by its partition,
+	 * its label and the multiset of its edge labels together with the partitions of its neighbours (one more round
+	 * of Weisfeiler-Lehman refinement), the hash code combines these descriptions independent of the node order.
+	 * 
+	 * @param g a graph
+	 * @param partitions the node partitions of the graph as returned by {@link #getNodePartitions(Graph)}
+	 * @return the hash code
+	 */
+	public static long getInvariantHash(Graph g, int[] partitions) {
+		long hash = 0;
+		for (int i = g.getNodeCount() - 1; i >= 0; i--) {
+			final int node = g.getNode(i);
+
+			long neighbours = 0;
+			for (int k = g.getDegree(node) - 1; k >= 0; k--) {
+				final int edge = g.getNodeEdge(node, k);
+				final int neighbour = g.getOtherNode(edge, node);
+				neighbours += mix(((long) g.getEdgeLabel(edge) << 32) ^ partitions[g.getNodeIndex(neighbour)]);
+			}
+
+			hash += mix(mix(((long) g.getNodeLabel(node) << 32) ^ partitions[g.getNodeIndex(node)]) + neighbours);
+		}
+
+		return mix(hash ^ ((long) g.getNodeCount() << 32) ^ g.getEdgeCount());
+	}
+
+
+	/**
+	 * Mixes the bits of the given value (the finalizer of the SplitMix64 generator).
+	 * 
+	 * @param x a value
+	 * @return the mixed value
+	 */
+	private static long mix(long x) {
+		x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+		x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+		return x ^ (x >>> 31);
+	}
+
+
 	private static class FirstNodeComparator extends ExtendedComparator {
 		private final Graph m_graph;
 
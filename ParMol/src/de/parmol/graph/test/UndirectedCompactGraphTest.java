@@ -0,0 +1,110 @@
+/*
+ *
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package de.parmol.graph.test;
+
+import junit.framework.TestCase;
+import de.parmol.graph.Graph;
+import de.parmol.graph.GraphFactory;
+import de.parmol.graph.ListGraph;
+import de.parmol.graph.NodeLabelDegreeComparator;
+import de.parmol.graph.SimpleEdgeComparator;
+import de.parmol.graph.SimpleGraphComparator;
+import de.parmol.graph.UndirectedCompactGraph;
+import de.parmol.graph.UndirectedListGraph;
+import de.parmol.util.GraphGenerator;
+
+/**
+ * @author agent <agent@local>
+ */
+public class UndirectedCompactGraphTest extends TestCase {
+	private Graph[] m_graphs;
+
+	protected void setUp() {
+		GraphGenerator.instance.setGraphFactory(UndirectedListGraph.Factory.instance);
+		m_graphs = new Graph[20];
+		for (int i = 0; i < m_graphs.length; i++) {
+			m_graphs[i] = GraphGenerator.instance.generateGraph(5 + i, 10 + 3 * i);
+		}
+	}
+
+	public void testPack() {
+		UndirectedCompactGraph[] packed = UndirectedCompactGraph.pack(m_graphs);
+		assertEquals(m_graphs.length, packed.length);
+
+		for (int i = 0; i < m_graphs.length; i++) {
+			Graph g = m_graphs[i];
+			UndirectedCompactGraph c = packed[i];
+
+			assertEquals(g.getNodeCount(), c.getNodeCount());
+			assertEquals(g.getEdgeCount(), c.getEdgeCount());
+			assertEquals(g.getName(), c.getName());
+
+			for (int k = 0; k < g.getNodeCount(); k++) {
+				int node = g.getNode(k);
+				int cnode = c.getNode(g.getNodeIndex(node));
+				assertEquals(g.getNodeLabel(node), c.getNodeLabel(cnode));
+				assertEquals(g.getDegree(node), c.getDegree(cnode));
+
+				for (int n = 0; n < g.getDegree(node); n++) {
+					int edge = g.getNodeEdge(node, n);
+					int cedge = c.getNodeEdge(cnode, n);
+					assertEquals(g.getEdgeIndex(edge), c.getEdgeIndex(cedge));
+					assertEquals(g.getNodeIndex(g.getOtherNode(edge, node)), c.getNeighbour(cnode, n));
+					assertEquals(c.getNeighbour(cnode, n), c.getOtherNode(cedge, cnode));
+				}
+			}
+
+			for (int k = 0; k < g.getEdgeCount(); k++) {
+				int edge = g.getEdge(k);
+				int cedge = c.getEdge(g.getEdgeIndex(edge));
+				assertEquals(g.getEdgeLabel(edge), c.getEdgeLabel(cedge));
+				assertEquals(g.getNodeIndex(g.getNodeA(edge)), c.getNodeA(cedge));
+				assertEquals(g.getNodeIndex(g.getNodeB(edge)), c.getNodeB(cedge));
+				assertEquals(g.isBridge(edge), c.isBridge(cedge));
+				assertEquals(cedge, c.getEdge(c.getNodeA(cedge), c.getNodeB(cedge)));
+				assertEquals(cedge, c.getEdge(c.getNodeB(cedge), c.getNodeA(cedge)));
+			}
+		}
+	}
+
+	public void testClone() {
+		UndirectedCompactGraph c = new UndirectedCompactGraph((UndirectedListGraph) m_graphs[7]);
+		ListGraph copy = (ListGraph) c.clone();
+
+		SimpleGraphComparator comp =
+			new SimpleGraphComparator(NodeLabelDegreeComparator.instance, SimpleEdgeComparator.instance);
+		assertTrue(comp.compare(m_graphs[7], copy) == 0);
+
+		copy.addNode(4711);
+		assertEquals(m_graphs[7].getNodeCount(), c.getNodeCount());
+	}
+
+	public void testFactory() {
+		GraphFactory compactFactory = UndirectedCompactGraph.Factory.instance; // registers the factory
+		GraphFactory factory = GraphFactory.getFactory(GraphFactory.UNDIRECTED_GRAPH | GraphFactory.COMPACT_GRAPH);
+		assertSame(compactFactory, factory);
+
+		Graph[] compact = factory.compact(m_graphs);
+		for (int i = 0; i < compact.length; i++) {
+			assertTrue(compact[i] instanceof UndirectedCompactGraph);
+		}
+
+		assertSame(m_graphs, UndirectedListGraph.Factory.instance.compact(m_graphs));
+	}
+}
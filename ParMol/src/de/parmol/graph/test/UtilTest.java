@@ -86,4 +86,26 @@ public class UtilTest extends TestCase {
 			assertEquals(expectedPartitions[i], partCount);
 		}
 	}
-}
\ No newline at end of file
+	
+	public void testInvariantHash() throws ParseException {
+		// each row holds the same molecule written in different node orders
+		final String[][] graphs = { { "C[1]C(Br)CC@1", "BrC[1]CCC@1", "C[1]CC(Br)C@1" },
+				{ "C[1]CCNCCOC@1", "N[1]CCOCCCC@1", "O[1]CCNCCCC@1" }, { "CC(N)C=O", "O=CC(C)N", "NC(C)C=O" } };
+		final long[] hashes = new long[graphs.length];
+
+		for (int i = 0; i < graphs.length; i++) {
+			for (int k = 0; k < graphs[i].length; k++) {
+				Graph g = SLNParser.instance.parse(graphs[i][k], UndirectedListGraph.Factory.instance);
+				long hash = Util.getInvariantHash(g, Util.getNodePartitions(g));
+				if (k == 0) {
+					hashes[i] = hash;
+				} else {
+					assertEquals(graphs[i][k], hashes[i], hash);
+				}
+			}
+			for (int k = 0; k < i; k++) {
+				assertTrue(hashes[k] != hashes[i]);
+			}
+		}
+	}
+}
@@ -140,7 +140,7 @@ public class SLNParser implements GraphParser {
 	 * @return a new graph
 	 * @throws ParseException if the SLN string contains errors
 	 */
-	public Graph parse(String text, String id, GraphFactory factory) throws ParseException {
+	public synchronized Graph parse(String text, String id, GraphFactory factory) throws ParseException {
 		MutableGraph g;
 		if ((factory instanceof ClassifiedGraphFactory) && (m_classifier != null)) {
 			g = (MutableGraph) ((ClassifiedGraphFactory) factory).createGraph(id, m_classifier.getClassFrequencies(id));
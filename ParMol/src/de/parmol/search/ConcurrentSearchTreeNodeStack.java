@@ -0,0 +1,197 @@
+/*
+ *
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package de.parmol.search;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+/**
+ * This class is a lock-free stack for search tree nodes that allows other threads to steal nodes from its bottom (a
+ * Chase-Lev work stealing deque). Only one thread, the owner, may call {@link #push(SearchTreeNode)},
+ * {@link #pushAll(Collection)} and {@link #pop()}; any thread may call {@link #steal()}. The owner works on the top of the
+ * stack (the deepest nodes) and is never blocked by thieves, who take the bottommost nodes, i.e. the ones nearest to
+ * the root of the search tree. Only the race for the very last node is decided by a CAS operation.
+ *
+ * @author agent <agent@local>
+ */
+public class ConcurrentSearchTreeNodeStack {
+	private volatile AtomicReferenceArray m_stack;
+	/** the index of the next free slot on the top, only written by the owner */
+	private volatile long m_top;
+	/** the index of the bottommost node, advanced by thieves and by the owner when it takes the last node */
+	private final AtomicLong m_bottom = new AtomicLong();
+
+
+	/**
+	 * Creates a new stack with the given inital size
+	 *
+	 * @param initialSize the initial size of the stack
+	 */
+	public ConcurrentSearchTreeNodeStack(int initialSize) {
+		int size = 2;
+		while (size < initialSize) size <<= 1;
+		m_stack = new AtomicReferenceArray(size);
+	}
+
+
+	/**
+	 * Pushes a new node onto the top of the stack. This method may only be called by the owner.
+	 *
+	 * @param node the node to push
+	 */
+	public void push(SearchTreeNode node) {
+		final long top = m_top;
+		AtomicReferenceArray stack = m_stack;
+		if (top - m_bottom.get() >= stack.length() - 1) stack = resize(top, 1);
+
+		stack.set((int) top & (stack.length() - 1), node);
+		m_top = top + 1;
+	}
+
+
+	/**
+	 * Pushes all nodes in the given collection onto the top of the stack, the last node in the collection will be the new
+	 * topmost node. The nodes become visible to thieves all at once. This method may only be called by the owner.
+	 *
+	 * @param nodes a collection of search tree nodes
+	 */
+	public void pushAll(Collection nodes) {
+		final int count = nodes.size();
+		if (count == 0) return;
+
+		long top = m_top;
+		AtomicReferenceArray stack = m_stack;
+		if (top - m_bottom.get() + count >= stack.length()) stack = resize(top, count);
+
+		final int mask = stack.length() - 1;
+		for (Iterator it = nodes.iterator(); it.hasNext();) {
+			stack.lazySet((int) top++ & mask, it.next());
+		}
+		m_top = top;
+	}
+
+
+	/**
+	 * Pops the topmost node from the stack. This method may only be called by the owner.
+	 *
+	 * @return the topmost node or <code>null</code> if the stack is empty
+	 */
+	public SearchTreeNode pop() {
+		final long top = m_top - 1;
+		final AtomicReferenceArray stack = m_stack;
+		m_top = top;
+
+		final long bottom = m_bottom.get();
+		if (top < bottom) {
+			// the stack was already empty
+			m_top = bottom;
+			return null;
+		}
+
+		final int index = (int) top & (stack.length() - 1);
+		final SearchTreeNode node = (SearchTreeNode) stack.get(index);
+		if (top > bottom) {
+			// there is more than one node left, so no thief can take this one
+			stack.lazySet(index, null);
+			return node;
+		}
+
+		// this is the last node, so race against the thieves for it
+		final boolean won = m_bottom.compareAndSet(bottom, bottom + 1);
+		m_top = bottom + 1;
+		if (!won) return null;
+
+		stack.compareAndSet(index, node, null);
+		return node;
+	}
+
+
+	/**
+	 * Takes the bottommost node from the stack. This method may be called by any thread.
+	 *
+	 * @return the bottommost node or <code>null</code> if the stack is empty
+	 */
+	public SearchTreeNode steal() {
+		while (true) {
+			final long bottom = m_bottom.get();
+			final long top = m_top;
+			if (bottom >= top) return null;
+
+			final AtomicReferenceArray stack = m_stack;
+			final int index = (int) bottom & (stack.length() - 1);
+			final SearchTreeNode node = (SearchTreeNode) stack.get(index);
+
+			if (m_bottom.compareAndSet(bottom, bottom + 1)) {
+				// the owner may already have reused the slot, so only clear it if it still holds the stolen node
+				stack.compareAndSet(index, node, null);
+				return node;
+			}
+		}
+	}
+
+
+	/**
+	 * Returns the number of nodes on the stack. As other threads may steal nodes concurrently, this is only a snapshot.
+	 *
+	 * @return the size of the stack
+	 */
+	public int size() {
+		final long size = m_top - m_bottom.get();
+		return (size < 0) ? 0 : (int) size;
+	}
+
+
+	/**
+	 * Returns <code>true</code> if the stack is empty, <code>false</code> otherwise. As other threads may steal nodes
+	 * concurrently, this is only a snapshot.
+	 *
+	 * @return if the stack is empty
+	 */
+	public boolean isEmpty() {
+		return (size() == 0);
+	}
+
+
+	/**
+	 * Resizes the stack so that there is room for at least <code>additionalNodes</code> new nodes. Thieves that still
+	 * use the old array find the same nodes at the same indices there, because the owner does not write into it anymore.
+	 *
+	 * @param top the current top index
+	 * @param additionalNodes the number of nodes that should be pushed
+	 * @return the new array
+	 */
+	private AtomicReferenceArray resize(long top, int additionalNodes) {
+		final AtomicReferenceArray oldStack = m_stack;
+		final long bottom = m_bottom.get();
+
+		int newSize = oldStack.length() << 1;
+		while (top - bottom + additionalNodes >= newSize) newSize <<= 1;
+
+		final AtomicReferenceArray newStack = new AtomicReferenceArray(newSize);
+		final int oldMask = oldStack.length() - 1, newMask = newSize - 1;
+		for (long i = bottom; i < top; i++) {
+			newStack.lazySet((int) i & newMask, oldStack.get((int) i & oldMask));
+		}
+		m_stack = newStack;
+		return newStack;
+	}
+}
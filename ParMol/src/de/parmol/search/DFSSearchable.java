@@ -54,4 +54,14 @@ public interface DFSSearchable {
 	 * @return the new instance
 	 */
 	DFSSearchable newInstance(DFSSearchable previousWorker);
+
+	/**
+	 * Returns an estimation of the size of the subtree below the given search tree node. Search managers use this value
+	 * to decide if a node is worth to be given away to another worker (see {@link de.parmol.Settings#minimumProblemSize}).
+	 * Implementations that cannot estimate the problem size should return 1.0 so that all nodes may be shipped.
+	 * 
+	 * @param node a search tree node
+	 * @return a value between 0 (tiny subtree) and 1 (huge subtree)
+	 */
+	double estimateProblemSize(SearchTreeNode node);
 }
\ No newline at end of file
@@ -42,4 +42,10 @@ public interface SearchManager {
 	 * Starts the search.
 	 */
 	public void startSearch();
+
+
+	/**
+	 * Stops all threads of this search manager after the search has finished. No search can be started afterwards.
+	 */
+	public void shutdown();
 }
\ No newline at end of file
@@ -31,7 +31,8 @@ import java.util.EmptyStackException;
  */
 class SearchTreeNodeStack {
 	private SearchTreeNode[] m_stack;
-	private int m_stackPointer = 0;
+	private boolean[] m_shippable;
+	private int m_stackPointer = 0, m_shippableCount = 0;
 	
 	/**
 	 * Creates a new stack with the given inital size
@@ -39,6 +40,7 @@ class SearchTreeNodeStack {
 	 */
 	public SearchTreeNodeStack(int initialSize) {
 		m_stack = new SearchTreeNode[initialSize];
+		m_shippable = new boolean[initialSize];
 	}
 	
 	/**
@@ -46,9 +48,7 @@ class SearchTreeNodeStack {
 	 * @param node the node to push
 	 */
 	public void push(SearchTreeNode node) {
-		if (m_stackPointer >= m_stack.length) resize();			
-		
-		m_stack[m_stackPointer++] = node;
+		push(node, true);
 	}
 	
 	/**
@@ -60,6 +60,7 @@ class SearchTreeNodeStack {
 		if (m_stackPointer == 0) throw new EmptyStackException();
 		SearchTreeNode node = m_stack[--m_stackPointer];
 		m_stack[m_stackPointer] = null;
+		if (m_shippable[m_stackPointer]) m_shippableCount--;
 		return node;
 	}
 	
@@ -100,6 +101,10 @@ class SearchTreeNodeStack {
         SearchTreeNode[] temp = new SearchTreeNode[newSize];
         System.arraycopy(m_stack, 0, temp, 0, m_stackPointer);
         m_stack = temp;                         
+
+        boolean[] temp2 = new boolean[newSize];
+        System.arraycopy(m_shippable, 0, temp2, 0, m_stackPointer);
+        m_shippable = temp2;
     }
 
 	/**
@@ -114,15 +119,74 @@ class SearchTreeNodeStack {
 		if (stack.m_stack.length < m_stack.length / 2) stack.resize(m_stack.length / 2 + 1);
 
 		for (int i = 1; i < m_stackPointer; i += 2) {
-			stack.m_stack[stack.m_stackPointer++] = m_stack[i];
+			stack.push(m_stack[i], m_shippable[i]);
 		}			
 
 		m_stackPointer -= stack.m_stackPointer;
+		m_shippableCount -= stack.m_shippableCount;
 		// fill the holes in the stack
 		for (int i = 1; i < m_stackPointer; i ++) {
 			m_stack[i] = m_stack[2*i];
+			m_shippable[i] = m_shippable[2*i];
 		}			
 		
 		for (int i = m_stackPointer; i < m_stack.length; i++) m_stack[i] = null;
 	}
+
+
+	/**
+	 * Pushes a new node onto the stack and remembers if it is large enough to be given away by
+	 * {@link #splitShippable(SearchTreeNodeStack)}.
+	 * 
+	 * @param node the node to push
+	 * @param shippable <code>true</code> if the node may be given to another worker, <code>false</code> otherwise
+	 */
+	public void push(SearchTreeNode node, boolean shippable) {
+		if (m_stackPointer >= m_stack.length) resize();
+		
+		m_shippable[m_stackPointer] = shippable;
+		if (shippable) m_shippableCount++;
+		m_stack[m_stackPointer++] = node;
+	}
+
+
+	/**
+	 * Returns the number of nodes on the stack that may be given to another worker.
+	 * 
+	 * @return the number of shippable nodes
+	 */
+	public int shippableCount() { return m_shippableCount; }
+
+
+	/**
+	 * Splits the stack into two pieces, but only nodes that have been pushed as shippable are given away. Every other of
+	 * these nodes is put into the given stack, that must be empty. All other nodes always remain on this stack. Nothing
+	 * happens if less than two shippable nodes are on the stack, so that callers can check {@link #shippableCount()}
+	 * before and need not scan the stack in vain.
+	 * 
+	 * @param stack the stack which should receive the nodes
+	 */
+	public void splitShippable(SearchTreeNodeStack stack) {
+		if (m_shippableCount < 2) return;
+		if (! stack.isEmpty()) throw new IllegalArgumentException("The given stack must be empty");
+
+		boolean giveAway = false;
+		int kept = 0;
+		for (int i = 0; i < m_stackPointer; i++) {
+			final SearchTreeNode node = m_stack[i];
+			final boolean shippable = m_shippable[i];
+
+			if (shippable && giveAway) {
+				stack.push(node, true);
+				m_shippableCount--;
+			} else {
+				m_shippable[kept] = shippable;
+				m_stack[kept++] = node;
+			}
+			if (shippable) giveAway = !giveAway;
+		}
+
+		for (int i = kept; i < m_stackPointer; i++) m_stack[i] = null;
+		m_stackPointer = kept;
+	}
 }
\ No newline at end of file
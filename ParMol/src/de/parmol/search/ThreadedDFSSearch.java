@@ -43,6 +43,10 @@ public class ThreadedDFSSearch extends Thread implements SearchManager {
 	private final ArrayList m_waitingWorkers;
 	private final SearchTreeNodeStack m_stack = new SearchTreeNodeStack(20);
 	private final DFSSearchable m_searchable;
+	/** <code>true</code> if this worker has been given work and should search, guarded by m_stack */
+	private boolean m_awakened;
+	/** <code>true</code> if this worker should exit, guarded by m_stack */
+	private boolean m_stopped;
 
 
 	private static int s_workerCount;
@@ -66,14 +70,20 @@ public class ThreadedDFSSearch extends Thread implements SearchManager {
 		m_workers = new ThreadedDFSSearch[m_settings.maxThreads];
 		m_waitingWorkers = new ArrayList(m_settings.maxThreads);
 		m_workers[0] = this;
-
-		for (int i = 1; i < m_settings.maxThreads; i++) {
-			m_workers[i] = new ThreadedDFSSearch(m_workers[i - 1]);
-			m_workers[i].start();
-		}
 		setDaemon(true);
-		start();
 
+		// with a single worker the search is done by the thread that calls startSearch
+		if (m_workers.length > 1) {
+			for (int i = 1; i < m_workers.length; i++) {
+				m_workers[i] = new ThreadedDFSSearch(m_workers[i - 1]);
+				m_workers[i].start();
+			}
+			start();
+
+			// start nodes may only be added after all workers wait for work, otherwise the first worker may find them too
+			// early
+			waitForWorkers();
+		}
 	}
 
 
@@ -98,7 +108,7 @@ public class ThreadedDFSSearch extends Thread implements SearchManager {
 	 */
 	private void dfsSearch() {
 		while (!m_stack.isEmpty()) {
-			if (m_stack.size() > 1) {
+			if (m_stack.shippableCount() > 1) {
 				ThreadedDFSSearch idle = null;
 				synchronized (m_waitingWorkers) {
 					if (m_waitingWorkers.size() > 0) {
@@ -107,8 +117,9 @@ public class ThreadedDFSSearch extends Thread implements SearchManager {
 				}
 
 				if (idle != null) {
-					m_stack.split(idle.m_stack);
 					synchronized (idle.m_stack) {
+						m_stack.splitShippable(idle.m_stack);
+						idle.m_awakened = true;
 						idle.m_stack.notifyAll();
 					}
 				}
@@ -127,7 +138,7 @@ public class ThreadedDFSSearch extends Thread implements SearchManager {
 			}
 
 			for (Iterator it = currentNode.getChildren().iterator(); it.hasNext();) {
-				m_stack.push((SearchTreeNode) it.next());
+				push((SearchTreeNode) it.next());
 			}
 
 			m_searchable.leaveNode(currentNode);
@@ -135,41 +146,86 @@ public class ThreadedDFSSearch extends Thread implements SearchManager {
 	}
 
 
+	/**
+	 * Pushes the given node onto the stack. Its problem size is estimated only once here, so that the stack knows at any
+	 * time whether it contains nodes that are worth to be given to waiting workers.
+	 * 
+	 * @param node a search tree node
+	 */
+	private void push(SearchTreeNode node) {
+		final float minimumProblemSize = m_settings.minimumProblemSize;
+		m_stack.push(node, (minimumProblemSize <= 0) || (m_searchable.estimateProblemSize(node) >= minimumProblemSize));
+	}
+
+
 	/* (non-Javadoc)
 	 * @see de.parmol.search.SearchManager#addStartNode(de.parmol.search.SearchTreeNode)
 	 */
 	public void addStartNode(SearchTreeNode startNode) {
-		m_stack.push(startNode);
+		synchronized (m_stack) {
+			push(startNode);
+		}
 	}
 
 
 	/**
-	 * Starts the depth first search.
+	 * Waits until all workers wait for work.
 	 */
-	public void startSearch() {
+	private void waitForWorkers() {
 		try {
 			synchronized (m_waitingWorkers) {
-				if (m_waitingWorkers.size() > 0) {
-					boolean b = m_waitingWorkers.remove(this);
-					assert (b);
+				while (m_waitingWorkers.size() < m_workers.length) {
+					m_waitingWorkers.wait();
 				}
 			}
-
-			synchronized (m_stack) {
-				m_stack.notifyAll();
-			}
-			synchronized (m_waitingWorkers) {
-				if (m_waitingWorkers.size() < m_workers.length) m_waitingWorkers.wait();
-			}
 		} catch (InterruptedException ex) {
 			System.out.println("One of the workers died, exiting");
 			System.exit(1);
 		}
+	}
+
+
+	/**
+	 * Starts the depth first search and returns after all workers have finished.
+	 */
+	public void startSearch() {
+		if (m_workers.length == 1) {
+			dfsSearch();
+			return;
+		}
 
-		// should not be needed but you never know ;-)
-		while (m_waitingWorkers.size() < m_workers.length) {
-			System.err
-					.println("!!! Something is wrong: The waiting thread has been awakened but a worker is still running !!!");
+		synchronized (m_waitingWorkers) {
+			m_waitingWorkers.remove(this);
+		}
+
+		synchronized (m_stack) {
+			m_awakened = true;
+			m_stack.notifyAll();
+		}
+		waitForWorkers();
+	}
+
+
+	/**
+	 * Stops all worker threads and waits until they have exited.
+	 * 
+	 * @see de.parmol.search.SearchManager#shutdown()
+	 */
+	public void shutdown() {
+		if (m_workers.length == 1) return;
+
+		for (int i = 0; i < m_workers.length; i++) {
+			synchronized (m_workers[i].m_stack) {
+				m_workers[i].m_stopped = true;
+				m_workers[i].m_stack.notifyAll();
+			}
+		}
+		try {
+			for (int i = 0; i < m_workers.length; i++) {
+				m_workers[i].join();
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
 		}
 	}
 
@@ -184,22 +240,24 @@ public class ThreadedDFSSearch extends Thread implements SearchManager {
 			do {
 				long time = 0;
 				synchronized (m_stack) {
-					if (m_stack.isEmpty()) {
-						synchronized (m_waitingWorkers) {
-							if (m_settings.debug > 2) {
-								System.out.println("[" + getName() + "] waiting");
-								time = System.currentTimeMillis();
-							}
-
-							m_waitingWorkers.add(this);
-							if (m_waitingWorkers.size() == m_workers.length) {
-								// it seems everyone has finished so wake up the waiting main thread
-								m_waitingWorkers.notifyAll();
-							}
+					synchronized (m_waitingWorkers) {
+						if (m_settings.debug > 2) {
+							System.out.println("[" + getName() + "] waiting");
+							time = System.currentTimeMillis();
 						}
 
+						m_waitingWorkers.add(this);
+						if (m_waitingWorkers.size() == m_workers.length) {
+							// it seems everyone has finished so wake up the waiting main thread
+							m_waitingWorkers.notifyAll();
+						}
+					}
+
+					while (!m_awakened && !m_stopped) {
 						m_stack.wait(); // schnarch...
 					}
+					if (m_stopped) return;
+					m_awakened = false;
 				}
 
 				if (m_settings.debug > 2) {
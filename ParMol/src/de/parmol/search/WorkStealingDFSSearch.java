@@ -0,0 +1,263 @@
+/*
+ * 
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package de.parmol.search;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import de.parmol.Settings;
+
+
+/**
+ * This search manager does a parallel depth first search with randomized work stealing. Each worker owns a
+ * {@link ConcurrentSearchTreeNodeStack}; it pushes and pops nodes at the top of its own stack without any locking while
+ * idle workers steal from the bottom of the stack of a randomly chosen victim. The bottom of the stack holds the nodes nearest to the root, which usually
+ * carry the largest subtrees, so a single steal hands over a lot of work. In contrast to {@link ThreadedDFSSearch}
+ * an idle worker does not wait until a busy worker notices it but fetches new work by itself.
+ *
+ * If {@link Settings#minimumProblemSize} is set, children whose estimated problem size
+ * ({@link DFSSearchable#estimateProblemSize(SearchTreeNode)}) is below this value are kept on a private stack that
+ * cannot be stolen from. Shipping such tiny subtrees to another core costs more than the work they carry.
+ *
+ * As in {@link ThreadedDFSSearch} one DFSSearchable is created per worker through
+ * {@link DFSSearchable#newInstance(DFSSearchable)}, so the searchables do not need to be changed. The search manager
+ * can be used for several searches one after another, the worker threads are created anew for each search.
+ *
+ * @author agent <agent@local>
+ */
+public class WorkStealingDFSSearch implements SearchManager {
+	/**
+	 * The name of this distribution scheme, as given by <code>-distributionScheme</code>.
+	 */
+	public final static String DISTRIBUTION_SCHEME = "workstealing";
+
+	private final static int MAX_IDLE_NANOS = 1000000;
+
+	final Settings m_settings;
+	final Worker[] m_workers;
+	/** the number of search tree nodes that have been pushed but not completely processed yet */
+	final AtomicInteger m_pendingNodes = new AtomicInteger(0);
+	volatile boolean m_aborted;
+	private int m_nextStartWorker;
+
+
+	/**
+	 * Creates a new work stealing dfs searcher.
+	 *
+	 * @param settings the settings for the search
+	 * @param searchable a DFSSearchable through which the search is done
+	 */
+	public WorkStealingDFSSearch(Settings settings, DFSSearchable searchable) {
+		m_settings = settings;
+		m_workers = new Worker[Math.max(1, m_settings.maxThreads)];
+
+		m_workers[0] = new Worker(0, searchable);
+		for (int i = 1; i < m_workers.length; i++) {
+			m_workers[i] = new Worker(i, m_workers[i - 1].m_searchable.newInstance(m_workers[i - 1].m_searchable));
+		}
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.search.SearchManager#addStartNode(de.parmol.search.SearchTreeNode)
+	 */
+	public void addStartNode(SearchTreeNode startNode) {
+		m_pendingNodes.incrementAndGet();
+		m_workers[m_nextStartWorker].m_stack.push(startNode);
+		m_nextStartWorker = (m_nextStartWorker + 1) % m_workers.length;
+	}
+
+
+	/**
+	 * Starts the search and returns after all workers have finished. A single worker searches in the calling thread.
+	 */
+	public void startSearch() {
+		if (m_workers.length == 1) {
+			m_workers[0].run();
+			if (m_aborted) { throw new RuntimeException("The worker died, search aborted"); }
+			return;
+		}
+
+		final Thread[] threads = new Thread[m_workers.length];
+		for (int i = 0; i < m_workers.length; i++) {
+			threads[i] = new Thread(m_workers[i], m_workers[i].m_name);
+			threads[i].setDaemon(true);
+			threads[i].start();
+		}
+
+		try {
+			for (int i = 0; i < threads.length; i++) {
+				threads[i].join();
+			}
+		} catch (InterruptedException ex) {
+			System.out.println("One of the workers died, exiting");
+			System.exit(1);
+		}
+
+		if (m_aborted) { throw new RuntimeException("One of the workers died, search aborted"); }
+
+		if (m_settings.debug > 2) {
+			for (int i = 0; i < m_workers.length; i++) {
+				System.out.println("[" + m_workers[i].m_name + "] processed " + m_workers[i].m_processedNodes
+						+ " nodes (" + m_workers[i].m_localNodes + " kept local), stole " + m_workers[i].m_steals + " nodes in "
+						+ m_workers[i].m_stealAttempts + " attempts");
+			}
+		}
+	}
+
+
+	/**
+	 * Does nothing, as the worker threads exit at the end of each search.
+	 *
+	 * @see de.parmol.search.SearchManager#shutdown()
+	 */
+	public void shutdown() { /* nothing to do here */ }
+
+
+	/**
+	 * A single worker with its own stack and its own DFSSearchable.
+	 *
+	 * @author agent <agent@local>
+	 */
+	final class Worker implements Runnable {
+		final String m_name;
+		final DFSSearchable m_searchable;
+		final ConcurrentSearchTreeNodeStack m_stack = new ConcurrentSearchTreeNodeStack(32);
+		private final ArrayList m_sharedChildren = new ArrayList();
+		/** nodes that are too small to get stolen */
+		private final SearchTreeNodeStack m_localStack = new SearchTreeNodeStack(20);
+		private final int m_index;
+		private final Random m_random;
+		int m_processedNodes, m_steals, m_stealAttempts, m_localNodes;
+
+
+		Worker(int index, DFSSearchable searchable) {
+			m_name = "Worker " + index;
+			m_index = index;
+			m_searchable = searchable;
+			m_random = new Random(index * 0x9E3779B97F4A7C15L);
+		}
+
+
+		/**
+		 * Tries to steal the bottommost node from other workers, starting at a random victim.
+		 *
+		 * @return a stolen node or <code>null</code> if no other worker has any nodes left
+		 */
+		private SearchTreeNode steal() {
+			final int count = m_workers.length;
+			if (count == 1) return null;
+
+			final int start = m_random.nextInt(count);
+			for (int i = 0; i < count; i++) {
+				final int victim = (start + i) % count;
+				if (victim == m_index) continue;
+
+				m_stealAttempts++;
+				SearchTreeNode node = m_workers[victim].m_stack.steal();
+				if (node != null) {
+					m_steals++;
+					return node;
+				}
+			}
+			return null;
+		}
+
+
+		/**
+		 * Processes a single search tree node and pushes all its children onto the own stack.
+		 *
+		 * @param currentNode the node to process
+		 */
+		private void process(SearchTreeNode currentNode) {
+			m_searchable.enterNode(currentNode);
+			m_searchable.generateChildren(currentNode);
+
+			if (m_settings.debug > 4) {
+				System.out.println("[" + m_name + "] " + (Runtime.getRuntime().freeMemory() >> 10) + "kB free memory, "
+						+ (Runtime.getRuntime().totalMemory() >> 10) + "kB total memory");
+			}
+
+			final float minimumProblemSize = m_settings.minimumProblemSize;
+			for (Iterator it = currentNode.getChildren().iterator(); it.hasNext();) {
+				final SearchTreeNode child = (SearchTreeNode) it.next();
+
+				m_pendingNodes.incrementAndGet();
+				if ((minimumProblemSize > 0) && (m_searchable.estimateProblemSize(child) < minimumProblemSize)) {
+					m_localStack.push(child);
+					m_localNodes++;
+				} else {
+					m_sharedChildren.add(child);
+				}
+			}
+			m_stack.pushAll(m_sharedChildren);
+			m_sharedChildren.clear();
+
+			m_searchable.leaveNode(currentNode);
+			m_processedNodes++;
+		}
+
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Runnable#run()
+		 */
+		public void run() {
+			try {
+				int idleNanos = 0;
+				long time = 0;
+
+				while (!m_aborted) {
+					SearchTreeNode node = m_localStack.isEmpty() ? null : m_localStack.pop();
+					if (node == null) node = m_stack.pop();
+					if (node == null) node = steal();
+
+					if (node != null) {
+						if ((idleNanos > 0) && (m_settings.debug > 2)) {
+							System.out.println("[" + m_name + "] got new work after " + (System.currentTimeMillis() - time)
+									+ "ms deadtime");
+						}
+						idleNanos = 0;
+
+						process(node);
+						m_pendingNodes.decrementAndGet();
+					} else if (m_pendingNodes.get() == 0) {
+						break;
+					} else if (idleNanos == 0) {
+						if (m_settings.debug > 2) time = System.currentTimeMillis();
+						idleNanos = 1000;
+						Thread.yield();
+					} else {
+						LockSupport.parkNanos(idleNanos);
+						idleNanos = Math.min(idleNanos << 1, MAX_IDLE_NANOS);
+					}
+				}
+			} catch (Throwable ex) {
+				ex.printStackTrace();
+				m_aborted = true;
+			}
+		}
+	}
+}
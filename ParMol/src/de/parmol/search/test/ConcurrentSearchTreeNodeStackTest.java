@@ -0,0 +1,122 @@
+/*
+ *
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package de.parmol.search.test;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import junit.framework.TestCase;
+import de.parmol.search.ConcurrentSearchTreeNodeStack;
+import de.parmol.search.SearchTreeNode;
+
+/**
+ * @author agent <agent@local>
+ *
+ */
+public class ConcurrentSearchTreeNodeStackTest extends TestCase {
+	private final static int NODES = 2000000, THIEVES = 7;
+
+	private static class NumberedNode extends SearchTreeNode {
+		final int m_number;
+
+		NumberedNode(int number) {
+			super(null, 1);
+			m_number = number;
+		}
+	}
+
+
+	public void testSequential() {
+		ConcurrentSearchTreeNodeStack stack = new ConcurrentSearchTreeNodeStack(2);
+		for (int i = 0; i < 100; i++) stack.push(new NumberedNode(i));
+		assertEquals(100, stack.size());
+
+		assertEquals(0, ((NumberedNode) stack.steal()).m_number);
+		assertEquals(99, ((NumberedNode) stack.pop()).m_number);
+		assertEquals(1, ((NumberedNode) stack.steal()).m_number);
+
+		for (int i = 98; i >= 2; i--) assertEquals(i, ((NumberedNode) stack.pop()).m_number);
+		assertNull(stack.pop());
+		assertNull(stack.steal());
+		assertTrue(stack.isEmpty());
+	}
+
+
+	public void testEveryNodeTakenOnce() throws InterruptedException {
+		final AtomicIntegerArray visits = new AtomicIntegerArray(NODES);
+		final ConcurrentSearchTreeNodeStack stack = new ConcurrentSearchTreeNodeStack(4);
+		final boolean[] ownerFinished = { false };
+
+		Thread[] thieves = new Thread[THIEVES];
+		for (int i = 0; i < thieves.length; i++) {
+			thieves[i] = new Thread() {
+				public void run() {
+					while (true) {
+						final boolean finished;
+						synchronized (ownerFinished) { finished = ownerFinished[0]; }
+
+						SearchTreeNode node = stack.steal();
+						if (node != null) {
+							visits.incrementAndGet(((NumberedNode) node).m_number);
+						} else if (finished) {
+							return;
+						}
+					}
+				}
+			};
+			thieves[i].start();
+		}
+
+		// the owner pushes nodes in bursts of varying size and pops some of them again, so that it often competes with
+		// the thieves for the last node
+		Random rand = new Random(4711);
+		ArrayList burst = new ArrayList();
+		int next = 0;
+		while (next < NODES) {
+			final int count = Math.min(NODES - next, rand.nextInt(64) + 1);
+			if (rand.nextBoolean()) {
+				for (int i = 0; i < count; i++) stack.push(new NumberedNode(next++));
+			} else {
+				for (int i = 0; i < count; i++) burst.add(new NumberedNode(next++));
+				stack.pushAll(burst);
+				burst.clear();
+			}
+
+			for (int i = rand.nextInt(count + 1); i > 0; i--) {
+				SearchTreeNode node = stack.pop();
+				if (node == null) break;
+				visits.incrementAndGet(((NumberedNode) node).m_number);
+			}
+		}
+
+		SearchTreeNode node;
+		while ((node = stack.pop()) != null) {
+			visits.incrementAndGet(((NumberedNode) node).m_number);
+		}
+		synchronized (ownerFinished) { ownerFinished[0] = true; }
+
+		for (int i = 0; i < thieves.length; i++) thieves[i].join();
+
+		for (int i = 0; i < NODES; i++) {
+			assertEquals("Node " + i + " has been taken " + visits.get(i) + " times", 1, visits.get(i));
+		}
+		assertTrue(stack.isEmpty());
+	}
+}
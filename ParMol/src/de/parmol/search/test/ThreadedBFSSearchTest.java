@@ -66,6 +66,7 @@ public class ThreadedBFSSearchTest implements DFSSearchable {
 		
 		searchManager.addStartNode(new SearchTreeNode(null,1));
 		searchManager.startSearch();
+		searchManager.shutdown();
 		System.out.println((System.currentTimeMillis() - time) + "ms elapsed");
 		System.out.println(calls + " calls to generateChildren");
 	}
@@ -0,0 +1,123 @@
+/*
+ *
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package de.parmol.search.test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+import de.parmol.search.DFSSearchable;
+import de.parmol.search.SearchManager;
+import de.parmol.search.SearchTreeNode;
+import de.parmol.search.ThreadedDFSSearch;
+import de.parmol.search.WorkStealingDFSSearch;
+
+/**
+ * @author agent <agent@local>
+ *
+ */
+public class WorkStealingDFSSearchTest extends TestCase {
+	private static class TreeSearchable implements DFSSearchable {
+		final AtomicInteger m_calls, m_estimates;
+		final int m_levels, m_children;
+
+		TreeSearchable(int levels, int children) {
+			m_calls = new AtomicInteger();
+			m_estimates = new AtomicInteger();
+			m_levels = levels;
+			m_children = children;
+		}
+
+		TreeSearchable(TreeSearchable previousWorker) {
+			m_calls = previousWorker.m_calls;
+			m_estimates = previousWorker.m_estimates;
+			m_levels = previousWorker.m_levels;
+			m_children = previousWorker.m_children;
+		}
+
+		public void generateChildren(SearchTreeNode currentNode) {
+			m_calls.incrementAndGet();
+			// an unbalanced tree: only the first child of each node has a deep subtree
+			final int children = (currentNode.getLevel() < m_levels) ? m_children : 0;
+			for (int i = 0; i < children; i++) {
+				currentNode.addChild(new SearchTreeNode(currentNode, (i == 0) ? currentNode.getLevel() + 1 : m_levels));
+			}
+		}
+
+		public DFSSearchable newInstance(DFSSearchable previousWorker) {
+			return new TreeSearchable((TreeSearchable) previousWorker);
+		}
+
+		public void enterNode(SearchTreeNode currentNode) { /* nothing to do */ }
+
+		public void leaveNode(SearchTreeNode currentNode) { currentNode.clear(); }
+
+		public double estimateProblemSize(SearchTreeNode node) {
+			m_estimates.incrementAndGet();
+			return (node.getLevel() < m_levels) ? 1.0 : 0.0;
+		}
+	}
+
+
+	private static class Settings extends de.parmol.Settings {
+		Settings() { super(); }
+	}
+
+
+	public void testAllNodesVisited() {
+		doSearch(0.0f, true);
+	}
+
+
+	public void testSmallNodesKeptLocal() {
+		doSearch(0.5f, true);
+	}
+
+
+	public void testThreadedSmallNodesKeptLocal() {
+		doSearch(0.5f, false);
+	}
+
+
+	private void doSearch(float minimumProblemSize, boolean workStealing) {
+		final int levels = 2000, children = 5;
+
+		final int liveThreads = Thread.activeCount();
+		for (int threads = 1; threads <= 8; threads <<= 1) {
+			Settings settings = new Settings();
+			settings.maxThreads = threads;
+			settings.minimumProblemSize = minimumProblemSize;
+
+			TreeSearchable searchable = new TreeSearchable(levels, children);
+			SearchManager searchManager = workStealing ? (SearchManager) new WorkStealingDFSSearch(settings, searchable)
+					: new ThreadedDFSSearch(settings, searchable);
+			searchManager.addStartNode(new SearchTreeNode(null, 1));
+			searchManager.addStartNode(new SearchTreeNode(null, 1));
+			searchManager.startSearch();
+
+			// each start node spans a path of levels nodes, each inner path node has children - 1 leaf children
+			assertEquals(2 * (levels + (levels - 1) * (children - 1)), searchable.m_calls.get());
+			// the problem size of each node is estimated at most once, however long other workers are waiting
+			assertTrue(searchable.m_estimates.get() <= searchable.m_calls.get());
+
+			// no worker thread survives the shutdown
+			searchManager.shutdown();
+			assertEquals(liveThreads, Thread.activeCount());
+		}
+	}
+}
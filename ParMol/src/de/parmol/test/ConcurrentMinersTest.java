@@ -0,0 +1,121 @@
+/*
+ *
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package de.parmol.test;
+
+import junit.framework.TestCase;
+import de.parmol.AbstractMiner;
+import de.parmol.Settings;
+import de.parmol.GSpan.test.GSpanTest;
+import de.parmol.util.FragmentSet;
+
+/**
+ * This runs many small Gaston and gSpan jobs concurrently in one JVM and checks,
+ * that they find the same fragments as the jobs run one after another
+ *
+ * @author agent <agent@local>
+ */
+public class ConcurrentMinersTest extends TestCase {
+	private final static int[] SUPPORTS = { 100, 150, 200 };
+	private final static int ROUNDS = 3, THREADS = 4;
+
+    /** */
+	public ConcurrentMinersTest(){ super(); }
+    /**
+     * @param text
+     */
+	public ConcurrentMinersTest(String text){ super(text); }
+
+	/** a single mining job */
+	private static class Job {
+		final boolean gaston, closed;
+		final int support;
+		FragmentSet result;
+
+		Job(boolean gaston, boolean closed, int support) {
+			this.gaston = gaston; this.closed = closed; this.support = support;
+		}
+
+		void run() throws Exception {
+			Settings settings = new Settings(new String[] { "-graphFile=data/IC93.test",
+					"-parserClass=de.parmol.parsers.SLNParser" });
+			settings.minimumClassFrequencies[0] = support;
+			settings.closedFragmentsOnly = closed;
+			settings.debug = 0;
+			settings.maxThreads = 1;
+
+			AbstractMiner miner = gaston ? (AbstractMiner) new de.parmol.Gaston.Miner(settings)
+					: new de.parmol.GSpan.Miner(settings);
+			miner.setUp();
+			miner.startMining();
+			result = miner.getFrequentSubgraphs();
+		}
+	}
+
+	private static Job[] createJobs() {
+		Job[] jobs = new Job[ROUNDS * SUPPORTS.length * 3];
+		int j = 0;
+		for (int r = 0; r < ROUNDS; r++) {
+			for (int s = 0; s < SUPPORTS.length; s++) {
+				jobs[j++] = new Job(true, false, SUPPORTS[s]);
+				jobs[j++] = new Job(true, true, SUPPORTS[s]);
+				jobs[j++] = new Job(false, false, SUPPORTS[s]);
+			}
+		}
+		return jobs;
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void testConcurrentJobs() throws Exception {
+		final Job[] sequential = createJobs();
+		for (int i = 0; i < sequential.length; i++) sequential[i].run();
+
+		final Job[] concurrent = createJobs();
+		final Throwable[] failure = new Throwable[1];
+		final int[] next = { 0 };
+		Thread[] threads = new Thread[THREADS];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread("Job worker " + t) {
+				public void run() {
+					try {
+						while (true) {
+							int j;
+							synchronized (next) {
+								if (next[0] == concurrent.length || failure[0] != null) return;
+								j = next[0]++;
+							}
+							concurrent[j].run();
+						}
+					} catch (Throwable ex) {
+						synchronized (next) { failure[0] = ex; }
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (int t = 0; t < threads.length; t++) threads[t].join();
+		if (failure[0] != null) throw new RuntimeException("a concurrent job failed", failure[0]);
+
+		for (int i = 0; i < sequential.length; i++) {
+			assertTrue(sequential[i].result.size() > 0);
+			GSpanTest.assertSameFragments(sequential[i].result, concurrent[i].result);
+		}
+	}
+}
@@ -0,0 +1,313 @@
+/*
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package de.parmol.util;
+
+import java.util.ArrayList;
+
+/**
+ * An implementation of ObjectPool that keeps separate sub-pools for each thread that uses it, so that no
+ * synchronization is needed when objects are taken or put back. Unlike ThreadedObjectPool the threads need not be
+ * known in advance. The capacity of each sub-pool adapts itself to the observed hit rate: if an object is put back
+ * into a full sub-pool while the hit rate of the current window is below the target, the capacity is doubled; if more
+ * than half of the sub-pool has not been used for a while, the capacity is halved again.
+ *
+ * @author agent <agent@local>
+ */
+public class AdaptiveObjectPool implements ObjectPool {
+	/** the number of accesses to a sub-pool after which its capacity is adapted */
+	public final static int WINDOW = 4096;
+	/** the hit rate below which a full sub-pool grows instead of throwing away objects */
+	private final static float TARGET_HIT_RATE = 0.95f;
+	/** the number of consecutive windows in which a sub-pool was mostly unused before it shrinks */
+	private final static int IDLE_WINDOWS = 8;
+
+	private final int m_poolCount, m_initialCapacity, m_maximumCapacity;
+	private final ThreadLocal m_localPools = new ThreadLocal() {
+		protected Object initialValue() {
+			final LocalPool[] pools = new LocalPool[m_poolCount];
+			for (int i = 0; i < pools.length; i++) {
+				pools[i] = new LocalPool(m_initialCapacity);
+			}
+			synchronized (m_allPools) {
+				m_allPools.add(pools);
+			}
+			return pools;
+		}
+	};
+	/** the sub-pools of all threads, only used for the statistics */
+	private final ArrayList m_allPools = new ArrayList();
+	private String m_name = "UnknownPool";
+
+
+	/**
+	 * A sub-pool of a single thread.
+	 */
+	private final static class LocalPool {
+		Object[] m_objects;
+		int m_size, m_capacity;
+		long m_hits, m_misses;
+		int m_windowAccesses, m_windowMisses, m_windowDiscards, m_windowMinimumSize, m_idleWindows;
+
+
+		LocalPool(int capacity) {
+			m_capacity = capacity;
+			m_objects = new Object[java.lang.Math.min(capacity, 16)];
+		}
+	}
+
+
+	/**
+	 * Creates a new pool with the given number of sub-pools.
+	 *
+	 * @param initialCapacity the capacity each sub-pool starts with and will never fall below
+	 * @param maximumCapacity the capacity each sub-pool will never exceed
+	 * @param pools the number of sub-pools
+	 */
+	public AdaptiveObjectPool(int initialCapacity, int maximumCapacity, int pools) {
+		m_initialCapacity = initialCapacity;
+		m_maximumCapacity = java.lang.Math.max(initialCapacity, maximumCapacity);
+		m_poolCount = pools;
+	}
+
+
+	/**
+	 * Returns the sub-pool of the current thread.
+	 *
+	 * @param poolNumber the number of the sub-pool
+	 * @return the sub-pool
+	 */
+	private LocalPool getLocalPool(int poolNumber) {
+		return ((LocalPool[]) m_localPools.get())[poolNumber];
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.util.ObjectPool#getObject(int)
+	 */
+	public Object getObject(int poolNumber) {
+		final LocalPool pool = getLocalPool(poolNumber);
+		if (++pool.m_windowAccesses >= WINDOW) adapt(pool);
+
+		if (pool.m_size > 0) {
+			pool.m_hits++;
+			final Object o = pool.m_objects[--pool.m_size];
+			pool.m_objects[pool.m_size] = null;
+			if (pool.m_size < pool.m_windowMinimumSize) pool.m_windowMinimumSize = pool.m_size;
+			return o;
+		}
+
+		pool.m_misses++;
+		pool.m_windowMisses++;
+		return null;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.util.ObjectPool#getObject()
+	 */
+	public Object getObject() {
+		return getObject(0);
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.util.ObjectPool#repoolObject(java.lang.Object, int)
+	 */
+	public void repoolObject(Object o, int poolNumber) {
+		final LocalPool pool = getLocalPool(poolNumber);
+
+		if ((pool.m_size == pool.m_capacity) && (pool.m_capacity < m_maximumCapacity)
+				&& (pool.m_windowMisses > (1 - TARGET_HIT_RATE) * pool.m_windowAccesses)) {
+			// the pool is full, but objects have been missed recently
+			pool.m_capacity = java.lang.Math.min(2 * pool.m_capacity, m_maximumCapacity);
+			pool.m_idleWindows = 0;
+		}
+
+		if (pool.m_size < pool.m_capacity) {
+			if (pool.m_size == pool.m_objects.length) {
+				final Object[] temp = new Object[java.lang.Math.min(pool.m_capacity, 2 * pool.m_objects.length)];
+				System.arraycopy(pool.m_objects, 0, temp, 0, pool.m_size);
+				pool.m_objects = temp;
+			}
+			pool.m_objects[pool.m_size++] = o;
+		} else {
+			pool.m_windowDiscards++;
+		}
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.util.ObjectPool#repoolObject(java.lang.Object)
+	 */
+	public void repoolObject(Object o) {
+		repoolObject(o, 0);
+	}
+
+
+	/**
+	 * Shrinks the given sub-pool if it has been mostly unused for several windows and starts a new window.
+	 *
+	 * @param pool a sub-pool
+	 */
+	private void adapt(LocalPool pool) {
+		if ((pool.m_windowMisses > 0) || (pool.m_windowDiscards > 0)
+				|| (pool.m_windowMinimumSize <= pool.m_capacity / 2)) {
+			pool.m_idleWindows = 0;
+		} else if (++pool.m_idleWindows >= IDLE_WINDOWS) {
+			// more than half of the objects have not been touched for a while
+			pool.m_idleWindows = 0;
+			pool.m_capacity = java.lang.Math.max(pool.m_capacity / 2, m_initialCapacity);
+			if (pool.m_size > pool.m_capacity) {
+				final Object[] temp = new Object[pool.m_capacity];
+				System.arraycopy(pool.m_objects, 0, temp, 0, pool.m_capacity);
+				pool.m_objects = temp;
+				pool.m_size = pool.m_capacity;
+			}
+		}
+
+		pool.m_windowAccesses = 0;
+		pool.m_windowMisses = 0;
+		pool.m_windowDiscards = 0;
+		pool.m_windowMinimumSize = pool.m_size;
+	}
+
+
+	/**
+	 * Removes all objects from the given sub-pool of the current thread.
+	 *
+	 * @param poolNumber the number of the sub-pool
+	 */
+	public void clear(int poolNumber) {
+		final LocalPool pool = getLocalPool(poolNumber);
+		pool.m_objects = new Object[java.lang.Math.min(pool.m_capacity, 16)];
+		pool.m_size = 0;
+		pool.m_windowMinimumSize = 0;
+	}
+
+
+	/**
+	 * Removes all objects from the given sub-pools of the current thread.
+	 *
+	 * @param fromPool the first sub-pool that should be cleared
+	 * @param toPool the last sub-pool that should be cleared
+	 */
+	public void clear(int fromPool, int toPool) {
+		for (int i = fromPool; i <= toPool; i++) {
+			clear(i);
+		}
+	}
+
+
+	/**
+	 * Removes all objects from all sub-pools of the current thread.
+	 */
+	public void clear() {
+		clear(0, m_poolCount - 1);
+	}
+
+
+	/**
+	 * Returns the number of successful requests for objects from the given sub-pool of all threads. The counters of
+	 * other threads are read without synchronization, so the value is only exact if no other thread uses the pool.
+	 *
+	 * @param poolNumber the number of the sub-pool
+	 * @return the number of hits
+	 */
+	public long getHits(int poolNumber) {
+		long hits = 0;
+		synchronized (m_allPools) {
+			for (int i = 0; i < m_allPools.size(); i++) {
+				hits += ((LocalPool[]) m_allPools.get(i))[poolNumber].m_hits;
+			}
+		}
+		return hits;
+	}
+
+
+	/**
+	 * Returns the number of requests for objects from the given sub-pool of all threads that could not be served. The
+	 * counters of other threads are read without synchronization, so the value is only exact if no other thread uses
+	 * the pool.
+	 *
+	 * @param poolNumber the number of the sub-pool
+	 * @return the number of misses
+	 */
+	public long getMisses(int poolNumber) {
+		long misses = 0;
+		synchronized (m_allPools) {
+			for (int i = 0; i < m_allPools.size(); i++) {
+				misses += ((LocalPool[]) m_allPools.get(i))[poolNumber].m_misses;
+			}
+		}
+		return misses;
+	}
+
+
+	/**
+	 * Returns the current capacity of the given sub-pool of the current thread.
+	 *
+	 * @param poolNumber the number of the sub-pool
+	 * @return the capacity
+	 */
+	public int getCapacity(int poolNumber) {
+		return getLocalPool(poolNumber).m_capacity;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.util.ObjectPool#printStats()
+	 */
+	public void printStats() {
+		for (int i = 0; i < m_poolCount; i++) {
+			final long hits = getHits(i), accesses = hits + getMisses(i);
+			if (accesses > 0) {
+				System.out.println("\t[" + m_name + " " + i + "] " + accesses + " accesses, " + hits + " hits => "
+						+ (hits / (float) accesses));
+			}
+		}
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.util.ObjectPool#getName()
+	 */
+	public String getName() {
+		return m_name;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.util.ObjectPool#setName(java.lang.String)
+	 */
+	public void setName(String newName) {
+		m_name = newName;
+	}
+}
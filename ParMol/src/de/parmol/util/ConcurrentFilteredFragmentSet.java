@@ -0,0 +1,213 @@
+/*
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package de.parmol.util;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.parmol.graph.NodeLabelDegreeComparator;
+import de.parmol.graph.SimpleEdgeComparator;
+import de.parmol.graph.SimpleGraphComparator;
+
+/**
+ * This class is a fragment sink that filters out duplicates like the FilteredFragmentSet and into which several threads
+ * can add fragments at the same time. The fragments are distributed over several shards by their invariant hash code,
+ * each shard is a FilteredFragmentSet with its own lock. As isomorphic fragments have the same invariant hash code,
+ * they always end up in the same shard and duplicates are filtered out as in the FilteredFragmentSet. After the search
+ * the fragments of all shards can be collected into a single FilteredFragmentSet with toFragmentSet(). Iterating over
+ * the set while other threads add fragments is not supported.
+ *
+ * @author agent <agent@local>
+ */
+public class ConcurrentFilteredFragmentSet implements FragmentSink {
+	private final SimpleGraphComparator m_comparator;
+	private final FilteredFragmentSet[] m_shards;
+	private final AtomicInteger m_size = new AtomicInteger(0);
+	private final int m_averageBinSize;
+
+
+	/**
+	 * Creates a new ConcurrentFilteredFragmentSet. The elements inside this set are compared using a
+	 * SimpleGraphComparator.
+	 *
+	 * @param initialSize the size of the whole set
+	 * @param averageBinSize the average number of entries in each bin
+	 * @param shards the number of shards, i.e. the number of threads that may add fragments without blocking each
+	 *          other
+	 */
+	public ConcurrentFilteredFragmentSet(int initialSize, int averageBinSize, int shards) {
+		m_averageBinSize = averageBinSize;
+		m_comparator = new SimpleGraphComparator(NodeLabelDegreeComparator.instance, SimpleEdgeComparator.instance);
+		m_shards = new FilteredFragmentSet[java.lang.Math.max(1, shards)];
+		for (int i = 0; i < m_shards.length; i++) {
+			m_shards[i] = new FilteredFragmentSet(initialSize / m_shards.length, m_comparator, averageBinSize);
+		}
+	}
+
+
+	/**
+	 * Returns the shard for the given invariant hash code. The upper bits are used, as the shards themselves use the
+	 * lower ones.
+	 *
+	 * @param hash the hash code (see FrequentFragment.getInvariantHash())
+	 * @return the shard
+	 */
+	private FilteredFragmentSet getShard(long hash) {
+		return m_shards[(int) ((hash >>> 33) % m_shards.length)];
+	}
+
+
+	/**
+	 * Adds a new FrequentFragment to this set if there is no isomorpic fragment inside yet.
+	 *
+	 * @param fragment the new fragment to be added
+	 * @return <code>true</code> if this set did not already contain the specified fragment
+	 * @see FilteredFragmentSet#add(FrequentFragment)
+	 */
+	public boolean add(FrequentFragment fragment) {
+		final FilteredFragmentSet shard = getShard(fragment.getInvariantHash());
+		final boolean added;
+		synchronized (shard) {
+			added = shard.add(fragment);
+		}
+		if (added) m_size.incrementAndGet();
+		return added;
+	}
+
+
+	/**
+	 * Adds the given fragment to the set without checking for duplicates.
+	 *
+	 * @param fragment a fragments
+	 */
+	public void addUnfiltered(FrequentFragment fragment) {
+		final FilteredFragmentSet shard = getShard(fragment.getInvariantHash());
+		synchronized (shard) {
+			shard.addUnfiltered(fragment);
+		}
+		m_size.incrementAndGet();
+	}
+
+
+	/**
+	 * Returns the number of fragments in this set.
+	 *
+	 * @return the number of fragments
+	 */
+	public int size() {
+		return m_size.get();
+	}
+
+
+	/**
+	 * Returns an iterator over all fragments in this set.
+	 *
+	 * @return an Iterator
+	 */
+	public Iterator iterator() {
+		return new Iterator() {
+			private int m_shard = 0;
+			private Iterator m_shardIterator = m_shards[0].iterator();
+
+			public void remove() { throw new UnsupportedOperationException(); }
+
+			public boolean hasNext() {
+				while (!m_shardIterator.hasNext()) {
+					if (++m_shard >= m_shards.length) return false;
+					m_shardIterator = m_shards[m_shard].iterator();
+				}
+				return true;
+			}
+
+			public Object next() {
+				if (!hasNext()) throw new NoSuchElementException("No more elements");
+				return m_shardIterator.next();
+			}
+		};
+	}
+
+
+	/**
+	 * Returns all fragments in this set in an array.
+	 *
+	 * @return an array of FrequentFragments
+	 */
+	public FrequentFragment[] toArray() {
+		FrequentFragment[] retVal = new FrequentFragment[size()];
+
+		int i = 0;
+		for (Iterator it = iterator(); it.hasNext();) {
+			retVal[i++] = (FrequentFragment) it.next();
+		}
+		return retVal;
+	}
+
+
+	/**
+	 * Collects the fragments of all shards into a new FilteredFragmentSet that uses the same comparator. This must only
+	 * be called if no thread adds fragments any more.
+	 *
+	 * @return a new FilteredFragmentSet with all fragments of this set
+	 */
+	public FilteredFragmentSet toFragmentSet() {
+		final FilteredFragmentSet set = new FilteredFragmentSet(size(), m_comparator, m_averageBinSize);
+		for (Iterator it = iterator(); it.hasNext();) {
+			set.addUnfiltered((FrequentFragment) it.next());
+		}
+		return set;
+	}
+
+
+	/**
+	 * Removes all fragments from this set.
+	 */
+	public void clear() {
+		for (int i = 0; i < m_shards.length; i++) {
+			synchronized (m_shards[i]) {
+				m_shards[i].clear();
+			}
+		}
+		m_size.set(0);
+	}
+
+
+	/**
+	 * Returns the comparator that the shards of this set use.
+	 *
+	 * @return a graph comparator
+	 */
+	public SimpleGraphComparator getComparator() {
+		return m_comparator;
+	}
+
+
+	/**
+	 * Returns the number of duplicated fragments that have been filtered out.
+	 *
+	 * @return the number of duplicate fragments
+	 */
+	public int getDuplicateCounter() {
+		int count = 0;
+		for (int i = 0; i < m_shards.length; i++) {
+			synchronized (m_shards[i]) {
+				count += m_shards[i].getDuplicateCounter();
+			}
+		}
+		return count;
+	}
+}
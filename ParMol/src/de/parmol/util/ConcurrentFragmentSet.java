@@ -0,0 +1,178 @@
+/*
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package de.parmol.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is a FragmentSet into which several threads can add fragments at the same time. Each worker thread gets
+ * its own {@link Buffer} that owns a shard of the set, so workers never wait for each other. Fragments that are added
+ * directly to the set go into a shared shard. Like the FragmentSet it does not check for duplicates. Iterating over the
+ * set while other threads add fragments is not supported.
+ *
+ * @author agent <agent@local>
+ */
+public class ConcurrentFragmentSet extends FragmentSet {
+	private final AtomicInteger m_size = new AtomicInteger(0);
+	private final ArrayList m_buffers = new ArrayList();
+
+
+	/**
+	 * A Buffer collects the fragments of a single worker thread and adds them in batches to the shard it owns. A
+	 * buffer must only be used by one thread at a time.
+	 */
+	public final class Buffer {
+		private final ArrayList m_shard;
+		private final ArrayList m_batch;
+		private final int m_batchSize;
+
+
+		Buffer(ArrayList shard, int batchSize) {
+			m_shard = shard;
+			m_batchSize = batchSize;
+			m_batch = new ArrayList(batchSize);
+		}
+
+
+		/**
+		 * Adds the given fragment to the buffer. If the buffer is full, all buffered fragments are added to the set.
+		 *
+		 * @param fragment the new fragment
+		 */
+		public void add(FrequentFragment fragment) {
+			m_batch.add(fragment);
+			if (m_batch.size() >= m_batchSize) flush();
+		}
+
+
+		/**
+		 * Adds all buffered fragments to the set.
+		 */
+		public void flush() {
+			if (m_batch.size() > 0) {
+				// the lock is only contended if the whole set is read or changed at the same time
+				synchronized (m_shard) {
+					m_shard.addAll(m_batch);
+				}
+				m_size.addAndGet(m_batch.size());
+				m_batch.clear();
+			}
+		}
+	}
+
+
+	/**
+	 * Creates a new ConcurrentFragmentSet.
+	 */
+	public ConcurrentFragmentSet() {
+		super(16);
+	}
+
+
+	/**
+	 * Creates a new buffer that owns a new shard of this set. Each worker thread should use its own buffer.
+	 *
+	 * @param batchSize the number of fragments the buffer collects before it adds them to the set
+	 * @return a new buffer
+	 */
+	public synchronized Buffer newBuffer(int batchSize) {
+		final ArrayList shard = new ArrayList();
+		final ArrayList[] newMap = new ArrayList[m_map.length + 1];
+		System.arraycopy(m_map, 0, newMap, 0, m_map.length);
+		newMap[m_map.length] = shard;
+		m_map = newMap;
+
+		final Buffer buffer = new Buffer(shard, java.lang.Math.max(1, batchSize));
+		m_buffers.add(buffer);
+		return buffer;
+	}
+
+
+	/**
+	 * Adds the fragments that are left in all buffers to the set. This must only be called if no worker uses its buffer
+	 * any more.
+	 */
+	public synchronized void flushBuffers() {
+		for (Iterator it = m_buffers.iterator(); it.hasNext();) {
+			((Buffer) it.next()).flush();
+		}
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.util.FragmentSet#add(de.parmol.util.FrequentFragment)
+	 */
+	public boolean add(FrequentFragment fragment) {
+		synchronized (m_map[0]) {
+			m_map[0].add(fragment);
+		}
+		m_size.incrementAndGet();
+		return true;
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.util.FragmentSet#size()
+	 */
+	public int size() {
+		return m_size.get();
+	}
+
+
+	/**
+	 * Removes the given fragment from the set. As the shard of a fragment depends on the buffer that added it, all
+	 * shards are searched and the given bin is ignored.
+	 *
+	 * @param fragment the fragment that should be removed
+	 * @param bin ignored
+	 */
+	protected synchronized void remove(FrequentFragment fragment, int bin) {
+		for (int i = 0; i < m_map.length; i++) {
+			synchronized (m_map[i]) {
+				for (Iterator it = m_map[i].iterator(); it.hasNext();) {
+					if (it.next() == fragment) {
+						it.remove();
+						m_size.decrementAndGet();
+						return;
+					}
+				}
+			}
+		}
+		throw new IllegalArgumentException("The given object was not found");
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see de.parmol.util.FragmentSet#clear()
+	 */
+	public synchronized void clear() {
+		for (int i = 0; i < m_map.length; i++) {
+			synchronized (m_map[i]) {
+				m_map[i].clear();
+			}
+		}
+		m_size.set(0);
+	}
+}
@@ -20,26 +20,42 @@ package de.parmol.util;
 import java.io.*;
 
 /**
- * This class is for managing debug messages.
+ * This class is for managing debug messages. Each mining run has its own 
+ * instance (see Settings.getDebug()), so concurrent runs do not interfere.
  *
  * @author Marc Woerlein <Marc.Woerlein@informatik.uni-erlangen.de>
  */
 public class Debug{
-	/** the curretn debug level */
-    public static int dlevel;
-    /** the print stream used for debug (default: System.out) */ 
-    public static PrintStream out=System.out;
+	/** the current debug level */
+    private final int dlevel;
+    /** the print stream used for debug */ 
+    private final PrintStream out;
+    
+    /**
+     * creates a new Debug
+     * @param dlevel the debug level
+     * @param out the print stream used for debug
+     */
+    public Debug(int dlevel, PrintStream out){
+        this.dlevel=dlevel;
+        this.out=out;
+    }
+    
+    /** @return the current debug level */
+    public final int getLevel(){ return dlevel; }
+    /** @return the print stream used for debug */
+    public final PrintStream getStream(){ return out; }
     
     /**
      * prints the given text to the debug stream
      * @param text
      */
-    public final static void print(String text){ print(0,text); }
+    public final void print(String text){ print(0,text); }
     /**
      * prints the given text with a leading line break to the debug stream
      * @param text
      */
-    public final static void println(String text){ println(0,text); }
+    public final void println(String text){ println(0,text); }
     
     /**
      * prints the given text to the debug stream, 
@@ -47,7 +63,7 @@ public class Debug{
      * @param level
      * @param text
      */
-    public final static void print(int level,String text){
+    public final void print(int level,String text){
         if (level<=dlevel) out.print(text);
     }
     /**
@@ -56,7 +72,7 @@ public class Debug{
      * @param level
      * @param text
      */
-    public final static void println(int level,String text){
+    public final void println(int level,String text){
         if (level<=dlevel) out.println(text);
     }
 
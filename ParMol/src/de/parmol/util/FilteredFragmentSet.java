@@ -107,7 +107,18 @@ public class FilteredFragmentSet extends FragmentSet {
 	}
 	
 	/**
-	 * Adds a new FrequentFragment to this set if there is no isomorpic fragment inside yet.
+	 * Returns the bin for the given invariant hash code of a fragment.
+	 * @param hash the hash code (see FrequentFragment.getInvariantHash())
+	 * @param bins the number of bins
+	 * @return the bin
+	 */
+	private static int getBin(long hash, int bins) {
+		return (int) ((hash >>> 1) % bins);
+	}
+	
+	/**
+	 * Adds a new FrequentFragment to this set if there is no isomorpic fragment inside yet. Only fragments with the
+	 * same invariant hash code are compared.
 	 * @param fragment the new fragment to be added
 	 * @return <code>true</code> if this set did not already contain the specified fragment
 	 */
@@ -116,13 +127,13 @@ public class FilteredFragmentSet extends FragmentSet {
 			resize((int) java.lang.Math.ceil(m_map.length * 1.23578));
 		}
 		
-		final int hashCode = fragment.getFragment().hashCode();
-		final int bin = java.lang.Math.abs((hashCode ^ (hashCode >> 24) ^ (hashCode >> 15) ^ (hashCode >> 9)) % m_map.length);
+		final long hash = fragment.getInvariantHash();
+		final int bin = getBin(hash, m_map.length);
 				
 		for (Iterator it = m_map[bin].iterator(); it.hasNext();) {
 			FrequentFragment temp = (FrequentFragment) it.next();
 			
-			if (temp.getFragment().hashCode() == hashCode) {				
+			if (temp.getInvariantHash() == hash) {
 				if (m_comparator.compare(fragment.getFragment(), fragment.getNodePartitions(), temp.getFragment(), temp.getNodePartitions()) == 0) {									
 //					Graph g = temp.getFragment();
 //					int lastEdge = g.getEdge(g.getEdgeCount() - 1);
@@ -148,8 +159,7 @@ public class FilteredFragmentSet extends FragmentSet {
 	 * @see de.parmol.util.FragmentSet#remove(de.parmol.util.FrequentFragment, int)
 	 */
 	protected void remove(FrequentFragment fragment, int bin) {
-		final int hashCode = fragment.getFragment().hashCode();
-		bin = java.lang.Math.abs((hashCode ^ (hashCode >> 24) ^ (hashCode >> 15) ^ (hashCode >> 9)) % m_map.length);
+		bin = getBin(fragment.getInvariantHash(), m_map.length);
 		super.remove(fragment, bin);	
 		
 		if (m_entries < 0.1 * m_averageBinSize * m_map.length) {
@@ -168,8 +178,7 @@ public class FilteredFragmentSet extends FragmentSet {
 		for (int i = 0; i < m_map.length; i++) {
 			for (Iterator it = m_map[i].iterator(); it.hasNext();) {
 				FrequentFragment f = (FrequentFragment) it.next();
-				final int hashCode = f.getFragment().hashCode();
-				final int bin = java.lang.Math.abs((hashCode ^ (hashCode >> 24) ^ (hashCode >> 15) ^ (hashCode >> 9)) % temp.length);
+				final int bin = getBin(f.getInvariantHash(), temp.length);
 				
 				temp[bin].add(f);
 			}
@@ -194,8 +203,8 @@ public class FilteredFragmentSet extends FragmentSet {
 			resize((int) java.lang.Math.ceil(m_map.length * 1.23578));
 		}
 		
-		final int hashCode = fragment.getFragment().hashCode();
-		final int bin = java.lang.Math.abs((hashCode ^ (hashCode >> 24) ^ (hashCode >> 15) ^ (hashCode >> 9)) % m_map.length);
+		final long hash = fragment.getInvariantHash();
+		final int bin = getBin(hash, m_map.length);
 				
 		m_map[bin].add(fragment);
 		m_entries++;
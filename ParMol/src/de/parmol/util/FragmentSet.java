@@ -34,7 +34,7 @@ import de.parmol.graph.SimpleSubgraphComparator;
  * 
  * @author Thorsten Meinl <Thorsten.Meinl@informatik.uni-erlangen.de>
  */
-public class FragmentSet {
+public class FragmentSet implements FragmentSink {
 	protected ArrayList[] m_map;
 	protected int m_entries;
 	
@@ -124,7 +124,7 @@ public class FragmentSet {
 			public void remove() { throw new UnsupportedOperationException(); }
 
 			public boolean hasNext() {
-				return (m_count < m_entries);
+				return (m_count < size());
 			}
 
 			public Object next() {
@@ -166,7 +166,7 @@ public class FragmentSet {
 	 * @return an array of FrequentFragments
 	 */
 	public FrequentFragment[] toArray() {
-		FrequentFragment[] retVal = new FrequentFragment[m_entries];
+		FrequentFragment[] retVal = new FrequentFragment[size()];
 		
 		int i = 0;
 		for (int bin = 0; bin < m_map.length; bin++) {
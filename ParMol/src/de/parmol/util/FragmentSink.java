@@ -0,0 +1,33 @@
+/*
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package de.parmol.util;
+
+/**
+ * A FragmentSink receives the frequent fragments found by a search. Every FragmentSet is a FragmentSink; other sinks
+ * only collect the fragments during the search and return them as a FragmentSet afterwards.
+ *
+ * @author agent <agent@local>
+ */
+public interface FragmentSink {
+	/**
+	 * Adds a new FrequentFragment to this sink.
+	 *
+	 * @param fragment the new fragment
+	 * @return <code>true</code> if the fragment was added, <code>false</code> if it was filtered out as a duplicate
+	 */
+	public boolean add(FrequentFragment fragment);
+}
@@ -46,6 +46,7 @@ public class FrequentFragment {
 	private final Graph[] m_supportedGraphs;
 	private final float[] m_classFrequencies;
 	private int[] m_nodePartitions = null;
+	private volatile long m_invariantHash = 0; // 0 if not computed yet
 	private final GraphEmbedding[] m_embeddings;
 
 
@@ -233,6 +234,21 @@ public class FrequentFragment {
 	}
 
 
+	/**
+	 * Returns a hash code of the frequent fragment that is equal for all isomorphic fragments (see
+	 * <code>Util.getInvariantHash(Graph, int[])</code>). The hash code is cached for futher reuse.
+	 * 
+	 * @return the hash code
+	 */
+	public long getInvariantHash() {
+		long hash = m_invariantHash;
+		if (hash == 0) {
+			m_invariantHash = hash = Util.getInvariantHash(m_fragment, getNodePartitions());
+		}
+		return hash;
+	}
+
+
 	/**
 	 * Returns all embeddings of the fragment, or <code>null</code> if no embeddings have been stored
 	 * 
@@ -0,0 +1,117 @@
+/*
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package de.parmol.util.test;
+
+import junit.framework.TestCase;
+import de.parmol.util.AdaptiveObjectPool;
+
+/**
+ * This tests the counters and the adaptive capacity of the AdaptiveObjectPool.
+ *
+ * @author agent <agent@local>
+ */
+public class AdaptiveObjectPoolTest extends TestCase {
+	/**
+	 * Takes the given number of objects from the pool, creating new ones for misses, and puts all of them back.
+	 *
+	 * @param pool the pool
+	 * @param count the number of objects
+	 */
+	private static void burst(AdaptiveObjectPool pool, int count) {
+		Object[] objects = new Object[count];
+		for (int i = 0; i < count; i++) {
+			objects[i] = pool.getObject();
+			if (objects[i] == null) objects[i] = new Object();
+		}
+		for (int i = 0; i < count; i++) {
+			pool.repoolObject(objects[i]);
+		}
+	}
+
+
+	/** */
+	public void testCounters() {
+		AdaptiveObjectPool pool = new AdaptiveObjectPool(4, 4, 2);
+		assertNull(pool.getObject(1));
+
+		Object o = new Object();
+		pool.repoolObject(o, 1);
+		assertNull(pool.getObject(0));
+		assertSame(o, pool.getObject(1));
+		assertNull(pool.getObject(1));
+
+		assertEquals(0, pool.getHits(0));
+		assertEquals(1, pool.getMisses(0));
+		assertEquals(1, pool.getHits(1));
+		assertEquals(2, pool.getMisses(1));
+
+		// the capacity is bounded
+		for (int i = 0; i < 10; i++) {
+			pool.repoolObject(new Object(), 1);
+		}
+		int count = 0;
+		while (pool.getObject(1) != null) count++;
+		assertEquals(4, count);
+	}
+
+
+	/** */
+	public void testGrowAndShrink() {
+		AdaptiveObjectPool pool = new AdaptiveObjectPool(16, 1024, 1);
+
+		// objects are missed because the pool is too small, so it must grow
+		for (int i = 0; i < 100; i++) {
+			burst(pool, 500);
+		}
+		assertTrue(pool.getCapacity(0) >= 500);
+		assertTrue(pool.getCapacity(0) <= 1024);
+
+		long misses = pool.getMisses(0);
+		burst(pool, 500);
+		assertEquals(misses, pool.getMisses(0));
+
+		// only a few objects are needed now, so the pool must shrink again
+		for (int i = 0; i < 100 * AdaptiveObjectPool.WINDOW; i++) {
+			burst(pool, 1);
+		}
+		assertEquals(16, pool.getCapacity(0));
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	public void testThreads() throws Exception {
+		final AdaptiveObjectPool pool = new AdaptiveObjectPool(8, 8, 1);
+		pool.repoolObject(new Object());
+
+		// each thread has its own sub-pools, so the other thread cannot see the object
+		final Object[] result = new Object[] { this };
+		Thread t = new Thread() {
+			public void run() {
+				result[0] = pool.getObject();
+			}
+		};
+		t.start();
+		t.join();
+
+		assertNull(result[0]);
+		assertNotNull(pool.getObject());
+		assertEquals(1, pool.getHits(0));
+		assertEquals(1, pool.getMisses(0));
+	}
+}
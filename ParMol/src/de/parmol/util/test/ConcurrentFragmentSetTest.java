@@ -0,0 +1,193 @@
+/*
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package de.parmol.util.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+
+import junit.framework.TestCase;
+import de.parmol.graph.Graph;
+import de.parmol.graph.UndirectedListGraph;
+import de.parmol.util.ConcurrentFilteredFragmentSet;
+import de.parmol.util.ConcurrentFragmentSet;
+import de.parmol.util.FilteredFragmentSet;
+import de.parmol.util.FrequentFragment;
+import de.parmol.util.GraphGenerator;
+
+/**
+ * This tests the ConcurrentFragmentSet and the ConcurrentFilteredFragmentSet.
+ *
+ * @author agent <agent@local>
+ */
+public class ConcurrentFragmentSetTest extends TestCase {
+	private final static int FRAGMENTS_PER_THREAD = 50000, BATCH_SIZE = 64;
+
+	private Graph m_fragment;
+	private Collection m_supportedGraphs;
+
+
+	protected void setUp() {
+		GraphGenerator.instance.setGraphFactory(UndirectedListGraph.Factory.instance);
+		m_fragment = GraphGenerator.instance.generateGraph(6, 8);
+		m_supportedGraphs = new ArrayList();
+		for (int i = 0; i < 20; i++) {
+			m_supportedGraphs.add(GraphGenerator.instance.generateGraph(10, 12));
+		}
+	}
+
+
+	private FrequentFragment createFragment(int i) {
+		return new FrequentFragment(m_fragment, m_supportedGraphs, new float[] { i });
+	}
+
+
+	/**
+	 * Lets each of the given number of threads add fragments to the given set through its own buffer.
+	 *
+	 * @param set the set
+	 * @param threads the number of threads
+	 * @throws InterruptedException
+	 */
+	private void fill(final ConcurrentFragmentSet set, int threads) throws InterruptedException {
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final ConcurrentFragmentSet.Buffer buffer = set.newBuffer(BATCH_SIZE);
+			workers[t] = new Thread() {
+				public void run() {
+					for (int i = 0; i < FRAGMENTS_PER_THREAD; i++) {
+						buffer.add(createFragment(i));
+					}
+					buffer.flush();
+				}
+			};
+		}
+
+		for (int t = 0; t < threads; t++) workers[t].start();
+		for (int t = 0; t < threads; t++) workers[t].join();
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	public void testConcurrentAdd() throws Exception {
+		ConcurrentFragmentSet set = new ConcurrentFragmentSet();
+		fill(set, 8);
+		assertEquals(8 * FRAGMENTS_PER_THREAD, set.size());
+
+		int[] counts = new int[FRAGMENTS_PER_THREAD];
+		IdentityHashMap seen = new IdentityHashMap();
+		for (Iterator it = set.iterator(); it.hasNext();) {
+			FrequentFragment f = (FrequentFragment) it.next();
+			assertNull(seen.put(f, f));
+			counts[(int) f.getClassFrequencies()[0]]++;
+		}
+		int[] expected = new int[FRAGMENTS_PER_THREAD];
+		Arrays.fill(expected, 8);
+		assertTrue(Arrays.equals(expected, counts));
+		assertEquals(set.size(), set.toArray().length);
+	}
+
+
+	/** */
+	public void testFlushBuffers() {
+		ConcurrentFragmentSet set = new ConcurrentFragmentSet();
+		ConcurrentFragmentSet.Buffer first = set.newBuffer(3), second = set.newBuffer(3);
+		for (int i = 0; i < 4; i++) {
+			first.add(createFragment(i));
+		}
+		second.add(createFragment(4));
+		set.add(createFragment(5));
+
+		// only the first full batch and the directly added fragment are in the set so far
+		assertEquals(4, set.size());
+		set.flushBuffers();
+		assertEquals(6, set.size());
+		assertEquals(6, set.toArray().length);
+	}
+
+
+	/** */
+	public void testRemove() {
+		ConcurrentFragmentSet set = new ConcurrentFragmentSet();
+		FrequentFragment a = createFragment(1), b = createFragment(1);
+		set.add(a);
+		set.newBuffer(1).add(b);
+
+		// both fragments are isomorphic and have the same frequencies, so only one of them is closed
+		set.filterClosedFragments();
+		assertEquals(1, set.size());
+		assertEquals(1, set.toArray().length);
+
+		set.clear();
+		assertEquals(0, set.size());
+		assertFalse(set.iterator().hasNext());
+	}
+
+
+	/**
+	 * @throws Exception
+	 */
+	public void testConcurrentFilteredAdd() throws Exception {
+		// the second half are copies of the first half
+		final Graph[] graphs = new Graph[200];
+		for (int i = 0; i < graphs.length / 2; i++) {
+			graphs[i] = GraphGenerator.instance.generateGraph(4, 4);
+			graphs[i + graphs.length / 2] = (Graph) graphs[i].clone();
+		}
+
+		FilteredFragmentSet expected = new FilteredFragmentSet();
+		for (int i = 0; i < graphs.length; i++) {
+			expected.add(new FrequentFragment(graphs[i], m_supportedGraphs, new float[] { 1 }));
+		}
+		assertTrue(expected.size() <= graphs.length / 2);
+
+		final ConcurrentFilteredFragmentSet set = new ConcurrentFilteredFragmentSet(100, 5, 3);
+		Thread[] workers = new Thread[8];
+		for (int t = 0; t < workers.length; t++) {
+			workers[t] = new Thread() {
+				public void run() {
+					for (int i = 0; i < graphs.length; i++) {
+						set.add(new FrequentFragment((Graph) graphs[i].clone(), m_supportedGraphs, new float[] { 1 }));
+					}
+				}
+			};
+			workers[t].start();
+		}
+		for (int t = 0; t < workers.length; t++) workers[t].join();
+
+		assertEquals(expected.size(), set.size());
+		assertEquals(workers.length * graphs.length - expected.size(), set.getDuplicateCounter());
+		assertEquals(set.size(), set.toArray().length);
+		for (Iterator it = expected.iterator(); it.hasNext();) {
+			assertFalse(set.add((FrequentFragment) it.next()));
+		}
+
+		// the collected set contains all fragments of the shards and can be filtered like any other set
+		final FilteredFragmentSet collected = set.toFragmentSet();
+		assertEquals(set.size(), collected.size());
+		assertEquals(collected.size(), collected.toArray().length);
+		for (Iterator it = expected.iterator(); it.hasNext();) {
+			assertFalse(collected.add((FrequentFragment) it.next()));
+		}
+		collected.filterClosedFragments();
+		assertEquals(expected.size(), collected.size());
+	}
+}
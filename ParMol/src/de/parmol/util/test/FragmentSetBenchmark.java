@@ -0,0 +1,167 @@
+/*
+ * This file is part of ParMol.
+ * ParMol is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * ParMol is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ParMol; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package de.parmol.util.test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.parmol.graph.Graph;
+import de.parmol.graph.UndirectedListGraph;
+import de.parmol.graph.UndirectedMatrixGraph;
+import de.parmol.util.ConcurrentFragmentSet;
+import de.parmol.util.FragmentSet;
+import de.parmol.util.FrequentFragment;
+import de.parmol.util.GraphGenerator;
+
+/**
+ * This benchmark compares the number of fragments per ms several threads can report into a FragmentSet that is
+ * locked for each fragment (as FFSM did before) with the number they can report through the buffers of a
+ * ConcurrentFragmentSet. As in FFSM, the fragments are matrix graphs that are converted into list graphs when the
+ * FrequentFragment is created.
+ * <p>
+ * Besides the throughput the benchmark prints how long the threads hold a lock of the set per fragment, which limits
+ * the throughput no matter how many processors are available. For the buffers this is the time of the add calls that
+ * flush a batch, which includes more than the lock.
+ * <p>
+ * Usage: <code>FragmentSetBenchmark [threads...]</code>, the default is 1, 2, 4 and 8 threads.
+ *
+ * @author agent <agent@local>
+ */
+public class FragmentSetBenchmark {
+	private final static int FRAGMENTS_PER_THREAD = 50000, BATCH_SIZE = 64, ROUNDS = 5;
+
+	private final Graph m_fragment;
+	private final Collection m_supportedGraphs;
+	final AtomicLong m_lockedNanos = new AtomicLong();
+
+
+	private FragmentSetBenchmark() {
+		GraphGenerator.instance.setGraphFactory(UndirectedMatrixGraph.Factory.instance);
+		m_fragment = GraphGenerator.instance.generateGraph(8, 9);
+		GraphGenerator.instance.setGraphFactory(UndirectedListGraph.Factory.instance);
+		m_supportedGraphs = new ArrayList();
+		for (int i = 0; i < 20; i++) {
+			m_supportedGraphs.add(GraphGenerator.instance.generateGraph(10, 12));
+		}
+	}
+
+
+	FrequentFragment createFragment(int i) {
+		return new FrequentFragment(m_fragment, m_supportedGraphs, new float[] { i });
+	}
+
+
+	/**
+	 * Lets each of the given number of threads add fragments to the given set and returns the time this took.
+	 *
+	 * @param set a FragmentSet that is locked for each fragment or a ConcurrentFragmentSet whose buffers are used
+	 * @param threads the number of threads
+	 * @return the time in ms
+	 * @throws InterruptedException
+	 */
+	private long fill(final FragmentSet set, int threads) throws InterruptedException {
+		m_lockedNanos.set(0);
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			if (set instanceof ConcurrentFragmentSet) {
+				final ConcurrentFragmentSet.Buffer buffer = ((ConcurrentFragmentSet) set).newBuffer(BATCH_SIZE);
+				workers[t] = new Thread() {
+					public void run() {
+						long lockedNanos = 0;
+						for (int i = 0; i < FRAGMENTS_PER_THREAD; i++) {
+							final FrequentFragment fragment = createFragment(i);
+							if ((i + 1) % BATCH_SIZE == 0) {
+								final long start = System.nanoTime();
+								buffer.add(fragment);
+								lockedNanos += System.nanoTime() - start;
+							} else {
+								buffer.add(fragment);
+							}
+						}
+						final long start = System.nanoTime();
+						buffer.flush();
+						m_lockedNanos.addAndGet(lockedNanos + System.nanoTime() - start);
+					}
+				};
+			} else {
+				workers[t] = new Thread() {
+					public void run() {
+						long lockedNanos = 0;
+						for (int i = 0; i < FRAGMENTS_PER_THREAD; i++) {
+							synchronized (set) {
+								final long start = System.nanoTime();
+								set.add(createFragment(i));
+								lockedNanos += System.nanoTime() - start;
+							}
+						}
+						m_lockedNanos.addAndGet(lockedNanos);
+					}
+				};
+			}
+		}
+
+		final long start = System.currentTimeMillis();
+		for (int t = 0; t < threads; t++) workers[t].start();
+		for (int t = 0; t < threads; t++) workers[t].join();
+		final long time = System.currentTimeMillis() - start;
+
+		if (set.size() != threads * FRAGMENTS_PER_THREAD) {
+			throw new IllegalStateException("Expected " + (threads * FRAGMENTS_PER_THREAD) + " fragments, but found "
+					+ set.size());
+		}
+		return java.lang.Math.max(1, time);
+	}
+
+
+	/**
+	 * Runs the benchmark for the given numbers of threads.
+	 *
+	 * @param args the numbers of threads
+	 * @throws InterruptedException
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int[] threadCounts = { 1, 2, 4, 8 };
+		if (args.length > 0) {
+			threadCounts = new int[args.length];
+			for (int i = 0; i < args.length; i++) {
+				threadCounts[i] = Integer.parseInt(args[i]);
+			}
+		}
+
+		FragmentSetBenchmark benchmark = new FragmentSetBenchmark();
+		benchmark.fill(new FragmentSet(), 8); // warm up
+		benchmark.fill(new ConcurrentFragmentSet(), 8);
+
+		for (int i = 0; i < threadCounts.length; i++) {
+			final int threads = threadCounts[i];
+			long lockedTime = Long.MAX_VALUE, bufferedTime = Long.MAX_VALUE;
+			long lockedNanos = Long.MAX_VALUE, bufferedNanos = Long.MAX_VALUE;
+			for (int r = 0; r < ROUNDS; r++) { // take the best of several rounds to hide the garbage collector
+				lockedTime = java.lang.Math.min(lockedTime, benchmark.fill(new FragmentSet(), threads));
+				lockedNanos = java.lang.Math.min(lockedNanos, benchmark.m_lockedNanos.get());
+				bufferedTime = java.lang.Math.min(bufferedTime, benchmark.fill(new ConcurrentFragmentSet(), threads));
+				bufferedNanos = java.lang.Math.min(bufferedNanos, benchmark.m_lockedNanos.get());
+			}
+
+			final int fragments = threads * FRAGMENTS_PER_THREAD;
+			System.out.println(threads + " threads: synchronized " + (fragments / lockedTime) + " fragments/ms, "
+					+ (lockedNanos / fragments) + " ns locked per fragment; buffered " + (fragments / bufferedTime)
+					+ " fragments/ms, " + (bufferedNanos / fragments) + " ns locked per fragment");
+		}
+	}
+}